@@ -0,0 +1,207 @@
+package com.merge.merge_backend.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Article HTML kept Deflate-compressed in off-heap memory, keyed by "source/id".
+ *
+ * Rendered bodies are by far the largest part of a cached article and compress several times over,
+ * so the detail caches keep only the metadata on the heap and hand the body to this store. Bodies
+ * are allocated in {@linkplain Arena#ofAuto() automatic} arenas: a replaced, invalidated or evicted
+ * body is simply dropped and its memory is returned once the GC finds the segment unreachable.
+ * Closing a shared arena per body would instead stop every thread for a handshake on each
+ * eviction, which a store that turns over thousands of bodies cannot afford. The budget counts
+ * live bodies only, so off-heap usage may briefly run past it until the next GC.
+ *
+ * The store has its own budget in compressed bytes and evicts least recently read bodies first.
+ * Bodies that nobody has asked for yet (the ones that come along with list pages) go through
+ * {@link #putIfRoom}, which never evicts, so a scan of list pages cannot push out bodies that were
+ * actually opened.
+ * Callers must cope with {@link #get} returning null at any time and fetch the article again.
+ */
+public class BodyStore implements AutoCloseable {
+
+    public record Stats(int size, long storedBytes, long rawBytes, long maxBytes,
+                        long hits, long misses, long evictions, long rejections) {
+        /** 圧縮後 / 圧縮前。小さいほどよく縮んでいる */
+        public double getCompressionRatio() {
+            return rawBytes == 0 ? 0 : (double) storedBytes / rawBytes;
+        }
+    }
+
+    private record Blob(MemorySegment segment, int rawLength) {}
+
+    private final long maxBytes;
+    private final int compressionLevel;
+
+    // アクセス順。先頭が最も長く読まれていない
+    private final LinkedHashMap<String, Blob> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedBytes;
+    private long rawBytes;
+    private boolean closed;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    public BodyStore(long maxBytes, int compressionLevel) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Compresses and stores {@code body} under {@code key}, replacing any previous body.
+     * Returns false when the body was not stored (null, or larger than the whole budget even compressed);
+     * any previous body under the key is dropped in that case too.
+     */
+    public boolean put(String key, String body) {
+        return store(key, body, true);
+    }
+
+    /**
+     * Like {@link #put}, but only stores {@code body} when it fits in the free part of the budget
+     * (counting the body it replaces under the same key), so no other body is evicted for it.
+     * Returns false when it does not fit; the previous body under the key is kept in that case.
+     */
+    public boolean putIfRoom(String key, String body) {
+        if (body == null) return false;
+        return store(key, body, false);
+    }
+
+    private boolean store(String key, String body, boolean evict) {
+        if (body == null) {
+            invalidate(key);
+            return false;
+        }
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+        // 圧縮はロックの外で行う
+        byte[] compressed = deflate(raw);
+        if (compressed.length > maxBytes) {
+            synchronized (this) {
+                rejections++;
+                remove(key);
+            }
+            return false;
+        }
+        MemorySegment segment = Arena.ofAuto().allocate(compressed.length);
+        MemorySegment.copy(compressed, 0, segment, ValueLayout.JAVA_BYTE, 0, compressed.length);
+        synchronized (this) {
+            if (closed) return false;
+            if (!evict) {
+                Blob old = blobs.get(key);
+                long free = maxBytes - storedBytes + (old != null ? old.segment().byteSize() : 0);
+                if (compressed.length > free) return false;
+            }
+            remove(key);
+            blobs.put(key, new Blob(segment, raw.length));
+            storedBytes += compressed.length;
+            rawBytes += raw.length;
+            evictIfNeeded();
+        }
+        return true;
+    }
+
+    /** Returns the decompressed body, or null when it is not (or no longer) stored. */
+    public String get(String key) {
+        Blob blob;
+        synchronized (this) {
+            blob = closed ? null : blobs.get(key);
+            if (blob == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        // 参照している間は追い出されてもメモリは解放されないので、写しと展開はロックの外で行う
+        byte[] compressed = blob.segment().toArray(ValueLayout.JAVA_BYTE);
+        return new String(inflate(compressed, blob.rawLength()), StandardCharsets.UTF_8);
+    }
+
+    public synchronized boolean contains(String key) {
+        return blobs.containsKey(key);
+    }
+
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(blobs.size(), storedBytes, rawBytes, maxBytes, hits, misses, evictions, rejections);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        blobs.clear();
+        storedBytes = rawBytes = 0;
+        closed = true;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Blob>> it = blobs.entrySet().iterator();
+        while (storedBytes > maxBytes && it.hasNext()) {
+            Blob victim = it.next().getValue();
+            it.remove();
+            release(victim);
+            evictions++;
+        }
+    }
+
+    private void remove(String key) {
+        Blob old = blobs.remove(key);
+        if (old != null) release(old);
+    }
+
+    private void release(Blob blob) {
+        storedBytes -= blob.segment().byteSize();
+        rawBytes -= blob.rawLength();
+    }
+
+    private byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, rawLength - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                offset += n;
+            }
+            if (offset != rawLength) throw new DataFormatException("expected " + rawLength + " bytes, got " + offset);
+            return raw;
+        } catch (DataFormatException e) {
+            // 自分で圧縮したデータなので通常は起こらない
+            throw new IllegalStateException("Corrupted body in off-heap store", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.merge.merge_backend.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory cache bounded by an estimated byte budget, evicting with W-TinyLFU.
+ *
+ * New entries land in a small LRU window (1% of the budget). Entries pushed out of the window
+ * compete for a place in the main area against its least recently used probation entry; the one
+ * the {@link FrequencySketch} has seen more often wins, so a burst of one-off keys (odd search
+ * terms, random periods) cannot flush the entries that are requested all the time. The main area
+ * is a segmented LRU: a probation entry that is read again moves to the protected segment (80% of
+ * the main area).
+ *
+ * A value heavier than the whole budget is not cached at all. Such a put is logged and counted in
+ * {@link Stats#rejections()}, so a budget that is too small for a list shows up instead of every
+ * request for that list silently going to the upstream.
+ *
+ * Every operation takes the cache's monitor; the caches hold at most a few thousand entries,
+ * and their values are fetched from upstream APIs, so the lock is never the bottleneck.
+ */
+public class BoundedCache<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedCache.class);
+
+    /** Estimated retained size of an entry in bytes. */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+        long weigh(K key, V value);
+    }
+
+    public record Stats(String name, long hits, long misses, long evictions, long rejections,
+                        int size, long weightedSize, long maxWeight) {
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        long weight;
+        Segment segment;
+
+        Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /** 平均エントリサイズの目安。頻度スケッチの幅をこれで見積もる */
+    private static final long TYPICAL_ENTRY_BYTES = 4 * 1024;
+
+    private final String name;
+    private final long maxWeight;
+    private final long windowMax;
+    private final long mainMax;
+    private final long protectedMax;
+    private final Weigher<K, V> weigher;
+    private final FrequencySketch sketch;
+
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    // 挿入順 = LRU 順。先頭が最も古い
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    public BoundedCache(String name, long maxWeight, Weigher<K, V> weigher) {
+        this.name = name;
+        this.maxWeight = Math.max(1, maxWeight);
+        this.windowMax = Math.max(1, this.maxWeight / 100);
+        this.mainMax = this.maxWeight - windowMax;
+        this.protectedMax = mainMax * 8 / 10;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 16, Math.max(256, this.maxWeight / TYPICAL_ENTRY_BYTES)));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Returns the cached value, recording a hit or miss and the access frequency of the key. */
+    public synchronized V getIfPresent(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /** Returns the cached value without touching statistics, frequency or recency. */
+    public synchronized V peek(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null ? node.value : null;
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = Math.max(1, weigher.weigh(key, value));
+        Node<K, V> node = data.get(key);
+        if (weight > maxWeight) {
+            // 予算を 1 件で食い潰す値はキャッシュしない。予算の設定ミスに気付けるよう毎回残す
+            if (node != null) remove(node);
+            rejections++;
+            log.warn("[{}] Not caching {}: weighs {} bytes, over the whole budget of {} bytes ({} rejected so far)",
+                    name, key, weight, maxWeight, rejections);
+            return;
+        }
+        if (node != null) {
+            addWeight(node.segment, weight - node.weight);
+            node.value = value;
+            node.weight = weight;
+            onAccess(node);
+        } else {
+            sketch.increment(key);
+            node = new Node<>(key, value, weight);
+            data.put(key, node);
+            link(node, Segment.WINDOW);
+        }
+        evictIfNeeded();
+    }
+
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) remove(node);
+    }
+
+    public synchronized void invalidateAll() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = probationWeight = protectedWeight = 0;
+    }
+
+    /** Visits every entry without affecting eviction order. */
+    public synchronized void forEach(BiConsumer<K, V> action) {
+        data.forEach((k, node) -> action.accept(k, node.value));
+    }
+
+    /**
+     * Copies the entries out, without affecting eviction order. For scans that do real work per
+     * entry, so that they do not hold the monitor while other threads wait to read the cache.
+     */
+    public synchronized List<Map.Entry<K, V>> entries() {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(data.size());
+        data.forEach((k, node) -> entries.add(Map.entry(k, node.value)));
+        return entries;
+    }
+
+    /**
+     * Evicts entries, least valuable first, until the weighted size is at most
+     * {@code maxWeight * targetRatio}. Returns the number of evicted entries.
+     */
+    public synchronized int shed(double targetRatio) {
+        long target = (long) (maxWeight * Math.max(0, Math.min(1, targetRatio)));
+        int evicted = 0;
+        while (weightedSize() > target) {
+            Node<K, V> victim = firstOf(probation, window, protectedSegment);
+            if (victim == null) break;
+            evict(victim);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(name, hits, misses, evictions, rejections, data.size(), weightedSize(), maxWeight);
+    }
+
+    // ── W-TinyLFU ───────────────────────────────────────────────────
+
+    private void onAccess(Node<K, V> node) {
+        switch (node.segment) {
+            case WINDOW, PROTECTED -> {
+                unlink(node);
+                link(node, node.segment);
+            }
+            case PROBATION -> {
+                unlink(node);
+                link(node, Segment.PROTECTED);
+                // protected から溢れた分は probation の末尾へ戻す
+                while (protectedWeight > protectedMax) {
+                    Node<K, V> demoted = firstOf(protectedSegment);
+                    if (demoted == null || demoted == node) break;
+                    unlink(demoted);
+                    link(demoted, Segment.PROBATION);
+                }
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (windowWeight > windowMax) {
+            Node<K, V> candidate = firstOf(window);
+            if (candidate == null) break;
+            unlink(candidate);
+            admit(candidate);
+        }
+        // 1 件が主領域より大きい場合などの保険
+        while (weightedSize() > maxWeight) {
+            Node<K, V> victim = firstOf(probation, protectedSegment, window);
+            if (victim == null) break;
+            evict(victim);
+        }
+    }
+
+    /** window から押し出された候補を、主領域の LRU 側と頻度で比べて入れるか決める */
+    private void admit(Node<K, V> candidate) {
+        while (probationWeight + protectedWeight + candidate.weight > mainMax) {
+            Node<K, V> victim = firstOf(probation, protectedSegment);
+            if (victim == null) break;
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                data.remove(candidate.key);
+                evictions++;
+                return;
+            }
+        }
+        link(candidate, Segment.PROBATION);
+    }
+
+    private void evict(Node<K, V> node) {
+        remove(node);
+        evictions++;
+    }
+
+    private void remove(Node<K, V> node) {
+        unlink(node);
+        data.remove(node.key);
+    }
+
+    private void link(Node<K, V> node, Segment segment) {
+        node.segment = segment;
+        segmentMap(segment).put(node.key, node);
+        addWeight(segment, node.weight);
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (segmentMap(node.segment).remove(node.key) != null) {
+            addWeight(node.segment, -node.weight);
+        }
+    }
+
+    private void addWeight(Segment segment, long delta) {
+        switch (segment) {
+            case WINDOW -> windowWeight += delta;
+            case PROBATION -> probationWeight += delta;
+            case PROTECTED -> protectedWeight += delta;
+        }
+    }
+
+    private LinkedHashMap<K, Node<K, V>> segmentMap(Segment segment) {
+        return switch (segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    @SafeVarargs
+    private static <K, V> Node<K, V> firstOf(LinkedHashMap<K, Node<K, V>>... segments) {
+        for (LinkedHashMap<K, Node<K, V>> segment : segments) {
+            Iterator<Node<K, V>> it = segment.values().iterator();
+            if (it.hasNext()) return it.next();
+        }
+        return null;
+    }
+
+    private long weightedSize() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+}
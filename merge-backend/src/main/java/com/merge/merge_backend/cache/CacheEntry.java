@@ -0,0 +1,25 @@
+package com.merge.merge_backend.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A cached value together with when it was fetched and when it stops being fresh.
+ * Expired entries are not discarded: callers may keep serving them while a revalidation
+ * runs, or when the upstream is failing.
+ */
+public record CacheEntry<T>(T value, Instant fetchedAt, Instant expiresAt) {
+
+    public static <T> CacheEntry<T> of(T value, Instant now, long ttlSeconds) {
+        return new CacheEntry<>(value, now, now.plusSeconds(ttlSeconds));
+    }
+
+    public boolean isFresh(Instant now) {
+        return now.isBefore(expiresAt);
+    }
+
+    /** HTTP Age ヘッダ用の経過秒数（負にはならない） */
+    public long getAgeSeconds(Instant now) {
+        return Math.max(0, Duration.between(fetchedAt, now).toSeconds());
+    }
+}
@@ -0,0 +1,87 @@
+package com.merge.merge_backend.cache;
+
+import com.merge.merge_backend.config.CacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Creates every {@link BoundedCache} of the application with its configured byte budget and keeps
+ * track of them, so their statistics can be reported together and all of them shed entries when
+ * the heap runs short.
+ *
+ * Heap pressure is detected with the JVM's collection usage threshold: when a heap pool is still
+ * above {@code cache.heap-pressure.threshold-ratio} of its maximum right after a GC, each cache is
+ * trimmed to {@code cache.heap-pressure.shed-ratio} of its budget.
+ */
+public class CacheRegistry implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheRegistry.class);
+
+    private final CacheProperties cacheProperties;
+    private final List<BoundedCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private NotificationListener heapListener;
+
+    public CacheRegistry(CacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+
+    public <K, V> BoundedCache<K, V> create(String name, BoundedCache.Weigher<K, V> weigher) {
+        long maxWeight = cacheProperties.getStore(name).getMaxWeight().toBytes();
+        BoundedCache<K, V> cache = new BoundedCache<>(name, maxWeight, weigher);
+        caches.add(cache);
+        return cache;
+    }
+
+    public List<BoundedCache.Stats> stats() {
+        return caches.stream().map(BoundedCache::stats).toList();
+    }
+
+    /** 全キャッシュを予算の shedRatio まで縮める */
+    public void shedAll() {
+        double ratio = cacheProperties.getHeapPressure().getShedRatio();
+        for (BoundedCache<?, ?> cache : caches) {
+            int evicted = cache.shed(ratio);
+            if (evicted > 0) log.warn("[Cache] Heap pressure: shed {} entries from {}", evicted, cache.getName());
+        }
+    }
+
+    /** Arms the collection usage threshold on heap pools and sheds all caches when it is crossed. */
+    public synchronized void startHeapPressureMonitor() {
+        if (heapListener != null) return;
+        double thresholdRatio = cacheProperties.getHeapPressure().getThresholdRatio();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage() != null ? pool.getUsage().getMax() : -1;
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * thresholdRatio));
+                log.info("[Cache] Heap pressure threshold armed on '{}' at {}%", pool.getName(),
+                        Math.round(thresholdRatio * 100));
+            }
+        }
+        heapListener = (Notification n, Object handback) -> {
+            if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(n.getType())) shedAll();
+        };
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(heapListener, null, null);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (heapListener == null) return;
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(heapListener);
+        } catch (ListenerNotFoundException ignored) {
+            // 既に外れている
+        }
+        heapListener = null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.merge.merge_backend.cache;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last {@link EncodedBody} per key, remembered together with the value it was encoded from.
+ * Cached lists are immutable and replaced on refresh, so the body is reused for as long as the
+ * same list instance is passed in and re-encoded once when a new one arrives.
+ *
+ * Keys must come from a small fixed set (e.g. normalized periods); entries are never evicted.
+ */
+public class EncodedBodies<K> {
+
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private record Slot(Object source, EncodedBody body) {}
+
+    private final Map<K, Slot> slots = new ConcurrentHashMap<>();
+
+    public EncodedBody encode(K key, Object value) {
+        Slot slot = slots.get(key);
+        if (slot != null && slot.source() == value) return slot.body();
+        // 同時に来たら二重に直列化することもあるが、結果は同じなので後勝ちでよい
+        EncodedBody body = EncodedBody.of(MAPPER.writeValueAsBytes(value));
+        slots.put(key, new Slot(value, body));
+        return body;
+    }
+}
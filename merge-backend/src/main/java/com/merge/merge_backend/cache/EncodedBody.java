@@ -0,0 +1,49 @@
+package com.merge.merge_backend.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once: the JSON bytes, their gzip variant and a strong ETag over the
+ * JSON bytes. Controllers write these as-is, so repeated requests for an unchanged list cost no
+ * serialization or compression. The arrays are shared; callers must not modify them.
+ *
+ * The gzip bytes are a different representation, so they carry their own strong tag
+ * ({@link #gzipEtag()}, the same hash with a {@code -gz} suffix).
+ */
+public record EncodedBody(byte[] json, byte[] gzip, String etag) {
+
+    /** gzip の本文に付ける ETag。強い ETag はバイト列ごとに変える */
+    public String gzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    public static EncodedBody of(byte[] json) {
+        return new EncodedBody(json, gzip(json), etag(json));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /** 内容のハッシュから作る強い ETag。同じ JSON なら再起動や別インスタンスでも同じ値になる */
+    private static String etag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.merge.merge_backend.cache;
+
+/**
+ * Approximate access frequency of keys (count-min sketch with 4-bit saturating counters).
+ *
+ * Each key maps to one counter in each of four rows; its frequency is the minimum of those
+ * counters. After {@code 10 * width} increments every counter is halved, so the history ages
+ * and keys that were popular long ago lose their advantage over newly popular ones.
+ */
+final class FrequencySketch {
+
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+    private final byte[][] rows;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+        this.rows = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            min = Math.min(min, rows[i][index(hash, i)]);
+        }
+        return min;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int idx = index(hash, i);
+            if (rows[i][idx] < MAX_COUNT) {
+                rows[i][idx]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    /** 全カウンタを半減させて古い人気を忘れさせる */
+    private void reset() {
+        for (byte[] row : rows) {
+            for (int i = 0; i < row.length; i++) row[i] >>= 1;
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,43 @@
+package com.merge.merge_backend.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Merges an incremental fetch into a cached hot list.
+ *
+ * Items in {@code updates} replace the cached item with the same id (fresh like / stock counts)
+ * or are added when new. Items that no longer pass {@code keep} (fell out of the period window
+ * or below the threshold) are dropped, and the result is re-sorted. Items the delta did not
+ * return keep their cached counts until the next full rebuild.
+ */
+public final class HotListDelta {
+
+    public record Result<T>(List<T> items, int updated, int added, int evicted) {}
+
+    private HotListDelta() {}
+
+    public static <T> Result<T> merge(List<T> current, List<T> updates, Function<T, String> id,
+                                      Predicate<T> keep, Comparator<T> order) {
+        Map<String, T> byId = new LinkedHashMap<>();
+        for (T item : current) byId.put(id.apply(item), item);
+        int updated = 0;
+        int added = 0;
+        for (T item : updates) {
+            String key = id.apply(item);
+            if (key == null) continue;
+            if (byId.put(key, item) != null) updated++; else added++;
+        }
+        List<T> merged = new ArrayList<>(byId.size());
+        for (T item : byId.values()) {
+            if (keep.test(item)) merged.add(item);
+        }
+        merged.sort(order);
+        return new Result<>(merged, updated, added, byId.size() - merged.size());
+    }
+}
@@ -0,0 +1,150 @@
+package com.merge.merge_backend.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Index of every upstream item currently held by some cache, keyed by (source, id).
+ *
+ * All list and detail fetches pass their items through {@link #intern}: when the registry already
+ * holds the same version of an item, the caller gets that instance back, so the same article
+ * appearing in the week, month and year hot lists (and in search results) is kept in memory once.
+ * Detail lookups can then be answered from {@link #lookup} when the item was fetched recently
+ * enough.
+ *
+ * Items are compared by a version key the caller derives from the upstream fields that change when
+ * the article does (updated_at and the counters), captured when the item is interned. The DTOs are
+ * mutable, so {@code equals} would compare whatever state they are in now; an interned item is
+ * shared and must not be modified afterwards (copy it instead, as {@code withRenderedBody} does).
+ *
+ * The registry holds weak references, so it never keeps an item alive on its own account beyond a
+ * small, bounded index of the most recently interned items ({@code maxRecent}, LRU). An item stays
+ * findable while some cache refers to it or while it is among the recent ones (so a detail just
+ * evicted from detailCache can still be found here), and becomes collectable at the next GC after
+ * that. Soft references would instead survive GCs until the heap is nearly full, which keeps the
+ * post-GC usage high and makes the CacheRegistry heap-pressure monitor shed the real caches.
+ */
+public class ItemRegistry {
+
+    public record Registered<T>(T item, Instant fetchedAt) {}
+
+    public record Stats(int size, int recent, long shared, long replaced, long hits, long misses) {}
+
+    private record Key(String source, String id) {}
+
+    /** GC 後に ReferenceQueue から slot を消せるよう key を持たせる。version は登録時の値で、後から変わらない */
+    private static final class ItemRef extends WeakReference<Object> {
+        final Key key;
+        final String version;
+        volatile Instant fetchedAt;
+
+        ItemRef(Key key, Object item, String version, Instant fetchedAt, ReferenceQueue<Object> queue) {
+            super(item, queue);
+            this.key = key;
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    public static final int DEFAULT_MAX_RECENT = 2_000;
+
+    private final ConcurrentHashMap<Key, ItemRef> refs = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    /** 直近に登録した item を強参照で持つ LRU。これだけがレジストリ自身の保持分で、件数で上限を切る */
+    private final Map<Key, Object> recent;
+
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ItemRegistry() {
+        this(DEFAULT_MAX_RECENT);
+    }
+
+    public ItemRegistry(int maxRecent) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > maxRecent;
+            }
+        };
+    }
+
+    /**
+     * Registers an item fetched at {@code fetchedAt} and returns the instance callers should keep:
+     * the already registered one if it has the same {@code version}, otherwise {@code item} itself.
+     * A null version is never shared.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T intern(String source, String id, String version, T item, Instant fetchedAt) {
+        if (id == null || item == null) return item;
+        purgeCollected();
+        Object[] result = new Object[1];
+        Key registered = new Key(source, id);
+        refs.compute(registered, (key, current) -> {
+            Object existing = current != null ? current.get() : null;
+            if (existing != null && version != null && version.equals(current.version)
+                    && existing.getClass() == item.getClass()) {
+                // 版が同じなら既存インスタンスを使い回し、確認時刻だけ進める
+                shared.increment();
+                current.fetchedAt = fetchedAt;
+                result[0] = existing;
+                return current;
+            }
+            if (existing != null) replaced.increment();
+            result[0] = item;
+            return new ItemRef(key, item, version, fetchedAt, collected);
+        });
+        synchronized (recent) {
+            recent.put(registered, result[0]);
+        }
+        return (T) result[0];
+    }
+
+    public <T> List<T> internAll(String source, List<T> items, Function<T, String> idOf,
+                                 Function<T, String> versionOf, Instant fetchedAt) {
+        List<T> interned = new ArrayList<>(items.size());
+        for (T item : items) {
+            interned.add(item != null ? intern(source, idOf.apply(item), versionOf.apply(item), item, fetchedAt) : null);
+        }
+        return interned;
+    }
+
+    /** Returns the registered item if it has not been cleared yet and is of the given type. */
+    public <T> Registered<T> lookup(String source, String id, Class<T> type) {
+        ItemRef ref = id != null ? refs.get(new Key(source, id)) : null;
+        Object item = ref != null ? ref.get() : null;
+        if (!type.isInstance(item)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Registered<>(type.cast(item), ref.fetchedAt);
+    }
+
+    public Stats stats() {
+        purgeCollected();
+        int recentSize;
+        synchronized (recent) {
+            recentSize = recent.size();
+        }
+        return new Stats(refs.size(), recentSize, shared.sum(), replaced.sum(), hits.sum(), misses.sum());
+    }
+
+    private void purgeCollected() {
+        for (Object ref; (ref = collected.poll()) != null; ) {
+            ItemRef itemRef = (ItemRef) ref;
+            // 同じ key に新しい ItemRef が入っていれば消さない
+            refs.remove(itemRef.key, itemRef);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.merge.merge_backend.cache;
+
+import java.util.Collection;
+import java.util.function.ToLongFunction;
+
+/**
+ * Rough retained-size estimates used by cache weighers. They only need to be proportional to
+ * the real footprint so that byte budgets stay meaningful; exact accounting is not the goal.
+ */
+public final class Weights {
+
+    /** オブジェクトヘッダ + 参照数本ぶりの目安 */
+    public static final long OBJECT = 48;
+
+    private Weights() {}
+
+    /** String を UTF-16 相当で見積もる（日本語本文が多いので Latin-1 圧縮は当てにしない） */
+    public static long of(String s) {
+        return s == null ? 0 : OBJECT + 2L * s.length();
+    }
+
+    public static <T> long of(Collection<T> items, ToLongFunction<T> weigher) {
+        if (items == null) return 0;
+        long total = OBJECT + 8L * items.size();
+        for (T item : items) {
+            if (item != null) total += weigher.applyAsLong(item);
+        }
+        return total;
+    }
+}
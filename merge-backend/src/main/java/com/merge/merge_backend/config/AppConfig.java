@@ -1,30 +1,64 @@
 package com.merge.merge_backend.config;
 
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.CircuitBreaker;
+import com.merge.merge_backend.upstream.ConditionalRequestInterceptor;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.PageFanOut;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.RateLimitInterceptor;
+import com.merge.merge_backend.upstream.UpstreamGuard;
+import com.merge.merge_backend.upstream.UpstreamMetrics;
+import com.merge.merge_backend.upstream.UpstreamMetricsInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
-@EnableConfigurationProperties({ DevProperties.class, QiitaProperties.class })
+@EnableConfigurationProperties({ DevProperties.class, QiitaProperties.class, UpstreamProperties.class,
+        CacheProperties.class })
 public class AppConfig {
 
     private static final String USER_AGENT =
             "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
 
     @Bean("devRestClient")
-    public RestClient devRestClient(@Value("${dev.access.token:}") String devApiKey) {
+    public RestClient devRestClient(
+            @Value("${dev.access.token:}") String devApiKey,
+            @Qualifier("devHttpClient") HttpClient httpClient,
+            @Qualifier("devHttpMetrics") UpstreamMetrics metrics,
+            @Qualifier("devRateLimit") RateLimitBudget rateLimit,
+            @Qualifier("devConditionalRequests") ConditionalRequestInterceptor conditionalRequests,
+            @Qualifier("devUpstreamGuard") UpstreamGuard upstreamGuard,
+            UpstreamProperties upstreamProperties) {
+        // 再試行は一番外側で、1 回ごとに条件付きリクエスト・予算・計測を通す。
+        // 条件付きリクエストは予算より外側に置き、予算には実際の 304 とそのヘッダーを見せる
         RestClient.Builder builder = RestClient.builder()
-                .defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT);
+                .requestFactory(requestFactory(httpClient, upstreamProperties.getClient("dev")))
+                .defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT)
+                .requestInterceptor(upstreamGuard)
+                .requestInterceptor(conditionalRequests)
+                .requestInterceptor(new RateLimitInterceptor(rateLimit))
+                .requestInterceptor(new UpstreamMetricsInterceptor(metrics));
         if (StringUtils.hasText(devApiKey)) {
             builder.defaultHeader("api-key", devApiKey);
         }
@@ -32,15 +66,187 @@ public class AppConfig {
     }
 
     @Bean("qiitaRestClient")
-    public RestClient qiitaRestClient(@Value("${qiita.access.token:}") String qiitaToken) {
+    public RestClient qiitaRestClient(
+            @Value("${qiita.access.token:}") String qiitaToken,
+            @Qualifier("qiitaHttpClient") HttpClient httpClient,
+            @Qualifier("qiitaHttpMetrics") UpstreamMetrics metrics,
+            @Qualifier("qiitaRateLimit") RateLimitBudget rateLimit,
+            @Qualifier("qiitaConditionalRequests") ConditionalRequestInterceptor conditionalRequests,
+            @Qualifier("qiitaUpstreamGuard") UpstreamGuard upstreamGuard,
+            UpstreamProperties upstreamProperties) {
         RestClient.Builder builder = RestClient.builder()
-                .defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT);
+                .requestFactory(requestFactory(httpClient, upstreamProperties.getClient("qiita")))
+                .defaultHeader(HttpHeaders.USER_AGENT, USER_AGENT)
+                .requestInterceptor(upstreamGuard)
+                .requestInterceptor(conditionalRequests)
+                .requestInterceptor(new RateLimitInterceptor(rateLimit))
+                .requestInterceptor(new UpstreamMetricsInterceptor(metrics));
         if (StringUtils.hasText(qiitaToken)) {
             builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + qiitaToken);
         }
         return builder.build();
     }
 
+    // ── 上流ごとの HTTP クライアント ──────────────────────────────
+    // 1 上流につき 1 つの HttpClient を使い回し、keep-alive / HTTP/2 の接続をリクエスト間で共有する
+
+    @Bean("devHttpClient")
+    public HttpClient devHttpClient(UpstreamProperties upstreamProperties) {
+        return httpClient(upstreamProperties.getClient("dev"));
+    }
+
+    @Bean("qiitaHttpClient")
+    public HttpClient qiitaHttpClient(UpstreamProperties upstreamProperties) {
+        return httpClient(upstreamProperties.getClient("qiita"));
+    }
+
+    @Bean("translateHttpClient")
+    public HttpClient translateHttpClient(UpstreamProperties upstreamProperties) {
+        return httpClient(upstreamProperties.getClient("translate"));
+    }
+
+    @Bean("devHttpMetrics")
+    public UpstreamMetrics devHttpMetrics() {
+        return new UpstreamMetrics("dev");
+    }
+
+    @Bean("qiitaHttpMetrics")
+    public UpstreamMetrics qiitaHttpMetrics() {
+        return new UpstreamMetrics("qiita");
+    }
+
+    @Bean("translateHttpMetrics")
+    public UpstreamMetrics translateHttpMetrics() {
+        return new UpstreamMetrics("translate");
+    }
+
+    private static HttpClient httpClient(UpstreamProperties.Client client) {
+        return HttpClient.newBuilder()
+                .version(client.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(client.getConnectTimeoutSeconds()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /** read timeout は 1 回のやり取り全体（本文の最後のバイトまで）に掛かる。圧縮を有効にすると gzip/deflate を要求して展開する */
+    private static JdkClientHttpRequestFactory requestFactory(HttpClient httpClient, UpstreamProperties.Client client) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofSeconds(client.getReadTimeoutSeconds()));
+        factory.enableCompression(client.isCompression());
+        return factory;
+    }
+
+    // ── 上流ごとの隔離 (bulkhead / circuit breaker / retry) ──────────
+
+    @Bean("devUpstreamGuard")
+    public UpstreamGuard devUpstreamGuard(UpstreamProperties upstreamProperties, Clock clock,
+                                          @Qualifier("devRateLimit") RateLimitBudget rateLimit) {
+        return upstreamGuard("dev", upstreamProperties, clock, rateLimit);
+    }
+
+    @Bean("qiitaUpstreamGuard")
+    public UpstreamGuard qiitaUpstreamGuard(UpstreamProperties upstreamProperties, Clock clock,
+                                            @Qualifier("qiitaRateLimit") RateLimitBudget rateLimit) {
+        return upstreamGuard("qiita", upstreamProperties, clock, rateLimit);
+    }
+
+    @Bean("translateUpstreamGuard")
+    public UpstreamGuard translateUpstreamGuard(UpstreamProperties upstreamProperties, Clock clock) {
+        return upstreamGuard("translate", upstreamProperties, clock, null);
+    }
+
+    /** 再試行は rateLimit から引く（null なら数えない） */
+    private static UpstreamGuard upstreamGuard(String name, UpstreamProperties upstreamProperties, Clock clock,
+                                               RateLimitBudget rateLimit) {
+        UpstreamProperties.Client client = upstreamProperties.getClient(name);
+        UpstreamProperties.Breaker breaker = client.getBreaker();
+        UpstreamProperties.Retry retry = client.getRetry();
+        return new UpstreamGuard(name, clock,
+                new CircuitBreaker(clock, breaker.getWindowSize(), breaker.getMinimumCalls(),
+                        breaker.getFailureRateThreshold(), Duration.ofSeconds(breaker.getOpenSeconds()),
+                        breaker.getHalfOpenCalls()),
+                client.getBulkhead().getMaxConcurrent(), Duration.ofMillis(client.getBulkhead().getMaxWaitMillis()),
+                new UpstreamGuard.Retry(retry.getMaxAttempts(), Duration.ofMillis(retry.getBackoffMillis()),
+                        Duration.ofMillis(retry.getMaxBackoffMillis()), Duration.ofSeconds(retry.getMaxRetryAfterSeconds()),
+                        Duration.ofSeconds(retry.getTotalTimeoutSeconds())), rateLimit);
+    }
+
+    // ── 詳細・コメント取得の hedge（翻訳は課金される POST なので対象外） ──
+
+    @Bean("devHedger")
+    public Hedger devHedger(UpstreamProperties upstreamProperties) {
+        return hedger("dev", upstreamProperties);
+    }
+
+    @Bean("qiitaHedger")
+    public Hedger qiitaHedger(UpstreamProperties upstreamProperties) {
+        return hedger("qiita", upstreamProperties);
+    }
+
+    private static Hedger hedger(String name, UpstreamProperties upstreamProperties) {
+        UpstreamProperties.Hedge hedge = upstreamProperties.getClient(name).getHedge();
+        if (!hedge.isEnabled()) return Hedger.disabled(name);
+        return new Hedger(name, hedge.getPercentile(), Duration.ofMillis(hedge.getMinDelayMillis()),
+                hedge.getMaxRate(), hedge.getMinSamples(), hedge.getWindowSize());
+    }
+
+    @Bean("devConditionalRequests")
+    public ConditionalRequestInterceptor devConditionalRequests(CacheRegistry cacheRegistry,
+                                                                UpstreamProperties upstreamProperties) {
+        return new ConditionalRequestInterceptor(
+                cacheRegistry.create("dev-conditional", ConditionalRequestInterceptor::weigh),
+                (int) upstreamProperties.getClient("dev").getConditionalMaxBody().toBytes());
+    }
+
+    @Bean("qiitaConditionalRequests")
+    public ConditionalRequestInterceptor qiitaConditionalRequests(CacheRegistry cacheRegistry,
+                                                                  UpstreamProperties upstreamProperties) {
+        return new ConditionalRequestInterceptor(
+                cacheRegistry.create("qiita-conditional", ConditionalRequestInterceptor::weigh),
+                (int) upstreamProperties.getClient("qiita").getConditionalMaxBody().toBytes());
+    }
+
+    @Bean("devRateLimit")
+    public RateLimitBudget devRateLimit(UpstreamProperties upstreamProperties, Clock clock) {
+        return rateLimitBudget("dev", upstreamProperties, clock);
+    }
+
+    @Bean("qiitaRateLimit")
+    public RateLimitBudget qiitaRateLimit(UpstreamProperties upstreamProperties, Clock clock) {
+        return rateLimitBudget("qiita", upstreamProperties, clock);
+    }
+
+    private static RateLimitBudget rateLimitBudget(String name, UpstreamProperties upstreamProperties, Clock clock) {
+        UpstreamProperties.Client client = upstreamProperties.getClient(name);
+        return new RateLimitBudget(name, clock, client.getInteractiveReserveRatio(), client.getLowBudgetRatio());
+    }
+
+    @Bean("devPageFanOut")
+    public PageFanOut devPageFanOut(UpstreamProperties upstreamProperties) {
+        return new PageFanOut("dev", upstreamProperties.getClient("dev").getMaxConcurrentPages());
+    }
+
+    @Bean("qiitaPageFanOut")
+    public PageFanOut qiitaPageFanOut(UpstreamProperties upstreamProperties) {
+        return new PageFanOut("qiita", upstreamProperties.getClient("qiita").getMaxConcurrentPages());
+    }
+
+    @Bean("devPaging")
+    public AdaptivePaging devPaging(UpstreamProperties upstreamProperties) {
+        return adaptivePaging("dev", upstreamProperties);
+    }
+
+    @Bean("qiitaPaging")
+    public AdaptivePaging qiitaPaging(UpstreamProperties upstreamProperties) {
+        return adaptivePaging("qiita", upstreamProperties);
+    }
+
+    private static AdaptivePaging adaptivePaging(String name, UpstreamProperties upstreamProperties) {
+        UpstreamProperties.Paging paging = upstreamProperties.getClient(name).getPaging();
+        return new AdaptivePaging(name, paging.isEnabled(), paging.getMinYieldRatio(), paging.getTargetItems(),
+                paging.getMaxDepthFactor(), paging.getSmoothing(), paging.getExploreEvery());
+    }
+
     @Bean
     public Clock clock() {
         return Clock.systemDefaultZone();
@@ -56,4 +262,44 @@ public class AppConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean
+    public CacheRegistry cacheRegistry(CacheProperties cacheProperties) {
+        CacheRegistry registry = new CacheRegistry(cacheProperties);
+        registry.startHeapPressureMonitor();
+        return registry;
+    }
+
+    @Bean
+    public BodyStore bodyStore(CacheProperties cacheProperties) {
+        CacheProperties.Bodies bodies = cacheProperties.getBodies();
+        return new BodyStore(bodies.getMaxSize().toBytes(), bodies.getCompressionLevel());
+    }
+
+    /** 一覧に付いてきた本文の圧縮用。1 スレッドで小さいキューを持ち、溢れたページは捨てる */
+    @Bean("listedBodyExecutor")
+    public ThreadPoolTaskExecutor listedBodyExecutor(CacheProperties cacheProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(cacheProperties.getBodies().getListedQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setThreadNamePrefix("listed-body-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ItemRegistry itemRegistry(CacheProperties cacheProperties) {
+        return new ItemRegistry(cacheProperties.getRegistry().getMaxRecent());
+    }
+
+    @Bean("cacheRefreshTaskScheduler")
+    public ThreadPoolTaskScheduler cacheRefreshTaskScheduler(CacheProperties cacheProperties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(cacheProperties.getRefresh().getPoolSize());
+        scheduler.setThreadNamePrefix("cache-refresh-");
+        scheduler.initialize();
+        return scheduler;
+    }
 }
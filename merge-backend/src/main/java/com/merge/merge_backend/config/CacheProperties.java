@@ -0,0 +1,249 @@
+package com.merge.merge_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Externalized configuration for the in-memory upstream caches.
+ * Defaults are coded here; override any value in application.properties via:
+ *   cache.refresh.lead-ratio=0.1
+ *   cache.refresh.jitter-ratio=0.05
+ *   cache.refresh.tick-seconds=15
+ *   cache.refresh.pool-size=2
+ *   cache.refresh.incremental=true
+ *   cache.refresh.full-rebuild-interval-seconds=21600
+ *   cache.refresh.delta-pages=1
+ *   cache.refresh.recheck-top=100
+ *   cache.stale.revalidate-interval-seconds=60
+ *   cache.search.ttl-seconds=300
+ *   cache.search.empty-ttl-seconds=30
+ *   cache.search.refine-max-age-seconds=120
+ *   cache.search.refine-min-results=10
+ *   cache.detail.ttl-seconds=600
+ *   cache.detail.comments-ttl-seconds=120
+ *   cache.detail.empty-comments-ttl-seconds=30
+ *   cache.detail.from-list-max-age-seconds=600
+ *   cache.stores.qiita-hot.max-weight=32MB
+ *   cache.heap-pressure.threshold-ratio=0.85
+ *   cache.heap-pressure.shed-ratio=0.5
+ *   cache.bodies.max-size=64MB
+ *   cache.bodies.compression-level=6
+ *   cache.bodies.listed-queue-capacity=4
+ *   cache.registry.max-recent=2000
+ */
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private Refresh refresh = new Refresh();
+    private Stale stale = new Stale();
+    private Search search = new Search();
+    private Detail detail = new Detail();
+    private Map<String, Store> stores = defaultStores();
+    private HeapPressure heapPressure = new HeapPressure();
+    private Bodies bodies = new Bodies();
+    private Registry registry = new Registry();
+
+    public Refresh getRefresh() { return refresh; }
+    public void setRefresh(Refresh refresh) { this.refresh = refresh; }
+
+    public Stale getStale() { return stale; }
+    public void setStale(Stale stale) { this.stale = stale; }
+
+    public Search getSearch() { return search; }
+    public void setSearch(Search search) { this.search = search; }
+
+    public Detail getDetail() { return detail; }
+    public void setDetail(Detail detail) { this.detail = detail; }
+
+    public Map<String, Store> getStores() { return stores; }
+    public void setStores(Map<String, Store> stores) { this.stores = stores; }
+
+    public HeapPressure getHeapPressure() { return heapPressure; }
+    public void setHeapPressure(HeapPressure heapPressure) { this.heapPressure = heapPressure; }
+
+    public Bodies getBodies() { return bodies; }
+    public void setBodies(Bodies bodies) { this.bodies = bodies; }
+
+    public Registry getRegistry() { return registry; }
+    public void setRegistry(Registry registry) { this.registry = registry; }
+
+    /** Returns the Store config for the given cache name, falling back to defaults. */
+    public Store getStore(String name) {
+        return stores.getOrDefault(name, new Store());
+    }
+
+    private static Map<String, Store> defaultStores() {
+        Map<String, Store> m = new HashMap<>();
+        // hot はサマリ（本文なし）で持つ。Qiita の period=all は 10 ページ x 100 件で 2MB 前後、5 期間分でも余裕がある。
+        // 1 件で予算を超えるとキャッシュされず毎回上流に行くので、ページ数を増やすときはここも見直す
+        m.put("qiita-hot", new Store(DataSize.ofMegabytes(32)));
+        m.put("dev-hot",   new Store(DataSize.ofMegabytes(32)));
+        m.put("qiita-search", new Store(DataSize.ofMegabytes(16)));
+        m.put("dev-search",   new Store(DataSize.ofMegabytes(16)));
+        m.put("qiita-detail",   new Store(DataSize.ofMegabytes(32)));
+        m.put("dev-detail",     new Store(DataSize.ofMegabytes(32)));
+        m.put("qiita-comments", new Store(DataSize.ofMegabytes(8)));
+        m.put("dev-comments",   new Store(DataSize.ofMegabytes(8)));
+        m.put("dev-slug",       new Store(DataSize.ofMegabytes(1)));
+        // 条件付きリクエスト用に保存する上流レスポンス本文（deflate 済み）。hot の一覧ページも入るよう、
+        // Qiita は本文付き 100 件のページが全期間で 26 ページある
+        m.put("qiita-conditional", new Store(DataSize.ofMegabytes(32)));
+        m.put("dev-conditional",   new Store(DataSize.ofMegabytes(32)));
+        return m;
+    }
+
+    /**
+     * Background refresh of hot lists: refresh at ttl * (1 - leadRatio) minus up to ttl * jitterRatio.
+     * When incremental, a refresh fetches only deltaPages of items created since the last refresh plus
+     * the current top recheckTop items, and merges them in; every fullRebuildIntervalSeconds the list
+     * is rebuilt from all pages to correct drift.
+     */
+    public static class Refresh {
+        private double leadRatio = 0.1;
+        private double jitterRatio = 0.05;
+        private long tickSeconds = 15;
+        private int poolSize = 2;
+        private boolean incremental = true;
+        private long fullRebuildIntervalSeconds = 21600;
+        private int deltaPages = 1;
+        private int recheckTop = 100;
+
+        public double getLeadRatio() { return leadRatio; }
+        public void setLeadRatio(double leadRatio) { this.leadRatio = leadRatio; }
+
+        public double getJitterRatio() { return jitterRatio; }
+        public void setJitterRatio(double jitterRatio) { this.jitterRatio = jitterRatio; }
+
+        public long getTickSeconds() { return tickSeconds; }
+        public void setTickSeconds(long tickSeconds) { this.tickSeconds = tickSeconds; }
+
+        public int getPoolSize() { return poolSize; }
+        public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+
+        public boolean isIncremental() { return incremental; }
+        public void setIncremental(boolean incremental) { this.incremental = incremental; }
+
+        public long getFullRebuildIntervalSeconds() { return fullRebuildIntervalSeconds; }
+        public void setFullRebuildIntervalSeconds(long fullRebuildIntervalSeconds) { this.fullRebuildIntervalSeconds = fullRebuildIntervalSeconds; }
+
+        public int getDeltaPages() { return deltaPages; }
+        public void setDeltaPages(int deltaPages) { this.deltaPages = deltaPages; }
+
+        public int getRecheckTop() { return recheckTop; }
+        public void setRecheckTop(int recheckTop) { this.recheckTop = recheckTop; }
+    }
+
+    /** Expired hot lists are served as-is while a revalidation runs, at most once per interval. */
+    public static class Stale {
+        private long revalidateIntervalSeconds = 60;
+
+        public long getRevalidateIntervalSeconds() { return revalidateIntervalSeconds; }
+        public void setRevalidateIntervalSeconds(long revalidateIntervalSeconds) { this.revalidateIntervalSeconds = revalidateIntervalSeconds; }
+    }
+
+    /**
+     * Keyword search results; empty results (which include upstream failures) expire sooner.
+     * A search that narrows a cached one (see QiitaRefinement / DevRefinement) is answered from it
+     * while the cached result is at most refineMaxAgeSeconds old and at least refineMinResults remain.
+     */
+    public static class Search {
+        private long ttlSeconds = 300;
+        private long emptyTtlSeconds = 30;
+        private boolean refine = true;
+        private long refineMaxAgeSeconds = 120;
+        private int refineMinResults = 10;
+
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+
+        public long getEmptyTtlSeconds() { return emptyTtlSeconds; }
+        public void setEmptyTtlSeconds(long emptyTtlSeconds) { this.emptyTtlSeconds = emptyTtlSeconds; }
+
+        public boolean isRefine() { return refine; }
+        public void setRefine(boolean refine) { this.refine = refine; }
+
+        public long getRefineMaxAgeSeconds() { return refineMaxAgeSeconds; }
+        public void setRefineMaxAgeSeconds(long refineMaxAgeSeconds) { this.refineMaxAgeSeconds = refineMaxAgeSeconds; }
+
+        public int getRefineMinResults() { return refineMinResults; }
+        public void setRefineMinResults(int refineMinResults) { this.refineMinResults = refineMinResults; }
+    }
+
+    /** Single articles and their comment threads, cached per item id with independent TTLs. */
+    public static class Detail {
+        private long ttlSeconds = 600;
+        private long commentsTtlSeconds = 120;
+        private long emptyCommentsTtlSeconds = 30;
+        private long fromListMaxAgeSeconds = 600;
+
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+
+        public long getCommentsTtlSeconds() { return commentsTtlSeconds; }
+        public void setCommentsTtlSeconds(long commentsTtlSeconds) { this.commentsTtlSeconds = commentsTtlSeconds; }
+
+        public long getEmptyCommentsTtlSeconds() { return emptyCommentsTtlSeconds; }
+        public void setEmptyCommentsTtlSeconds(long emptyCommentsTtlSeconds) { this.emptyCommentsTtlSeconds = emptyCommentsTtlSeconds; }
+
+        /** An item already fetched by a list request answers detail requests for this long. */
+        public long getFromListMaxAgeSeconds() { return fromListMaxAgeSeconds; }
+        public void setFromListMaxAgeSeconds(long fromListMaxAgeSeconds) { this.fromListMaxAgeSeconds = fromListMaxAgeSeconds; }
+    }
+
+    /** Byte budget of one bounded cache; entry weights are estimates of retained heap size. */
+    public static class Store {
+        private DataSize maxWeight = DataSize.ofMegabytes(16);
+
+        public Store() {}
+
+        public Store(DataSize maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public DataSize getMaxWeight() { return maxWeight; }
+        public void setMaxWeight(DataSize maxWeight) { this.maxWeight = maxWeight; }
+    }
+
+    /** When a heap pool stays above thresholdRatio after GC, every cache is trimmed to shedRatio of its budget. */
+    public static class HeapPressure {
+        private double thresholdRatio = 0.85;
+        private double shedRatio = 0.5;
+
+        public double getThresholdRatio() { return thresholdRatio; }
+        public void setThresholdRatio(double thresholdRatio) { this.thresholdRatio = thresholdRatio; }
+
+        public double getShedRatio() { return shedRatio; }
+        public void setShedRatio(double shedRatio) { this.shedRatio = shedRatio; }
+    }
+
+    /**
+     * Off-heap store of compressed article bodies; maxSize counts compressed bytes.
+     * Bodies that come with list pages are compressed by one background thread; at most
+     * listedQueueCapacity pages wait for it and later ones are dropped.
+     */
+    public static class Bodies {
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private int compressionLevel = 6;
+        private int listedQueueCapacity = 4;
+
+        public DataSize getMaxSize() { return maxSize; }
+        public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+
+        public int getCompressionLevel() { return compressionLevel; }
+        public void setCompressionLevel(int compressionLevel) { this.compressionLevel = compressionLevel; }
+
+        public int getListedQueueCapacity() { return listedQueueCapacity; }
+        public void setListedQueueCapacity(int listedQueueCapacity) { this.listedQueueCapacity = listedQueueCapacity; }
+    }
+
+    /** ItemRegistry keeps only weak references plus the maxRecent most recently interned items. */
+    public static class Registry {
+        private int maxRecent = 2_000;
+
+        public int getMaxRecent() { return maxRecent; }
+        public void setMaxRecent(int maxRecent) { this.maxRecent = maxRecent; }
+    }
+}
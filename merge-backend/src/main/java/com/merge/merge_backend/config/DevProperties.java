@@ -25,6 +25,11 @@ public class DevProperties {
         return periods.getOrDefault(key, periods.getOrDefault("week", new Period(3, 5, 1800)));
     }
 
+    /** Maps unknown period keys to "week", so caches are keyed only by configured periods. */
+    public String normalizePeriod(String key) {
+        return key != null && periods.containsKey(key) ? key : "week";
+    }
+
     private static Map<String, Period> defaultPeriods() {
         Map<String, Period> m = new HashMap<>();
         m.put("1day",  new Period(1,   0,    900));
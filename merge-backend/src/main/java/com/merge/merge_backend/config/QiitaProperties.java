@@ -11,20 +11,31 @@ import java.util.Map;
  *   qiita.periods.week.pages=5
  *   qiita.periods.week.min-stocks=20
  *   qiita.periods.week.ttl-seconds=1800
+ *   qiita.search.count-pages=3
+ *   qiita.search.count-min-stocks=5
  */
 @ConfigurationProperties(prefix = "qiita")
 public class QiitaProperties {
 
     private Map<String, Period> periods = defaultPeriods();
+    private Search search = new Search();
 
     public Map<String, Period> getPeriods() { return periods; }
     public void setPeriods(Map<String, Period> periods) { this.periods = periods; }
 
+    public Search getSearch() { return search; }
+    public void setSearch(Search search) { this.search = search; }
+
     /** Returns the Period config for the given key, falling back to "week" defaults. */
     public Period getPeriod(String key) {
         return periods.getOrDefault(key, periods.getOrDefault("week", new Period(3, 10, 1800)));
     }
 
+    /** Maps unknown period keys to "week", so caches are keyed only by configured periods. */
+    public String normalizePeriod(String key) {
+        return key != null && periods.containsKey(key) ? key : "week";
+    }
+
     private static Map<String, Period> defaultPeriods() {
         Map<String, Period> m = new HashMap<>();
         m.put("1day",  new Period(1,   3,    900));
@@ -57,4 +68,27 @@ public class QiitaProperties {
         public long getTtlSeconds() { return ttlSeconds; }
         public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
     }
+
+    /**
+     * Pages fetched per search sort. sort=count also sends stocks:>=countMinStocks, so its pages
+     * hold only articles likely to rank by likes (0 disables it).
+     */
+    public static class Search {
+        private int relPages = 1;
+        private int createdPages = 2;
+        private int countPages = 3;
+        private int countMinStocks = 5;
+
+        public int getRelPages() { return relPages; }
+        public void setRelPages(int relPages) { this.relPages = relPages; }
+
+        public int getCreatedPages() { return createdPages; }
+        public void setCreatedPages(int createdPages) { this.createdPages = createdPages; }
+
+        public int getCountPages() { return countPages; }
+        public void setCountPages(int countPages) { this.countPages = countPages; }
+
+        public int getCountMinStocks() { return countMinStocks; }
+        public void setCountMinStocks(int countMinStocks) { this.countMinStocks = countMinStocks; }
+    }
 }
@@ -0,0 +1,262 @@
+package com.merge.merge_backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Externalized configuration for upstream API clients (Qiita / Dev.to / DeepL).
+ * Defaults are coded here; override any value in application.properties via:
+ *   upstream.clients.qiita.max-concurrent-pages=4
+ *   upstream.clients.dev.max-concurrent-pages=3
+ *   upstream.clients.qiita.interactive-reserve-ratio=0.2
+ *   upstream.clients.qiita.low-budget-ratio=0.25
+ *   upstream.clients.qiita.connect-timeout-seconds=5
+ *   upstream.clients.qiita.read-timeout-seconds=20
+ *   upstream.clients.translate.read-timeout-seconds=30
+ *   upstream.clients.dev.compression=true
+ *   upstream.clients.dev.conditional-max-body=8MB
+ *   upstream.clients.dev.bulkhead.max-concurrent=8
+ *   upstream.clients.dev.bulkhead.max-wait-millis=250
+ *   upstream.clients.dev.breaker.failure-rate-threshold=0.5
+ *   upstream.clients.dev.breaker.open-seconds=30
+ *   upstream.clients.dev.retry.max-attempts=3
+ *   upstream.clients.dev.retry.total-timeout-seconds=30
+ *   upstream.clients.qiita.hedge.enabled=true
+ *   upstream.clients.qiita.hedge.percentile=95
+ *   upstream.clients.qiita.hedge.max-rate=0.05
+ *   upstream.clients.dev.paging.min-yield-ratio=0.05
+ *   upstream.clients.dev.paging.target-items=100
+ *   upstream.clients.dev.paging.max-depth-factor=2
+ */
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+
+    private Map<String, Client> clients = defaultClients();
+
+    public Map<String, Client> getClients() { return clients; }
+    public void setClients(Map<String, Client> clients) { this.clients = clients; }
+
+    /** Returns the Client config for the given upstream name, falling back to defaults. */
+    public Client getClient(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    private static Map<String, Client> defaultClients() {
+        Map<String, Client> m = new HashMap<>();
+        m.put("qiita", new Client(4));
+        m.put("dev",   new Client(3));
+        // DeepL は一度に大きな本文を訳すので、応答を長めに待つ
+        Client translate = new Client();
+        translate.setReadTimeoutSeconds(30);
+        translate.getBulkhead().setMaxConcurrent(4);
+        m.put("translate", translate);
+        return m;
+    }
+
+    /**
+     * Per-upstream client settings. Background refreshes may not spend the last
+     * interactiveReserveRatio of the rate-limit window; below lowBudgetRatio fan-outs fetch one page.
+     * readTimeoutSeconds bounds one whole exchange, from sending the request to the last byte of the body.
+     * Responses up to conditionalMaxBody (raw bytes) are kept, deflated, for revalidation with
+     * If-None-Match; the default leaves room for full list pages. Larger ones are only streamed through.
+     */
+    public static class Client {
+        private int maxConcurrentPages = 3;
+        private double interactiveReserveRatio = 0.2;
+        private double lowBudgetRatio = 0.25;
+        private long connectTimeoutSeconds = 5;
+        private long readTimeoutSeconds = 20;
+        private boolean compression = true;
+        private boolean http2 = true;
+        private DataSize conditionalMaxBody = DataSize.ofMegabytes(8);
+        private Bulkhead bulkhead = new Bulkhead();
+        private Breaker breaker = new Breaker();
+        private Retry retry = new Retry();
+        private Hedge hedge = new Hedge();
+        private Paging paging = new Paging();
+
+        public Client() {}
+
+        public Client(int maxConcurrentPages) {
+            this.maxConcurrentPages = maxConcurrentPages;
+        }
+
+        public int getMaxConcurrentPages() { return maxConcurrentPages; }
+        public void setMaxConcurrentPages(int maxConcurrentPages) { this.maxConcurrentPages = maxConcurrentPages; }
+
+        public double getInteractiveReserveRatio() { return interactiveReserveRatio; }
+        public void setInteractiveReserveRatio(double interactiveReserveRatio) { this.interactiveReserveRatio = interactiveReserveRatio; }
+
+        public double getLowBudgetRatio() { return lowBudgetRatio; }
+        public void setLowBudgetRatio(double lowBudgetRatio) { this.lowBudgetRatio = lowBudgetRatio; }
+
+        public long getConnectTimeoutSeconds() { return connectTimeoutSeconds; }
+        public void setConnectTimeoutSeconds(long connectTimeoutSeconds) { this.connectTimeoutSeconds = connectTimeoutSeconds; }
+
+        public long getReadTimeoutSeconds() { return readTimeoutSeconds; }
+        public void setReadTimeoutSeconds(long readTimeoutSeconds) { this.readTimeoutSeconds = readTimeoutSeconds; }
+
+        public boolean isCompression() { return compression; }
+        public void setCompression(boolean compression) { this.compression = compression; }
+
+        public boolean isHttp2() { return http2; }
+        public void setHttp2(boolean http2) { this.http2 = http2; }
+
+        public DataSize getConditionalMaxBody() { return conditionalMaxBody; }
+        public void setConditionalMaxBody(DataSize conditionalMaxBody) { this.conditionalMaxBody = conditionalMaxBody; }
+
+        public Bulkhead getBulkhead() { return bulkhead; }
+        public void setBulkhead(Bulkhead bulkhead) { this.bulkhead = bulkhead; }
+
+        public Breaker getBreaker() { return breaker; }
+        public void setBreaker(Breaker breaker) { this.breaker = breaker; }
+
+        public Retry getRetry() { return retry; }
+        public void setRetry(Retry retry) { this.retry = retry; }
+
+        public Hedge getHedge() { return hedge; }
+        public void setHedge(Hedge hedge) { this.hedge = hedge; }
+
+        public Paging getPaging() { return paging; }
+        public void setPaging(Paging paging) { this.paging = paging; }
+    }
+
+    /**
+     * At most maxConcurrent requests to one upstream at a time; a request that cannot get a slot
+     * within maxWaitMillis fails fast instead of holding the caller's thread.
+     */
+    public static class Bulkhead {
+        private int maxConcurrent = 8;
+        private long maxWaitMillis = 250;
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public long getMaxWaitMillis() { return maxWaitMillis; }
+        public void setMaxWaitMillis(long maxWaitMillis) { this.maxWaitMillis = maxWaitMillis; }
+    }
+
+    /**
+     * Opens once failureRateThreshold of the last windowSize calls (at least minimumCalls) failed
+     * with a 5xx, timeout or connection error; after openSeconds, halfOpenCalls trial calls decide
+     * whether it closes again.
+     */
+    public static class Breaker {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private long openSeconds = 30;
+        private int halfOpenCalls = 3;
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public double getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public long getOpenSeconds() { return openSeconds; }
+        public void setOpenSeconds(long openSeconds) { this.openSeconds = openSeconds; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    }
+
+    /**
+     * GETs that fail with 429, 5xx or an I/O error are retried up to maxAttempts in total, with
+     * full-jitter exponential backoff from backoffMillis up to maxBackoffMillis. A Retry-After
+     * longer than maxRetryAfterSeconds is not waited for. No retry starts after totalTimeoutSeconds.
+     */
+    public static class Retry {
+        private int maxAttempts = 3;
+        private long backoffMillis = 200;
+        private long maxBackoffMillis = 2000;
+        private long maxRetryAfterSeconds = 5;
+        private long totalTimeoutSeconds = 30;
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getBackoffMillis() { return backoffMillis; }
+        public void setBackoffMillis(long backoffMillis) { this.backoffMillis = backoffMillis; }
+
+        public long getMaxBackoffMillis() { return maxBackoffMillis; }
+        public void setMaxBackoffMillis(long maxBackoffMillis) { this.maxBackoffMillis = maxBackoffMillis; }
+
+        public long getMaxRetryAfterSeconds() { return maxRetryAfterSeconds; }
+        public void setMaxRetryAfterSeconds(long maxRetryAfterSeconds) { this.maxRetryAfterSeconds = maxRetryAfterSeconds; }
+
+        public long getTotalTimeoutSeconds() { return totalTimeoutSeconds; }
+        public void setTotalTimeoutSeconds(long totalTimeoutSeconds) { this.totalTimeoutSeconds = totalTimeoutSeconds; }
+    }
+
+    /**
+     * Article detail and comment GETs still unanswered after the percentile-th percentile of the
+     * last windowSize successful calls (at least minDelayMillis) are sent a second time; the first
+     * answer wins. At most maxRate of calls are hedged, and none before minSamples are known.
+     */
+    public static class Hedge {
+        private boolean enabled = true;
+        private double percentile = 95;
+        private long minDelayMillis = 50;
+        private double maxRate = 0.05;
+        private int minSamples = 20;
+        private int windowSize = 200;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+
+        public long getMinDelayMillis() { return minDelayMillis; }
+        public void setMinDelayMillis(long minDelayMillis) { this.minDelayMillis = minDelayMillis; }
+
+        public double getMaxRate() { return maxRate; }
+        public void setMaxRate(double maxRate) { this.maxRate = maxRate; }
+
+        public int getMinSamples() { return minSamples; }
+        public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+    }
+
+    /**
+     * Page counts for list fetches adapt to how many items past the filters each page yielded before:
+     * a page expected to keep less than minYieldRatio of its size is skipped, and while fewer than
+     * targetItems are expected, up to maxDepthFactor times the configured pages are fetched.
+     * smoothing weighs the newest observation; every exploreEvery-th fetch re-measures the configured depth.
+     */
+    public static class Paging {
+        private boolean enabled = true;
+        private double minYieldRatio = 0.05;
+        private int targetItems = 100;
+        private double maxDepthFactor = 2;
+        private double smoothing = 0.3;
+        private int exploreEvery = 10;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getMinYieldRatio() { return minYieldRatio; }
+        public void setMinYieldRatio(double minYieldRatio) { this.minYieldRatio = minYieldRatio; }
+
+        public int getTargetItems() { return targetItems; }
+        public void setTargetItems(int targetItems) { this.targetItems = targetItems; }
+
+        public double getMaxDepthFactor() { return maxDepthFactor; }
+        public void setMaxDepthFactor(double maxDepthFactor) { this.maxDepthFactor = maxDepthFactor; }
+
+        public double getSmoothing() { return smoothing; }
+        public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+        public int getExploreEvery() { return exploreEvery; }
+        public void setExploreEvery(int exploreEvery) { this.exploreEvery = exploreEvery; }
+    }
+}
@@ -10,8 +10,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.merge.merge_backend.repository.ArticleRepository;
+import com.merge.merge_backend.repository.TableVersion;
 import com.merge.merge_backend.service.ArticleService;
 import com.merge.merge_backend.entity.Article;
 import java.util.List;
@@ -26,17 +28,32 @@ public class ArticleController {
     @Autowired
     private ArticleRepository articleRepository;
 
+    /**
+     * 記事もメモも変わっていなければ 304（一覧の読み込みも直列化もしない）。
+     * limit / cursor を付けると新しい順にそのページだけを返し、次のページのカーソルは X-Next-Cursor
+     */
     @GetMapping("/articles")
-    public List<Article> getAllArticles() {
-        return articleService.getAllArticles();
+    public ResponseEntity<List<Article>> getAllArticles(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        List<TableVersion> versions = articleService.getLibraryVersions("all");
+        if (!CursorPages.requested(limit, cursor)) {
+            return ConditionalRequests.ok(request, versions, articleService::getAllArticles);
+        }
+        return ConditionalRequests.okPage(request, versions, () -> CursorPages.keyset(
+                articleService::getArticlesBefore, Article::getCreatedAt, Article::getId, cursor, limit));
     }
     
     @GetMapping("/articles/search")
-    public List<Article> searchArticles(
+    public ResponseEntity<List<Article>> searchArticles(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "rel") String sort,
-            @RequestParam(required = false, defaultValue = "all") String period) {
-        return articleService.searchArticles(keyword, sort, period);
+            @RequestParam(required = false, defaultValue = "all") String period,
+            WebRequest request) {
+        // keyword / sort は URL に含まれるので、検証子は期間の分だけ変えればよい
+        return ConditionalRequests.ok(request, articleService.getLibraryVersions(period),
+                () -> articleService.searchArticles(keyword, sort, period));
     }
     
     @PostMapping("/articles")
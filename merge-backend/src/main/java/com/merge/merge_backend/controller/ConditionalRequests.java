@@ -0,0 +1,66 @@
+package com.merge.merge_backend.controller;
+
+import com.merge.merge_backend.repository.TableVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Conditional GET for responses built from database rows. The validators come from
+ * {@link TableVersion} aggregates: a weak ETag of every row count and latest update, and
+ * Last-Modified from the latest update. When the request still matches, Spring writes 304 and
+ * the body supplier never runs, so neither the entities nor their JSON are produced.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {}
+
+    static <T> ResponseEntity<T> ok(WebRequest request, List<TableVersion> versions, Supplier<T> body) {
+        ResponseEntity.BodyBuilder builder = checked(request, versions);
+        return builder != null ? builder.body(body.get()) : null;
+    }
+
+    /** ok のページ版。次のページのカーソルもヘッダに付ける（ページの URL ごとに同じ検証子でよい） */
+    static <T> ResponseEntity<List<T>> okPage(WebRequest request, List<TableVersion> versions,
+                                              Supplier<CursorPages.Page<T>> page) {
+        ResponseEntity.BodyBuilder builder = checked(request, versions);
+        if (builder == null) return null;
+        CursorPages.Page<T> loaded = page.get();
+        return builder.headers(CursorPages.headers(loaded)).body(loaded.items());
+    }
+
+    /** 一致すれば null（null を返すと、checkNotModified が設定した 304 がそのまま返る） */
+    private static ResponseEntity.BodyBuilder checked(WebRequest request, List<TableVersion> versions) {
+        String etag = etag(versions);
+        long lastModified = lastModified(versions);
+        if (request.checkNotModified(etag, lastModified)) return null;
+        // 検証子は本体より先に読むので、間に更新が入っても次のリクエストで取り直される（古い本体を新しい ETag で返すことはない）
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag);
+        if (lastModified > 0) builder.lastModified(lastModified);
+        return builder;
+    }
+
+    /** 直列化の形が変わっても同じ値になるので弱い ETag にする */
+    static String etag(List<TableVersion> versions) {
+        return versions.stream()
+                .map(v -> v.rows() + "-" + toEpochMilli(v))
+                .collect(Collectors.joining(".", "W/\"", "\""));
+    }
+
+    private static long lastModified(List<TableVersion> versions) {
+        return versions.stream().mapToLong(ConditionalRequests::toEpochMilli).max().orElse(-1);
+    }
+
+    /** 監査の日時はサーバーのタイムゾーンの LocalDateTime で入っている */
+    private static long toEpochMilli(TableVersion version) {
+        return version.lastModified() == null ? 0
+                : version.lastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
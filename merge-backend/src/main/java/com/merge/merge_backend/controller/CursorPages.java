@@ -0,0 +1,152 @@
+package com.merge.merge_backend.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cursor pagination for list endpoints. A request opts in with {@code limit} or {@code cursor}
+ * (without them the whole list is returned as before); the body stays a JSON array and the cursor
+ * of the next page, if any, is sent in {@link #NEXT_CURSOR}. Cursors are opaque to clients.
+ *
+ * <ul>
+ *   <li>In-memory lists (cached upstream results) are sliced with {@link List#subList}, so a page
+ *       is a view over the cached list and nothing is copied. The cursor holds the offset and the
+ *       id of the last item; if the list was replaced in between, the page resumes after that id.</li>
+ *   <li>Database lists are read with keyset queries ordered by (createdAt desc, id desc). The
+ *       cursor holds the last row's key, so a page is one index range scan however deep it is.</li>
+ * </ul>
+ */
+final class CursorPages {
+
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 200;
+
+    /** A page and the cursor of the next one (null on the last page). */
+    record Page<T>(List<T> items, String next) {}
+
+    /** (createdAt, id) より後ろの行を limit 件読む。createdAt が null なら先頭から */
+    @FunctionalInterface
+    interface KeysetQuery<T> {
+        List<T> find(LocalDateTime createdAt, Long id, int limit);
+    }
+
+    private CursorPages() {}
+
+    static boolean requested(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
+    static <T> Page<T> slice(List<T> list, Function<T, String> idOf, String cursor, Integer limit) {
+        int size = limit(limit);
+        int from = 0;
+        if (cursor != null) {
+            String[] parts = decode(cursor, "o", 3);
+            from = resumeAt(list, idOf, parseInt(parts[1]), parts[2]);
+        }
+        int to = Math.min(list.size(), from + size);
+        String next = to < list.size() ? encode("o", String.valueOf(to), idOf.apply(list.get(to - 1))) : null;
+        return new Page<>(list.subList(from, to), next);
+    }
+
+    static <T> Page<T> keyset(KeysetQuery<T> query, Function<T, LocalDateTime> createdAtOf, Function<T, Long> idOf,
+                              String cursor, Integer limit) {
+        int size = limit(limit);
+        LocalDateTime createdAt = null;
+        Long id = null;
+        if (cursor != null) {
+            String[] parts = decode(cursor, "k", 3);
+            try {
+                createdAt = LocalDateTime.parse(parts[1]);
+            } catch (DateTimeParseException e) {
+                throw invalid();
+            }
+            id = parseLong(parts[2]);
+        }
+        // 1 件多く読み、次のページがあるかを知る
+        List<T> rows = query.find(createdAt, id, size + 1);
+        if (rows.size() <= size) return new Page<>(rows, null);
+        T last = rows.get(size - 1);
+        // 監査で必ず入るはずの createdAt が無い行の後ろは辿れないので、そこで終わりにする
+        String next = createdAtOf.apply(last) == null ? null
+                : encode("k", createdAtOf.apply(last).toString(), String.valueOf(idOf.apply(last)));
+        return new Page<>(rows.subList(0, size), next);
+    }
+
+    static <T> ResponseEntity<List<T>> ok(Page<T> page) {
+        return ResponseEntity.ok().headers(headers(page)).body(page.items());
+    }
+
+    static HttpHeaders headers(Page<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.next() != null) headers.set(NEXT_CURSOR, page.next());
+        return headers;
+    }
+
+    private static int limit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+        if (limit < 1) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /** 前のページの最後の記事がまだ offset - 1 にあればそこから。リストが差し替わっていれば id で探し直す */
+    private static <T> int resumeAt(List<T> list, Function<T, String> idOf, int offset, String lastId) {
+        if (offset > 0 && offset <= list.size() && Objects.equals(idOf.apply(list.get(offset - 1)), lastId)) {
+            return offset;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (Objects.equals(idOf.apply(list.get(i)), lastId)) return i + 1;
+        }
+        // 最後の記事が消えていれば、同じ位置から続ける
+        return Math.min(offset, list.size());
+    }
+
+    private static String encode(String kind, String position, String key) {
+        String raw = kind + "|" + position + "|" + (key != null ? key : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, String kind, int parts) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        String[] split = raw.split("\\|", parts);
+        if (split.length != parts || !split[0].equals(kind)) throw invalid();
+        return split;
+    }
+
+    private static int parseInt(String s) {
+        try {
+            int value = Integer.parseInt(s);
+            if (value < 0) throw invalid();
+            return value;
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    private static long parseLong(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    private static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
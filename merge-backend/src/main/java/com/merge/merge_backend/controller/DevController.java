@@ -1,11 +1,15 @@
 package com.merge.merge_backend.controller;
 
+import com.merge.merge_backend.cache.CacheEntry;
 import com.merge.merge_backend.dto.DevCommentItem;
 import com.merge.merge_backend.dto.DevItem;
 import com.merge.merge_backend.service.DevService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Clock;
 import java.util.List;
 
 @RestController
@@ -15,23 +19,49 @@ public class DevController {
     @Autowired
     private DevService devService;
 
+    /** Age / max-age をサービスと同じ時計で計算する */
+    @Autowired
+    private Clock clock;
+
+    // limit / cursor を付けると、一覧をそのページだけ返す（次のページのカーソルは X-Next-Cursor）
+
     @GetMapping("/search")
-    public List<DevItem> searchArticles(
+    public ResponseEntity<List<DevItem>> searchArticles(
             @RequestParam String keyword,
             @RequestParam(required = false, defaultValue = "rel") String sort,
-            @RequestParam(required = false, defaultValue = "all") String period) {
-        return devService.searchArticles(keyword, sort, period);
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(devService.searchArticles(keyword, sort, period), limit, cursor, new HttpHeaders());
+    }
+
+    /** 更新時に作った JSON / gzip をそのまま返す。ETag が一致すれば 304 */
+    @GetMapping(value = "/hot", params = {"!limit", "!cursor"})
+    public ResponseEntity<byte[]> getHotArticles(
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return EncodedResponses.ok(devService.getHotArticleBody(period), acceptEncoding, ifNoneMatch, clock.instant());
     }
 
+    /** ページ指定付きは切り出したページだけをその都度直列化する */
     @GetMapping("/hot")
-    public List<DevItem> getHotArticles(
-            @RequestParam(required = false, defaultValue = "all") String period) {
-        return devService.getHotArticles(period);
+    public ResponseEntity<List<DevItem>> getHotArticlesPage(
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        // 期限切れのリストを返す場合もあるので、取得からの経過秒数を Age で知らせる
+        CacheEntry<List<DevItem>> entry = devService.getHotArticleEntry(period);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AGE, String.valueOf(entry.getAgeSeconds(clock.instant())));
+        return page(entry.value(), limit, cursor, headers);
     }
 
     @GetMapping("/timeline")
-    public List<DevItem> getTimelineArticles() {
-        return devService.getTimelineArticles();
+    public ResponseEntity<List<DevItem>> getTimelineArticles(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(devService.getTimelineArticles(), limit, cursor, new HttpHeaders());
     }
 
     @GetMapping("/article/{id}")
@@ -49,8 +79,26 @@ public class DevController {
         return devService.getArticleComments(id);
     }
 
+    /** 詳細・コメントのキャッシュを捨て、次回のアクセスで取り直させる */
+    @DeleteMapping("/article/{id}/cache")
+    public ResponseEntity<Void> invalidateArticle(@PathVariable String id) {
+        devService.invalidateArticle(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/user/{username}/articles")
-    public List<DevItem> getUserArticles(@PathVariable String username) {
-        return devService.getUserArticles(username);
+    public ResponseEntity<List<DevItem>> getUserArticles(
+            @PathVariable String username,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(devService.getUserArticles(username), limit, cursor, new HttpHeaders());
+    }
+
+    /** limit / cursor があればそのページだけを切り出す（キャッシュのリストはコピーしない） */
+    private ResponseEntity<List<DevItem>> page(List<DevItem> items, Integer limit, String cursor, HttpHeaders headers) {
+        if (!CursorPages.requested(limit, cursor)) return ResponseEntity.ok().headers(headers).body(items);
+        CursorPages.Page<DevItem> page = CursorPages.slice(items, DevItem::getId, cursor, limit);
+        headers.addAll(CursorPages.headers(page));
+        return ResponseEntity.ok().headers(headers).body(page.items());
     }
 }
\ No newline at end of file
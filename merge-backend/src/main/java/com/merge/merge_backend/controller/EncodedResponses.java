@@ -0,0 +1,77 @@
+package com.merge.merge_backend.controller;
+
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.EncodedBody;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Writes a pre-encoded body with its validators. The JSON and gzip bodies carry different strong
+ * ETags. A request gets 304 and no body only when If-None-Match holds the ETag of the variant that
+ * request would be sent (gzip when it accepts gzip, JSON otherwise). A shared cache may list every
+ * tag it stored, and a 304 for the other variant would make it serve gzip to a client that cannot
+ * decode it.
+ */
+final class EncodedResponses {
+
+    private EncodedResponses() {}
+
+    static ResponseEntity<byte[]> ok(CacheEntry<EncodedBody> entry, String acceptEncoding, String ifNoneMatch,
+                                     Instant now) {
+        EncodedBody body = entry.value();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // 期限までは再検証なしで使ってよい。期限切れのリストを返すときは毎回 ETag で確かめさせる
+        long maxAge = Math.max(0, Duration.between(now, entry.expiresAt()).toSeconds());
+        String etag = gzip ? body.gzipEtag() : body.etag();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePublic())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .header(HttpHeaders.AGE, String.valueOf(entry.getAgeSeconds(now)))
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAge)).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.AGE, String.valueOf(entry.getAgeSeconds(now)));
+        if (gzip) builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return builder.body(gzip ? body.gzip() : body.json());
+    }
+
+    /** If-None-Match にこの要求に返す表現の ETag（または *）があるか。If-None-Match は弱い比較なので W/ 付きも一致とみなす */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        ETag current = ETag.create(etag);
+        for (ETag tag : ETag.parse(ifNoneMatch)) {
+            if (tag.isWildcard() || tag.compare(current, false)) return true;
+        }
+        return false;
+    }
+
+    /** Accept-Encoding に gzip（または *）があり、q=0 で断られていないか */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) refused = true;
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+}
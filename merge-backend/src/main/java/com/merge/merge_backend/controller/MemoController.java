@@ -4,9 +4,12 @@ import com.merge.merge_backend.entity.Article;
 import com.merge.merge_backend.entity.Memo;
 import com.merge.merge_backend.repository.ArticleRepository;
 import com.merge.merge_backend.repository.MemoRepository;
+import com.merge.merge_backend.repository.TableVersion;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,7 +17,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -28,14 +33,27 @@ public class MemoController {
     @Autowired
     private ArticleRepository articleRepository;
     
+    /**
+     * メモが変わっていなければ 304。メモの JSON に記事は含まれないので、メモの集計だけで足りる。
+     * limit / cursor を付けると新しい順にそのページだけを返し、次のページのカーソルは X-Next-Cursor
+     */
     @GetMapping("/memos")
-    public List<Memo> getAllMemos() {
-        return memoRepository.findAll();
+    public ResponseEntity<List<Memo>> getAllMemos(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        List<TableVersion> versions = List.of(memoRepository.version());
+        if (!CursorPages.requested(limit, cursor)) {
+            return ConditionalRequests.ok(request, versions, memoRepository::findAll);
+        }
+        return ConditionalRequests.okPage(request, versions, () -> CursorPages.keyset(
+                this::findMemosBefore, Memo::getCreatedAt, Memo::getId, cursor, limit));
     }
 
     @GetMapping("/article/{articleId}")
-    public List<Memo> getMemosByArticle(@PathVariable Long articleId) {
-        return memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(articleId);
+    public ResponseEntity<List<Memo>> getMemosByArticle(@PathVariable Long articleId, WebRequest request) {
+        return ConditionalRequests.ok(request, List.of(memoRepository.versionByArticleId(articleId)),
+                () -> memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(articleId));
     }
 
     @GetMapping("/memos/search")
@@ -47,6 +65,13 @@ public class MemoController {
         return memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(article.getId());
     }
 
+    private List<Memo> findMemosBefore(LocalDateTime createdAt, Long id, int limit) {
+        if (createdAt == null) {
+            return memoRepository.findLatest(Limit.of(limit));
+        }
+        return memoRepository.findLatestBefore(createdAt, id, Limit.of(limit));
+    }
+
     @PostMapping("/memos")
     public Memo createMemo(@RequestBody Memo memo) {
         Article article = memo.getArticle();
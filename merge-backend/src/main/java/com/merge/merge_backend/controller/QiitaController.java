@@ -1,11 +1,17 @@
 package com.merge.merge_backend.controller;
 
+import com.merge.merge_backend.cache.CacheEntry;
 import com.merge.merge_backend.dto.QiitaCommentItem;
 import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
 import com.merge.merge_backend.service.QiitaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Clock;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -15,23 +21,53 @@ public class QiitaController {
     @Autowired
     private QiitaService qiitaService;
 
+    /** Age / max-age をサービスと同じ時計で計算する */
+    @Autowired
+    private Clock clock;
+
+    // 一覧系は本文抜きのサマリを返す。fields=body を付けたときだけ、メモリ上にある本文を埋める
+    // limit / cursor を付けると、一覧をそのページだけ返す（次のページのカーソルは X-Next-Cursor）
+
     @GetMapping("/search")
-    public List<QiitaItem> searchArticles(
+    public ResponseEntity<List<QiitaItemSummary>> searchArticles(
             @RequestParam String keyword,
             @RequestParam(required = false, defaultValue = "rel") String sort,
-            @RequestParam(required = false, defaultValue = "all") String period) {
-        return qiitaService.searchArticles(keyword, sort, period);
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(qiitaService.searchArticles(keyword, sort, period), fields, limit, cursor, new HttpHeaders());
     }
 
+    /** 更新時に作った JSON / gzip をそのまま返す。ETag が一致すれば 304 */
+    @GetMapping(value = "/hot", params = {"!fields", "!limit", "!cursor"})
+    public ResponseEntity<byte[]> getHotArticles(
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return EncodedResponses.ok(qiitaService.getHotArticleBody(period), acceptEncoding, ifNoneMatch, clock.instant());
+    }
+
+    /** fields 付き・ページ指定付きは、本文を埋めたりページを切り出したりするので、その都度直列化する */
     @GetMapping("/hot")
-    public List<QiitaItem> getHotArticles(
-            @RequestParam(required = false, defaultValue = "all") String period) {
-        return qiitaService.getHotArticles(period);
+    public ResponseEntity<List<QiitaItemSummary>> getHotArticlesPage(
+            @RequestParam(required = false, defaultValue = "all") String period,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        // 期限切れのリストを返す場合もあるので、取得からの経過秒数を Age で知らせる
+        CacheEntry<List<QiitaItemSummary>> entry = qiitaService.getHotArticleEntry(period);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AGE, String.valueOf(entry.getAgeSeconds(clock.instant())));
+        return page(entry.value(), fields, limit, cursor, headers);
     }
 
     @GetMapping("/timeline")
-    public List<QiitaItem> getTimelineArticles() {
-        return qiitaService.getTimelineArticles();
+    public ResponseEntity<List<QiitaItemSummary>> getTimelineArticles(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(qiitaService.getTimelineArticles(), fields, limit, cursor, new HttpHeaders());
     }
 
     @GetMapping("/article/{id}")
@@ -44,8 +80,35 @@ public class QiitaController {
         return qiitaService.getArticleComments(id);
     }
 
+    /** 詳細・コメントのキャッシュを捨て、次回のアクセスで取り直させる */
+    @DeleteMapping("/article/{id}/cache")
+    public ResponseEntity<Void> invalidateArticle(@PathVariable String id) {
+        qiitaService.invalidateArticle(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/user/{userId}/articles")
-    public List<QiitaItem> getUserArticles(@PathVariable String userId) {
-        return qiitaService.getUserArticles(userId);
+    public ResponseEntity<List<QiitaItemSummary>> getUserArticles(
+            @PathVariable String userId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return page(qiitaService.getUserArticles(userId), fields, limit, cursor, new HttpHeaders());
+    }
+
+    /** limit / cursor があればそのページだけを切り出し（コピーしない）、本文もそのページの分だけ埋める */
+    private ResponseEntity<List<QiitaItemSummary>> page(List<QiitaItemSummary> summaries, String fields,
+                                                        Integer limit, String cursor, HttpHeaders headers) {
+        if (!CursorPages.requested(limit, cursor)) return ResponseEntity.ok().headers(headers).body(project(summaries, fields));
+        CursorPages.Page<QiitaItemSummary> page = CursorPages.slice(summaries, QiitaItemSummary::getId, cursor, limit);
+        headers.addAll(CursorPages.headers(page));
+        return ResponseEntity.ok().headers(headers).body(project(page.items(), fields));
+    }
+
+    /** fields はカンマ区切り。今のところ意味を持つのは body だけ */
+    private List<QiitaItemSummary> project(List<QiitaItemSummary> summaries, String fields) {
+        if (fields == null) return summaries;
+        boolean withBody = Arrays.stream(fields.split(",")).map(String::trim).anyMatch("body"::equals);
+        return withBody ? qiitaService.withBodies(summaries) : summaries;
     }
-}
\ No newline at end of file
+}
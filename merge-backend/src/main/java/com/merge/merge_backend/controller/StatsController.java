@@ -0,0 +1,138 @@
+package com.merge.merge_backend.controller;
+
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.ConditionalRequestInterceptor;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.UpstreamGuard;
+import com.merge.merge_backend.upstream.UpstreamMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Autowired
+    private ItemRegistry itemRegistry;
+
+    @Autowired
+    private BodyStore bodyStore;
+
+    @Autowired
+    @Qualifier("qiitaRateLimit")
+    private RateLimitBudget qiitaRateLimit;
+
+    @Autowired
+    @Qualifier("devRateLimit")
+    private RateLimitBudget devRateLimit;
+
+    @Autowired
+    @Qualifier("qiitaConditionalRequests")
+    private ConditionalRequestInterceptor qiitaConditionalRequests;
+
+    @Autowired
+    @Qualifier("devConditionalRequests")
+    private ConditionalRequestInterceptor devConditionalRequests;
+
+    @Autowired
+    @Qualifier("qiitaHttpMetrics")
+    private UpstreamMetrics qiitaHttpMetrics;
+
+    @Autowired
+    @Qualifier("devHttpMetrics")
+    private UpstreamMetrics devHttpMetrics;
+
+    @Autowired
+    @Qualifier("translateHttpMetrics")
+    private UpstreamMetrics translateHttpMetrics;
+
+    @Autowired
+    @Qualifier("qiitaUpstreamGuard")
+    private UpstreamGuard qiitaUpstreamGuard;
+
+    @Autowired
+    @Qualifier("devUpstreamGuard")
+    private UpstreamGuard devUpstreamGuard;
+
+    @Autowired
+    @Qualifier("translateUpstreamGuard")
+    private UpstreamGuard translateUpstreamGuard;
+
+    @Autowired
+    @Qualifier("qiitaHedger")
+    private Hedger qiitaHedger;
+
+    @Autowired
+    @Qualifier("devHedger")
+    private Hedger devHedger;
+
+    @Autowired
+    @Qualifier("qiitaPaging")
+    private AdaptivePaging qiitaPaging;
+
+    @Autowired
+    @Qualifier("devPaging")
+    private AdaptivePaging devPaging;
+
+    @GetMapping("/caches")
+    public List<BoundedCache.Stats> getCacheStats() {
+        return cacheRegistry.stats();
+    }
+
+    @GetMapping("/items")
+    public ItemRegistry.Stats getItemRegistryStats() {
+        return itemRegistry.stats();
+    }
+
+    @GetMapping("/bodies")
+    public BodyStore.Stats getBodyStoreStats() {
+        return bodyStore.stats();
+    }
+
+    /** 上流ごとのレート制限の残り予算と、優先度別の許可・拒否数 */
+    @GetMapping("/upstreams")
+    public List<RateLimitBudget.Snapshot> getUpstreamBudgets() {
+        return List.of(qiitaRateLimit.snapshot(), devRateLimit.snapshot());
+    }
+
+    /** 条件付きで送った GET の数と、そのうち 304 で本文を使い回せた数 */
+    @GetMapping("/conditional")
+    public List<ConditionalRequestInterceptor.Stats> getConditionalRequestStats() {
+        return List.of(qiitaConditionalRequests.stats(), devConditionalRequests.stats());
+    }
+
+    /** 上流 HTTP クライアントごとのリクエスト数・同時実行数・レイテンシ */
+    @GetMapping("/http")
+    public List<UpstreamMetrics.Snapshot> getHttpClientStats() {
+        return List.of(qiitaHttpMetrics.snapshot(), devHttpMetrics.snapshot(), translateHttpMetrics.snapshot());
+    }
+
+    /** circuit breaker の状態と bulkhead の埋まり具合、再試行の回数。state が OPEN の上流は劣化中 */
+    @GetMapping("/resilience")
+    public List<UpstreamGuard.Snapshot> getResilienceStats() {
+        return List.of(qiitaUpstreamGuard.snapshot(), devUpstreamGuard.snapshot(), translateUpstreamGuard.snapshot());
+    }
+
+    /** 詳細・コメント取得の hedge。delayMillis は今の待ち時間（-1 はまだ hedge しない） */
+    @GetMapping("/hedging")
+    public List<Hedger.Snapshot> getHedgingStats() {
+        return List.of(qiitaHedger.snapshot(), devHedger.snapshot());
+    }
+
+    /** クエリの形ごとのページ収量と、直近のページ数の判断（設定より浅く／深くした理由） */
+    @GetMapping("/paging")
+    public List<AdaptivePaging.Snapshot> getPagingStats() {
+        return List.of(qiitaPaging.snapshot(), devPaging.snapshot());
+    }
+}
@@ -46,6 +46,9 @@ public class DevItem {
     
     @JsonProperty("published_at")
     private String publishedAt;
+
+    @JsonProperty("edited_at")
+    private String editedAt;
     
     @JsonProperty("user")
     private Object user;
@@ -70,6 +73,37 @@ public class DevItem {
     @JsonProperty("tags")
     private List<String> tagList;
 
+    /** 本文だけ差し替えたコピー。キャッシュ上のインスタンスは共有されているので書き換えない */
+    public DevItem withRenderedBody(String renderedBody) {
+        DevItem copy = new DevItem();
+        copy.setId(id);
+        copy.setTitle(title);
+        copy.setUrl(url);
+        copy.setRenderedBody(renderedBody);
+        copy.setLikesCount(likesCount);
+        copy.setCommentsCount(commentsCount);
+        copy.setDescription(description);
+        copy.setReadablePublishDate(readablePublishDate);
+        copy.setPublishedAt(publishedAt);
+        copy.setEditedAt(editedAt);
+        copy.setUser(user);
+        copy.setSlug(slug);
+        copy.setCoverImage(coverImage);
+        copy.setDevComments(devComments);
+        copy.setTagList(tagList);
+        return copy;
+    }
+
+    /**
+     * ItemRegistry で同じ記事かを見るための版。編集日時（未編集なら公開日時）・反応数・コメント数と本文の有無。
+     * 取得時に決まる値なので、後から setter で変えられても比較は変わらない
+     */
+    public String versionKey() {
+        String at = editedAt != null ? editedAt : publishedAt;
+        if (at == null) return null;
+        return at + "|" + likesCount + "|" + commentsCount + "|" + (renderedBody != null);
+    }
+
     public static class FlexibleTagListDeserializer extends StdDeserializer<List<String>> {
         public FlexibleTagListDeserializer() { super(List.class); }
 
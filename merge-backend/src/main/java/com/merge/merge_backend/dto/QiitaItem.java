@@ -25,6 +25,9 @@ public class QiitaItem {
     @JsonProperty("created_at")
     private String createdAt;
 
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
     @JsonProperty("qiita-comments")
     private List<QiitaCommentItem> qiitaComments;
 
@@ -32,6 +35,33 @@ public class QiitaItem {
 
     private List<Tag> tags;
 
+    /** 本文だけ差し替えたコピー。キャッシュ上のインスタンスは共有されているので書き換えない */
+    public QiitaItem withRenderedBody(String renderedBody) {
+        QiitaItem copy = new QiitaItem();
+        copy.setId(id);
+        copy.setTitle(title);
+        copy.setUrl(url);
+        copy.setRenderedBody(renderedBody);
+        copy.setLikesCount(likesCount);
+        copy.setStocksCount(stocksCount);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        copy.setQiitaComments(qiitaComments);
+        copy.setUser(user);
+        copy.setTags(tags);
+        return copy;
+    }
+
+    /**
+     * ItemRegistry で同じ記事かを見るための版。更新日時（無ければ作成日時）・いいね数・ストック数と本文の有無。
+     * 取得時に決まる値なので、後から setter で変えられても比較は変わらない
+     */
+    public String versionKey() {
+        String at = updatedAt != null ? updatedAt : createdAt;
+        if (at == null) return null;
+        return at + "|" + likesCount + "|" + stocksCount + "|" + (renderedBody != null);
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     @Data
     public static class Tag {
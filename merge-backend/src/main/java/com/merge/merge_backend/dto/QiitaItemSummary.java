@@ -0,0 +1,80 @@
+package com.merge.merge_backend.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * 一覧 API (hot / search / timeline / user) 用の QiitaItem の軽量版。
+ * JSON のキーは QiitaItem と同じにして、フロントエンドの Article 型をそのまま使えるようにしている。
+ * 本文 (rendered_body) は fields=body を指定されたときだけ入る。
+ */
+@Data
+public class QiitaItemSummary {
+
+    private static final int EXCERPT_LENGTH = 120;
+
+    private String id;
+    private String title;
+    private String url;
+
+    @JsonProperty("likes_count")
+    private int likesCount;
+
+    @JsonProperty("stocks_count")
+    private int stocksCount;
+
+    @JsonProperty("created_at")
+    private String createdAt;
+
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    private QiitaUserItem user;
+
+    private List<QiitaItem.Tag> tags;
+
+    /** 本文の先頭を HTML タグ抜きで切り出したもの */
+    private String excerpt;
+
+    @JsonProperty("rendered_body")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String renderedBody;
+
+    public static QiitaItemSummary from(QiitaItem item) {
+        QiitaItemSummary summary = new QiitaItemSummary();
+        summary.setId(item.getId());
+        summary.setTitle(item.getTitle());
+        summary.setUrl(item.getUrl());
+        summary.setLikesCount(item.getLikesCount());
+        summary.setStocksCount(item.getStocksCount());
+        summary.setCreatedAt(item.getCreatedAt());
+        summary.setUpdatedAt(item.getUpdatedAt());
+        summary.setUser(item.getUser());
+        summary.setTags(item.getTags());
+        summary.setExcerpt(excerpt(item.getRenderedBody()));
+        return summary;
+    }
+
+    /** fields=body 用。キャッシュ上のサマリは共有されているので、本文付きは常に別インスタンスで作る */
+    public static QiitaItemSummary withBody(QiitaItem item) {
+        QiitaItemSummary summary = from(item);
+        summary.setRenderedBody(item.getRenderedBody());
+        return summary;
+    }
+
+    /** ItemRegistry で同じ記事かを見るための版（QiitaItem#versionKey と同じ考え方。抜粋は本文の更新で変わる） */
+    public String versionKey() {
+        String at = updatedAt != null ? updatedAt : createdAt;
+        if (at == null) return null;
+        return at + "|" + likesCount + "|" + stocksCount + "|" + (renderedBody != null);
+    }
+
+    static String excerpt(String html) {
+        if (html == null) return null;
+        String text = html.replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").strip();
+        return text.length() <= EXCERPT_LENGTH ? text : text.substring(0, EXCERPT_LENGTH) + "…";
+    }
+}
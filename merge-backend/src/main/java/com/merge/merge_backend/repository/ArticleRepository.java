@@ -1,10 +1,13 @@
 package com.merge.merge_backend.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.merge.merge_backend.entity.Article;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,22 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     Article findByUrl(String url);
     List<Article> findByTitleContainingIgnoreCaseAndDeleteFlgFalse(String keyword);
     List<Article> findByTitleContainingIgnoreCaseOrRenderedBodyContainingIgnoreCaseAndDeleteFlgFalse(String keyword, String body);
+
+    /** 新しい順の先頭 limit 件。ページングはキー (createdAt, id) で続ける */
+    @Query("select a from Article a where a.deleteFlg = false order by a.createdAt desc, a.id desc")
+    List<Article> findLatest(Limit limit);
+
+    /** (createdAt, id) より古い記事を新しい順に limit 件（キーセットページング） */
+    @Query("select a from Article a where a.deleteFlg = false"
+            + " and (a.createdAt < :createdAt or (a.createdAt = :createdAt and a.id < :id))"
+            + " order by a.createdAt desc, a.id desc")
+    List<Article> findLatestBefore(LocalDateTime createdAt, Long id, Limit limit);
+
+    /** 全記事（論理削除済みを含む）の件数と最終更新。条件付き GET の検証子に使う */
+    @Query("select new com.merge.merge_backend.repository.TableVersion(count(a), max(a.updatedAt)) from Article a")
+    TableVersion version();
+
+    /** since より後に作られた記事の件数と最終更新。期間で絞る検索では、記事が期間から外れると件数が変わる */
+    @Query("select new com.merge.merge_backend.repository.TableVersion(count(a), max(a.updatedAt)) from Article a where a.createdAt > :since")
+    TableVersion versionCreatedAfter(LocalDateTime since);
 }
\ No newline at end of file
@@ -1,13 +1,32 @@
 package com.merge.merge_backend.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.merge.merge_backend.entity.Memo;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MemoRepository extends JpaRepository<Memo, Long> {
     List<Memo> findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(Long articleId);
+
+    /** 新しい順の先頭 limit 件（findAll と同じく論理削除済みも含む） */
+    @Query("select m from Memo m order by m.createdAt desc, m.id desc")
+    List<Memo> findLatest(Limit limit);
+
+    /** (createdAt, id) より古いメモを新しい順に limit 件（キーセットページング） */
+    @Query("select m from Memo m where m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id)"
+            + " order by m.createdAt desc, m.id desc")
+    List<Memo> findLatestBefore(LocalDateTime createdAt, Long id, Limit limit);
+
+    /** 全メモの件数と最終更新。条件付き GET の検証子に使う */
+    @Query("select new com.merge.merge_backend.repository.TableVersion(count(m), max(m.updatedAt)) from Memo m")
+    TableVersion version();
+
+    @Query("select new com.merge.merge_backend.repository.TableVersion(count(m), max(m.updatedAt)) from Memo m where m.article.id = :articleId")
+    TableVersion versionByArticleId(Long articleId);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.merge.merge_backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row count and latest updated_at of a set of rows, read with one aggregate query.
+ * Any insert, update or soft delete moves the timestamp and any hard delete moves the count,
+ * so it works as an HTTP validator for responses built from those rows.
+ */
+public record TableVersion(long rows, LocalDateTime lastModified) {}
@@ -0,0 +1,158 @@
+package com.merge.merge_backend.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Filter / order / limit over the primitive columns of a {@link ColumnarList}, returning row indexes.
+ *
+ * Tag conditions are BitSet AND / OR, thresholds and the creation window are one pass over int /
+ * long arrays, and ordering is a top-K heap over row indexes keyed by a column (descending, ties
+ * in list order). No item is read and nothing is boxed. A query is a small mutable builder; build
+ * a new one per request.
+ */
+public final class ColumnQuery {
+
+    public enum Order { CREATED, LIKES, STOCKS, COMMENTS }
+
+    private long createdSince = ColumnarList.UNKNOWN_TIME;
+    private int minLikes = Integer.MIN_VALUE;
+    private int minStocks = Integer.MIN_VALUE;
+    private final List<String> allTags = new ArrayList<>();
+    private final List<String> anyTags = new ArrayList<>();
+    private Order order;
+    private int limit = Integer.MAX_VALUE;
+
+    /** Keeps rows created at or after {@code epochSecond}; rows with an unknown time are dropped. */
+    public ColumnQuery createdSince(long epochSecond) {
+        this.createdSince = Math.max(this.createdSince, epochSecond);
+        return this;
+    }
+
+    public ColumnQuery minLikes(int min) {
+        this.minLikes = Math.max(this.minLikes, min);
+        return this;
+    }
+
+    public ColumnQuery minStocks(int min) {
+        this.minStocks = Math.max(this.minStocks, min);
+        return this;
+    }
+
+    /** Rows must have every one of these tags. */
+    public ColumnQuery withAllTags(List<String> tags) {
+        allTags.addAll(tags);
+        return this;
+    }
+
+    /** Rows must have at least one of these tags. Repeated calls widen the same set. */
+    public ColumnQuery withAnyTag(List<String> tags) {
+        anyTags.addAll(tags);
+        return this;
+    }
+
+    /** Descending by {@code order}; null keeps list order. */
+    public ColumnQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    public ColumnQuery limit(int limit) {
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+
+    public <T> ColumnarList<T> select(ColumnarList<T> list) {
+        return list.rows(rows(list));
+    }
+
+    public int[] rows(ColumnarList<?> list) {
+        int n = list.size();
+        BitSet match = new BitSet(n);
+        match.set(0, n);
+        for (String tag : allTags) match.and(list.rowsWithTag(tag));
+        if (!anyTags.isEmpty()) {
+            BitSet any = new BitSet(n);
+            for (String tag : anyTags) any.or(list.rowsWithTag(tag));
+            match.and(any);
+        }
+        boolean since = createdSince != ColumnarList.UNKNOWN_TIME;
+        int[] rows = new int[match.cardinality()];
+        int count = 0;
+        for (int r = match.nextSetBit(0); r >= 0; r = match.nextSetBit(r + 1)) {
+            if (since && list.created[r] < createdSince) continue;
+            if (list.likes[r] < minLikes || list.stocks[r] < minStocks) continue;
+            rows[count++] = r;
+        }
+        if (order == null) return Arrays.copyOf(rows, Math.min(count, limit));
+        return topK(list, rows, count, Math.min(count, limit));
+    }
+
+    /**
+     * 上位 k 行を降順で返す。k 件の最小ヒープ（根が一番弱い行）を保ち、強い行が来たら根と入れ替える。
+     * 同じ値なら先の行を強いとみなすので、結果はリスト順で安定する
+     */
+    private int[] topK(ColumnarList<?> list, int[] rows, int count, int k) {
+        if (k == 0) return new int[0];
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int r = rows[i];
+            if (size < k) {
+                heap[size] = r;
+                siftUp(list, heap, size++);
+            } else if (stronger(list, r, heap[0])) {
+                heap[0] = r;
+                siftDown(list, heap, 0, size);
+            }
+        }
+        // ヒープから弱い順に取り出し、後ろから詰める
+        int[] result = new int[size];
+        for (int end = size - 1; end >= 0; end--) {
+            result[end] = heap[0];
+            heap[0] = heap[end];
+            siftDown(list, heap, 0, end);
+        }
+        return result;
+    }
+
+    private boolean stronger(ColumnarList<?> list, int a, int b) {
+        int cmp = switch (order) {
+            case CREATED  -> Long.compare(list.created[a], list.created[b]);
+            case LIKES    -> Integer.compare(list.likes[a], list.likes[b]);
+            case STOCKS   -> Integer.compare(list.stocks[a], list.stocks[b]);
+            case COMMENTS -> Integer.compare(list.comments[a], list.comments[b]);
+        };
+        return cmp != 0 ? cmp > 0 : a < b;
+    }
+
+    private void siftUp(ColumnarList<?> list, int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!stronger(list, heap[parent], heap[i])) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(ColumnarList<?> list, int[] heap, int i, int size) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) return;
+            int weakest = left;
+            int right = left + 1;
+            if (right < size && stronger(list, heap[left], heap[right])) weakest = right;
+            if (!stronger(list, heap[i], heap[weakest])) return;
+            swap(heap, i, weakest);
+            i = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -0,0 +1,139 @@
+package com.merge.merge_backend.search;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * An immutable cached list that carries its filter / sort keys as primitive columns
+ * (struct-of-arrays), so {@link ColumnQuery} can filter and order it without touching the items.
+ *
+ * The columns are extracted once when the list is built: creation time as epoch seconds
+ * ({@link #UNKNOWN_TIME} when missing or unparsable), likes / stocks / comments as ints, and tags
+ * as ids into a per-list dictionary with one {@link BitSet} of rows per tag. It is still a plain
+ * {@code List<T>} to everything else (JSON serialization, caching, callers that iterate).
+ */
+public final class ColumnarList<T> extends AbstractList<T> implements RandomAccess {
+
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    /** How to read the columns from an item. Tag names should already be normalized (e.g. lowercased). */
+    public record Schema<T>(ToLongFunction<T> created, ToIntFunction<T> likes, ToIntFunction<T> stocks,
+                            ToIntFunction<T> comments, Function<T, List<String>> tags) {}
+
+    private final Object[] items;
+    final long[] created;
+    final int[] likes;
+    final int[] stocks;
+    final int[] comments;
+    private final int[][] rowTags;
+    private final Map<String, Integer> tagIds;
+    private final BitSet[] tagRows;
+
+    private ColumnarList(Object[] items, long[] created, int[] likes, int[] stocks, int[] comments,
+                         int[][] rowTags, Map<String, Integer> tagIds) {
+        this.items = items;
+        this.created = created;
+        this.likes = likes;
+        this.stocks = stocks;
+        this.comments = comments;
+        this.rowTags = rowTags;
+        this.tagIds = tagIds;
+        this.tagRows = new BitSet[tagIds.size()];
+        for (int t = 0; t < tagRows.length; t++) tagRows[t] = new BitSet(items.length);
+        for (int row = 0; row < rowTags.length; row++) {
+            for (int t : rowTags[row]) tagRows[t].set(row);
+        }
+    }
+
+    public static <T> ColumnarList<T> of(List<T> items, Schema<T> schema) {
+        if (items instanceof ColumnarList<T> columnar) return columnar;
+        int n = items.size();
+        long[] created = new long[n];
+        int[] likes = new int[n];
+        int[] stocks = new int[n];
+        int[] comments = new int[n];
+        int[][] rowTags = new int[n][];
+        Map<String, Integer> tagIds = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            T item = items.get(i);
+            created[i] = schema.created().applyAsLong(item);
+            likes[i] = schema.likes().applyAsInt(item);
+            stocks[i] = schema.stocks().applyAsInt(item);
+            comments[i] = schema.comments().applyAsInt(item);
+            List<String> tags = schema.tags().apply(item);
+            int[] ids = new int[tags != null ? tags.size() : 0];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = tagIds.computeIfAbsent(tags.get(j), k -> tagIds.size());
+            }
+            rowTags[i] = ids;
+        }
+        return new ColumnarList<>(items.toArray(), created, likes, stocks, comments, rowTags, tagIds);
+    }
+
+    /** ISO-8601 の日時（オフセット付き）をエポック秒に。読めなければ UNKNOWN_TIME */
+    public static long epochSecond(String isoDateTime) {
+        if (isoDateTime == null) return UNKNOWN_TIME;
+        try {
+            return OffsetDateTime.parse(isoDateTime).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_TIME;
+        }
+    }
+
+    /** The given rows, in the given order, as a new list sharing this list's tag dictionary. */
+    public ColumnarList<T> rows(int[] rows) {
+        Object[] picked = new Object[rows.length];
+        long[] c = new long[rows.length];
+        int[] l = new int[rows.length];
+        int[] s = new int[rows.length];
+        int[] m = new int[rows.length];
+        int[][] t = new int[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            int r = rows[i];
+            picked[i] = items[r];
+            c[i] = created[r];
+            l[i] = likes[r];
+            s[i] = stocks[r];
+            m[i] = comments[r];
+            t[i] = rowTags[r];
+        }
+        return new ColumnarList<>(picked, c, l, s, m, t, tagIds);
+    }
+
+    /** Rows tagged with {@code tag}; empty when no row has it. Callers must not modify the result. */
+    BitSet rowsWithTag(String tag) {
+        Integer id = tagIds.get(tag);
+        return id != null ? tagRows[id] : new BitSet();
+    }
+
+    /** Approximate heap size of the columns (not the items), for cache weighing. */
+    public long columnWeight() {
+        long perRow = 8 + 4 * 3 + 16 + 8;
+        return 64 + (long) items.length * perRow + tagIds.size() * 64L + tagRows.length * (items.length / 8L + 24);
+    }
+
+    /** Column weight of {@code list} when it is columnar, otherwise 0. */
+    public static long columnWeight(List<?> list) {
+        return list instanceof ColumnarList<?> columnar ? columnar.columnWeight() : 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) items[index];
+    }
+
+    @Override
+    public int size() {
+        return items.length;
+    }
+}
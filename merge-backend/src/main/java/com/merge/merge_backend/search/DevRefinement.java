@@ -0,0 +1,69 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.DevItem;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Decides whether a Dev.to search can be answered from the cached result of a broader one.
+ *
+ * Keywords are normalized tag lists ({@code "a,b"} = all tags, {@code "a|b"} = any tag). A search
+ * refines a cached one when
+ * <ul>
+ *   <li>it needs all of the cached search's tags and more (both AND), or any of a subset of the
+ *       cached search's tags (cached OR, new OR or a single tag),</li>
+ *   <li>its {@code top} window is no longer than the cached one (a search without {@code top}
+ *       is only refined by itself), and</li>
+ *   <li>it sorts by reactions, or the cached search was in upstream order too.</li>
+ * </ul>
+ * Everything a refinement checks is a column, so it is answered by a {@link ColumnQuery} alone.
+ * Items without a readable published_at fall out of a shortened window. Only exhaustive cached
+ * results ({@link SearchResult}) are offered: a {@code top} list cut off after its pages holds the
+ * most popular articles of the longer window, not every article of the shorter one.
+ */
+public final class DevRefinement {
+
+    /** Column layout of cached Dev.to items. Reactions go in the likes column; Dev.to has no stocks. */
+    public static final ColumnarList.Schema<DevItem> COLUMNS = new ColumnarList.Schema<>(
+            item -> ColumnarList.epochSecond(item.getPublishedAt()),
+            item -> item.getLikesCount() != null ? item.getLikesCount() : 0,
+            item -> 0,
+            item -> item.getCommentsCount() != null ? item.getCommentsCount() : 0,
+            DevItem::getTagList);
+
+    private DevRefinement() {}
+
+    /**
+     * Configures {@code query} to turn the cached result of (baseKeyword, baseSort, baseDays) into
+     * the result of (keyword, sort, days) and returns true, or returns false when the new search is
+     * not a refinement of it.
+     */
+    public static boolean narrowing(String baseKeyword, String baseSort, Integer baseDays,
+                                    String keyword, String sort, Integer days, Instant now, ColumnQuery query) {
+        if (baseDays == null ? days != null : days == null || days > baseDays) return false;
+        if ("count".equals(baseSort) && !"count".equals(sort)) return false;
+
+        List<String> baseTags = tags(baseKeyword);
+        List<String> newTags = tags(keyword);
+        boolean baseAny = baseTags.size() > 1 && baseKeyword.contains("|");
+        boolean newAny = newTags.size() > 1 && keyword.contains("|");
+
+        if (!baseAny && !newAny && newTags.containsAll(baseTags)) {
+            query.withAllTags(newTags.stream().filter(t -> !baseTags.contains(t)).toList());
+        } else if (baseAny && !newTags.isEmpty() && baseTags.containsAll(newTags) && (newAny || newTags.size() == 1)) {
+            if (newTags.size() < baseTags.size()) query.withAnyTag(newTags);
+        } else {
+            return false;
+        }
+
+        if (days != null && !days.equals(baseDays)) query.createdSince(now.getEpochSecond() - days * 86_400L);
+        if ("count".equals(sort)) query.orderBy(ColumnQuery.Order.LIKES);
+        return true;
+    }
+
+    private static List<String> tags(String keyword) {
+        if (keyword == null || keyword.isEmpty()) return List.of();
+        return List.of(keyword.split("[,|]"));
+    }
+}
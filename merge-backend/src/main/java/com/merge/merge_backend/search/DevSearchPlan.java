@@ -0,0 +1,48 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.DevItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Upstream plan for a Dev.to search. The articles API filters by a single {@code tag}, so a
+ * multi-tag search queries up to {@code maxParallel} tags concurrently, one query each, and
+ * combines the results with {@link IdSetMerge} (AND when {@code matchAll}, OR otherwise).
+ *
+ * For AND, the tags expected to match the fewest articles (see {@link TagStats}) are the ones
+ * queried; any further tags are checked against {@code tag_list} while decoding. For OR every tag
+ * has to be queried (an article may carry only a tag past the limit), so the tags are queried in
+ * {@link #waves waves} of {@code maxParallel}. The period is sent as {@code top}.
+ */
+public record DevSearchPlan(List<String> upstreamTags, boolean matchAll, Integer top, List<String> residualTags) {
+
+    public static DevSearchPlan of(List<String> tags, boolean matchAll, Integer top, TagStats stats, int maxParallel) {
+        if (tags.isEmpty()) return new DevSearchPlan(List.of(), true, top, List.of());
+        int limit = Math.max(1, maxParallel);
+        if (!matchAll) return new DevSearchPlan(List.copyOf(tags), false, top, List.of());
+        // 安定ソートなので、出現数が同じなら書かれた順のまま
+        List<String> byRarity = tags.stream().sorted(Comparator.comparingLong(stats::count)).toList();
+        List<String> queried = byRarity.subList(0, Math.min(limit, byRarity.size()));
+        List<String> rest = byRarity.subList(queried.size(), byRarity.size());
+        return new DevSearchPlan(List.copyOf(queried), true, top, List.copyOf(rest));
+    }
+
+    /** 上流に送るタグを、同時に問い合わせる数ずつに分ける（書かれた順） */
+    public List<List<String>> waves(int maxParallel) {
+        int size = Math.max(1, maxParallel);
+        List<List<String>> waves = new ArrayList<>();
+        for (int from = 0; from < upstreamTags.size(); from += size) {
+            waves.add(upstreamTags.subList(from, Math.min(from + size, upstreamTags.size())));
+        }
+        return waves;
+    }
+
+    /** 上流に送らなかったタグをすべて持つ記事だけ残す */
+    public Predicate<DevItem> residual() {
+        if (residualTags.isEmpty()) return item -> true;
+        return item -> item.getTagList() != null && item.getTagList().containsAll(residualTags);
+    }
+}
@@ -0,0 +1,65 @@
+package com.merge.merge_backend.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Combines the result lists of several queries (one per tag) by id.
+ *
+ * Every distinct id gets a dense index, so each list becomes a {@link BitSet} and AND / OR are
+ * single word-wise operations however long the lists are. The combined items are ranked by how
+ * many lists they appeared in, then by their average position in those lists (an article near the
+ * top of every tag's results comes first). The first occurrence of an id supplies the item.
+ */
+public final class IdSetMerge {
+
+    private IdSetMerge() {}
+
+    public static <T> List<T> merge(List<List<T>> lists, Function<T, String> id, boolean matchAll) {
+        if (lists.isEmpty()) return List.of();
+        Map<String, Integer> index = new HashMap<>();
+        List<T> items = new ArrayList<>();
+        int capacity = lists.stream().mapToInt(List::size).sum();
+        int[] matches = new int[capacity];
+        long[] positions = new long[capacity];
+        BitSet combined = null;
+
+        for (List<T> list : lists) {
+            BitSet set = new BitSet(capacity);
+            for (int pos = 0; pos < list.size(); pos++) {
+                T item = list.get(pos);
+                String key = id.apply(item);
+                if (key == null) continue;
+                Integer i = index.get(key);
+                if (i == null) {
+                    i = items.size();
+                    index.put(key, i);
+                    items.add(item);
+                }
+                // 同じリストに同じ id が 2 回出たら最初の位置だけ数える
+                if (set.get(i)) continue;
+                set.set(i);
+                matches[i]++;
+                positions[i] += pos;
+            }
+            if (combined == null) combined = set;
+            else if (matchAll) combined.and(set);
+            else combined.or(set);
+        }
+
+        List<Integer> selected = new ArrayList<>(combined.cardinality());
+        for (int i = combined.nextSetBit(0); i >= 0; i = combined.nextSetBit(i + 1)) selected.add(i);
+        selected.sort(Comparator.<Integer>comparingInt(i -> -matches[i])
+                .thenComparingDouble(i -> (double) positions[i] / matches[i])
+                .thenComparingInt(i -> i));
+
+        List<T> result = new ArrayList<>(selected.size());
+        for (int i : selected) result.add(items.get(i));
+        return result;
+    }
+}
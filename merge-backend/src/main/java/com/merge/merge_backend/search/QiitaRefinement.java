@@ -0,0 +1,142 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.QiitaItemSummary;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a Qiita search can be answered from the cached result of a broader one.
+ *
+ * A search refines a cached one when it keeps all of its keyword terms and only adds terms that
+ * can be checked on a summary (words and phrases against title / tags / excerpt, {@code #tag} /
+ * {@code tag:}, {@code @user} / {@code user:}, {@code -word}), its period starts no earlier, and
+ * the cached result was not fetched with a stocks floor the new sort does not have. Searches with
+ * {@code OR} or other operators never refine.
+ *
+ * The creation window, stocks floor and added tags go into a {@link ColumnQuery}; only word, user
+ * and negated terms are left as a residual filter on the summaries.
+ *
+ * Only exhaustive cached results ({@link SearchResult}) are offered: a result cut off after its
+ * configured pages is the head of the broader search, not a superset of the narrower one.
+ *
+ * Word matches on a summary cannot see the full body, so a refined result may miss articles that
+ * mention a term only in their body; callers fall back to the upstream when too few remain.
+ */
+public final class QiitaRefinement {
+
+    /** Qiita の created_at は JST。created:>= の日付も JST の日付として比べる */
+    private static final ZoneOffset JST = ZoneOffset.ofHours(9);
+    private static final Pattern TOKEN = Pattern.compile("\"[^\"]*\"|\\S+");
+
+    /** Column layout of cached Qiita summaries. Tags are lowercased, as Qiita matches them case-insensitively. */
+    public static final ColumnarList.Schema<QiitaItemSummary> COLUMNS = new ColumnarList.Schema<>(
+            s -> ColumnarList.epochSecond(s.getCreatedAt()),
+            QiitaItemSummary::getLikesCount,
+            QiitaItemSummary::getStocksCount,
+            s -> 0,
+            s -> s.getTags() == null ? List.of() : s.getTags().stream()
+                    .filter(tag -> tag.getName() != null)
+                    .map(tag -> tag.getName().toLowerCase(Locale.ROOT))
+                    .toList());
+
+    private QiitaRefinement() {}
+
+    /**
+     * Configures {@code query} to turn the cached result of (baseKeyword, baseSort, baseSince) into
+     * the result of (keyword, sort, since) and returns the residual filter, or returns null when the
+     * new search is not a refinement of it.
+     */
+    public static Predicate<QiitaItemSummary> narrowing(String baseKeyword, String baseSort, LocalDate baseSince,
+                                                        String keyword, String sort, LocalDate since,
+                                                        int countMinStocks, ColumnQuery query) {
+        if (baseSince != null && (since == null || since.isBefore(baseSince))) return null;
+        boolean stocksFloor = "count".equals(sort) && countMinStocks > 0;
+        if ("count".equals(baseSort) && !stocksFloor) return null;
+
+        List<String> added = tokens(keyword);
+        for (String token : tokens(baseKeyword)) {
+            if (!checkable(token) || !added.remove(token)) return null;
+        }
+        for (String token : added) {
+            if (!checkable(token)) return null;
+        }
+
+        Predicate<QiitaItemSummary> residual = item -> true;
+        for (String token : added) {
+            String tag = tagOf(token);
+            if (tag != null) query.withAllTags(List.of(tag.toLowerCase(Locale.ROOT)));
+            else residual = residual.and(matches(token));
+        }
+        if (since != null && !since.equals(baseSince)) {
+            query.createdSince(since.atStartOfDay(JST).toEpochSecond());
+        }
+        if (stocksFloor && !"count".equals(baseSort)) query.minStocks(countMinStocks);
+        query.orderBy(order(sort));
+        return residual;
+    }
+
+    /** 並べ替えの指定。rel は上流の順（キャッシュの順）のままなので null */
+    static ColumnQuery.Order order(String sort) {
+        return switch (sort) {
+            case "count"   -> ColumnQuery.Order.LIKES;
+            case "created" -> ColumnQuery.Order.CREATED;
+            default        -> null;
+        };
+    }
+
+    private static List<String> tokens(String keyword) {
+        List<String> tokens = new ArrayList<>();
+        if (keyword == null) return tokens;
+        Matcher m = TOKEN.matcher(keyword);
+        while (m.find()) tokens.add(m.group());
+        return tokens;
+    }
+
+    /** OR や stocks: などの演算子は手元で確かめられない */
+    private static boolean checkable(String token) {
+        if (token.equals("OR")) return false;
+        String body = token.startsWith("-") ? token.substring(1) : token;
+        if (body.isEmpty()) return false;
+        int colon = body.indexOf(':');
+        if (colon < 0 || body.startsWith("\"")) return true;
+        String op = body.substring(0, colon);
+        return op.equals("tag") || op.equals("user");
+    }
+
+    private static String tagOf(String token) {
+        if (token.startsWith("#") && token.length() > 1) return token.substring(1);
+        if (token.startsWith("tag:") && token.length() > 4) return token.substring(4);
+        return null;
+    }
+
+    private static Predicate<QiitaItemSummary> matches(String token) {
+        if (token.startsWith("-")) return matches(token.substring(1)).negate();
+        String tag = tagOf(token);
+        if (tag != null) return hasTag(tag);
+        if (token.startsWith("@") && token.length() > 1) return byUser(token.substring(1));
+        if (token.startsWith("user:")) return byUser(token.substring(5));
+        String word = (token.startsWith("\"") && token.endsWith("\"") && token.length() > 1
+                ? token.substring(1, token.length() - 1) : token).toLowerCase(Locale.ROOT);
+        return item -> contains(item.getTitle(), word) || contains(item.getExcerpt(), word) || hasTag(word).test(item);
+    }
+
+    private static Predicate<QiitaItemSummary> hasTag(String name) {
+        return item -> item.getTags() != null && item.getTags().stream()
+                .anyMatch(tag -> name.equalsIgnoreCase(tag.getName()));
+    }
+
+    private static Predicate<QiitaItemSummary> byUser(String id) {
+        return item -> item.getUser() != null && id.equals(item.getUser().getId());
+    }
+
+    private static boolean contains(String text, String word) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(word);
+    }
+}
@@ -0,0 +1,89 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.config.QiitaProperties;
+import com.merge.merge_backend.dto.QiitaItem;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Upstream plan for a Qiita search: as much of (keyword, sort, period) as possible is pushed into
+ * Qiita's query language, and only what Qiita cannot do is left to the caller.
+ *
+ * <ul>
+ *   <li>{@code #tag} / {@code @user} in the keyword become {@code tag:} / {@code user:}; operators the
+ *       user typed ({@code tag:}, {@code user:}, {@code stocks:}, {@code OR}, quoted phrases) pass through.</li>
+ *   <li>The period becomes {@code created:>=}.</li>
+ *   <li>{@code sort=count} adds {@code stocks:>=countMinStocks}, so the pages sorted locally hold
+ *       only articles that could rank, and fewer of them ({@code countPages}) are needed. For a
+ *       sparse keyword the floor can leave almost nothing; when the floored query does not fill
+ *       one page, the caller runs {@link #withoutStocksFloor()} instead.</li>
+ * </ul>
+ * Qiita has no sort parameter, so ordering by likes stays local. The residual filter only re-checks
+ * the creation date against the 10-character date prefix, without parsing it.
+ */
+public record QiitaSearchPlan(String query, int pages, LocalDate createdSince, boolean sortByLikes,
+                              String unflooredQuery) {
+
+    /** 引用符で囲んだフレーズは 1 トークンとして扱う */
+    private static final Pattern TOKEN = Pattern.compile("\"[^\"]*\"|\\S+");
+
+    public static QiitaSearchPlan of(String keyword, String sort, LocalDate since, QiitaProperties.Search cfg) {
+        List<String> parts = new ArrayList<>();
+        boolean userStocks = false;
+        if (keyword != null) {
+            Matcher m = TOKEN.matcher(keyword);
+            while (m.find()) {
+                String token = pushDown(m.group());
+                userStocks |= token.startsWith("stocks:");
+                parts.add(token);
+            }
+        }
+        if (since != null) parts.add("created:>=" + since.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        boolean byLikes = "count".equals(sort);
+        String unfloored = null;
+        if (byLikes && !userStocks && cfg.getCountMinStocks() > 0) {
+            unfloored = String.join(" ", parts);
+            parts.add("stocks:>=" + cfg.getCountMinStocks());
+        }
+        int pages = switch (sort) {
+            case "count"   -> cfg.getCountPages();
+            case "created" -> cfg.getCreatedPages();
+            default        -> cfg.getRelPages();
+        };
+        return new QiitaSearchPlan(String.join(" ", parts), pages, since, byLikes, unfloored);
+    }
+
+    /** 自分で足した stocks の下限があるか（利用者が書いた stocks: は外さない） */
+    public boolean hasStocksFloor() {
+        return unflooredQuery != null;
+    }
+
+    /** 自分で足した stocks の下限を外したプラン。下限が無ければ自分自身 */
+    public QiitaSearchPlan withoutStocksFloor() {
+        if (!hasStocksFloor()) return this;
+        return new QiitaSearchPlan(unflooredQuery, pages, createdSince, sortByLikes, null);
+    }
+
+    private static String pushDown(String token) {
+        if (token.length() > 1 && token.charAt(0) == '#') return "tag:" + token.substring(1);
+        if (token.length() > 1 && token.charAt(0) == '@') return "user:" + token.substring(1);
+        return token;
+    }
+
+    /**
+     * 上流で絞り切れない分だけ手元で落とす（デコード中に適用）。created_at の日付部分を文字列のまま比べ、
+     * 10 文字に満たない・無い記事は捨てる。since が無ければ全件通す
+     */
+    public Predicate<QiitaItem> residual() {
+        if (createdSince == null) return a -> true;
+        String since = createdSince.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        return a -> a.getCreatedAt() != null && a.getCreatedAt().length() >= 10
+                && a.getCreatedAt().substring(0, 10).compareTo(since) >= 0;
+    }
+}
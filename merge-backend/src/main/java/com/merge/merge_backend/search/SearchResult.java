@@ -0,0 +1,10 @@
+package com.merge.merge_backend.search;
+
+import java.util.List;
+
+/**
+ * A cached search result. {@code exhaustive} is true when the upstream list was read to its end
+ * (its last page came back short), so the items are every match of the search and not just the
+ * first pages of it. Only exhaustive results may be narrowed into the result of another search.
+ */
+public record SearchResult<T>(List<T> items, boolean exhaustive) {}
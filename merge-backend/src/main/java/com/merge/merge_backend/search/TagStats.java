@@ -0,0 +1,40 @@
+package com.merge.merge_backend.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How often each tag appeared on fetched articles, used to guess which tag of a multi-tag search
+ * matches the fewest articles upstream. Only tags seen on upstream responses are counted (not user
+ * input), and at most {@code maxTags} distinct tags are tracked.
+ */
+public class TagStats {
+
+    private final int maxTags;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    public TagStats(int maxTags) {
+        this.maxTags = maxTags;
+    }
+
+    public void record(List<String> tags) {
+        if (tags == null) return;
+        for (String tag : tags) {
+            if (tag == null || tag.isBlank()) continue;
+            LongAdder count = counts.get(tag);
+            if (count == null) {
+                // 上限に達したら新しいタグは数えない（既知のタグは数え続ける）
+                if (counts.size() >= maxTags) continue;
+                count = counts.computeIfAbsent(tag, t -> new LongAdder());
+            }
+            count.increment();
+        }
+    }
+
+    public long count(String tag) {
+        LongAdder count = counts.get(tag);
+        return count != null ? count.sum() : 0;
+    }
+}
@@ -1,11 +1,17 @@
 package com.merge.merge_backend.service;
 
 import com.merge.merge_backend.entity.Article;
+import com.merge.merge_backend.repository.TableVersion;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ArticleService {
     List<Article> getAllArticles();
+    /** 新しい順に (createdAt, id) より後ろの記事を limit 件。createdAt が null なら先頭から */
+    List<Article> getArticlesBefore(LocalDateTime createdAt, Long id, int limit);
     List<Article> searchArticles(String keyword, String sort, String period);
+    /** 記事一覧・検索結果の検証子。記事とメモ（一覧に埋め込まれる）の集計だけで、本体は読まない */
+    List<TableVersion> getLibraryVersions(String period);
     Article createArticle(Article article);
     void deleteArticle(Long id);
 }
@@ -1,9 +1,12 @@
 package com.merge.merge_backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import com.merge.merge_backend.repository.ArticleRepository;
+import com.merge.merge_backend.repository.MemoRepository;
+import com.merge.merge_backend.repository.TableVersion;
 import com.merge.merge_backend.entity.Article;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,11 +18,22 @@ public class ArticleServiceImpl implements ArticleService {
     @Autowired
     private ArticleRepository articleRepository;
 
+    @Autowired
+    private MemoRepository memoRepository;
+
     @Override
     public List<Article> getAllArticles() {
         return articleRepository.findByDeleteFlgFalse();
     }
 
+    @Override
+    public List<Article> getArticlesBefore(LocalDateTime createdAt, Long id, int limit) {
+        if (createdAt == null) {
+            return articleRepository.findLatest(Limit.of(limit));
+        }
+        return articleRepository.findLatestBefore(createdAt, id, Limit.of(limit));
+    }
+
     @Override
     public List<Article> searchArticles(String keyword, String sort, String period) {
         List<Article> articles = filterByKeyword(keyword);
@@ -28,6 +42,14 @@ public class ArticleServiceImpl implements ArticleService {
         return articles;
     }
 
+    @Override
+    public List<TableVersion> getLibraryVersions(String period) {
+        LocalDateTime since = sinceDate(period);
+        // コメントは記事と一緒にしか保存されないので、記事の件数・更新で足りる
+        if (since == null) return List.of(articleRepository.version(), memoRepository.version());
+        return List.of(articleRepository.version(), memoRepository.version(), articleRepository.versionCreatedAfter(since));
+    }
+
     @Override
     public Article createArticle(Article article) {
         if (article.getComments() != null) {
@@ -56,9 +78,20 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     private List<Article> filterByPeriod(List<Article> articles, String period) {
-        if ("all".equals(period)) {
+        final LocalDateTime filterDate = sinceDate(period);
+        if (filterDate == null) {
             return articles;
         }
+        return articles.stream()
+            .filter(a -> a.getCreatedAt() != null && a.getCreatedAt().isAfter(filterDate))
+            .collect(Collectors.toList());
+    }
+
+    /** period の開始日時。"all" は null */
+    private LocalDateTime sinceDate(String period) {
+        if ("all".equals(period)) {
+            return null;
+        }
 
         LocalDateTime sinceDate = LocalDateTime.now();
         if ("week".equals(period)) {
@@ -66,11 +99,7 @@ public class ArticleServiceImpl implements ArticleService {
         } else if ("month".equals(period)) {
             sinceDate = sinceDate.minusMonths(1);
         }
-
-        final LocalDateTime filterDate = sinceDate;
-        return articles.stream()
-            .filter(a -> a.getCreatedAt() != null && a.getCreatedAt().isAfter(filterDate))
-            .collect(Collectors.toList());
+        return sinceDate;
     }
 
     private List<Article> sortArticles(List<Article> articles, String sort) {
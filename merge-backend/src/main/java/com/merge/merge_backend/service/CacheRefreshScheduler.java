@@ -0,0 +1,111 @@
+package com.merge.merge_backend.service;
+
+import com.merge.merge_backend.config.CacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Refreshes every cached hot list shortly before it expires, so user requests keep hitting
+ * a valid entry instead of paying for the upstream fetch themselves.
+ *
+ * Each (source, period) entry becomes due at {@code expiresAt - ttl * leadRatio} minus a random
+ * jitter of up to {@code ttl * jitterRatio}, so periods sharing a TTL do not all hit the upstream
+ * in the same instant. A periodic tick collects the due entries, orders them by how often each
+ * period has been requested, and hands them to the dedicated "cache-refresh-" pool.
+ */
+@Component
+public class CacheRefreshScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheRefreshScheduler.class);
+
+    private final List<HotListSource> sources;
+    private final CacheProperties.Refresh config;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final Clock clock;
+
+    /** key = "source:period"。有効期限が変わるたびに jitter を振り直す */
+    private final Map<String, DueTime> dueTimes = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private record DueTime(Instant expiresAt, Instant dueAt) {}
+
+    private record Target(HotListSource source, String period, long demand) {
+        String key() { return source.sourceName() + ":" + period; }
+    }
+
+    public CacheRefreshScheduler(List<HotListSource> sources, CacheProperties cacheProperties,
+                                 @Qualifier("cacheRefreshTaskScheduler") ThreadPoolTaskScheduler taskScheduler,
+                                 Clock clock) {
+        this.sources = sources;
+        this.config = cacheProperties.getRefresh();
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Duration tick = Duration.ofSeconds(Math.max(1, config.getTickSeconds()));
+        taskScheduler.scheduleWithFixedDelay(this::tick, Instant.now(clock).plus(tick), tick);
+        log.info("[Refresh] Scheduler started (tick={}s, pool={})", tick.toSeconds(), config.getPoolSize());
+    }
+
+    /** 期限が近いエントリを需要の多い順に更新プールへ投入する */
+    void tick() {
+        Instant now = Instant.now(clock);
+        List<Target> due = new ArrayList<>();
+        for (HotListSource source : sources) {
+            for (Map.Entry<String, Instant> e : source.getHotCacheExpiries().entrySet()) {
+                String period = e.getKey();
+                Target target = new Target(source, period, source.getHotRequestCount(period));
+                if (inFlight.contains(target.key())) continue;
+                if (!dueAt(target, e.getValue()).isAfter(now)) due.add(target);
+            }
+        }
+        due.sort(Comparator.comparingLong(Target::demand).reversed());
+        for (Target target : due) {
+            if (!inFlight.add(target.key())) continue;
+            taskScheduler.execute(() -> refresh(target));
+        }
+    }
+
+    private Instant dueAt(Target target, Instant expiresAt) {
+        return dueTimes.compute(target.key(), (k, current) -> {
+            if (current != null && current.expiresAt().equals(expiresAt)) return current;
+            long ttlMillis = target.source().getHotTtlSeconds(target.period()) * 1000;
+            long lead = (long) (ttlMillis * config.getLeadRatio());
+            long maxJitter = (long) (ttlMillis * config.getJitterRatio());
+            long jitter = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter) : 0;
+            return new DueTime(expiresAt, expiresAt.minusMillis(lead + jitter));
+        }).dueAt();
+    }
+
+    private void refresh(Target target) {
+        try {
+            log.info("[Refresh] {} (requests={})", target.key(), target.demand());
+            target.source().refreshHotArticles(target.period());
+        } catch (Exception e) {
+            log.warn("[Refresh] {} failed: {}", target.key(), e.getMessage());
+        } finally {
+            // 更新に失敗して有効期限が変わらなかった場合、毎 tick 再試行しないよう少し間を空ける
+            Instant retryAt = Instant.now(clock).plusSeconds(Math.max(1, config.getTickSeconds()) * 4);
+            dueTimes.computeIfPresent(target.key(), (k, d) -> new DueTime(d.expiresAt(), retryAt));
+            inFlight.remove(target.key());
+        }
+    }
+}
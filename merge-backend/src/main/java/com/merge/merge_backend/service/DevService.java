@@ -1,5 +1,7 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.EncodedBody;
 import com.merge.merge_backend.dto.DevCommentItem;
 import com.merge.merge_backend.dto.DevItem;
 import java.util.List;
@@ -9,9 +11,13 @@ public interface DevService {
     List<DevItem> searchArticles(String keyword, String sort, String period);
     List<DevItem> getHotArticles();
     List<DevItem> getHotArticles(String period);
+    CacheEntry<List<DevItem>> getHotArticleEntry(String period);
+    /** getHotArticleEntry の一覧を JSON / gzip にしたもの。リストが差し替わるまで同じバイト列を返す */
+    CacheEntry<EncodedBody> getHotArticleBody(String period);
     List<DevItem> getTimelineArticles();
     DevItem getArticleDetail(String itemId);
     DevItem getArticleBySlug(String username, String slug);
     List<DevCommentItem> getArticleComments(String itemId);
+    void invalidateArticle(String itemId);
     List<DevItem> getUserArticles(String username);
 }
@@ -1,12 +1,38 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.EncodedBodies;
+import com.merge.merge_backend.cache.EncodedBody;
+import com.merge.merge_backend.cache.HotListDelta;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.cache.SingleFlight;
+import com.merge.merge_backend.cache.Weights;
+import com.merge.merge_backend.config.CacheProperties;
 import com.merge.merge_backend.config.DevProperties;
 import com.merge.merge_backend.dto.DevCommentItem;
 import com.merge.merge_backend.dto.DevItem;
+import com.merge.merge_backend.search.ColumnQuery;
+import com.merge.merge_backend.search.ColumnarList;
+import com.merge.merge_backend.search.DevRefinement;
+import com.merge.merge_backend.search.DevSearchPlan;
+import com.merge.merge_backend.search.IdSetMerge;
+import com.merge.merge_backend.search.SearchResult;
+import com.merge.merge_backend.search.TagStats;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.PageFanOut;
+import com.merge.merge_backend.upstream.PageFanOut.Pages;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.RateLimitBudget.Priority;
+import com.merge.merge_backend.upstream.StreamingArrayReader;
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import com.merge.merge_backend.upstream.UpstreamGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
@@ -14,69 +40,262 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
-public class DevServiceImpl implements DevService {
+public class DevServiceImpl implements DevService, HotListSource {
 
     private static final Logger log = LoggerFactory.getLogger(DevServiceImpl.class);
 
+    private static final String SOURCE = "dev";
+    /** 詳細のメタデータ（本文抜き）は一覧の DevItem と中身が違うので、別の名前空間で共有する */
+    private static final String DETAIL_SOURCE = "dev-detail";
+
     private static final String BASE_URL = "https://dev.to/api/articles";
     private static final String BASE_COMMENT_URL = "https://dev.to/api/comments";
+    private static final int SEARCH_PER_PAGE = 1000;
+    private static final int HOT_PER_PAGE = 500;
+    private static final int MAX_TRACKED_TAGS = 5000;
+    /** 複数タグ検索で同時に問い合わせるタグの数 */
+    private static final int MAX_PARALLEL_TAGS = 4;
+
+    private static final StreamingArrayReader<DevItem> ITEMS = new StreamingArrayReader<>(DevItem.class);
 
     private final RestClient restClient;
     private final DevProperties devProperties;
+    private final PageFanOut pageFanOut;
+    private final AdaptivePaging paging;
+    private final RateLimitBudget rateLimit;
+    private final UpstreamGuard upstreamGuard;
+    private final Hedger hedger;
+    private final Clock clock;
+    private final CacheProperties cacheProperties;
+    private final Executor revalidationExecutor;
+    private final ItemRegistry itemRegistry;
+    private final BodyStore bodyStore;
 
     public DevServiceImpl(@Qualifier("devRestClient") RestClient restClient,
-                          DevProperties devProperties) {
+                          DevProperties devProperties,
+                          @Qualifier("devPageFanOut") PageFanOut pageFanOut,
+                          @Qualifier("devPaging") AdaptivePaging paging,
+                          @Qualifier("devRateLimit") RateLimitBudget rateLimit,
+                          @Qualifier("devUpstreamGuard") UpstreamGuard upstreamGuard,
+                          @Qualifier("devHedger") Hedger hedger,
+                          Clock clock, CacheProperties cacheProperties, CacheRegistry cacheRegistry,
+                          ItemRegistry itemRegistry, BodyStore bodyStore,
+                          @Qualifier("cacheRefreshTaskScheduler") Executor revalidationExecutor) {
         this.restClient = restClient;
         this.devProperties = devProperties;
+        this.pageFanOut = pageFanOut;
+        this.paging = paging;
+        this.rateLimit = rateLimit;
+        this.upstreamGuard = upstreamGuard;
+        this.hedger = hedger;
+        this.clock = clock;
+        this.cacheProperties = cacheProperties;
+        this.revalidationExecutor = revalidationExecutor;
+        this.itemRegistry = itemRegistry;
+        this.bodyStore = bodyStore;
+        this.hotCache = cacheRegistry.create("dev-hot",
+                (period, entry) -> Weights.OBJECT + Weights.of(entry.value(), DevServiceImpl::weigh)
+                        + ColumnarList.columnWeight(entry.value()));
+        this.searchCache = cacheRegistry.create("dev-search",
+                (key, entry) -> Weights.OBJECT * 2 + Weights.of(key.keyword())
+                        + Weights.of(entry.value().items(), DevServiceImpl::weigh)
+                        + ColumnarList.columnWeight(entry.value().items()));
+        this.detailCache = cacheRegistry.create("dev-detail",
+                (id, entry) -> Weights.OBJECT * 2 + weigh(entry.value().item()));
+        this.commentCache = cacheRegistry.create("dev-comments",
+                (id, entry) -> Weights.OBJECT + Weights.of(entry.value(), DevServiceImpl::weigh));
+        this.slugIds = cacheRegistry.create("dev-slug",
+                (slugKey, id) -> Weights.OBJECT + Weights.of(slugKey) + Weights.of(id));
     }
 
     // ── キャッシュ ────────────────────────────────────────────────
-    private static class CacheEntry {
-        final List<DevItem> items;
-        final Instant expiresAt;
-        CacheEntry(List<DevItem> items, long ttlSeconds) {
-            this.items = items;
-            this.expiresAt = Instant.now().plusSeconds(ttlSeconds);
-        }
-        boolean isValid() { return Instant.now().isBefore(expiresAt); }
-    }
-
-    private final Map<String, CacheEntry> hotCache = new ConcurrentHashMap<>();
+    /** key は正規化済みの period のみ（任意の文字列でエントリが増えないように） */
+    private final BoundedCache<String, CacheEntry<List<DevItem>>> hotCache;
+    /** 期限切れエントリの再検証をこの時刻までは再発行しない（上流障害時の連打防止） */
+    private final Map<String, Instant> revalidateNotBefore = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hotRequests = new ConcurrentHashMap<>();
+    /** period ごとのホットリストの JSON / gzip。リストが差し替わったときだけ作り直す */
+    private final EncodedBodies<String> hotBodies = new EncodedBodies<>();
+    /** period ごとの最後の全件取得。差分更新だけでずれが溜まらないよう、一定間隔で全件を取り直す */
+    private final Map<String, Instant> lastFullRebuild = new ConcurrentHashMap<>();
+    /** ホットリストに出てきたタグの出現数。複数タグ検索でどのタグを上流に送るかの目安 */
+    private final TagStats tagStats = new TagStats(MAX_TRACKED_TAGS);
+
+    // ── 同一キーの上流取得を 1 本にまとめる (single-flight) ─────────
+    /** 正規化済みの検索条件。表記ゆれで別エントリにならないよう searchKey() 経由で作る */
+    private record SearchKey(String keyword, String sort, String period) {}
+
+    private final BoundedCache<SearchKey, CacheEntry<SearchResult<DevItem>>> searchCache;
+    /** 本文は BodyStore に出してあるかどうか。false なら item が本文を持ったまま（または本文なし） */
+    private record StoredDetail(DevItem item, boolean bodyOffHeap) {}
+
+    private final BoundedCache<String, CacheEntry<StoredDetail>> detailCache;
+    private final BoundedCache<String, CacheEntry<List<DevCommentItem>>> commentCache;
+    /** "username/slug" → 記事 id。slug での詳細取得も id キーの detailCache から返すため */
+    private final BoundedCache<String, String> slugIds;
+
+    private final SingleFlight<String, CacheEntry<List<DevItem>>> hotFlights = new SingleFlight<>();
+    private final SingleFlight<SearchKey, List<DevItem>> searchFlights = new SingleFlight<>();
+    private final SingleFlight<String, DevItem> detailFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<DevCommentItem>> commentFlights = new SingleFlight<>();
 
     // ── ウォームアップ (CacheWarmUpRunner から @Async で呼ばれる) ─
     @Override
     public void warmUp() {
         log.info("[Dev.to] Cache warm-up start");
         for (String period : List.of("week", "month")) {
-            fetchAndCache(period);
+            hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND));
         }
         log.info("[Dev.to] Cache warm-up done");
     }
 
-    // ── 30分ごとにバックグラウンドでキャッシュ更新 ──────────────
-    @Scheduled(fixedDelay = 30 * 60 * 1000)
-    public void refreshCache() {
-        for (String period : hotCache.keySet()) {
-            log.info("[Dev.to] Background refresh: {}", period);
-            fetchAndCache(period);
-        }
+    // ── バックグラウンド更新 (CacheRefreshScheduler から呼ばれる) ───
+    @Override
+    public String sourceName() {
+        return SOURCE;
+    }
+
+    @Override
+    public Map<String, Instant> getHotCacheExpiries() {
+        Map<String, Instant> expiries = new HashMap<>();
+        hotCache.forEach((period, entry) -> expiries.put(period, entry.expiresAt()));
+        return expiries;
+    }
+
+    @Override
+    public long getHotTtlSeconds(String period) {
+        return devProperties.getPeriod(period).getTtlSeconds();
+    }
+
+    @Override
+    public long getHotRequestCount(String period) {
+        LongAdder count = hotRequests.get(period);
+        return count != null ? count.sum() : 0;
+    }
+
+    @Override
+    public void refreshHotArticles(String requestedPeriod) {
+        String period = devProperties.normalizePeriod(requestedPeriod);
+        log.info("[Dev.to] Background refresh: {}", period);
+        hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND));
     }
 
     // ── 公開API ──────────────────────────────────────────────────
     @Override
     public List<DevItem> searchArticles(String keyword, String sort, String period) {
-        return switch (sort) {
-            case "count" -> fetchSearchPages(keyword, period, 5).stream()
-                    .sorted(Comparator.comparingInt(this::getReactions).reversed())
-                    .toList();
-            default -> fetchSearchPages(keyword, period, 1);
-        };
+        SearchKey key = searchKey(keyword, sort, period);
+        CacheEntry<SearchResult<DevItem>> cached = searchCache.getIfPresent(key);
+        if (cached != null && cached.isFresh(clock.instant())) {
+            log.debug("[Dev.to] Search cache hit: {}", key);
+            return cached.value().items();
+        }
+        List<DevItem> refined = refineFromCache(key);
+        if (refined != null) return refined;
+        if (cached != null && !upstreamAvailable()) {
+            log.debug("[Dev.to] Upstream unavailable, serving expired search: {}", key);
+            return cached.value().items();
+        }
+        return searchFlights.execute(key, () -> {
+            SearchResult<DevItem> result = fetchSearchResults(key.keyword(), key.sort(), key.period());
+            searchCache.put(key, CacheEntry.of(result, clock.instant(), searchTtlSeconds(result.items())));
+            return result.items();
+        });
+    }
+
+    /** 手元で絞り込める広い検索の結果と、それを今回の結果に変えるクエリ */
+    private record Superset<T>(CacheEntry<SearchResult<T>> entry, ColumnQuery query) {}
+
+    /**
+     * タグの追加・期間の短縮・reactions 順への並べ替えだけの検索を、キャッシュにある広い検索の結果から作る。
+     * 絞り込みと並べ替えは列 (ColumnarList) の上で行い、記事のオブジェクトには触れない。
+     * 元にするのは上流の一覧を最後まで読んだ (exhaustive) 結果だけ。top の一覧を途中で打ち切った結果は
+     * 人気順の先頭の一部なので、短い期間で絞っても短い期間の top にはならない。
+     * 候補が無い・古い・絞った結果が refineMinResults 件に満たない・今回の検索が上流で取れる件数を超えるときは
+     * null を返し、上流に取りに行く
+     */
+    private List<DevItem> refineFromCache(SearchKey key) {
+        CacheProperties.Search cfg = cacheProperties.getSearch();
+        if (!cfg.isRefine()) return null;
+        Instant now = clock.instant();
+        Integer days = convertPeriodToDays(key.period());
+        List<Superset<DevItem>> candidates = new ArrayList<>();
+        // タグの比較はキャッシュのロックを持たずに、エントリの写しの上で行う
+        for (Map.Entry<SearchKey, CacheEntry<SearchResult<DevItem>>> cachedSearch : searchCache.entries()) {
+            SearchKey k = cachedSearch.getKey();
+            CacheEntry<SearchResult<DevItem>> entry = cachedSearch.getValue();
+            if (k.equals(key) || !entry.value().exhaustive() || entry.value().items().isEmpty()
+                    || entry.getAgeSeconds(now) > cfg.getRefineMaxAgeSeconds()) continue;
+            ColumnQuery query = new ColumnQuery();
+            if (DevRefinement.narrowing(k.keyword(), k.sort(), convertPeriodToDays(k.period()),
+                    key.keyword(), key.sort(), days, now, query)) {
+                candidates.add(new Superset<>(entry, query));
+            }
+        }
+        // 一番小さい候補から絞る（見る行が少なく、元の検索も近い）
+        Superset<DevItem> base = candidates.stream()
+                .min(Comparator.comparingInt(c -> c.entry().value().items().size()))
+                .orElse(null);
+        if (base == null) return null;
+
+        ColumnarList<DevItem> refined = base.query().select(columnar(base.entry().value().items()));
+        if (refined.size() < cfg.getRefineMinResults()) return null;
+        // 上流で取れば途中のページで打ち切られる件数なら、どの記事が入るかは並び順で変わるので手元では作らない
+        if (refined.size() > searchPages(key.sort()) * SEARCH_PER_PAGE) return null;
+
+        log.debug("[Dev.to] Search {} answered from a cached superset ({} of {} items)",
+                key, refined.size(), base.entry().value().items().size());
+        // 元の結果と同じ時点の結果なので、取得時刻と期限も引き継ぐ。全件から絞ったので、これも全件
+        searchCache.put(key, new CacheEntry<>(new SearchResult<>(refined, true),
+                base.entry().fetchedAt(), base.entry().expiresAt()));
+        return refined;
+    }
+
+    /** キャッシュに入れる一覧は列付きにしておく（既に列付きならそのまま） */
+    private static ColumnarList<DevItem> columnar(List<DevItem> items) {
+        return ColumnarList.of(items, DevRefinement.COLUMNS);
+    }
+
+    /** keyword はタグ列 (小文字・ハイフン区切り) に、sort / period は既知の値に寄せる */
+    private SearchKey searchKey(String keyword, String sort, String period) {
+        String normalizedKeyword = String.join(matchAnyTag(keyword) ? "|" : ",", parseTags(keyword));
+        String normalizedSort = "count".equals(sort) ? sort : "rel";
+        // 未知の period は top 指定なし (最新順) として扱われるので、それ専用のキーに寄せる
+        String normalizedPeriod = period != null && convertPeriodToDays(period) != null ? period : "latest";
+        return new SearchKey(normalizedKeyword, normalizedSort, normalizedPeriod);
+    }
+
+    /** 上流エラーも空リストになるので、空の結果は短めに持つ */
+    private long searchTtlSeconds(List<DevItem> result) {
+        CacheProperties.Search cfg = cacheProperties.getSearch();
+        return result.isEmpty() ? Math.min(cfg.getEmptyTtlSeconds(), cfg.getTtlSeconds()) : cfg.getTtlSeconds();
+    }
+
+    private SearchResult<DevItem> fetchSearchResults(String keyword, String sort, String period) {
+        SearchResult<DevItem> fetched = fetchSearchPages(keyword, period, searchPages(sort), "search:" + sort + ":" + period);
+        ColumnarList<DevItem> items = columnar(fetched.items());
+        List<DevItem> sorted = "count".equals(sort)
+                ? new ColumnQuery().orderBy(ColumnQuery.Order.LIKES).select(items)
+                : items;
+        return new SearchResult<>(sorted, fetched.exhaustive());
+    }
+
+    /** 検索 1 回で上流から取るページ数（タグごと）。reactions 順は手元で並べるので多めに取る */
+    private static int searchPages(String sort) {
+        return "count".equals(sort) ? 5 : 1;
     }
 
     @Override
@@ -86,26 +305,123 @@ public class DevServiceImpl implements DevService {
 
     @Override
     public List<DevItem> getHotArticles(String period) {
-        CacheEntry entry = hotCache.get(period);
-        if (entry != null && entry.isValid()) {
+        return getHotArticleEntry(period).value();
+    }
+
+    @Override
+    public CacheEntry<List<DevItem>> getHotArticleEntry(String requestedPeriod) {
+        String period = devProperties.normalizePeriod(requestedPeriod);
+        hotRequests.computeIfAbsent(period, k -> new LongAdder()).increment();
+        CacheEntry<List<DevItem>> entry = hotCache.getIfPresent(period);
+        if (entry == null) {
+            return hotFlights.execute(period, () -> fetchAndCache(period, Priority.INTERACTIVE));
+        }
+        if (entry.isFresh(clock.instant())) {
             log.debug("[Dev.to] Cache hit: {}", period);
-            return entry.items;
+        } else {
+            log.debug("[Dev.to] Serving stale '{}' while revalidating", period);
+            revalidate(period);
         }
-        return fetchAndCache(period);
+        return entry;
+    }
+
+    @Override
+    public CacheEntry<EncodedBody> getHotArticleBody(String requestedPeriod) {
+        CacheEntry<List<DevItem>> entry = getHotArticleEntry(requestedPeriod);
+        EncodedBody body = hotBodies.encode(devProperties.normalizePeriod(requestedPeriod), entry.value());
+        return new CacheEntry<>(body, entry.fetchedAt(), entry.expiresAt());
+    }
+
+    /** 期限切れエントリはそのまま返し、裏で取り直す (stale-while-revalidate) */
+    private void revalidate(String period) {
+        Instant now = clock.instant();
+        Instant notBefore = revalidateNotBefore.get(period);
+        if (hotFlights.isInFlight(period) || (notBefore != null && now.isBefore(notBefore))) return;
+        revalidateNotBefore.put(period, now.plusSeconds(cacheProperties.getStale().getRevalidateIntervalSeconds()));
+        revalidationExecutor.execute(() -> hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND)));
     }
 
     @Override
     public List<DevItem> getTimelineArticles() {
-        return fetchFromDev(URI.create(BASE_URL + "/latest?per_page=100"));
+        return fetchFromDev(URI.create(BASE_URL + "/latest?per_page=100"), Priority.INTERACTIVE, item -> true).items();
     }
 
     @Override
     public DevItem getArticleDetail(String itemId) {
+        DevItem cached = cachedDetail(itemId);
+        if (cached != null) return cached;
+        return detailFlights.execute(itemId, () -> cacheDetail(fetchArticleDetail(itemId)));
+    }
+
+    private DevItem cachedDetail(String itemId) {
+        CacheEntry<StoredDetail> cached = detailCache.getIfPresent(itemId);
+        // 予算切れの間は期限切れの詳細でも返す
+        boolean usable = cached != null && (cached.isFresh(clock.instant()) || !upstreamAvailable());
+        DevItem restored = usable ? restore(cached.value()) : null;
+        return restored != null ? restored : detailFromRegistry(itemId);
+    }
+
+    /**
+     * 一覧 API は body_html を返さないため、レジストリから返せるのは詳細 API 由来の記事だけ。
+     * detailCache から追い出された後も、メタデータがレジストリに残っていて BodyStore に本文があれば使う
+     */
+    private DevItem detailFromRegistry(String itemId) {
+        ItemRegistry.Registered<DevItem> registered = itemRegistry.lookup(DETAIL_SOURCE, itemId, DevItem.class);
+        if (registered == null) return null;
+        CacheProperties.Detail cfg = cacheProperties.getDetail();
+        Instant fetchedAt = registered.fetchedAt();
+        if (fetchedAt.plusSeconds(cfg.getFromListMaxAgeSeconds()).isBefore(clock.instant())) return null;
+        StoredDetail stored = new StoredDetail(registered.item(), registered.item().getRenderedBody() == null);
+        DevItem item = restore(stored);
+        if (item == null || item.getRenderedBody() == null) return null;
+        detailCache.put(itemId, new CacheEntry<>(stored, fetchedAt, fetchedAt.plusSeconds(cfg.getTtlSeconds())));
+        return item;
+    }
+
+    /**
+     * 取得に成功した詳細を id で保持し、slug からも引けるようにする（失敗時の空 DevItem は持たない）。
+     * 本文はオフヒープの BodyStore に圧縮して置き、ヒープの detailCache にはメタデータだけを持つ
+     */
+    private DevItem cacheDetail(DevItem fetched) {
+        if (fetched.getId() == null) return fetched;
+        Instant now = clock.instant();
+        boolean offHeap = bodyStore.put(bodyKey(fetched.getId()), fetched.getRenderedBody());
+        DevItem stored = offHeap ? fetched.withRenderedBody(null) : fetched;
+        DevItem meta = itemRegistry.intern(DETAIL_SOURCE, fetched.getId(), stored.versionKey(), stored, now);
+        detailCache.put(meta.getId(), CacheEntry.of(new StoredDetail(meta, offHeap), now,
+                cacheProperties.getDetail().getTtlSeconds()));
+        String slugKey = slugKey(meta);
+        if (slugKey != null) slugIds.put(slugKey, meta.getId());
+        return offHeap ? meta.withRenderedBody(fetched.getRenderedBody()) : meta;
+    }
+
+    /** 本文を BodyStore から戻す。本文だけ追い出されていれば null（呼び出し側で取り直す） */
+    private DevItem restore(StoredDetail stored) {
+        if (!stored.bodyOffHeap()) return stored.item();
+        String body = bodyStore.get(bodyKey(stored.item().getId()));
+        return body != null ? stored.item().withRenderedBody(body) : null;
+    }
+
+    private static String bodyKey(String itemId) {
+        return SOURCE + "/" + itemId;
+    }
+
+    /** user.username と slug から "username/slug" を作る。どちらか欠けていれば null */
+    private static String slugKey(DevItem item) {
+        if (item.getSlug() != null && item.getUser() instanceof Map<?, ?> user
+                && user.get("username") instanceof String username) {
+            return username + "/" + item.getSlug();
+        }
+        return null;
+    }
+
+    private DevItem fetchArticleDetail(String itemId) {
         URI uri = UriComponentsBuilder.fromUriString(BASE_URL + "/{id}")
                 .buildAndExpand(itemId).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return new DevItem();
         log.debug("[Dev.to] GET article {}", itemId);
         try {
-            DevItem item = restClient.get().uri(uri).retrieve().body(DevItem.class);
+            DevItem item = hedger.call(() -> restClient.get().uri(uri).retrieve().body(DevItem.class), this::mayHedge);
             return item != null ? item : new DevItem();
         } catch (RestClientResponseException e) {
             log.warn("[Dev.to] HTTP {} fetching article {}: {}",
@@ -119,11 +435,25 @@ public class DevServiceImpl implements DevService {
 
     @Override
     public DevItem getArticleBySlug(String username, String slug) {
+        String slugKey = username + "/" + slug;
+        String itemId = slugIds.getIfPresent(slugKey);
+        DevItem cached = itemId != null ? cachedDetail(itemId) : null;
+        if (cached != null) return cached;
+        return detailFlights.execute(slugKey, () -> {
+            DevItem item = cacheDetail(fetchArticleBySlug(username, slug));
+            // レスポンスの user.username と表記が違っても、リクエストされた形で引けるようにする
+            if (item.getId() != null) slugIds.put(slugKey, item.getId());
+            return item;
+        });
+    }
+
+    private DevItem fetchArticleBySlug(String username, String slug) {
         URI uri = UriComponentsBuilder.fromUriString(BASE_URL + "/{username}/{slug}")
                 .buildAndExpand(username, slug).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return new DevItem();
         log.debug("[Dev.to] GET article by slug {}/{}", username, slug);
         try {
-            DevItem item = restClient.get().uri(uri).retrieve().body(DevItem.class);
+            DevItem item = hedger.call(() -> restClient.get().uri(uri).retrieve().body(DevItem.class), this::mayHedge);
             return item != null ? item : new DevItem();
         } catch (RestClientResponseException e) {
             log.warn("[Dev.to] HTTP {} fetching article {}/{}: {}",
@@ -137,13 +467,39 @@ public class DevServiceImpl implements DevService {
 
     @Override
     public List<DevCommentItem> getArticleComments(String itemId) {
+        CacheEntry<List<DevCommentItem>> cached = commentCache.getIfPresent(itemId);
+        if (cached != null && (cached.isFresh(clock.instant()) || !upstreamAvailable())) {
+            return cached.value();
+        }
+        return commentFlights.execute(itemId, () -> {
+            List<DevCommentItem> comments = fetchArticleComments(itemId);
+            commentCache.put(itemId, CacheEntry.of(comments, clock.instant(), commentsTtlSeconds(comments)));
+            return comments;
+        });
+    }
+
+    @Override
+    public void invalidateArticle(String itemId) {
+        detailCache.invalidate(itemId);
+        bodyStore.invalidate(bodyKey(itemId));
+        commentCache.invalidate(itemId);
+    }
+
+    /** 上流エラーも空リストになるので、コメント 0 件は短めに持つ */
+    private long commentsTtlSeconds(List<DevCommentItem> comments) {
+        CacheProperties.Detail cfg = cacheProperties.getDetail();
+        return comments.isEmpty() ? cfg.getEmptyCommentsTtlSeconds() : cfg.getCommentsTtlSeconds();
+    }
+
+    private List<DevCommentItem> fetchArticleComments(String itemId) {
         URI uri = UriComponentsBuilder.fromUriString(BASE_COMMENT_URL)
                 .queryParam("a_id", "{id}")
                 .buildAndExpand(itemId).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return Collections.emptyList();
         log.debug("[Dev.to] GET comments for article {}", itemId);
         try {
-            DevCommentItem[] items = restClient.get().uri(uri).retrieve()
-                    .body(DevCommentItem[].class);
+            DevCommentItem[] items = hedger.call(() -> restClient.get().uri(uri).retrieve()
+                    .body(DevCommentItem[].class), this::mayHedge);
             return Arrays.asList(items != null ? items : new DevCommentItem[0]);
         } catch (RestClientResponseException e) {
             log.warn("[Dev.to] HTTP {} fetching comments for {}: {}",
@@ -161,10 +517,11 @@ public class DevServiceImpl implements DevService {
                 .queryParam("username", "{u}")
                 .queryParam("per_page", 300)
                 .buildAndExpand(username).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return Collections.emptyList();
         log.debug("[Dev.to] GET articles for user {}", username);
         try {
             DevItem[] items = restClient.get().uri(uri).retrieve().body(DevItem[].class);
-            return Arrays.asList(items != null ? items : new DevItem[0]);
+            return internAll(items);
         } catch (RestClientResponseException e) {
             log.warn("[Dev.to] HTTP {} fetching articles for user {}: {}",
                     e.getStatusCode(), username, e.getResponseBodyAsString(StandardCharsets.UTF_8));
@@ -179,110 +536,287 @@ public class DevServiceImpl implements DevService {
 
     /**
      * Parses a keyword string into Dev.to tag format.
-     * Comma/semicolon = tag separator; spaces within a tag are replaced with hyphens;
+     * Comma/semicolon = tag separator (articles must have every tag); pipe = tag separator
+     * (articles may have any of the tags); spaces within a tag are replaced with hyphens;
      * everything is lowercased to match Dev.to tag conventions.
      *
      * Examples:
      *   "java"               → ["java"]
      *   "java spring"        → ["java-spring"]   (single hyphenated tag)
-     *   "javascript,typescript" → ["javascript", "typescript"]  (two tags, first used for API)
+     *   "javascript,typescript" → ["javascript", "typescript"]  (both tags)
+     *   "javascript|typescript" → ["javascript", "typescript"]  (either tag)
      *   "machine learning"   → ["machine-learning"]
      */
     private List<String> parseTags(String keyword) {
         if (keyword == null || keyword.isBlank()) return List.of();
-        return Arrays.stream(keyword.split("[,;]+"))
+        return Arrays.stream(keyword.split("[,;|]+"))
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
                 .map(s -> s.toLowerCase(Locale.ROOT).replaceAll("\\s+", "-"))
+                .distinct()
                 .collect(Collectors.toList());
     }
 
+    /** "|" を含むキーワードはどれかのタグを持つ記事 (OR)、それ以外はすべてのタグを持つ記事 (AND) を探す */
+    private static boolean matchAnyTag(String keyword) {
+        return keyword != null && keyword.contains("|");
+    }
+
     /**
      * Fetches up to {@code pages} pages from Dev.to for the given keyword/period.
-     * Uses the first parsed tag for the API {@code tag} parameter.
-     * Additional tags (comma-separated) are filtered client-side against {@code tag_list}.
+     * Each tag the plan queries gets its own concurrent paged query (the period as {@code top}),
+     * at most {@code MAX_PARALLEL_TAGS} at a time; the per-tag results are combined by id (AND / OR) and ranked by how well they matched.
+     * Tags the plan does not query are filtered client-side against {@code tag_list}.
      */
-    private List<DevItem> fetchSearchPages(String keyword, String period, int pages) {
+    private SearchResult<DevItem> fetchSearchPages(String keyword, String period, int pages, String shape) {
         List<String> tags = parseTags(keyword);
-        String primaryTag = tags.isEmpty() ? null : tags.get(0);
-        List<String> additionalTags = tags.size() > 1 ? tags.subList(1, tags.size()) : List.of();
-        Integer days = convertPeriodToDays(period);
+        DevSearchPlan plan = DevSearchPlan.of(tags, !matchAnyTag(keyword), convertPeriodToDays(period),
+                tagStats, MAX_PARALLEL_TAGS);
+        log.debug("[Dev.to] Search plan: tags={} ({}), top={}, residual tags={}",
+                plan.upstreamTags(), plan.matchAll() ? "all" : "any", plan.top(), plan.residualTags());
+        if (plan.upstreamTags().size() <= 1) {
+            String tag = plan.upstreamTags().isEmpty() ? null : plan.upstreamTags().getFirst();
+            Pages<DevItem> fetched = fetchTagPages(tag, plan, pages, shape);
+            return new SearchResult<>(fetched.items(), fetched.exhausted());
+        }
+        // 1 回分のタグは同時に投げるので、待ち時間は一番遅いタグの分だけ。OR でタグが多いときは何回かに分ける
+        AtomicInteger exhaustedTags = new AtomicInteger();
+        List<List<DevItem>> perTag = new ArrayList<>(plan.upstreamTags().size());
+        for (List<String> wave : plan.waves(MAX_PARALLEL_TAGS)) {
+            perTag.addAll(pageFanOut.fetchEach(wave, tag -> {
+                Pages<DevItem> fetched = fetchTagPages(tag, plan, pages, shape);
+                if (fetched.exhausted()) exhaustedTags.incrementAndGet();
+                return fetched.items();
+            }));
+        }
+        // 失敗したタグは空の一覧になるので、どのタグも最後まで読めたときだけ全件
+        boolean exhaustive = exhaustedTags.get() == plan.upstreamTags().size();
+        return new SearchResult<>(IdSetMerge.merge(perTag, DevItem::getId, plan.matchAll()), exhaustive);
+    }
 
-        Map<String, DevItem> seen = new LinkedHashMap<>();
-        for (int page = 1; page <= pages; page++) {
+    private Pages<DevItem> fetchTagPages(String tag, DevSearchPlan plan, int pages, String shape) {
+        Predicate<DevItem> residual = plan.residual();
+        int allowedPages = rateLimit.allowedPages(Priority.INTERACTIVE, paging.pages(shape, pages, SEARCH_PER_PAGE));
+        Pages<DevItem> fetched = pageFanOut.fetchAll(allowedPages, SEARCH_PER_PAGE, paging.observe(shape, SEARCH_PER_PAGE, page -> {
             UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(BASE_URL)
-                    .queryParam("per_page", 1000)
+                    .queryParam("per_page", SEARCH_PER_PAGE)
                     .queryParam("page", page);
-            if (primaryTag != null) builder.queryParam("tag", primaryTag);
-            if (days != null) builder.queryParam("top", days);
+            if (tag != null) builder.queryParam("tag", tag);
+            if (plan.top() != null) builder.queryParam("top", plan.top());
+            return fetchFromDev(builder.build().toUri(), Priority.INTERACTIVE, residual);
+        }));
+        // ページ順を保つため、ページをまたぐ重複は残った記事だけで取り除く
+        return new Pages<>(dedupeById(fetched.items()), fetched.exhausted());
+    }
 
-            List<DevItem> items = fetchFromDev(builder.build().toUri());
-            if (items.isEmpty()) break;
-            for (DevItem item : items) {
-                if (item.getId() != null) seen.putIfAbsent(item.getId(), item);
-            }
-        }
+    /**
+     * バックグラウンド更新は、前回の全件取得から fullRebuildInterval 経っていなければ差分だけ取る。
+     * 初回・ユーザー起点の取得と、間隔を過ぎた更新は全ページを取り直す
+     */
+    private CacheEntry<List<DevItem>> fetchAndCache(String period, Priority priority) {
+        CacheEntry<List<DevItem>> previous = hotCache.peek(period);
+        CacheEntry<List<DevItem>> entry = priority == Priority.BACKGROUND && canRefreshIncrementally(period, previous)
+                ? refreshIncrementally(period, previous)
+                : rebuild(period, priority);
+        // レスポンスのバイト列も更新のたびに作っておき、リクエストでは直列化しない
+        hotBodies.encode(period, entry.value());
+        return entry;
+    }
 
-        List<DevItem> result = new ArrayList<>(seen.values());
-        // Client-side filter: keep only items that have ALL additional tags
-        if (!additionalTags.isEmpty()) {
-            result = result.stream()
-                    .filter(item -> item.getTagList() != null
-                            && additionalTags.stream().allMatch(t -> item.getTagList().contains(t)))
-                    .collect(Collectors.toList());
-        }
-        return result;
+    private boolean canRefreshIncrementally(String period, CacheEntry<List<DevItem>> previous) {
+        CacheProperties.Refresh cfg = cacheProperties.getRefresh();
+        if (!cfg.isIncremental() || previous == null || previous.value().isEmpty()) return false;
+        Instant rebuiltAt = lastFullRebuild.get(period);
+        return rebuiltAt != null && clock.instant().isBefore(rebuiltAt.plusSeconds(cfg.getFullRebuildIntervalSeconds()));
     }
 
-    private List<DevItem> fetchAndCache(String period) {
+    private CacheEntry<List<DevItem>> rebuild(String period, Priority priority) {
         DevProperties.Period cfg = devProperties.getPeriod(period);
         Integer days = convertPeriodToDays(period);
+        // 過去のページごとの収量でページ数を決め、残り予算が少なければさらに減らす。0 ページなら空の結果になり、既存のリストが残る
+        String shape = "hot:" + period;
+        int pages = rateLimit.allowedPages(priority, paging.pages(shape, cfg.getPages(), HOT_PER_PAGE));
 
-        log.info("[Dev.to] Fetching {} pages for period='{}' (minReactions={})",
-                cfg.getPages(), period, cfg.getMinReactions());
+        log.info("[Dev.to] Fetching {} pages (configured {}) for period='{}' (minReactions={}, {})",
+                pages, cfg.getPages(), period, cfg.getMinReactions(), priority);
 
-        Map<String, DevItem> seen = new LinkedHashMap<>();
-        for (int page = 1; page <= cfg.getPages(); page++) {
+        // しきい値未満の記事と、先に読んだページにあった記事はデコード中に捨てる（後で並べ替えるので順序は問わない）
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Predicate<DevItem> keep = a -> getReactions(a) >= cfg.getMinReactions() && seen.add(a.getId());
+
+        List<DevItem> items = pageFanOut.fetchPages(pages, HOT_PER_PAGE, paging.observe(shape, HOT_PER_PAGE, page -> {
             UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(BASE_URL)
-                    .queryParam("per_page", 500)
+                    .queryParam("per_page", HOT_PER_PAGE)
                     .queryParam("page", page);
             if (days != null) builder.queryParam("top", days);
-
-            List<DevItem> pageItems = fetchFromDev(builder.build().toUri());
-            if (pageItems.isEmpty()) break;
-            for (DevItem item : pageItems) {
-                if (item.getId() != null) seen.putIfAbsent(item.getId(), item);
+            return fetchFromDev(builder.build().toUri(), priority, keep);
+        }));
+
+        List<DevItem> result = new ColumnQuery().orderBy(ColumnQuery.Order.LIKES).select(columnar(items));
+
+        Instant now = clock.instant();
+        if (result.isEmpty()) {
+            // 上流エラー時も空リストになるため、空の結果で既存のリストを上書きしない (stale-if-error)
+            CacheEntry<List<DevItem>> previous = hotCache.peek(period);
+            if (previous != null) {
+                log.warn("[Dev.to] Empty result for period='{}', keeping previous {} items",
+                        period, previous.value().size());
+                return previous;
             }
+            return CacheEntry.of(result, now, 0);
         }
 
-        List<DevItem> result = new ArrayList<>(seen.values()).stream()
-                .filter(a -> getReactions(a) >= cfg.getMinReactions())
-                .sorted(Comparator.comparingInt(this::getReactions).reversed())
-                .toList();
-
+        result.forEach(item -> tagStats.record(item.getTagList()));
         log.info("[Dev.to] Cached {} items for period='{}'", result.size(), period);
-        hotCache.put(period, new CacheEntry(result, cfg.getTtlSeconds()));
-        return result;
+        CacheEntry<List<DevItem>> entry = CacheEntry.of(result, now, cfg.getTtlSeconds());
+        hotCache.put(period, entry);
+        lastFullRebuild.put(period, now);
+        return entry;
+    }
+
+    /**
+     * 差分更新。前回の取得以降に公開された記事を /articles/latest から deltaPages ページと、
+     * top 指定の 1 ページ目 recheckTop 件（上位の記事の最新のリアクション数）を取り、既存のリストに混ぜる。
+     * 期間外に出た記事としきい値を割った記事はここで落とす
+     */
+    private CacheEntry<List<DevItem>> refreshIncrementally(String period, CacheEntry<List<DevItem>> previous) {
+        DevProperties.Period cfg = devProperties.getPeriod(period);
+        CacheProperties.Refresh refresh = cacheProperties.getRefresh();
+        Integer days = convertPeriodToDays(period);
+        Instant since = previous.fetchedAt();
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        List<DevItem> updates = new ArrayList<>(pageFanOut.fetchPages(
+                rateLimit.allowedPages(Priority.BACKGROUND, refresh.getDeltaPages()), HOT_PER_PAGE, page -> {
+                    URI uri = UriComponentsBuilder.fromUriString(BASE_URL + "/latest")
+                            .queryParam("per_page", HOT_PER_PAGE)
+                            .queryParam("page", page)
+                            .build().toUri();
+                    return fetchFromDev(uri, Priority.BACKGROUND,
+                            a -> getReactions(a) >= cfg.getMinReactions() && !publishedBefore(a, since) && seen.add(a.getId()));
+                }));
+        if (refresh.getRecheckTop() > 0 && rateLimit.allowedPages(Priority.BACKGROUND, 1) > 0) {
+            UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(BASE_URL)
+                    .queryParam("per_page", refresh.getRecheckTop())
+                    .queryParam("page", 1);
+            if (days != null) builder.queryParam("top", days);
+            updates.addAll(fetchFromDev(builder.build().toUri(), Priority.BACKGROUND, a -> seen.add(a.getId())).items());
+        }
+
+        if (updates.isEmpty()) {
+            // 上位の記事の再確認が空なのは上流エラーか予算切れ。既存のリストと期限はそのまま (stale-if-error)
+            log.warn("[Dev.to] Empty delta for period='{}', keeping previous {} items", period, previous.value().size());
+            return previous;
+        }
+
+        Instant now = clock.instant();
+        Instant windowStart = days != null ? now.minus(Duration.ofDays(days)) : null;
+        HotListDelta.Result<DevItem> merged = HotListDelta.merge(previous.value(), updates, DevItem::getId,
+                a -> getReactions(a) >= cfg.getMinReactions() && (windowStart == null || !publishedBefore(a, windowStart)),
+                Comparator.comparingInt(this::getReactions).reversed());
+
+        log.info("[Dev.to] Delta refresh for period='{}': {} updated, {} added, {} evicted, {} items",
+                period, merged.updated(), merged.added(), merged.evicted(), merged.items().size());
+        CacheEntry<List<DevItem>> entry = CacheEntry.of(columnar(merged.items()), now, cfg.getTtlSeconds());
+        hotCache.put(period, entry);
+        return entry;
+    }
+
+    /** published_at が instant より前か。日時が無い・読めない記事は前ではない扱い（落とさない） */
+    private static boolean publishedBefore(DevItem item, Instant instant) {
+        if (item.getPublishedAt() == null) return false;
+        try {
+            return OffsetDateTime.parse(item.getPublishedAt()).toInstant().isBefore(instant);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /** キャッシュ予算用の DevItem のおおよそのサイズ（body_html が大半を占める） */
+    private static long weigh(DevItem item) {
+        return Weights.OBJECT * 2
+                + Weights.of(item.getId()) + Weights.of(item.getTitle()) + Weights.of(item.getUrl())
+                + Weights.of(item.getRenderedBody()) + Weights.of(item.getDescription())
+                + Weights.of(item.getReadablePublishDate()) + Weights.of(item.getPublishedAt()) + Weights.of(item.getEditedAt())
+                + Weights.of(item.getSlug()) + Weights.of(item.getCoverImage())
+                + Weights.of(item.getTagList(), Weights::of)
+                + Weights.of(item.getDevComments(), DevServiceImpl::weigh)
+                + (item.getUser() != null ? Weights.OBJECT * 8 : 0);
+    }
+
+    /** 返信 (children) も再帰的に数える */
+    private static long weigh(DevCommentItem comment) {
+        return Weights.OBJECT * 2 + Weights.of(comment.getId()) + Weights.of(comment.getIdCode())
+                + Weights.of(comment.getBody()) + Weights.of(comment.getBodyHtml())
+                + Weights.of(comment.getCreatedAt()) + Weights.of(comment.getChildren(), DevServiceImpl::weigh)
+                + (comment.getUser() != null ? Weights.OBJECT * 8 : 0);
+    }
+
+    /** ページ順を保ったまま id 重複を除去する（id が null の記事は捨てる） */
+    private List<DevItem> dedupeById(List<DevItem> items) {
+        Map<String, DevItem> seen = new LinkedHashMap<>();
+        for (DevItem item : items) {
+            if (item.getId() != null) seen.putIfAbsent(item.getId(), item);
+        }
+        return new ArrayList<>(seen.values());
     }
 
     private int getReactions(DevItem item) {
         return item.getLikesCount() != null ? item.getLikesCount() : 0;
     }
 
-    private List<DevItem> fetchFromDev(URI uri) {
+    /** 取得した記事をレジストリに通し、既に持っている同じ版のインスタンスに置き換える */
+    private List<DevItem> internAll(DevItem[] items) {
+        return internAll(Arrays.asList(items != null ? items : new DevItem[0]));
+    }
+
+    private List<DevItem> internAll(List<DevItem> items) {
+        return itemRegistry.internAll(SOURCE, items, DevItem::getId, DevItem::versionKey, clock.instant());
+    }
+
+    /**
+     * 予算が残っていない、または circuit breaker が開いていれば上流に出さない。
+     * 呼び出し側は取得失敗と同じく空の結果として扱う
+     */
+    private boolean acquire(Priority priority, Object target) {
+        if (!upstreamGuard.isAvailable()) {
+            log.warn("[Dev.to] Circuit breaker open, skipping {} request: {}", priority, target);
+            return false;
+        }
+        if (rateLimit.tryAcquire(priority)) return true;
+        log.warn("[Dev.to] Rate-limit budget exhausted, skipping {} request: {}", priority, target);
+        return false;
+    }
+
+    /** hedge は追加のリクエストなので、ユーザー向けの予備枠には手を付けない */
+    private boolean mayHedge() {
+        return rateLimit.tryAcquire(Priority.BACKGROUND);
+    }
+
+    /** 期限切れのキャッシュでも返すべきか（上流に出せない状態か）の判定に使う */
+    private boolean upstreamAvailable() {
+        return upstreamGuard.isAvailable() && rateLimit.hasBudget(Priority.INTERACTIVE);
+    }
+
+    /**
+     * 1 ページ取得し、レスポンスを読みながら keep を通った記事だけ残す。id の無い記事は常に捨てる。
+     * scanned はフィルタ前の件数（ページが最後かどうかの判定用）
+     */
+    private Page<DevItem> fetchFromDev(URI uri, Priority priority, Predicate<DevItem> keep) {
+        if (!acquire(priority, uri)) return Page.failure();
         log.debug("[Dev.to] GET {}", uri);
         try {
-            DevItem[] items = restClient.get().uri(uri).retrieve().body(DevItem[].class);
-            int count = items != null ? items.length : 0;
-            log.debug("[Dev.to] Received {} items from {}", count, uri);
-            return new ArrayList<>(Arrays.asList(items != null ? items : new DevItem[0]));
+            Page<DevItem> page = ITEMS.exchange(restClient.get().uri(uri),
+                    item -> item.getId() != null && keep.test(item));
+            log.debug("[Dev.to] Received {} items from {}, kept {}", page.scanned(), uri, page.items().size());
+            return new Page<>(internAll(page.items()), page.scanned());
         } catch (RestClientResponseException e) {
             log.warn("[Dev.to] HTTP {} for {}: {}",
                     e.getStatusCode(), uri, e.getResponseBodyAsString(StandardCharsets.UTF_8));
-            return Collections.emptyList();
+            return Page.failure();
         } catch (Exception e) {
             log.error("[Dev.to] Fetch error for {}: {}", uri, e.getMessage());
-            return Collections.emptyList();
+            return Page.failure();
         }
     }
 
@@ -0,0 +1,24 @@
+package com.merge.merge_backend.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * ホットリストのキャッシュを持つサービスが CacheRefreshScheduler に公開するフック。
+ */
+public interface HotListSource {
+
+    /** ログ・優先度付けに使うソース名 ("qiita" / "dev") */
+    String sourceName();
+
+    /** 現在キャッシュされている period とその有効期限 */
+    Map<String, Instant> getHotCacheExpiries();
+
+    long getHotTtlSeconds(String period);
+
+    /** period ごとの getHotArticles 呼び出し回数（更新の優先度付けに使う） */
+    long getHotRequestCount(String period);
+
+    /** period のホットリストを上流から取得し直してキャッシュを差し替える */
+    void refreshHotArticles(String period);
+}
@@ -1,16 +1,25 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.EncodedBody;
 import com.merge.merge_backend.dto.QiitaCommentItem;
 import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
 import java.util.List;
 
 public interface QiitaService {
     void warmUp();
-    List<QiitaItem> searchArticles(String keyword, String sort, String period);
-    List<QiitaItem> getHotArticles();
-    List<QiitaItem> getHotArticles(String period);
-    List<QiitaItem> getTimelineArticles();
+    List<QiitaItemSummary> searchArticles(String keyword, String sort, String period);
+    List<QiitaItemSummary> getHotArticles();
+    List<QiitaItemSummary> getHotArticles(String period);
+    CacheEntry<List<QiitaItemSummary>> getHotArticleEntry(String period);
+    /** getHotArticleEntry の一覧を JSON / gzip にしたもの。リストが差し替わるまで同じバイト列を返す */
+    CacheEntry<EncodedBody> getHotArticleBody(String period);
+    List<QiitaItemSummary> getTimelineArticles();
+    /** 本文がメモリ上にある記事だけ rendered_body を埋めたコピーを返す（上流には取りに行かない） */
+    List<QiitaItemSummary> withBodies(List<QiitaItemSummary> summaries);
     QiitaItem getArticleDetail(String itemId);
     List<QiitaCommentItem> getArticleComments(String itemId);
-    List<QiitaItem> getUserArticles(String userId);
+    void invalidateArticle(String itemId);
+    List<QiitaItemSummary> getUserArticles(String userId);
 }
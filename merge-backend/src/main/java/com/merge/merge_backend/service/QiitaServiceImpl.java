@@ -1,12 +1,37 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.EncodedBodies;
+import com.merge.merge_backend.cache.EncodedBody;
+import com.merge.merge_backend.cache.HotListDelta;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.cache.SingleFlight;
+import com.merge.merge_backend.cache.Weights;
+import com.merge.merge_backend.config.CacheProperties;
 import com.merge.merge_backend.config.QiitaProperties;
 import com.merge.merge_backend.dto.QiitaCommentItem;
 import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
+import com.merge.merge_backend.search.ColumnQuery;
+import com.merge.merge_backend.search.ColumnarList;
+import com.merge.merge_backend.search.QiitaRefinement;
+import com.merge.merge_backend.search.QiitaSearchPlan;
+import com.merge.merge_backend.search.SearchResult;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.PageFanOut;
+import com.merge.merge_backend.upstream.PageFanOut.Pages;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.RateLimitBudget.Priority;
+import com.merge.merge_backend.upstream.StreamingArrayReader;
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import com.merge.merge_backend.upstream.UpstreamGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
@@ -20,102 +45,273 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
-public class QiitaServiceImpl implements QiitaService {
+public class QiitaServiceImpl implements QiitaService, HotListSource {
 
     private static final Logger log = LoggerFactory.getLogger(QiitaServiceImpl.class);
 
+    private static final String SOURCE = "qiita";
+    /** 一覧用サマリは本文付きの記事と別の名前空間で共有する */
+    private static final String SUMMARY_SOURCE = "qiita-summary";
+
     private static final String QIITA_API_URL = "https://qiita.com/api/v2/items";
     private static final String QIITA_USER_API_URL = "https://qiita.com/api/v2/users";
+    private static final int PER_PAGE = 100;
+
+    private static final StreamingArrayReader<QiitaItem> ITEMS = new StreamingArrayReader<>(QiitaItem.class);
 
     private final RestClient restClient;
     private final QiitaProperties qiitaProperties;
     private final Clock clock;
+    private final PageFanOut pageFanOut;
+    private final AdaptivePaging paging;
+    private final RateLimitBudget rateLimit;
+    private final UpstreamGuard upstreamGuard;
+    private final Hedger hedger;
+    private final CacheProperties cacheProperties;
+    private final Executor revalidationExecutor;
+    private final Executor listedBodyExecutor;
+    private final ItemRegistry itemRegistry;
+    private final BodyStore bodyStore;
 
     public QiitaServiceImpl(@Qualifier("qiitaRestClient") RestClient restClient,
-                             QiitaProperties qiitaProperties, Clock clock) {
+                             QiitaProperties qiitaProperties, Clock clock,
+                             @Qualifier("qiitaPageFanOut") PageFanOut pageFanOut,
+                             @Qualifier("qiitaPaging") AdaptivePaging paging,
+                             @Qualifier("qiitaRateLimit") RateLimitBudget rateLimit,
+                             @Qualifier("qiitaUpstreamGuard") UpstreamGuard upstreamGuard,
+                             @Qualifier("qiitaHedger") Hedger hedger,
+                             CacheProperties cacheProperties, CacheRegistry cacheRegistry,
+                             ItemRegistry itemRegistry, BodyStore bodyStore,
+                             @Qualifier("cacheRefreshTaskScheduler") Executor revalidationExecutor,
+                             @Qualifier("listedBodyExecutor") Executor listedBodyExecutor) {
         this.restClient = restClient;
         this.qiitaProperties = qiitaProperties;
         this.clock = clock;
+        this.pageFanOut = pageFanOut;
+        this.paging = paging;
+        this.rateLimit = rateLimit;
+        this.upstreamGuard = upstreamGuard;
+        this.hedger = hedger;
+        this.cacheProperties = cacheProperties;
+        this.revalidationExecutor = revalidationExecutor;
+        this.listedBodyExecutor = listedBodyExecutor;
+        this.itemRegistry = itemRegistry;
+        this.bodyStore = bodyStore;
+        this.hotCache = cacheRegistry.create("qiita-hot",
+                (period, entry) -> Weights.OBJECT + Weights.of(entry.value(), QiitaServiceImpl::weigh)
+                        + ColumnarList.columnWeight(entry.value()));
+        this.searchCache = cacheRegistry.create("qiita-search",
+                (key, entry) -> Weights.OBJECT * 2 + Weights.of(key.keyword())
+                        + Weights.of(entry.value().items(), QiitaServiceImpl::weigh)
+                        + ColumnarList.columnWeight(entry.value().items()));
+        this.detailCache = cacheRegistry.create("qiita-detail",
+                (id, entry) -> Weights.OBJECT * 2 + weigh(entry.value().item()));
+        this.commentCache = cacheRegistry.create("qiita-comments",
+                (id, entry) -> Weights.OBJECT + Weights.of(entry.value(), QiitaServiceImpl::weigh));
     }
 
     // ── キャッシュ設定 ────────────────────────────────────────────
-    private static class CacheEntry {
-        final List<QiitaItem> items;
-        final Instant expiresAt;
-        CacheEntry(List<QiitaItem> items, long ttlSeconds) {
-            this.items = items;
-            this.expiresAt = Instant.now().plusSeconds(ttlSeconds);
-        }
-        boolean isValid() { return Instant.now().isBefore(expiresAt); }
-    }
+    /** key は正規化済みの period のみ（任意の文字列でエントリが増えないように） */
+    private final BoundedCache<String, CacheEntry<List<QiitaItemSummary>>> hotCache;
+    /** 期限切れエントリの再検証をこの時刻までは再発行しない（上流障害時の連打防止） */
+    private final Map<String, Instant> revalidateNotBefore = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hotRequests = new ConcurrentHashMap<>();
+    /** period ごとのホットリストの JSON / gzip。リストが差し替わったときだけ作り直す */
+    private final EncodedBodies<String> hotBodies = new EncodedBodies<>();
+    /** period ごとの最後の全件取得。差分更新だけでずれが溜まらないよう、一定間隔で全件を取り直す */
+    private final Map<String, Instant> lastFullRebuild = new ConcurrentHashMap<>();
 
-    private final Map<String, CacheEntry> hotCache = new ConcurrentHashMap<>();
+    // ── 同一キーの上流取得を 1 本にまとめる (single-flight) ─────────
+    /** 正規化済みの検索条件。表記ゆれで別エントリにならないよう searchKey() 経由で作る */
+    private record SearchKey(String keyword, String sort, String period) {}
+
+    private final BoundedCache<SearchKey, CacheEntry<SearchResult<QiitaItemSummary>>> searchCache;
+    /** 本文は BodyStore に出してあるかどうか。false なら item が本文を持ったまま（または本文なし） */
+    private record StoredDetail(QiitaItem item, boolean bodyOffHeap) {}
+
+    private final BoundedCache<String, CacheEntry<StoredDetail>> detailCache;
+    private final BoundedCache<String, CacheEntry<List<QiitaCommentItem>>> commentCache;
+
+    private final SingleFlight<String, CacheEntry<List<QiitaItemSummary>>> hotFlights = new SingleFlight<>();
+    private final SingleFlight<SearchKey, List<QiitaItemSummary>> searchFlights = new SingleFlight<>();
+    private final SingleFlight<String, QiitaItem> detailFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<QiitaCommentItem>> commentFlights = new SingleFlight<>();
 
     // ── ウォームアップ (CacheWarmUpRunner から @Async で呼ばれる) ─
     @Override
     public void warmUp() {
         log.info("[Qiita] Cache warm-up start");
         for (String period : List.of("week", "month")) {
-            fetchAndCache(period);
+            hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND));
         }
         log.info("[Qiita] Cache warm-up done");
     }
 
-    // ── 30分ごとにバックグラウンドでキャッシュ更新 ──────────────
-    @Scheduled(fixedDelay = 30 * 60 * 1000)
-    public void refreshCache() {
-        for (String period : hotCache.keySet()) {
-            log.info("[Qiita] Background refresh: {}", period);
-            fetchAndCache(period);
-        }
+    // ── バックグラウンド更新 (CacheRefreshScheduler から呼ばれる) ───
+    @Override
+    public String sourceName() {
+        return SOURCE;
+    }
+
+    @Override
+    public Map<String, Instant> getHotCacheExpiries() {
+        Map<String, Instant> expiries = new HashMap<>();
+        hotCache.forEach((period, entry) -> expiries.put(period, entry.expiresAt()));
+        return expiries;
+    }
+
+    @Override
+    public long getHotTtlSeconds(String period) {
+        return qiitaProperties.getPeriod(period).getTtlSeconds();
+    }
+
+    @Override
+    public long getHotRequestCount(String period) {
+        LongAdder count = hotRequests.get(period);
+        return count != null ? count.sum() : 0;
+    }
+
+    @Override
+    public void refreshHotArticles(String requestedPeriod) {
+        String period = qiitaProperties.normalizePeriod(requestedPeriod);
+        log.info("[Qiita] Background refresh: {}", period);
+        hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND));
     }
 
     // ── 公開API ──────────────────────────────────────────────────
     @Override
-    public List<QiitaItem> searchArticles(String keyword, String sort, String period) {
-        String query = buildSearchQuery(keyword, period);
-        int pages = switch (sort) {
-            case "count"   -> 5;
-            case "created" -> 2;
-            default        -> 1;
-        };
-        List<QiitaItem> results = filterByPeriod(fetchMultiplePages(query, pages), period);
-        return switch (sort) {
-            case "count" -> results.stream()
-                    .sorted(Comparator.comparingInt(QiitaItem::getLikesCount).reversed())
-                    .toList();
-            default -> results;
-        };
+    public List<QiitaItemSummary> searchArticles(String keyword, String sort, String period) {
+        SearchKey key = searchKey(keyword, sort, period);
+        CacheEntry<SearchResult<QiitaItemSummary>> cached = searchCache.getIfPresent(key);
+        if (cached != null && cached.isFresh(clock.instant())) {
+            log.debug("[Qiita] Search cache hit: {}", key);
+            return cached.value().items();
+        }
+        List<QiitaItemSummary> refined = refineFromCache(key);
+        if (refined != null) return refined;
+        if (cached != null && !upstreamAvailable()) {
+            log.debug("[Qiita] Upstream unavailable, serving expired search: {}", key);
+            return cached.value().items();
+        }
+        return searchFlights.execute(key, () -> {
+            SearchResult<QiitaItemSummary> result = fetchSearchResults(key.keyword(), key.sort(), key.period());
+            searchCache.put(key, CacheEntry.of(result, clock.instant(), searchTtlSeconds(result.items())));
+            return result.items();
+        });
+    }
+
+    /** 手元で絞り込める広い検索の結果と、それを今回の結果に変えるクエリと残りの条件 */
+    private record Superset<T>(CacheEntry<SearchResult<T>> entry, ColumnQuery query, Predicate<T> residual) {}
+
+    /**
+     * 語の追加・期間の短縮・並べ替えの変更だけの検索を、キャッシュにある広い検索の結果から作る。
+     * 期間・ストック数・タグの絞り込みと並べ替えは列 (ColumnarList) の上で行い、サマリを見るのは語の条件だけ。
+     * 元にするのは上流の一覧を最後まで読んだ (exhaustive) 結果だけ。ページ数で打ち切った結果は広い検索の先頭の一部なので、
+     * 絞っても今回の検索の結果にはならない。
+     * 候補が無い・古い・絞った結果が refineMinResults 件に満たない・今回の検索が上流で取れる件数を超えるときは
+     * null を返し、上流に取りに行く
+     */
+    private List<QiitaItemSummary> refineFromCache(SearchKey key) {
+        CacheProperties.Search cfg = cacheProperties.getSearch();
+        if (!cfg.isRefine()) return null;
+        Instant now = clock.instant();
+        LocalDate since = sinceDate(key.period());
+        int countMinStocks = qiitaProperties.getSearch().getCountMinStocks();
+        List<Superset<QiitaItemSummary>> candidates = new ArrayList<>();
+        // 語の比較はキャッシュのロックを持たずに、エントリの写しの上で行う
+        for (Map.Entry<SearchKey, CacheEntry<SearchResult<QiitaItemSummary>>> cachedSearch : searchCache.entries()) {
+            SearchKey k = cachedSearch.getKey();
+            CacheEntry<SearchResult<QiitaItemSummary>> entry = cachedSearch.getValue();
+            if (k.equals(key) || !entry.value().exhaustive() || entry.value().items().isEmpty()
+                    || entry.getAgeSeconds(now) > cfg.getRefineMaxAgeSeconds()) continue;
+            ColumnQuery query = new ColumnQuery();
+            Predicate<QiitaItemSummary> residual = QiitaRefinement.narrowing(k.keyword(), k.sort(), sinceDate(k.period()),
+                    key.keyword(), key.sort(), since, countMinStocks, query);
+            if (residual != null) candidates.add(new Superset<>(entry, query, residual));
+        }
+        // 一番小さい候補から絞る（見る行が少なく、元の検索も近い）
+        Superset<QiitaItemSummary> base = candidates.stream()
+                .min(Comparator.comparingInt(c -> c.entry().value().items().size()))
+                .orElse(null);
+        if (base == null) return null;
+
+        ColumnarList<QiitaItemSummary> rows = columnar(base.entry().value().items());
+        int[] picked = base.query().rows(rows);
+        // 語の条件は行の順に確かめて詰める（並び順は崩さない）
+        int kept = 0;
+        for (int row : picked) {
+            if (base.residual().test(rows.get(row))) picked[kept++] = row;
+        }
+        if (kept < cfg.getRefineMinResults()) return null;
+        // 下限付きで 1 ページに満たない count 検索は、上流では下限を外して取り直す結果になるので手元では作らない
+        if ("count".equals(key.sort()) && countMinStocks > 0 && kept < PER_PAGE) return null;
+        // 上流で取れば途中のページで打ち切られる件数なら、どの記事が入るかは並び順で変わるので手元では作らない
+        int fetchable = QiitaSearchPlan.of(key.keyword(), key.sort(), since, qiitaProperties.getSearch()).pages() * PER_PAGE;
+        if (kept > fetchable) return null;
+        ColumnarList<QiitaItemSummary> refined = rows.rows(Arrays.copyOf(picked, kept));
+
+        log.debug("[Qiita] Search {} answered from a cached superset ({} of {} items)",
+                key, refined.size(), base.entry().value().items().size());
+        // 元の結果と同じ時点の結果なので、取得時刻と期限も引き継ぐ。全件から絞ったので、これも全件
+        searchCache.put(key, new CacheEntry<>(new SearchResult<>(refined, true),
+                base.entry().fetchedAt(), base.entry().expiresAt()));
+        return refined;
     }
 
-    /** キーワードと期間を組み合わせた Qiita 検索クエリを構築する (API 側の pre-filter 用) */
-    private String buildSearchQuery(String keyword, String period) {
-        List<String> parts = new ArrayList<>();
-        if (keyword != null && !keyword.isBlank()) parts.add(keyword);
-        LocalDate sinceDate = sinceDate(period);
-        if (sinceDate != null)
-            parts.add("created:>=" + sinceDate.format(DateTimeFormatter.ISO_LOCAL_DATE));
-        return String.join(" ", parts);
-    }
-
-    /** Java 側で created_at を見て期間外の記事を除外する */
-    private List<QiitaItem> filterByPeriod(List<QiitaItem> items, String period) {
-        LocalDate since = sinceDate(period);
-        if (since == null) return items;
-        return items.stream()
-                .filter(a -> {
-                    if (a.getCreatedAt() == null || a.getCreatedAt().length() < 10) return false;
-                    try {
-                        LocalDate created = LocalDate.parse(a.getCreatedAt().substring(0, 10));
-                        return !created.isBefore(since);
-                    } catch (Exception e) {
-                        return true;
-                    }
-                })
-                .toList();
+    /** キャッシュに入れる一覧は列付きにしておく（既に列付きならそのまま） */
+    private static ColumnarList<QiitaItemSummary> columnar(List<QiitaItemSummary> items) {
+        return ColumnarList.of(items, QiitaRefinement.COLUMNS);
+    }
+
+    /**
+     * 空白を詰め、sort / period を既知の値に寄せる。
+     * Qiita の検索演算子 (OR, user:) は大文字小文字を区別するため keyword の大小は変えない
+     */
+    private SearchKey searchKey(String keyword, String sort, String period) {
+        String normalizedKeyword = keyword == null ? "" : keyword.trim().replaceAll("\\s+", " ");
+        String normalizedSort = "count".equals(sort) || "created".equals(sort) ? sort : "rel";
+        String normalizedPeriod = sinceDate(period) != null ? period : "all";
+        return new SearchKey(normalizedKeyword, normalizedSort, normalizedPeriod);
+    }
+
+    /** 上流エラーも空リストになるので、空の結果は短めに持つ */
+    private long searchTtlSeconds(List<QiitaItemSummary> result) {
+        CacheProperties.Search cfg = cacheProperties.getSearch();
+        return result.isEmpty() ? Math.min(cfg.getEmptyTtlSeconds(), cfg.getTtlSeconds()) : cfg.getTtlSeconds();
+    }
+
+    /** クエリプランで絞り込みをできるだけ上流に寄せ、手元では残りの条件と likes 順の並べ替えだけを行う */
+    private SearchResult<QiitaItemSummary> fetchSearchResults(String keyword, String sort, String period) {
+        QiitaSearchPlan plan = QiitaSearchPlan.of(keyword, sort, sinceDate(period), qiitaProperties.getSearch());
+        log.debug("[Qiita] Search plan: query='{}', pages={}", plan.query(), plan.pages());
+        // sort / period は正規化済みなので shape の種類は有限
+        String shape = "search:" + sort + ":" + period;
+        int pages = rateLimit.allowedPages(Priority.INTERACTIVE, paging.pages(shape, plan.pages(), PER_PAGE));
+        Pages<QiitaItem> fetched = fetchAllPages(plan.query(), pages, Priority.INTERACTIVE, plan.residual(), shape);
+        if (plan.hasStocksFloor() && fetched.exhausted() && fetched.items().size() < PER_PAGE) {
+            // まばらな語では stocks の下限でほとんど残らない。1 ページに満たなければ下限なしで取り直す
+            // （収量の傾向が違うので shape には記録しない）
+            QiitaSearchPlan unfloored = plan.withoutStocksFloor();
+            log.debug("[Qiita] Stocks floor left {} items, searching again without it: '{}'",
+                    fetched.items().size(), unfloored.query());
+            Pages<QiitaItem> retried = fetchAllPages(unfloored.query(),
+                    rateLimit.allowedPages(Priority.INTERACTIVE, unfloored.pages()),
+                    Priority.INTERACTIVE, unfloored.residual(), null);
+            // 下限なしの結果は下限付きの結果を含む。取り直しに失敗して少なくなったときは下限付きのまま返す
+            if (retried.items().size() > fetched.items().size()) fetched = retried;
+        }
+        ColumnarList<QiitaItemSummary> results = columnar(summarize(fetched.items()));
+        List<QiitaItemSummary> sorted = plan.sortByLikes()
+                ? new ColumnQuery().orderBy(ColumnQuery.Order.LIKES).select(results)
+                : results;
+        return new SearchResult<>(sorted, fetched.exhausted());
     }
 
     /** period 文字列を「以降」の LocalDate に変換する。"all" は null を返す */
@@ -130,113 +326,399 @@ public class QiitaServiceImpl implements QiitaService {
     }
 
     @Override
-    public List<QiitaItem> getHotArticles() {
+    public List<QiitaItemSummary> getHotArticles() {
         return getHotArticles("all");
     }
 
     @Override
-    public List<QiitaItem> getHotArticles(String period) {
-        CacheEntry entry = hotCache.get(period);
-        if (entry != null && entry.isValid()) {
+    public List<QiitaItemSummary> getHotArticles(String period) {
+        return getHotArticleEntry(period).value();
+    }
+
+    @Override
+    public CacheEntry<List<QiitaItemSummary>> getHotArticleEntry(String requestedPeriod) {
+        String period = qiitaProperties.normalizePeriod(requestedPeriod);
+        hotRequests.computeIfAbsent(period, k -> new LongAdder()).increment();
+        CacheEntry<List<QiitaItemSummary>> entry = hotCache.getIfPresent(period);
+        if (entry == null) {
+            return hotFlights.execute(period, () -> fetchAndCache(period, Priority.INTERACTIVE));
+        }
+        if (entry.isFresh(clock.instant())) {
             log.debug("[Qiita] Cache hit: {}", period);
-            return entry.items;
+        } else {
+            log.debug("[Qiita] Serving stale '{}' while revalidating", period);
+            revalidate(period);
         }
-        return fetchAndCache(period);
+        return entry;
+    }
+
+    @Override
+    public CacheEntry<EncodedBody> getHotArticleBody(String requestedPeriod) {
+        CacheEntry<List<QiitaItemSummary>> entry = getHotArticleEntry(requestedPeriod);
+        EncodedBody body = hotBodies.encode(qiitaProperties.normalizePeriod(requestedPeriod), entry.value());
+        return new CacheEntry<>(body, entry.fetchedAt(), entry.expiresAt());
+    }
+
+    /** 期限切れエントリはそのまま返し、裏で取り直す (stale-while-revalidate) */
+    private void revalidate(String period) {
+        Instant now = clock.instant();
+        Instant notBefore = revalidateNotBefore.get(period);
+        if (hotFlights.isInFlight(period) || (notBefore != null && now.isBefore(notBefore))) return;
+        revalidateNotBefore.put(period, now.plusSeconds(cacheProperties.getStale().getRevalidateIntervalSeconds()));
+        revalidationExecutor.execute(() -> hotFlights.execute(period, () -> fetchAndCache(period, Priority.BACKGROUND)));
     }
 
     @Override
-    public List<QiitaItem> getTimelineArticles() {
+    public List<QiitaItemSummary> getTimelineArticles() {
         URI uri = UriComponentsBuilder.fromUriString(QIITA_API_URL)
                 .queryParam("page", 1)
-                .queryParam("per_page", 100)
+                .queryParam("per_page", PER_PAGE)
                 .build().toUri();
-        return fetchFromQiita(uri);
+        return summarize(fetchFromQiita(uri, Priority.INTERACTIVE, item -> true).items());
+    }
+
+    @Override
+    public List<QiitaItemSummary> withBodies(List<QiitaItemSummary> summaries) {
+        return summaries.stream().map(summary -> {
+            QiitaItem item = bodyInMemory(summary.getId());
+            return item != null ? QiitaItemSummary.withBody(item) : summary;
+        }).toList();
+    }
+
+    /** 詳細キャッシュに本文付きの記事があれば返す。detailCache の統計や LRU 順には影響させない */
+    private QiitaItem bodyInMemory(String itemId) {
+        CacheEntry<StoredDetail> cached = itemId != null ? detailCache.peek(itemId) : null;
+        QiitaItem item = cached != null ? restore(cached.value()) : null;
+        return item != null && item.getRenderedBody() != null ? item : null;
     }
 
     // ── 内部処理 ──────────────────────────────────────────────────
-    private List<QiitaItem> fetchAndCache(String period) {
+    /**
+     * バックグラウンド更新は、前回の全件取得から fullRebuildInterval 経っていなければ差分だけ取る。
+     * 初回・ユーザー起点の取得と、間隔を過ぎた更新は全ページを取り直す
+     */
+    private CacheEntry<List<QiitaItemSummary>> fetchAndCache(String period, Priority priority) {
+        CacheEntry<List<QiitaItemSummary>> previous = hotCache.peek(period);
+        CacheEntry<List<QiitaItemSummary>> entry = priority == Priority.BACKGROUND && canRefreshIncrementally(period, previous)
+                ? refreshIncrementally(period, previous)
+                : rebuild(period, priority);
+        // レスポンスのバイト列も更新のたびに作っておき、リクエストでは直列化しない
+        hotBodies.encode(period, entry.value());
+        return entry;
+    }
+
+    private boolean canRefreshIncrementally(String period, CacheEntry<List<QiitaItemSummary>> previous) {
+        CacheProperties.Refresh cfg = cacheProperties.getRefresh();
+        if (!cfg.isIncremental() || previous == null || previous.value().isEmpty()) return false;
+        Instant rebuiltAt = lastFullRebuild.get(period);
+        return rebuiltAt != null && clock.instant().isBefore(rebuiltAt.plusSeconds(cfg.getFullRebuildIntervalSeconds()));
+    }
+
+    private CacheEntry<List<QiitaItemSummary>> rebuild(String period, Priority priority) {
         QiitaProperties.Period cfg = qiitaProperties.getPeriod(period);
-        String rawQuery = buildHotQuery(period, cfg.getMinStocks());
+        String rawQuery = hotQuery(hotWindowStart(period), cfg.getMinStocks());
+        // 過去のページごとの収量でページ数を決め、残り予算が少なければさらに減らす。0 ページなら空の結果になり、既存のリストが残る
+        String shape = "hot:" + period;
+        int pages = rateLimit.allowedPages(priority, paging.pages(shape, cfg.getPages(), PER_PAGE));
 
-        log.info("[Qiita] Fetching {} pages for period='{}' (minStocks={})",
-                cfg.getPages(), period, cfg.getMinStocks());
+        log.info("[Qiita] Fetching {} pages (configured {}) for period='{}' (minStocks={}, {})",
+                pages, cfg.getPages(), period, cfg.getMinStocks(), priority);
 
-        List<QiitaItem> all = new ArrayList<>();
-        for (int page = 1; page <= cfg.getPages(); page++) {
-            URI uri = UriComponentsBuilder.fromUriString(QIITA_API_URL)
-                    .queryParam("page", page)
-                    .queryParam("per_page", 100)
-                    .queryParam("query", "{q}")
-                    .buildAndExpand(rawQuery)
-                    .toUri();
-            List<QiitaItem> pageItems = fetchFromQiita(uri);
-            if (pageItems.isEmpty()) break;
-            all.addAll(pageItems);
-        }
+        // 期間とストック数はクエリで絞ってある。ページをまたぐ重複はデコード中に捨てる（後で並べ替えるので順序は問わない）
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Predicate<QiitaItem> keep = a -> a.getId() != null && seen.add(a.getId());
+        List<QiitaItemSummary> result = new ColumnQuery().orderBy(ColumnQuery.Order.LIKES)
+                .select(columnar(summarize(fetchMultiplePages(rawQuery, pages, priority, keep, shape))));
 
-        List<QiitaItem> result = all.stream()
-                .sorted(Comparator.comparingInt(QiitaItem::getLikesCount).reversed())
-                .toList();
+        Instant now = clock.instant();
+        if (result.isEmpty()) {
+            // 上流エラー時も空リストになるため、空の結果で既存のリストを上書きしない (stale-if-error)
+            CacheEntry<List<QiitaItemSummary>> previous = hotCache.peek(period);
+            if (previous != null) {
+                log.warn("[Qiita] Empty result for period='{}', keeping previous {} items",
+                        period, previous.value().size());
+                return previous;
+            }
+            return CacheEntry.of(result, now, 0);
+        }
 
         log.info("[Qiita] Cached {} items for period='{}'", result.size(), period);
-        hotCache.put(period, new CacheEntry(result, cfg.getTtlSeconds()));
-        return result;
+        CacheEntry<List<QiitaItemSummary>> entry = CacheEntry.of(result, now, cfg.getTtlSeconds());
+        hotCache.put(period, entry);
+        lastFullRebuild.put(period, now);
+        return entry;
+    }
+
+    /**
+     * 差分更新。前回の取得日以降に作られた記事を deltaPages ページと、今の上位 recheckTop 件の
+     * ストック数以上の記事（= 上位の記事の最新のいいね・ストック数）を取り、既存のリストに混ぜる。
+     * 期間外に出た記事はここで落とす（ストック数はほぼ減らないので、しきい値は全件取得に任せる）
+     */
+    private CacheEntry<List<QiitaItemSummary>> refreshIncrementally(String period,
+                                                                   CacheEntry<List<QiitaItemSummary>> previous) {
+        QiitaProperties.Period cfg = qiitaProperties.getPeriod(period);
+        CacheProperties.Refresh refresh = cacheProperties.getRefresh();
+        LocalDate windowStart = hotWindowStart(period);
+        // created: は日付単位なので、前回の取得日から取る
+        LocalDate since = LocalDate.ofInstant(previous.fetchedAt(), clock.getZone());
+        if (since.isBefore(windowStart)) since = windowStart;
+        int floor = recheckFloor(previous.value(), refresh.getRecheckTop(), cfg.getMinStocks());
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Predicate<QiitaItem> keep = a -> a.getId() != null && seen.add(a.getId());
+        List<QiitaItem> updates = new ArrayList<>(fetchMultiplePages(hotQuery(since, cfg.getMinStocks()),
+                rateLimit.allowedPages(Priority.BACKGROUND, refresh.getDeltaPages()), Priority.BACKGROUND, keep, null));
+        int recheckPages = (refresh.getRecheckTop() + PER_PAGE - 1) / PER_PAGE;
+        updates.addAll(fetchMultiplePages(hotQuery(windowStart, floor),
+                rateLimit.allowedPages(Priority.BACKGROUND, recheckPages), Priority.BACKGROUND, keep, null));
+
+        if (updates.isEmpty()) {
+            // 上位の記事の再確認が空なのは上流エラーか予算切れ。既存のリストと期限はそのまま (stale-if-error)
+            log.warn("[Qiita] Empty delta for period='{}', keeping previous {} items", period, previous.value().size());
+            return previous;
+        }
+
+        String windowStartText = windowStart.format(DateTimeFormatter.ISO_LOCAL_DATE);
+        HotListDelta.Result<QiitaItemSummary> merged = HotListDelta.merge(previous.value(), summarize(updates),
+                QiitaItemSummary::getId,
+                a -> a.getCreatedAt() == null || a.getCreatedAt().compareTo(windowStartText) >= 0,
+                Comparator.comparingInt(QiitaItemSummary::getLikesCount).reversed());
+
+        log.info("[Qiita] Delta refresh for period='{}': {} updated, {} added, {} evicted, {} items",
+                period, merged.updated(), merged.added(), merged.evicted(), merged.items().size());
+        CacheEntry<List<QiitaItemSummary>> entry = CacheEntry.of(columnar(merged.items()), clock.instant(), cfg.getTtlSeconds());
+        hotCache.put(period, entry);
+        return entry;
+    }
+
+    /** 今のリストで recheckTop 番目に多いストック数。これ以上の記事を取り直せば上位 N 件が入る */
+    private static int recheckFloor(List<QiitaItemSummary> items, int top, int minStocks) {
+        int[] stocks = items.stream().mapToInt(QiitaItemSummary::getStocksCount).sorted().toArray();
+        if (stocks.length == 0 || top <= 0) return minStocks;
+        return Math.max(minStocks, stocks[Math.max(0, stocks.length - top)]);
     }
 
-    private String buildHotQuery(String period, int minStocks) {
-        LocalDate sinceDate = switch (period) {
+    /** ホットリストの期間の始まり。"all" は 10 年前から */
+    private LocalDate hotWindowStart(String period) {
+        return switch (period) {
             case "1day"  -> LocalDate.now(clock).minusDays(1);
             case "week"  -> LocalDate.now(clock).minusWeeks(1);
             case "month" -> LocalDate.now(clock).minusMonths(1);
             case "year"  -> LocalDate.now(clock).minusYears(1);
             default      -> LocalDate.now(clock).minusYears(10);
         };
-        return "created:>=" + sinceDate.format(DateTimeFormatter.ISO_LOCAL_DATE) + " stocks:>=" + minStocks;
     }
 
-    /** 指定クエリで最大 pages ページ取得して結合する（id重複を除去） */
-    private List<QiitaItem> fetchMultiplePages(String query, int pages) {
-        Map<String, QiitaItem> seen = new LinkedHashMap<>();
-        for (int page = 1; page <= pages; page++) {
+    private static String hotQuery(LocalDate since, int minStocks) {
+        return "created:>=" + since.format(DateTimeFormatter.ISO_LOCAL_DATE) + " stocks:>=" + minStocks;
+    }
+
+    /** キャッシュ予算用の QiitaItem のおおよそのサイズ（rendered_body が大半を占める） */
+    private static long weigh(QiitaItem item) {
+        return Weights.OBJECT * 2
+                + Weights.of(item.getId()) + Weights.of(item.getTitle()) + Weights.of(item.getUrl())
+                + Weights.of(item.getRenderedBody()) + Weights.of(item.getCreatedAt()) + Weights.of(item.getUpdatedAt())
+                + Weights.of(item.getTags(), tag -> Weights.OBJECT + Weights.of(tag.getName()))
+                + Weights.of(item.getQiitaComments(), QiitaServiceImpl::weigh)
+                + (item.getUser() != null ? Weights.OBJECT * 4 : 0);
+    }
+
+    private static long weigh(QiitaItemSummary summary) {
+        return Weights.OBJECT * 2
+                + Weights.of(summary.getId()) + Weights.of(summary.getTitle()) + Weights.of(summary.getUrl())
+                + Weights.of(summary.getExcerpt()) + Weights.of(summary.getCreatedAt()) + Weights.of(summary.getUpdatedAt())
+                + Weights.of(summary.getTags(), tag -> Weights.OBJECT + Weights.of(tag.getName()))
+                + (summary.getUser() != null ? Weights.OBJECT * 4 : 0);
+    }
+
+    private static long weigh(QiitaCommentItem comment) {
+        return Weights.OBJECT * 2 + Weights.of(comment.getId()) + Weights.of(comment.getBody())
+                + Weights.of(comment.getRenderedBody()) + Weights.of(comment.getCreatedAt())
+                + Weights.of(comment.getUpdatedAt()) + (comment.getUser() != null ? Weights.OBJECT * 8 : 0);
+    }
+
+    /**
+     * 指定クエリで最大 pages ページを並列取得し、ページ順に結合する（id重複を除去）。
+     * keep を通らない記事は各ページのデコード中に捨てる。shape を渡すとページごとの収量を AdaptivePaging に記録する
+     */
+    private List<QiitaItem> fetchMultiplePages(String query, int pages, Priority priority, Predicate<QiitaItem> keep,
+                                               String shape) {
+        return fetchAllPages(query, pages, priority, keep, shape).items();
+    }
+
+    /** fetchMultiplePages と同じ取得で、上流の一覧を最後まで読めたかも返す */
+    private Pages<QiitaItem> fetchAllPages(String query, int pages, Priority priority, Predicate<QiitaItem> keep,
+                                           String shape) {
+        IntFunction<Page<QiitaItem>> fetcher = page -> {
             URI uri = UriComponentsBuilder.fromUriString(QIITA_API_URL)
                     .queryParam("page", page)
-                    .queryParam("per_page", 100)
+                    .queryParam("per_page", PER_PAGE)
                     .queryParam("query", "{q}")
                     .buildAndExpand(query)
                     .toUri();
-            List<QiitaItem> items = fetchFromQiita(uri);
-            if (items.isEmpty()) break;
-            for (QiitaItem item : items) {
-                if (item.getId() != null) seen.putIfAbsent(item.getId(), item);
-            }
+            return fetchFromQiita(uri, priority, keep);
+        };
+        Pages<QiitaItem> fetched = pageFanOut.fetchAll(pages, PER_PAGE,
+                shape != null ? paging.observe(shape, PER_PAGE, fetcher) : fetcher);
+        Map<String, QiitaItem> seen = new LinkedHashMap<>();
+        for (QiitaItem item : fetched.items()) {
+            if (item.getId() != null) seen.putIfAbsent(item.getId(), item);
+        }
+        return new Pages<>(new ArrayList<>(seen.values()), fetched.exhausted());
+    }
+
+    /**
+     * 一覧用にサマリへ変換する。本文付きの記事は詳細キャッシュに入れておき、
+     * 一覧から記事を開いたときに上流へ取りに行かずに済むようにする。
+     * 本文の圧縮は 1 ページで 100 件分になるので、リクエストのスレッドではなく裏で行う。
+     * 専用の executor はキューが小さく、溢れた分は捨てる（本文は開いたときに取り直せる）
+     */
+    private List<QiitaItemSummary> summarize(List<QiitaItem> items) {
+        Instant now = clock.instant();
+        List<QiitaItemSummary> summaries = new ArrayList<>(items.size());
+        List<QiitaItem> withBody = new ArrayList<>();
+        for (QiitaItem item : items) {
+            if (item.getId() != null && item.getRenderedBody() != null) withBody.add(item);
+            summaries.add(QiitaItemSummary.from(item));
+        }
+        if (!withBody.isEmpty()) listedBodyExecutor.execute(() -> cacheListedDetails(withBody, now));
+        return itemRegistry.internAll(SUMMARY_SOURCE, summaries, QiitaItemSummary::getId, QiitaItemSummary::versionKey, now);
+    }
+
+    /**
+     * 一覧に付いてきた本文を詳細として入れる。待っている間に詳細 API から入った、より新しい詳細は上書きしない。
+     * 同じ版の本文が既にあれば入れ直さず、BodyStore の空きに収まらない本文は入れない
+     * （実際に開かれた本文を一覧のスキャンで追い出さないため）
+     */
+    private void cacheListedDetails(List<QiitaItem> items, Instant fetchedAt) {
+        Instant expiresAt = fetchedAt.plusSeconds(cacheProperties.getDetail().getTtlSeconds());
+        for (QiitaItem item : items) {
+            CacheEntry<StoredDetail> current = detailCache.peek(item.getId());
+            if (current != null && current.fetchedAt().isAfter(fetchedAt)) continue;
+            if (current != null && current.value().bodyOffHeap()
+                    && Objects.equals(current.value().item().versionKey(), item.versionKey())
+                    && bodyStore.contains(bodyKey(item.getId()))) continue;
+            if (!bodyStore.putIfRoom(bodyKey(item.getId()), item.getRenderedBody())) continue;
+            storeDetail(item, true, fetchedAt, expiresAt);
+        }
+    }
+
+    /**
+     * 予算が残っていない、または circuit breaker が開いていれば上流に出さない。
+     * 呼び出し側は取得失敗と同じく空の結果として扱う
+     */
+    private boolean acquire(Priority priority, Object target) {
+        if (!upstreamGuard.isAvailable()) {
+            log.warn("[Qiita] Circuit breaker open, skipping {} request: {}", priority, target);
+            return false;
         }
-        return new ArrayList<>(seen.values());
+        if (rateLimit.tryAcquire(priority)) return true;
+        log.warn("[Qiita] Rate-limit budget exhausted, skipping {} request: {}", priority, target);
+        return false;
+    }
+
+    /** hedge は追加のリクエストなので、ユーザー向けの予備枠には手を付けない */
+    private boolean mayHedge() {
+        return rateLimit.tryAcquire(Priority.BACKGROUND);
+    }
+
+    /** 期限切れのキャッシュでも返すべきか（上流に出せない状態か）の判定に使う */
+    private boolean upstreamAvailable() {
+        return upstreamGuard.isAvailable() && rateLimit.hasBudget(Priority.INTERACTIVE);
     }
 
-    private List<QiitaItem> fetchFromQiita(URI uri) {
+    /**
+     * 1 ページ取得し、レスポンスを読みながら keep を通った記事だけ残す。
+     * scanned はフィルタ前の件数（ページが最後かどうかの判定用）
+     */
+    private Page<QiitaItem> fetchFromQiita(URI uri, Priority priority, Predicate<QiitaItem> keep) {
+        if (!acquire(priority, uri)) return Page.failure();
         log.debug("[Qiita] GET {}", uri);
         try {
-            QiitaItem[] items = restClient.get().uri(uri).retrieve().body(QiitaItem[].class);
-            int count = items != null ? items.length : 0;
-            log.debug("[Qiita] Received {} items from {}", count, uri);
-            return new ArrayList<>(Arrays.asList(items != null ? items : new QiitaItem[0]));
+            Page<QiitaItem> page = ITEMS.exchange(restClient.get().uri(uri), keep);
+            log.debug("[Qiita] Received {} items from {}, kept {}", page.scanned(), uri, page.items().size());
+            return page;
         } catch (RestClientResponseException e) {
             log.warn("[Qiita] HTTP {} for {}: {}",
                     e.getStatusCode(), uri, e.getResponseBodyAsString(StandardCharsets.UTF_8));
-            return Collections.emptyList();
+            return Page.failure();
         } catch (Exception e) {
             log.error("[Qiita] Fetch error for {}: {}", uri, e.getMessage());
-            return Collections.emptyList();
+            return Page.failure();
         }
     }
 
     @Override
     public QiitaItem getArticleDetail(String itemId) {
+        CacheEntry<StoredDetail> cached = detailCache.getIfPresent(itemId);
+        // 予算切れの間は期限切れの詳細でも返す
+        boolean usable = cached != null && (cached.isFresh(clock.instant()) || !upstreamAvailable());
+        QiitaItem restored = usable ? restore(cached.value()) : null;
+        if (restored != null) return restored;
+        QiitaItem listed = detailFromRegistry(itemId);
+        if (listed != null) return listed;
+        return detailFlights.execute(itemId, () -> {
+            QiitaItem item = fetchArticleDetail(itemId);
+            // 取得失敗時の空 QiitaItem はキャッシュしない
+            if (item.getId() == null) return item;
+            Instant now = clock.instant();
+            return cacheDetail(item, now, now.plusSeconds(cacheProperties.getDetail().getTtlSeconds()));
+        });
+    }
+
+    /**
+     * 本文はオフヒープの BodyStore に圧縮して置き、ヒープの detailCache にはメタデータだけを持つ。
+     * 呼び出し側には本文付きの記事を返す
+     */
+    private QiitaItem cacheDetail(QiitaItem item, Instant fetchedAt, Instant expiresAt) {
+        boolean offHeap = bodyStore.put(bodyKey(item.getId()), item.getRenderedBody());
+        return storeDetail(item, offHeap, fetchedAt, expiresAt);
+    }
+
+    private QiitaItem storeDetail(QiitaItem item, boolean offHeap, Instant fetchedAt, Instant expiresAt) {
+        QiitaItem stored = offHeap ? item.withRenderedBody(null) : item;
+        QiitaItem meta = itemRegistry.intern(SOURCE, item.getId(), stored.versionKey(), stored, fetchedAt);
+        detailCache.put(item.getId(), new CacheEntry<>(new StoredDetail(meta, offHeap), fetchedAt, expiresAt));
+        return offHeap ? meta.withRenderedBody(item.getRenderedBody()) : meta;
+    }
+
+    /** 本文を BodyStore から戻す。本文だけ追い出されていれば null（呼び出し側で取り直す） */
+    private QiitaItem restore(StoredDetail stored) {
+        if (!stored.bodyOffHeap()) return stored.item();
+        String body = bodyStore.get(bodyKey(stored.item().getId()));
+        return body != null ? stored.item().withRenderedBody(body) : null;
+    }
+
+    private static String bodyKey(String itemId) {
+        return SOURCE + "/" + itemId;
+    }
+
+    /**
+     * detailCache から追い出された後も、レジストリに同じ記事のメタデータが残っていて
+     * BodyStore に本文があれば、最近取得したものに限り詳細として返す
+     */
+    private QiitaItem detailFromRegistry(String itemId) {
+        ItemRegistry.Registered<QiitaItem> registered = itemRegistry.lookup(SOURCE, itemId, QiitaItem.class);
+        if (registered == null) return null;
+        CacheProperties.Detail cfg = cacheProperties.getDetail();
+        Instant fetchedAt = registered.fetchedAt();
+        if (fetchedAt.plusSeconds(cfg.getFromListMaxAgeSeconds()).isBefore(clock.instant())) return null;
+        QiitaItem meta = registered.item();
+        boolean offHeap = meta.getRenderedBody() == null;
+        StoredDetail stored = new StoredDetail(meta, offHeap);
+        QiitaItem item = restore(stored);
+        if (item == null || item.getRenderedBody() == null) return null;
+        detailCache.put(itemId, new CacheEntry<>(stored, fetchedAt, fetchedAt.plusSeconds(cfg.getTtlSeconds())));
+        return item;
+    }
+
+    private QiitaItem fetchArticleDetail(String itemId) {
         URI uri = UriComponentsBuilder.fromUriString(QIITA_API_URL + "/{id}")
                 .buildAndExpand(itemId).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return new QiitaItem();
         log.debug("[Qiita] GET article {}", itemId);
         try {
-            QiitaItem item = restClient.get().uri(uri).retrieve().body(QiitaItem.class);
+            QiitaItem item = hedger.call(() -> restClient.get().uri(uri).retrieve().body(QiitaItem.class), this::mayHedge);
             return item != null ? item : new QiitaItem();
         } catch (RestClientResponseException e) {
             log.warn("[Qiita] HTTP {} fetching article {}: {}",
@@ -250,12 +732,38 @@ public class QiitaServiceImpl implements QiitaService {
 
     @Override
     public List<QiitaCommentItem> getArticleComments(String itemId) {
+        CacheEntry<List<QiitaCommentItem>> cached = commentCache.getIfPresent(itemId);
+        if (cached != null && (cached.isFresh(clock.instant()) || !upstreamAvailable())) {
+            return cached.value();
+        }
+        return commentFlights.execute(itemId, () -> {
+            List<QiitaCommentItem> comments = fetchArticleComments(itemId);
+            commentCache.put(itemId, CacheEntry.of(comments, clock.instant(), commentsTtlSeconds(comments)));
+            return comments;
+        });
+    }
+
+    @Override
+    public void invalidateArticle(String itemId) {
+        detailCache.invalidate(itemId);
+        bodyStore.invalidate(bodyKey(itemId));
+        commentCache.invalidate(itemId);
+    }
+
+    /** 上流エラーも空リストになるので、コメント 0 件は短めに持つ */
+    private long commentsTtlSeconds(List<QiitaCommentItem> comments) {
+        CacheProperties.Detail cfg = cacheProperties.getDetail();
+        return comments.isEmpty() ? cfg.getEmptyCommentsTtlSeconds() : cfg.getCommentsTtlSeconds();
+    }
+
+    private List<QiitaCommentItem> fetchArticleComments(String itemId) {
         URI uri = UriComponentsBuilder.fromUriString(QIITA_API_URL + "/{id}/comments")
                 .buildAndExpand(itemId).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return Collections.emptyList();
         log.debug("[Qiita] GET comments for article {}", itemId);
         try {
-            QiitaCommentItem[] comments = restClient.get().uri(uri).retrieve()
-                    .body(QiitaCommentItem[].class);
+            QiitaCommentItem[] comments = hedger.call(() -> restClient.get().uri(uri).retrieve()
+                    .body(QiitaCommentItem[].class), this::mayHedge);
             return Arrays.stream(comments != null ? comments : new QiitaCommentItem[0])
                     .filter(c -> c.getId() != null)
                     .collect(Collectors.toList());
@@ -270,14 +778,15 @@ public class QiitaServiceImpl implements QiitaService {
     }
 
     @Override
-    public List<QiitaItem> getUserArticles(String userId) {
+    public List<QiitaItemSummary> getUserArticles(String userId) {
         URI uri = UriComponentsBuilder.fromUriString(QIITA_USER_API_URL + "/{id}/items")
                 .queryParam("per_page", 100)
                 .buildAndExpand(userId).toUri();
+        if (!acquire(Priority.INTERACTIVE, uri)) return Collections.emptyList();
         log.debug("[Qiita] GET articles for user {}", userId);
         try {
             QiitaItem[] items = restClient.get().uri(uri).retrieve().body(QiitaItem[].class);
-            return new ArrayList<>(Arrays.asList(items != null ? items : new QiitaItem[0]));
+            return summarize(items != null ? Arrays.asList(items) : Collections.emptyList());
         } catch (RestClientResponseException e) {
             log.warn("[Qiita] HTTP {} fetching articles for user {}: {}",
                     e.getStatusCode(), userId, e.getResponseBodyAsString(StandardCharsets.UTF_8));
@@ -4,13 +4,21 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.merge.merge_backend.config.UpstreamProperties;
+import com.merge.merge_backend.upstream.CircuitBreaker;
+import com.merge.merge_backend.upstream.UpstreamGuard;
+import com.merge.merge_backend.upstream.UpstreamMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Clock;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,18 +32,31 @@ public class TranslateServiceImpl implements TranslateService {
     private String apiKey;
 
     private final HttpClient httpClient;
+    private final UpstreamMetrics metrics;
+    private final UpstreamGuard upstreamGuard;
+    private final Duration readTimeout;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
-    public TranslateServiceImpl() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+    /** 接続は AppConfig の translateHttpClient を使い回す（keep-alive / HTTP/2） */
+    @Autowired
+    public TranslateServiceImpl(@Qualifier("translateHttpClient") HttpClient httpClient,
+                                @Qualifier("translateHttpMetrics") UpstreamMetrics metrics,
+                                @Qualifier("translateUpstreamGuard") UpstreamGuard upstreamGuard,
+                                UpstreamProperties upstreamProperties) {
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.upstreamGuard = upstreamGuard;
+        this.readTimeout = Duration.ofSeconds(upstreamProperties.getClient("translate").getReadTimeoutSeconds());
     }
 
     // テスト用コンストラクタ
     TranslateServiceImpl(HttpClient httpClient) {
-        this.httpClient = httpClient;
+        this(httpClient, new UpstreamMetrics("translate"),
+                new UpstreamGuard("translate", Clock.systemUTC(),
+                        new CircuitBreaker(Clock.systemUTC(), 20, 10, 0.5, Duration.ofSeconds(30), 3),
+                        4, Duration.ofMillis(250), UpstreamGuard.Retry.NONE),
+                new UpstreamProperties());
     }
 
     @Override
@@ -61,10 +82,10 @@ public class TranslateServiceImpl implements TranslateService {
                     .header("Authorization", "DeepL-Auth-Key " + apiKey)
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .timeout(Duration.ofSeconds(30))
+                    .timeout(readTimeout)
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send(request);
 
             if (response.statusCode() != 200) {
                 throw new RuntimeException("DeepL API error: HTTP " + response.statusCode() + " - " + response.body());
@@ -88,4 +109,21 @@ public class TranslateServiceImpl implements TranslateService {
             throw new RuntimeException("Translation failed: " + e.getMessage(), e);
         }
     }
+
+    /** 翻訳は POST で課金もされるので再試行はせず、同時実行数の制限と circuit breaker だけ掛ける */
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return upstreamGuard.call(() -> sendMeasured(request), HttpResponse::statusCode);
+    }
+
+    private HttpResponse<String> sendMeasured(HttpRequest request) throws IOException, InterruptedException {
+        long start = metrics.started();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            metrics.completed(start, response.statusCode());
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            metrics.failed(start, e);
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,194 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Decides how many pages of an upstream list to fetch from how many useful items each page
+ * yielded before.
+ *
+ * Fetches are grouped by query shape (e.g. {@code hot:week}, {@code search:count:month}); for each
+ * shape the number of items kept per page number (after period, threshold and de-duplication
+ * filters) is tracked as an exponentially weighted average. A plan starts from the configured
+ * page count and
+ * <ul>
+ *   <li>stops before page p when p's expected yield is below {@code minYieldRatio} of a page,</li>
+ *   <li>goes past the configured count, up to {@code maxDepthFactor} times it, while the expected
+ *       total is still below {@code targetItems} and the next page is expected to be worth it.</li>
+ * </ul>
+ * Pages beyond a plan are never observed, so every {@code exploreEvery}-th plan of a shape fetches
+ * at least the configured count again to re-measure. Shapes must come from a fixed set (normalized
+ * sort / period values), not from user input.
+ */
+public class AdaptivePaging {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePaging.class);
+
+    /** 1 つの shape で追跡する最大ページ数 */
+    static final int MAX_PAGES = 20;
+
+    public record Decision(String shape, int configured, int pages, double expectedItems, String reason) {}
+
+    public record ShapeSnapshot(String shape, long plans, long shallower, long deeper, long explored,
+                                double[] yieldPerPage, Decision last) {}
+
+    public record Snapshot(String name, boolean enabled, List<ShapeSnapshot> shapes) {}
+
+    private final String name;
+    private final boolean enabled;
+    private final double minYieldRatio;
+    private final int targetItems;
+    private final double maxDepthFactor;
+    private final double smoothing;
+    private final int exploreEvery;
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    public AdaptivePaging(String name, boolean enabled, double minYieldRatio, int targetItems,
+                          double maxDepthFactor, double smoothing, int exploreEvery) {
+        this.name = name;
+        this.enabled = enabled;
+        this.minYieldRatio = minYieldRatio;
+        this.targetItems = targetItems;
+        this.maxDepthFactor = Math.max(1, maxDepthFactor);
+        this.smoothing = Math.clamp(smoothing, 0.01, 1);
+        this.exploreEvery = Math.max(0, exploreEvery);
+    }
+
+    /** Always fetches the configured page count and records nothing. */
+    public static AdaptivePaging disabled(String name) {
+        return new AdaptivePaging(name, false, 0, 0, 1, 1, 0);
+    }
+
+    /** Number of pages to fetch for {@code shape}; {@code configured} until there is history. */
+    public int pages(String shape, int configured, int pageSize) {
+        if (!enabled || configured <= 0) return configured;
+        Decision decision = shape(shape).plan(configured, pageSize);
+        if (decision.pages() != configured) {
+            log.debug("[{}] {}: {} page(s) instead of {} ({})",
+                    name, shape, decision.pages(), configured, decision.reason());
+        }
+        return decision.pages();
+    }
+
+    /** Wraps a page fetcher so every page it returns is recorded against {@code shape}. */
+    public <T> IntFunction<Page<T>> observe(String shape, int pageSize, IntFunction<Page<T>> fetcher) {
+        if (!enabled) return fetcher;
+        return page -> {
+            Page<T> result = fetcher.apply(page);
+            shape(shape).record(page, pageSize, result);
+            return result;
+        };
+    }
+
+    public Snapshot snapshot() {
+        List<ShapeSnapshot> list = new ArrayList<>();
+        shapes.values().forEach(shape -> list.add(shape.snapshot()));
+        list.sort(Comparator.comparing(ShapeSnapshot::shape));
+        return new Snapshot(name, enabled, list);
+    }
+
+    private Shape shape(String key) {
+        return shapes.computeIfAbsent(key, Shape::new);
+    }
+
+    private final class Shape {
+        private final String key;
+        private final double[] yield = new double[MAX_PAGES];
+        private final boolean[] known = new boolean[MAX_PAGES];
+        private long plans;
+        private long shallower;
+        private long deeper;
+        private long explored;
+        private Decision last;
+
+        Shape(String key) {
+            this.key = key;
+        }
+
+        synchronized Decision plan(int configured, int pageSize) {
+            plans++;
+            int maxPages = Math.min(MAX_PAGES, (int) Math.ceil(configured * maxDepthFactor));
+            Decision decision;
+            if (!known[0]) {
+                decision = new Decision(key, configured, configured, 0, "no history");
+            } else if (exploreEvery > 0 && plans % exploreEvery == 0) {
+                explored++;
+                decision = new Decision(key, configured, Math.min(configured, maxPages), expected(configured),
+                        "re-measuring");
+            } else {
+                decision = decide(configured, maxPages, pageSize);
+            }
+            if (decision.pages() < configured) shallower++;
+            if (decision.pages() > configured) deeper++;
+            last = decision;
+            return decision;
+        }
+
+        private Decision decide(int configured, int maxPages, int pageSize) {
+            double minYield = minYieldRatio * pageSize;
+            int pages = 0;
+            double total = 0;
+            String reason = "as configured";
+            for (int p = 1; p <= maxPages; p++) {
+                double y = expectedAt(p);
+                if (p > 1 && y < minYield) {
+                    if (p <= configured) reason = String.format("page %d expected to yield %.1f items", p, y);
+                    break;
+                }
+                if (p > configured && total >= targetItems) break;
+                pages = p;
+                total += y;
+                if (p > configured) reason = String.format("thin results, going to page %d for %.1f items", p, total);
+            }
+            return new Decision(key, configured, Math.max(1, pages), total, reason);
+        }
+
+        /** 観測していないページは、観測済みの一番深いページと同じだけ残ると見なす */
+        private double expectedAt(int page) {
+            for (int i = page - 1; i >= 0; i--) {
+                if (known[i]) return yield[i];
+            }
+            return 0;
+        }
+
+        private double expected(int pages) {
+            double total = 0;
+            for (int p = 1; p <= pages; p++) total += expectedAt(p);
+            return total;
+        }
+
+        /**
+         * ページの残った件数を記録する。上流が短いページを返したときだけ、次のページを 0 件として記録する。
+         * 取得に失敗した・予算切れで出さなかったページは深さの手掛かりにならないので記録しない
+         */
+        synchronized void record(int page, int pageSize, Page<?> result) {
+            if (page < 1 || page > MAX_PAGES || result.failed()) return;
+            update(page, result.items().size());
+            if (result.scanned() < pageSize && page < MAX_PAGES) update(page + 1, 0);
+        }
+
+        private void update(int page, double kept) {
+            int i = page - 1;
+            yield[i] = known[i] ? smoothing * kept + (1 - smoothing) * yield[i] : kept;
+            known[i] = true;
+        }
+
+        synchronized ShapeSnapshot snapshot() {
+            int depth = 0;
+            for (int i = 0; i < MAX_PAGES; i++) if (known[i]) depth = i + 1;
+            double[] rounded = Arrays.stream(Arrays.copyOf(yield, depth))
+                    .map(y -> Math.round(y * 10) / 10.0)
+                    .toArray();
+            return new ShapeSnapshot(key, plans, shallower, deeper, explored, rounded, last);
+        }
+    }
+}
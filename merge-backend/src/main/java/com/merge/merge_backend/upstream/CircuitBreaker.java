@@ -0,0 +1,159 @@
+package com.merge.merge_backend.upstream;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Count-based circuit breaker for one upstream.
+ *
+ * While CLOSED the outcomes of the last {@code windowSize} calls are kept in a ring; once at
+ * least {@code minimumCalls} are in and the failure rate reaches {@code failureRateThreshold}
+ * the breaker OPENs and refuses every call for {@code openDuration}. After that it is
+ * HALF_OPEN: {@code halfOpenCalls} trial calls are let through, any failure opens it again and
+ * all of them succeeding closes it with a fresh window.
+ *
+ * Callers ask {@link #tryAcquirePermission()} before a call and report {@link #onSuccess()} or
+ * {@link #onFailure()} afterwards, or {@link #releasePermission()} when the call was abandoned
+ * without an outcome (e.g. the losing side of a hedge); {@link #isCallPermitted()} answers the same question without
+ * taking a half-open slot, for deciding whether to serve cached data instead.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Snapshot(State state, double failureRate, int bufferedCalls, Instant openUntil,
+                           long opened, long notPermitted) {}
+
+    private final Clock clock;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int buffered;
+    private int failures;
+    private Instant openUntil;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+
+    private long opened;
+    private long notPermitted;
+
+    public CircuitBreaker(Clock clock, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls) {
+        this.clock = clock;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /** Whether a call may go out now. In HALF_OPEN this takes one of the trial slots. */
+    public synchronized boolean tryAcquirePermission() {
+        State current = currentState();
+        if (current == State.CLOSED) return true;
+        if (current == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return true;
+        }
+        notPermitted++;
+        return false;
+    }
+
+    /** Whether {@link #tryAcquirePermission()} would currently succeed, without taking anything. */
+    public synchronized boolean isCallPermitted() {
+        return switch (currentState()) {
+            case CLOSED -> true;
+            case HALF_OPEN -> halfOpenPermits > 0;
+            case OPEN -> false;
+        };
+    }
+
+    /**
+     * Gives back a permission whose call ended without telling anything about the upstream
+     * (cancelled or interrupted). In HALF_OPEN the trial slot is returned, so a cancelled trial
+     * cannot leave the breaker waiting for an outcome that never comes.
+     */
+    public synchronized void releasePermission() {
+        // CLOSED で取った許可が half-open 中に返ってきても、試行枠を増やしすぎない
+        if (currentState() == State.HALF_OPEN && halfOpenPermits + halfOpenSucceeded < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        record(true);
+    }
+
+    public synchronized State getState() {
+        return currentState();
+    }
+
+    public synchronized Snapshot snapshot() {
+        State current = currentState();
+        return new Snapshot(current, failureRate(), buffered, current == State.OPEN ? openUntil : null,
+                opened, notPermitted);
+    }
+
+    /** open の期限を過ぎていたら half-open に移す */
+    private State currentState() {
+        if (state == State.OPEN && !clock.instant().isBefore(openUntil)) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSucceeded = 0;
+        }
+        return state;
+    }
+
+    private void record(boolean failed) {
+        switch (currentState()) {
+            case CLOSED -> {
+                if (buffered == window.length) {
+                    if (window[next]) failures--;
+                } else {
+                    buffered++;
+                }
+                window[next] = failed;
+                if (failed) failures++;
+                next = (next + 1) % window.length;
+                if (buffered >= minimumCalls && failureRate() >= failureRateThreshold) open();
+            }
+            case HALF_OPEN -> {
+                if (failed) {
+                    open();
+                } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case OPEN -> {
+                // open 中に返ってきた、開く前の呼び出しの結果は数えない
+            }
+        }
+    }
+
+    private double failureRate() {
+        return buffered > 0 ? (double) failures / buffered : 0;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = clock.instant().plus(openDuration);
+        opened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        buffered = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,306 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.Weights;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Revalidates upstream GET responses instead of downloading them again.
+ *
+ * Every 200 response that carries an {@code ETag} or {@code Last-Modified} header is kept per URI,
+ * body included (deflated, and weighed by its compressed size), in a byte-bounded cache. The next GET of that URI is sent with
+ * {@code If-None-Match} / {@code If-Modified-Since}; when the upstream answers 304 the stored body
+ * is handed to the caller as a normal 200, so services never see the difference.
+ *
+ * The body is not read up front: the caller reads the upstream stream as usual and a copy is taken
+ * on the way and deflated as it goes, so {@link StreamingArrayReader} still decodes list pages as
+ * they arrive. A full Qiita page with rendered bodies or a 500-item Dev.to page stays well under
+ * {@code maxBodyBytes} (raw bytes, 8MB by default), so list pages, details and comments are all
+ * revalidated. Only bodies past that cap stop being copied and are not stored.
+ *
+ * Register it before {@link RateLimitInterceptor} so the budget still sees the real 304 and its
+ * rate-limit headers.
+ */
+public class ConditionalRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConditionalRequestInterceptor.class);
+
+    /** 304 のときに返す、最後の 200 レスポンスの中身。本文は deflate したもの（rawLength は元の長さ） */
+    public record Validated(String etag, String lastModified, HttpHeaders headers, byte[] deflated, int rawLength) {}
+
+    public record Stats(String name, long conditional, long notModified, long tooLarge) {}
+
+    public static final int DEFAULT_MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private final BoundedCache<String, Validated> validated;
+    private final int maxBodyBytes;
+    private final LongAdder conditional = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+
+    public ConditionalRequestInterceptor(BoundedCache<String, Validated> validated) {
+        this(validated, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public ConditionalRequestInterceptor(BoundedCache<String, Validated> validated, int maxBodyBytes) {
+        this.validated = validated;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /** キャッシュ予算用の重さ。圧縮後の本文のバイト数が大半を占める */
+    public static long weigh(String uri, Validated entry) {
+        return Weights.OBJECT * 2 + Weights.of(uri) + Weights.of(entry.etag()) + Weights.of(entry.lastModified())
+                + entry.deflated().length + Weights.OBJECT * entry.headers().size();
+    }
+
+    public Stats stats() {
+        return new Stats(validated.getName(), conditional.sum(), notModified.sum(), tooLarge.sum());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) return execution.execute(request, body);
+
+        String uri = request.getURI().toString();
+        Validated previous = validated.getIfPresent(uri);
+        if (previous != null) {
+            if (previous.etag() != null) request.getHeaders().setIfNoneMatch(previous.etag());
+            if (previous.lastModified() != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+            }
+            conditional.increment();
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+        HttpStatusCode status = response.getStatusCode();
+        if (previous != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+            notModified.increment();
+            log.debug("[Upstream] 304 Not Modified, reusing {} bytes for {}", previous.rawLength(), uri);
+            return new StoredResponse(response, mergeHeaders(previous.headers(), response.getHeaders()), previous.deflated());
+        }
+
+        String etag = response.getHeaders().getETag();
+        String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+        if (status.value() != HttpStatus.OK.value() || (etag == null && lastModified == null)) {
+            return response;
+        }
+        long length = response.getHeaders().getContentLength();
+        if (length > maxBodyBytes) {
+            // 前に保存した小さい本文の検証子は、もう今の本文のものではない
+            if (previous != null) validated.invalidate(uri);
+            tooLarge.increment();
+            return response;
+        }
+        // 呼び出し側が読むのと一緒に写しを取り、最後まで読めたら保存する
+        return new CopyingResponse(response, uri, etag, lastModified, copyOf(response.getHeaders()));
+    }
+
+    /** 304 に付いてきた新しい検証子やキャッシュ指示は、保存済みのヘッダーより優先する */
+    private static HttpHeaders mergeHeaders(HttpHeaders stored, HttpHeaders fresh) {
+        HttpHeaders merged = copyOf(stored);
+        fresh.forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) merged.put(name, values);
+        });
+        return merged;
+    }
+
+    private static HttpHeaders copyOf(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.putAll(headers);
+        return copy;
+    }
+
+    /** 本文を呼び出し側へ流しながら maxBodyBytes まで圧縮した写しを取り、読み終えたら保存するレスポンス */
+    private final class CopyingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse original;
+        private final String uri;
+        private final String etag;
+        private final String lastModified;
+        private final HttpHeaders headers;
+        private CopyingStream body;
+
+        CopyingResponse(ClientHttpResponse original, String uri, String etag, String lastModified, HttpHeaders headers) {
+            this.original = original;
+            this.uri = uri;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return original.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return original.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = new CopyingStream(original.getBody());
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (body != null) body.close();
+            } catch (IOException e) {
+                log.debug("[Upstream] Could not finish reading {} for revalidation: {}", uri, e.getMessage());
+            } finally {
+                original.close();
+            }
+        }
+
+        /**
+         * 読んだバイトをすべて写す。mark / reset や skip で上流のストリームを直接動かされると写しがずれるので、
+         * FilterInputStream ではなく read だけを通す (mark は非対応、skip は read 経由)
+         */
+        private final class CopyingStream extends InputStream {
+            private final InputStream in;
+            // 呼び出し側のスレッドで圧縮するので、速さ優先のレベルにする
+            private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            private final DeflaterOutputStream out = new DeflaterOutputStream(copy, deflater, 8192);
+            private int rawLength;
+            private boolean overflowed;
+            private boolean stored;
+
+            CopyingStream(InputStream in) {
+                this.in = in;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b < 0) store();
+                else if (keep(1)) out.write(b);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = in.read(buf, off, len);
+                if (n < 0) store();
+                else if (keep(n)) out.write(buf, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return in.available();
+            }
+
+            /** 呼び出し側が配列の終わりで読むのをやめても、残り (末尾の改行など) が上限内なら読み切って保存する */
+            @Override
+            public void close() throws IOException {
+                try {
+                    byte[] rest = new byte[8192];
+                    while (!overflowed && !stored && read(rest) >= 0) {
+                        // 写しを取りながら読み捨てる
+                    }
+                } finally {
+                    // 途中で失敗しても Deflater のネイティブメモリは返す
+                    deflater.end();
+                    in.close();
+                }
+            }
+
+            /** 上限を超えたら写しを捨て、以降は流すだけにする */
+            private boolean keep(int n) {
+                if (overflowed) return false;
+                if ((long) rawLength + n <= maxBodyBytes) {
+                    rawLength += n;
+                    return true;
+                }
+                overflowed = true;
+                deflater.end();
+                copy.reset();
+                validated.invalidate(uri);
+                tooLarge.increment();
+                return false;
+            }
+
+            private void store() throws IOException {
+                if (overflowed || stored) return;
+                stored = true;
+                out.finish();
+                deflater.end();
+                validated.put(uri, new Validated(etag, lastModified, headers, copy.toByteArray(), rawLength));
+            }
+        }
+    }
+
+    /** 保存済みの本文を 200 として返すレスポンス。読む分だけ展開する */
+    private static final class StoredResponse implements ClientHttpResponse {
+        private final ClientHttpResponse original;
+        private final HttpHeaders headers;
+        private final byte[] deflated;
+        private InputStream body;
+
+        StoredResponse(ClientHttpResponse original, HttpHeaders headers, byte[] deflated) {
+            this.original = original;
+            this.headers = headers;
+            this.deflated = deflated;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            if (body == null) body = new InflaterInputStream(new ByteArrayInputStream(deflated));
+            return body;
+        }
+
+        @Override
+        public void close() {
+            try {
+                // Inflater のネイティブメモリを返す
+                if (body != null) body.close();
+            } catch (IOException e) {
+                log.debug("[Upstream] Could not close stored body: {}", e.getMessage());
+            } finally {
+                original.close();
+            }
+        }
+    }
+}
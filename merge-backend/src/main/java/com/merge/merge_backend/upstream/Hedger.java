@@ -0,0 +1,203 @@
+package com.merge.merge_backend.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hedged requests for latency-critical single-item fetches (article detail, comments).
+ *
+ * The call runs on a virtual thread. If it has not answered within the {@code percentile}-th
+ * percentile of recent successful calls (never less than {@code minDelay}), an identical second
+ * call is started and whichever succeeds first wins; the other is cancelled by interrupting its
+ * thread, which aborts the JDK client's exchange. Until {@code minSamples} latencies are known no
+ * call is hedged.
+ *
+ * The latency window describes the primary call as seen from the caller, measured from the
+ * start of {@link #call}: the time it took when it wins, or, when a hedge wins and the primary is
+ * cancelled, the time it had been running by then (a lower bound). A winning hedge's own time is
+ * never recorded, since it starts late and would drag the percentile, and with it the hedge delay,
+ * down. A primary that failed records nothing.
+ *
+ * Hedges are capped globally: every call earns {@code maxRate} of a hedge credit (kept up to
+ * {@link #MAX_BURST}), and a hedge spends a whole one, so at most about {@code maxRate} of calls
+ * are ever sent twice. The caller's {@code permit} is asked as well, so a hedge also has to fit
+ * the upstream's rate-limit budget.
+ *
+ * Only idempotent GETs may be hedged.
+ */
+public class Hedger implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Hedger.class);
+
+    /** 一時的に遅い上流でまとめて hedge しすぎないよう、貯められるクレジットの上限 */
+    static final double MAX_BURST = 10;
+
+    public record Snapshot(String name, boolean enabled, long calls, long hedged, long hedgeWins, long capped,
+                           long delayMillis, int samples) {}
+
+    private final String name;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxRate;
+    private final int minSamples;
+    private final long[] recent;
+    private final ExecutorService executor;
+
+    private int nextSample;
+    private int samples;
+    private double credits;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder capped = new LongAdder();
+
+    public Hedger(String name, double percentile, Duration minDelay, double maxRate, int minSamples, int windowSize) {
+        this(name, true, percentile, minDelay, maxRate, minSamples, windowSize);
+    }
+
+    private Hedger(String name, boolean enabled, double percentile, Duration minDelay, double maxRate,
+                   int minSamples, int windowSize) {
+        this.name = name;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRate = maxRate;
+        this.recent = new long[Math.max(1, windowSize)];
+        this.minSamples = Math.max(1, Math.min(minSamples, recent.length));
+        this.executor = enabled
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-hedge-", 0).factory())
+                : null;
+    }
+
+    /** Runs every call directly on the caller's thread. */
+    public static Hedger disabled(String name) {
+        return new Hedger(name, false, 0, Duration.ZERO, 0, 1, 1);
+    }
+
+    /**
+     * Runs {@code call}, hedging it once if it is slow and both the rate cap and {@code permit}
+     * allow. Returns the first successful result; if every attempt fails, rethrows the failure.
+     */
+    public <T> T call(Callable<T> call, BooleanSupplier permit) throws Exception {
+        calls.increment();
+        if (!enabled) return call.call();
+
+        long start = System.nanoTime();
+        long delay = hedgeDelayNanos();
+        earnCredit();
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean primaryWon = new AtomicBoolean();
+        Future<?> primary = submit(call, winner, pending, () -> primaryWon.set(true));
+        Future<?> hedge = null;
+        try {
+            if (delay < 0) return unwrap(winner);
+            try {
+                return winner.get(delay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException slow) {
+                if (spendCredit() && permit.getAsBoolean()) {
+                    pending.incrementAndGet();
+                    hedged.increment();
+                    log.debug("[{}] No answer after {} ms, sending a hedged request", name, delay / 1_000_000);
+                    hedge = submit(call, winner, pending, hedgeWins::increment);
+                } else {
+                    capped.increment();
+                }
+                return unwrap(winner);
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            }
+        } finally {
+            // 主が勝った、または hedge が勝って主をまだ走らせている（止める時点までの経過が下限）ときだけ記録する
+            boolean succeeded = winner.isDone() && !winner.isCompletedExceptionally();
+            if (succeeded && (primaryWon.get() || !primary.isDone())) record(System.nanoTime() - start);
+            // 負けた方は割り込みで止める（JDK クライアントは割り込まれるとやり取りを中断する）
+            primary.cancel(true);
+            if (hedge != null) hedge.cancel(true);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long delay = enabled ? hedgeDelayNanos() : -1;
+        int known;
+        synchronized (this) {
+            known = samples;
+        }
+        return new Snapshot(name, enabled, calls.sum(), hedged.sum(), hedgeWins.sum(), capped.sum(),
+                delay < 0 ? -1 : delay / 1_000_000, known);
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    private <T> Future<?> submit(Callable<T> call, CompletableFuture<T> winner, AtomicInteger pending, Runnable onWin) {
+        return executor.submit(() -> {
+            try {
+                T result = call.call();
+                if (winner.complete(result)) onWin.run();
+            } catch (Throwable t) {
+                // どちらかが成功していれば失敗は無視する。全部失敗したら最後の失敗を返す
+                if (pending.decrementAndGet() == 0) winner.completeExceptionally(t);
+            }
+        });
+    }
+
+    /** 直近の成功の percentile 番目のレイテンシ。サンプルが足りなければ -1（hedge しない） */
+    private synchronized long hedgeDelayNanos() {
+        if (samples < minSamples) return -1;
+        long[] sorted = Arrays.copyOf(recent, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(samples * percentile / 100.0) - 1;
+        return Math.max(minDelayNanos, sorted[Math.clamp(index, 0, samples - 1)]);
+    }
+
+    private synchronized void record(long nanos) {
+        recent[nextSample] = nanos;
+        nextSample = (nextSample + 1) % recent.length;
+        if (samples < recent.length) samples++;
+    }
+
+    private synchronized void earnCredit() {
+        credits = Math.min(MAX_BURST, credits + maxRate);
+    }
+
+    private synchronized boolean spendCredit() {
+        if (credits < 1) return false;
+        credits -= 1;
+        return true;
+    }
+
+    private static <T> T unwrap(CompletableFuture<T> winner) throws Exception {
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static Exception rethrow(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception ex) return ex;
+        if (cause instanceof Error error) throw error;
+        return e;
+    }
+}
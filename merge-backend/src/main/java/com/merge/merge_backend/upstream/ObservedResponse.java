@@ -0,0 +1,124 @@
+package com.merge.merge_backend.upstream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports the end of an exchange once its body is done with, not when the headers arrive.
+ *
+ * Callers read the body after the interceptors have returned, so an interceptor that accounts for
+ * the whole exchange (a bulkhead slot, the breaker, latency) returns this wrapper. The outcome is
+ * {@code completed} when the body is read to the end or the response is closed, and
+ * {@code failed} when reading the body throws (a reset, or the read timeout, which the JDK client
+ * raises as {@link java.net.http.HttpTimeoutException} from {@code read}). It is reported exactly once.
+ */
+final class ObservedResponse implements ClientHttpResponse {
+
+    interface Outcome {
+        void completed();
+
+        void failed(IOException error);
+    }
+
+    private final ClientHttpResponse original;
+    private final Outcome outcome;
+    private final AtomicBoolean reported = new AtomicBoolean();
+    private InputStream body;
+
+    ObservedResponse(ClientHttpResponse original, Outcome outcome) {
+        this.original = original;
+        this.outcome = outcome;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+        return original.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return original.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return original.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            try {
+                body = new ObservedStream(original.getBody());
+            } catch (IOException e) {
+                report(e);
+                throw e;
+            }
+        }
+        return body;
+    }
+
+    /** 本文を最後まで読まずに閉じるのは呼び出し側の都合（配列の終わりで止めた等）なので、成功として扱う */
+    @Override
+    public void close() {
+        try {
+            original.close();
+        } finally {
+            report(null);
+        }
+    }
+
+    private void report(IOException error) {
+        if (!reported.compareAndSet(false, true)) return;
+        if (error == null) outcome.completed();
+        else outcome.failed(error);
+    }
+
+    /** read だけを通し、終端と失敗を見張る (skip は read 経由、mark は非対応) */
+    private final class ObservedStream extends InputStream {
+        private final InputStream in;
+
+        ObservedStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = in.read();
+                if (b < 0) report(null);
+                return b;
+            } catch (IOException e) {
+                report(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            try {
+                int n = in.read(buf, off, len);
+                if (n < 0) report(null);
+                return n;
+            } catch (IOException e) {
+                report(e);
+                throw e;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Fetches the numbered pages of an upstream list API concurrently on virtual threads.
+ *
+ * Page 1 is fetched first as a probe. If it comes back full, pages 2..maxPages are issued in
+ * order, each on its own virtual thread, as soon as a permit from the per-upstream semaphore
+ * is available, so at most {@code maxConcurrency} page requests are in flight per upstream
+ * across all callers. Once any page comes back shorter than {@code pageSize}, no further pages
+ * are issued and pages after it are discarded. Results are concatenated in page order;
+ * de-duplication is left to the caller.
+ *
+ * Fetchers that filter while decoding ({@link StreamingArrayReader}) use {@link #fetchPages} so
+ * that "short page" is judged by the number of items the upstream sent, not the number kept.
+ */
+public class PageFanOut implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PageFanOut.class);
+
+    /**
+     * Items of a fan-out in page order. {@code exhausted} is true when the upstream itself sent a
+     * short page and every page before it was read, i.e. the items are the whole upstream list.
+     * It is false when the fetch stopped at {@code maxPages}, or a page failed or was skipped.
+     */
+    public record Pages<T>(List<T> items, boolean exhausted) {}
+
+    private final String name;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public PageFanOut(String name, int maxConcurrency) {
+        this.name = name;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(name + "-page-", 0).factory());
+    }
+
+    /**
+     * Fetches up to {@code maxPages} pages and returns their items in page order.
+     * The fetcher receives a 1-based page number and must not return null.
+     */
+    public <T> List<T> fetch(int maxPages, int pageSize, IntFunction<List<T>> pageFetcher) {
+        return fetchPages(maxPages, pageSize, page -> {
+            List<T> items = pageFetcher.apply(page);
+            return new Page<>(items, items.size());
+        });
+    }
+
+    /**
+     * Like {@link #fetch}, for fetchers that drop items while reading a page.
+     * Returns the kept items in page order.
+     */
+    public <T> List<T> fetchPages(int maxPages, int pageSize, IntFunction<Page<T>> pageFetcher) {
+        return fetchAll(maxPages, pageSize, pageFetcher).items();
+    }
+
+    /** Like {@link #fetchPages}, also telling whether the upstream list was read to its end. */
+    public <T> Pages<T> fetchAll(int maxPages, int pageSize, IntFunction<Page<T>> pageFetcher) {
+        if (maxPages <= 0 || !acquire()) return new Pages<>(List.of(), false);
+
+        AtomicInteger lastPage = new AtomicInteger(maxPages);
+        // 上流が短いページを返した一番小さいページ番号と、読めなかった一番小さいページ番号
+        AtomicInteger endPage = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger failedPage = new AtomicInteger(Integer.MAX_VALUE);
+        List<T> all = new ArrayList<>(fetchPage(1, pageSize, pageFetcher, lastPage, endPage, failedPage));
+
+        List<Future<List<T>>> futures = new ArrayList<>();
+        for (int page = 2; page <= lastPage.get(); page++) {
+            if (!acquire()) break;
+            if (page > lastPage.get()) {
+                permits.release();
+                break;
+            }
+            final int p = page;
+            futures.add(executor.submit(() -> fetchPage(p, pageSize, pageFetcher, lastPage, endPage, failedPage)));
+        }
+
+        int page = 2;
+        for (Future<List<T>> future : futures) {
+            if (page <= lastPage.get()) {
+                try {
+                    all.addAll(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    lastPage.accumulateAndGet(page - 1, Math::min);
+                    failedPage.accumulateAndGet(page, Math::min);
+                } catch (ExecutionException e) {
+                    log.warn("[{}] Page {} failed: {}", name, page, e.getCause().getMessage());
+                    lastPage.accumulateAndGet(page - 1, Math::min);
+                    failedPage.accumulateAndGet(page, Math::min);
+                }
+            }
+            page++;
+        }
+        log.debug("[{}] Fan-out fetched {} items from {} page(s)", name, all.size(), lastPage.get());
+        return new Pages<>(all, endPage.get() <= maxPages && failedPage.get() > endPage.get());
+    }
+
+    /**
+     * Runs {@code fetch} for every key concurrently (e.g. one paged query per tag) and returns the
+     * results in key order. The tasks themselves hold no permit, so the {@link #fetchPages} calls
+     * they make share the per-upstream limit with everyone else. A failed task yields an empty list.
+     */
+    public <K, T> List<List<T>> fetchEach(List<K> keys, Function<K, List<T>> fetch) {
+        if (keys.size() == 1) return List.of(fetch.apply(keys.getFirst()));
+        List<Future<List<T>>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) futures.add(executor.submit(() -> fetch.apply(key)));
+        List<List<T>> results = new ArrayList<>(keys.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(f -> f.cancel(true));
+                while (results.size() < keys.size()) results.add(List.of());
+                break;
+            } catch (ExecutionException e) {
+                log.warn("[{}] Fetch for {} failed: {}", name, keys.get(i), e.getCause().getMessage());
+                results.add(List.of());
+            }
+        }
+        return results;
+    }
+
+    private boolean acquire() {
+        try {
+            permits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** 取得済みの permit で 1 ページ取得し、短いページなら以降のページを打ち切る。permit は必ず返却する */
+    private <T> List<T> fetchPage(int page, int pageSize, IntFunction<Page<T>> pageFetcher,
+                                  AtomicInteger lastPage, AtomicInteger endPage, AtomicInteger failedPage) {
+        try {
+            if (page > lastPage.get()) return List.of();
+            Page<T> result = pageFetcher.apply(page);
+            if (result.scanned() < pageSize) lastPage.accumulateAndGet(page, Math::min);
+            if (result.failed()) failedPage.accumulateAndGet(page, Math::min);
+            else if (result.scanned() < pageSize) endPage.accumulateAndGet(page, Math::min);
+            return result.items();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
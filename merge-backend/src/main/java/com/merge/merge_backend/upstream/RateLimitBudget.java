@@ -0,0 +1,155 @@
+package com.merge.merge_backend.upstream;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Tracks how many requests one upstream still accepts in its current rate-limit window.
+ *
+ * The numbers come from the upstream's own response headers ({@code Rate-Limit},
+ * {@code Rate-Remaining} and {@code Rate-Reset} on Qiita, the {@code X-RateLimit-*} family
+ * elsewhere) via {@link RateLimitInterceptor}; a 429 response empties the budget until
+ * {@code Retry-After}. Between responses every granted request is deducted locally, so
+ * concurrent page fetches do not all see the same stale figure. Services take one request per
+ * call; each retry {@link UpstreamGuard} sends for that call takes another.
+ *
+ * The last {@code interactiveReserveRatio} of the window is kept for interactive requests:
+ * background refreshes are refused once the budget drops into it. Below
+ * {@code lowBudgetRatio} multi-page fetches are reduced to a single page. Until the upstream
+ * has reported anything, every request is allowed.
+ */
+public class RateLimitBudget {
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    public record Snapshot(String name, int limit, int remaining, Instant resetAt, int interactiveReserve,
+                           boolean low, long interactiveGranted, long backgroundGranted,
+                           long interactiveDenied, long backgroundDenied, long throttled) {}
+
+    /** Retry-After が無い 429 のときに待つ秒数 */
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 60;
+    /** これより大きい reset 値は epoch 秒、それ以下は残り秒数とみなす */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private final String name;
+    private final Clock clock;
+    private final double interactiveReserveRatio;
+    private final double lowBudgetRatio;
+
+    // -1 = 上流からまだ知らされていない
+    private int limit = -1;
+    private int remaining = -1;
+    private Instant resetAt;
+
+    private long interactiveGranted;
+    private long backgroundGranted;
+    private long interactiveDenied;
+    private long backgroundDenied;
+    private long throttled;
+
+    public RateLimitBudget(String name, Clock clock, double interactiveReserveRatio, double lowBudgetRatio) {
+        this.name = name;
+        this.clock = clock;
+        this.interactiveReserveRatio = interactiveReserveRatio;
+        this.lowBudgetRatio = lowBudgetRatio;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Takes one request from the budget if {@code priority} may still spend it. */
+    public synchronized boolean tryAcquire(Priority priority) {
+        rollWindow();
+        if (available(priority) <= 0) {
+            if (priority == Priority.BACKGROUND) backgroundDenied++; else interactiveDenied++;
+            return false;
+        }
+        if (remaining > 0) remaining--;
+        if (priority == Priority.BACKGROUND) backgroundGranted++; else interactiveGranted++;
+        return true;
+    }
+
+    /** Whether a request of {@code priority} would currently be allowed, without spending anything. */
+    public synchronized boolean hasBudget(Priority priority) {
+        rollWindow();
+        return available(priority) > 0;
+    }
+
+    /**
+     * How many of {@code requested} pages a fan-out should plan for: never more than the budget
+     * left for {@code priority}, and a single page once the budget is low.
+     */
+    public synchronized int allowedPages(Priority priority, int requested) {
+        rollWindow();
+        int pages = (int) Math.min(requested, Math.max(0, available(priority)));
+        return pages > 0 && isLow() ? 1 : pages;
+    }
+
+    /** Records the rate-limit headers of an upstream response. */
+    public synchronized void update(int status, HttpHeaders headers) {
+        Instant now = clock.instant();
+        Integer reportedLimit = intHeader(headers, "Rate-Limit", "X-RateLimit-Limit");
+        Integer reportedRemaining = intHeader(headers, "Rate-Remaining", "X-RateLimit-Remaining");
+        Long reset = longHeader(headers, "Rate-Reset", "X-RateLimit-Reset");
+        if (reportedLimit != null) limit = reportedLimit;
+        if (reportedRemaining != null) remaining = reportedRemaining;
+        if (reset != null) {
+            resetAt = reset > EPOCH_SECONDS_THRESHOLD ? Instant.ofEpochSecond(reset) : now.plusSeconds(reset);
+        }
+        if (status == 429) {
+            throttled++;
+            remaining = 0;
+            Long retryAfter = longHeader(headers, HttpHeaders.RETRY_AFTER);
+            resetAt = now.plusSeconds(retryAfter != null ? retryAfter : DEFAULT_RETRY_AFTER_SECONDS);
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        rollWindow();
+        return new Snapshot(name, limit, remaining, resetAt, interactiveReserve(), isLow(),
+                interactiveGranted, backgroundGranted, interactiveDenied, backgroundDenied, throttled);
+    }
+
+    /** reset 時刻を過ぎたら次の枠に入ったものとして残数を戻す */
+    private void rollWindow() {
+        if (resetAt != null && !clock.instant().isBefore(resetAt)) {
+            remaining = limit;
+            resetAt = null;
+        }
+    }
+
+    private long available(Priority priority) {
+        if (remaining < 0) return Long.MAX_VALUE;
+        return priority == Priority.BACKGROUND ? remaining - interactiveReserve() : remaining;
+    }
+
+    private int interactiveReserve() {
+        return limit > 0 ? (int) Math.ceil(limit * interactiveReserveRatio) : 0;
+    }
+
+    private boolean isLow() {
+        if (remaining < 0) return false;
+        return limit > 0 ? remaining < limit * lowBudgetRatio : remaining == 0;
+    }
+
+    private static Integer intHeader(HttpHeaders headers, String... names) {
+        Long value = longHeader(headers, names);
+        return value != null ? (int) Math.min(Integer.MAX_VALUE, Math.max(0, value)) : null;
+    }
+
+    private static Long longHeader(HttpHeaders headers, String... names) {
+        for (String headerName : names) {
+            String value = headers.getFirst(headerName);
+            if (value == null) continue;
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException ignored) {
+                // Retry-After の HTTP-date 形式などは読まない
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.merge.merge_backend.upstream;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/** Feeds the rate-limit headers of every upstream response into the upstream's {@link RateLimitBudget}. */
+public class RateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RateLimitBudget budget;
+
+    public RateLimitInterceptor(RateLimitBudget budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+        budget.update(response.getStatusCode().value(), response.getHeaders());
+        return response;
+    }
+}
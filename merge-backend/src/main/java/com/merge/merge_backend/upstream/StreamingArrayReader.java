@@ -0,0 +1,100 @@
+package com.merge.merge_backend.upstream;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Decodes a JSON array response one element at a time, straight from the response stream.
+ *
+ * Each element is bound to {@code T} and immediately tested against the caller's filter; only
+ * the elements that pass are kept, so a 500-item page whose items are mostly below the
+ * reaction threshold never exists as a whole array in memory. Properties {@code T} does not
+ * declare are skipped by the parser without building their values (e.g. Qiita's markdown
+ * {@code body}).
+ *
+ * The number of elements read is reported alongside the kept ones so {@link PageFanOut} can
+ * still tell a full page from the last one.
+ */
+public class StreamingArrayReader<T> {
+
+    /**
+     * 1 ページ分の結果。scanned はフィルタ前の件数。
+     * failed は上流エラー・予算切れなどで読めなかったページ（空でも「上流の最後のページ」ではない）
+     */
+    public record Page<T>(List<T> items, int scanned, boolean failed) {
+
+        public Page(List<T> items, int scanned) {
+            this(items, scanned, false);
+        }
+
+        public static <T> Page<T> empty() {
+            return new Page<>(List.of(), 0);
+        }
+
+        public static <T> Page<T> failure() {
+            return new Page<>(List.of(), 0, true);
+        }
+    }
+
+    // RestClient の既定コンバーターと同じ既定設定の mapper
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private final ObjectReader reader;
+
+    public StreamingArrayReader(Class<T> type) {
+        // 配列の途中で 1 要素ずつ読むので、要素の後ろに続くトークンは正常
+        this.reader = MAPPER.readerFor(type).without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    }
+
+    /**
+     * Sends {@code request} and decodes the response body as it arrives.
+     * Error statuses are raised as {@link RestClientResponseException}, like {@code retrieve()}.
+     */
+    public Page<T> exchange(RestClient.RequestHeadersSpec<?> request, Predicate<? super T> keep) {
+        return request.exchange((req, response) -> read(response, keep));
+    }
+
+    private Page<T> read(ClientHttpResponse response, Predicate<? super T> keep) throws IOException {
+        if (response.getStatusCode().isError()) {
+            throw new RestClientResponseException("HTTP " + response.getStatusCode().value(),
+                    response.getStatusCode(), response.getStatusText(), response.getHeaders(),
+                    response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return read(response.getBody(), keep);
+    }
+
+    /** 配列を 1 要素ずつ読み、keep を通ったものだけ残す。null 要素は数えるが捨てる。本文が空なら空のページ */
+    public Page<T> read(InputStream body, Predicate<? super T> keep) {
+        List<T> kept = new ArrayList<>();
+        int scanned = 0;
+        try (JsonParser parser = reader.createParser(body)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) return Page.empty();
+            if (first != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("Expected a JSON array but got " + first);
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) throw new IllegalStateException("Truncated JSON array after " + scanned + " items");
+                scanned++;
+                if (token == JsonToken.VALUE_NULL) continue;
+                T element = reader.readValue(parser);
+                if (keep.test(element)) kept.add(element);
+            }
+        }
+        return new Page<>(kept, scanned);
+    }
+}
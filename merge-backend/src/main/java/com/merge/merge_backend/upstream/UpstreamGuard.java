@@ -0,0 +1,332 @@
+package com.merge.merge_backend.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Isolates the callers of one upstream from that upstream's failures.
+ *
+ * <ul>
+ *   <li>Bulkhead: at most {@code maxConcurrent} calls at a time. A call that cannot get a slot
+ *       within {@code maxWait} fails with {@link UpstreamUnavailableException}, so a slow
+ *       upstream cannot take every request thread with it.</li>
+ *   <li>Circuit breaker: 5xx responses and I/O errors (including timeouts) feed a
+ *       {@link CircuitBreaker}; while it is open calls fail immediately and services serve
+ *       cached or empty results instead ({@link #isAvailable()}).</li>
+ *   <li>Retries: GETs answered with 429 or 5xx, or failing with an I/O error, are sent again
+ *       after a full-jitter exponential backoff, or after {@code Retry-After} when the upstream
+ *       sends one short enough to wait for. No retry starts after the total timeout. When the
+ *       guard has a {@link RateLimitBudget}, every retry takes one request from it like any other
+ *       request, at background priority (a retry never spends the interactive reserve); when the
+ *       budget refuses, the call fails with {@link UpstreamUnavailableException} instead of
+ *       retrying. The budget is consulted after the backoff, so a 429's {@code Retry-After} has
+ *       had time to reopen the window.</li>
+ * </ul>
+ *
+ * A call whose thread was interrupted (a cancelled hedge, see {@link Hedger}) is neither
+ * retried nor counted as a failure.
+ *
+ * Callers read the body after {@link #intercept} has returned, so the response handed back is an
+ * {@link ObservedResponse}: the bulkhead slot stays taken and the breaker outcome stays open until
+ * the body has been read or closed. A slow body holds its slot, and a failure while reading it
+ * (including the read timeout) counts against the breaker like a failed request.
+ *
+ * Register it first, so every attempt passes through the conditional-request, rate-limit and
+ * metrics interceptors on its own.
+ */
+public class UpstreamGuard implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    /** maxAttempts は初回を含む回数 */
+    public record Retry(int maxAttempts, Duration backoff, Duration maxBackoff, Duration maxRetryAfter,
+                        Duration totalTimeout) {
+
+        public static final Retry NONE = new Retry(1, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    public record Snapshot(String name, CircuitBreaker.Snapshot breaker, int active, int peakActive,
+                           int maxConcurrent, long rejected, long shortCircuited, long retries, long gaveUp) {}
+
+    /** 上流を 1 回呼ぶ処理。RestClient を通さないクライアント用 */
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final String name;
+    private final Clock clock;
+    private final CircuitBreaker breaker;
+    private final int maxConcurrent;
+    private final Semaphore slots;
+    private final Duration maxWait;
+    private final Retry retry;
+    private final Sleeper sleeper;
+    /** null なら再試行を予算に数えない（翻訳など予算を持たない上流） */
+    private final RateLimitBudget retryBudget;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+
+    public UpstreamGuard(String name, Clock clock, CircuitBreaker breaker, int maxConcurrent, Duration maxWait,
+                         Retry retry) {
+        this(name, clock, breaker, maxConcurrent, maxWait, retry, (RateLimitBudget) null);
+    }
+
+    public UpstreamGuard(String name, Clock clock, CircuitBreaker breaker, int maxConcurrent, Duration maxWait,
+                         Retry retry, RateLimitBudget retryBudget) {
+        this(name, clock, breaker, maxConcurrent, maxWait, retry, retryBudget, Thread::sleep);
+    }
+
+    UpstreamGuard(String name, Clock clock, CircuitBreaker breaker, int maxConcurrent, Duration maxWait,
+                  Retry retry, Sleeper sleeper) {
+        this(name, clock, breaker, maxConcurrent, maxWait, retry, null, sleeper);
+    }
+
+    UpstreamGuard(String name, Clock clock, CircuitBreaker breaker, int maxConcurrent, Duration maxWait,
+                  Retry retry, RateLimitBudget retryBudget, Sleeper sleeper) {
+        this.name = name;
+        this.clock = clock;
+        this.breaker = breaker;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.slots = new Semaphore(this.maxConcurrent);
+        this.maxWait = maxWait;
+        this.retry = retry;
+        this.sleeper = sleeper;
+        this.retryBudget = retryBudget;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Whether the breaker lets calls through right now. Services serve cached data when it does not. */
+    public boolean isAvailable() {
+        return breaker.isCallPermitted();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, breaker.snapshot(), active.get(), peakActive.get(), maxConcurrent,
+                rejected.sum(), shortCircuited.sum(), retries.sum(), gaveUp.sum());
+    }
+
+    /**
+     * Runs one call under the bulkhead and the breaker, without retries.
+     * {@code statusOf} tells which responses count as failures (5xx).
+     */
+    public <T> T call(Call<T> call, ToIntFunction<T> statusOf) throws IOException, InterruptedException {
+        enter();
+        try {
+            permit();
+            T result;
+            try {
+                result = call.run();
+            } catch (InterruptedException e) {
+                breaker.releasePermission();
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) breaker.releasePermission();
+                else breaker.onFailure();
+                throw e;
+            }
+            record(statusOf.applyAsInt(result));
+            return result;
+        } finally {
+            exit();
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        enter();
+        // 返したレスポンスの本文を読み終えるまで、枠と結果の記録はそちらに任せる
+        boolean handedOff = false;
+        try {
+            boolean idempotent = request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD;
+            long deadline = System.nanoTime() + retry.totalTimeout().toNanos();
+            for (int attempt = 1; ; attempt++) {
+                if (attempt > 1) chargeRetry(request);
+                permit();
+                ClientHttpResponse response;
+                try {
+                    response = execution.execute(request, body);
+                } catch (IOException | RuntimeException e) {
+                    // hedge で負けて割り込まれた呼び出しは上流の障害ではない。half-open の試行枠は返す
+                    if (Thread.currentThread().isInterrupted()) {
+                        breaker.releasePermission();
+                        throw e;
+                    }
+                    breaker.onFailure();
+                    Long delay = idempotent ? retryDelay(attempt, null, deadline) : null;
+                    if (delay == null) {
+                        gaveUp.increment();
+                        throw e;
+                    }
+                    log.debug("[{}] {} on attempt {} for {}, retrying in {} ms",
+                            name, e.getClass().getSimpleName(), attempt, request.getURI(), delay);
+                    pause(delay);
+                    continue;
+                }
+
+                int status = response.getStatusCode().value();
+                if (status != 429 && status < 500) {
+                    handedOff = true;
+                    return observe(response, status);
+                }
+                Long delay = idempotent ? retryDelay(attempt, response.getHeaders(), deadline) : null;
+                if (delay == null) {
+                    gaveUp.increment();
+                    handedOff = true;
+                    return observe(response, status);
+                }
+                record(status);
+                log.debug("[{}] HTTP {} on attempt {} for {}, retrying in {} ms",
+                        name, status, attempt, request.getURI(), delay);
+                response.close();
+                pause(delay);
+            }
+        } finally {
+            if (!handedOff) exit();
+        }
+    }
+
+    /** 本文を読み終えた (閉じた) ときに結果を記録して枠を返す。本文の途中で失敗すれば上流の失敗として数える */
+    private ClientHttpResponse observe(ClientHttpResponse response, int status) {
+        return new ObservedResponse(response, new ObservedResponse.Outcome() {
+            @Override
+            public void completed() {
+                try {
+                    record(status);
+                } finally {
+                    exit();
+                }
+            }
+
+            @Override
+            public void failed(IOException error) {
+                try {
+                    if (Thread.currentThread().isInterrupted()) breaker.releasePermission();
+                    else breaker.onFailure();
+                    log.debug("[{}] Reading the body failed: {}", name, error.toString());
+                } finally {
+                    exit();
+                }
+            }
+        });
+    }
+
+    private void enter() throws IOException {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + name + " bulkhead");
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new UpstreamUnavailableException(name + " bulkhead is full (" + maxConcurrent + " in flight)");
+        }
+        peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+    }
+
+    private void exit() {
+        active.decrementAndGet();
+        slots.release();
+    }
+
+    private void permit() throws UpstreamUnavailableException {
+        if (!breaker.tryAcquirePermission()) {
+            shortCircuited.increment();
+            throw new UpstreamUnavailableException(name + " circuit breaker is open");
+        }
+    }
+
+    /** 再試行も上流には 1 リクエストなので予算から引く。断られたら諦める */
+    private void chargeRetry(HttpRequest request) throws UpstreamUnavailableException {
+        if (retryBudget == null || retryBudget.tryAcquire(RateLimitBudget.Priority.BACKGROUND)) return;
+        gaveUp.increment();
+        log.debug("[{}] Rate limit budget exhausted, not retrying {}", name, request.getURI());
+        throw new UpstreamUnavailableException(name + " rate limit budget exhausted, not retrying");
+    }
+
+    /** 429 はレート制限なので、上流の障害としては数えない */
+    private void record(int status) {
+        if (status >= 500) breaker.onFailure(); else breaker.onSuccess();
+    }
+
+    /**
+     * 次の試行までの待ち時間 (ms)。回数切れ・締め切り超過・長すぎる Retry-After なら null（再試行しない）
+     */
+    private Long retryDelay(int attempt, HttpHeaders headers, long deadline) {
+        if (attempt >= retry.maxAttempts()) return null;
+        long backoffMillis = retry.backoff().toMillis();
+        long delay;
+        Long retryAfter = headers != null ? retryAfterMillis(headers.getFirst(HttpHeaders.RETRY_AFTER)) : null;
+        if (retryAfter != null) {
+            if (retryAfter > retry.maxRetryAfter().toMillis()) return null;
+            // 同時に待っていた呼び出しが一斉に戻らないよう少しずらす
+            delay = retryAfter + ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+        } else {
+            long cap = Math.min(retry.maxBackoff().toMillis(), backoffMillis << Math.min(attempt - 1, 20));
+            delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        }
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) >= deadline) return null;
+        return delay;
+    }
+
+    /** Retry-After は秒数か HTTP-date。読めなければ null */
+    private Long retryAfterMillis(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException ignored) {
+            // HTTP-date 形式
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(clock.instant(), at.toInstant()).toMillis());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void pause(long millis) throws InterruptedIOException {
+        retries.increment();
+        try {
+            sleeper.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted between retries to " + name);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.merge.merge_backend.upstream;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and a latency histogram for one upstream HTTP client.
+ *
+ * Latency is measured from sending the request until the body has been read or closed (or the
+ * exchange fails), so a slow body transfer shows up too; it includes the time the caller spends
+ * decoding as it reads. Percentiles are read from fixed buckets and reported as the
+ * bucket's upper bound, which is precise enough for dashboards and timeout tuning.
+ *
+ * The JDK client keeps its connection pool internal; in-flight and peak in-flight requests are
+ * the closest view of how many connections / HTTP/2 streams are in use.
+ */
+public class UpstreamMetrics {
+
+    public record Snapshot(String name, long requests, long inFlight, long peakInFlight,
+                           long successes, long clientErrors, long serverErrors, long failures, long timeouts,
+                           double meanMillis, long p50Millis, long p95Millis, long p99Millis, long maxMillis) {}
+
+    /** バケットの上限 (ms)。最後のバケットはそれより遅いもの全部 */
+    private static final long[] BUCKET_BOUNDS_MILLIS =
+            { 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, Long.MAX_VALUE };
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private volatile long maxNanos;
+
+    public UpstreamMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Marks a request as sent. Returns the start time to pass to {@link #completed} / {@link #failed}. */
+    public long started() {
+        requests.increment();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return System.nanoTime();
+    }
+
+    /** The upstream answered with {@code status}. */
+    public void completed(long startNanos, int status) {
+        if (status >= 500) serverErrors.increment();
+        else if (status >= 400) clientErrors.increment();
+        else successes.increment();
+        finish(startNanos);
+    }
+
+    /** The exchange failed without a complete response (connect error, timeout, reset, also while reading the body). */
+    public void failed(long startNanos, Throwable error) {
+        failures.increment();
+        if (isTimeout(error)) timeouts.increment();
+        finish(startNanos);
+    }
+
+    /** Latency at {@code percentile} (0-100) in milliseconds, as the upper bound of its bucket. 0 if nothing was recorded. */
+    public long percentileMillis(double percentile) {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) count += buckets.get(i);
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return i < buckets.length() - 1 ? BUCKET_BOUNDS_MILLIS[i] : maxNanos / 1_000_000;
+            }
+        }
+        return maxNanos / 1_000_000;
+    }
+
+    public Snapshot snapshot() {
+        long completed = successes.sum() + clientErrors.sum() + serverErrors.sum() + failures.sum();
+        double mean = completed > 0 ? totalNanos.sum() / 1_000_000.0 / completed : 0;
+        return new Snapshot(name, requests.sum(), inFlight.get(), peakInFlight.get(),
+                successes.sum(), clientErrors.sum(), serverErrors.sum(), failures.sum(), timeouts.sum(),
+                mean, percentileMillis(50), percentileMillis(95), percentileMillis(99), maxNanos / 1_000_000);
+    }
+
+    private void finish(long startNanos) {
+        inFlight.decrementAndGet();
+        long elapsed = Math.max(0, System.nanoTime() - startNanos);
+        totalNanos.add(elapsed);
+        synchronized (this) {
+            if (elapsed > maxNanos) maxNanos = elapsed;
+        }
+        long millis = elapsed / 1_000_000;
+        int bucket = 0;
+        while (millis > BUCKET_BOUNDS_MILLIS[bucket]) bucket++;
+        buckets.incrementAndGet(bucket);
+    }
+
+    /** HttpTimeoutException が原因のどこかにあればタイムアウトとして数える */
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof SocketTimeoutException) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.merge.merge_backend.upstream;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records every upstream exchange in the upstream's {@link UpstreamMetrics}. Register it last, closest to the wire.
+ * The exchange ends when its body has been read or closed, so a body that fails or times out is a failure.
+ */
+public class UpstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamMetrics metrics;
+
+    public UpstreamMetricsInterceptor(UpstreamMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = metrics.started();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            metrics.failed(start, e);
+            throw e;
+        }
+        int status = response.getStatusCode().value();
+        return new ObservedResponse(response, new ObservedResponse.Outcome() {
+            @Override
+            public void completed() {
+                metrics.completed(start, status);
+            }
+
+            @Override
+            public void failed(IOException error) {
+                metrics.failed(start, error);
+            }
+        });
+    }
+}
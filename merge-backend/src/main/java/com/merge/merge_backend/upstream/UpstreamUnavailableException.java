@@ -0,0 +1,14 @@
+package com.merge.merge_backend.upstream;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling an upstream whose circuit breaker is open or whose bulkhead is full.
+ * It is an {@link IOException} so RestClient callers see it like any other connection failure.
+ */
+public class UpstreamUnavailableException extends IOException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,108 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BodyStore.
+ * Bodies are repetitive HTML, so they compress far below their raw size.
+ */
+class BodyStoreTest {
+
+    private final BodyStore store = new BodyStore(4096, 6);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void get_returnsStoredBodyDecompressed() {
+        String body = "<p>日本語の本文です。</p>".repeat(100);
+
+        assertThat(store.put("qiita/a", body)).isTrue();
+
+        assertThat(store.get("qiita/a")).isEqualTo(body);
+        BodyStore.Stats stats = store.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.storedBytes()).isLessThan(stats.rawBytes() / 4);
+    }
+
+    @Test
+    void get_unknownKey_recordsMiss() {
+        assertThat(store.get("qiita/none")).isNull();
+        assertThat(store.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void put_sameKey_replacesPreviousBody() {
+        store.put("dev/1", "<p>old</p>");
+        store.put("dev/1", "<p>new</p>");
+
+        assertThat(store.get("dev/1")).isEqualTo("<p>new</p>");
+        assertThat(store.stats().size()).isEqualTo(1);
+        assertThat(store.stats().rawBytes()).isEqualTo("<p>new</p>".length());
+    }
+
+    @Test
+    void put_beyondBudget_evictsLeastRecentlyReadBodies() {
+        BodyStore small = new BodyStore(120, 6);
+        small.put("a", "<p>first body</p>");
+        small.put("b", "<p>second body</p>");
+        small.get("a");
+        for (int i = 0; i < 5; i++) small.put("c" + i, "<p>filler body number " + i + "</p>");
+
+        BodyStore.Stats stats = small.stats();
+        assertThat(stats.storedBytes()).isLessThanOrEqualTo(120);
+        assertThat(stats.evictions()).isPositive();
+        assertThat(small.contains("b")).isFalse();
+        small.close();
+    }
+
+    @Test
+    void putIfRoom_whenFull_keepsExistingBodiesAndRejects() {
+        BodyStore small = new BodyStore(120, 6);
+        small.put("a", "<p>first body</p>");
+        small.put("b", "<p>second body</p>");
+        int admitted = 0;
+        for (int i = 0; i < 5; i++) {
+            if (small.putIfRoom("c" + i, "<p>filler body number " + i + "</p>")) admitted++;
+        }
+
+        assertThat(admitted).isLessThan(5);
+        assertThat(small.contains("a")).isTrue();
+        assertThat(small.contains("b")).isTrue();
+        assertThat(small.stats().evictions()).isZero();
+        assertThat(small.stats().storedBytes()).isLessThanOrEqualTo(120);
+        small.close();
+    }
+
+    @Test
+    void put_incompressibleBodyLargerThanBudget_isRejected() {
+        StringBuilder noise = new StringBuilder();
+        Random random = new Random(1);
+        for (int i = 0; i < 8192; i++) noise.append((char) ('!' + random.nextInt(90)));
+
+        assertThat(store.put("qiita/big", noise.toString())).isFalse();
+
+        assertThat(store.contains("qiita/big")).isFalse();
+        assertThat(store.stats().rejections()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_andClose_releaseBodies() {
+        store.put("qiita/a", "<p>a</p>");
+        store.put("qiita/b", "<p>b</p>");
+
+        store.invalidate("qiita/a");
+        assertThat(store.get("qiita/a")).isNull();
+
+        store.close();
+        assertThat(store.get("qiita/b")).isNull();
+        assertThat(store.stats().storedBytes()).isZero();
+    }
+}
@@ -0,0 +1,74 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BoundedCache.
+ * Values are strings weighed by their length, so a budget of 100 holds ten 10-char values.
+ */
+class BoundedCacheTest {
+
+    private final BoundedCache<String, String> cache =
+            new BoundedCache<>("test", 100, (key, value) -> value.length());
+
+    @Test
+    void getIfPresent_recordsHitsAndMisses() {
+        cache.put("a", "1234567890");
+
+        assertThat(cache.getIfPresent("a")).isEqualTo("1234567890");
+        assertThat(cache.getIfPresent("b")).isNull();
+
+        BoundedCache.Stats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void put_beyondBudget_evictsUntilWeightFits() {
+        for (int i = 0; i < 30; i++) cache.put("k" + i, "1234567890");
+
+        BoundedCache.Stats stats = cache.stats();
+        assertThat(stats.weightedSize()).isLessThanOrEqualTo(100);
+        assertThat(stats.evictions()).isEqualTo(30 - stats.size());
+    }
+
+    @Test
+    void put_scanOfOneOffKeys_keepsFrequentlyReadEntry() {
+        cache.put("hot", "1234567890");
+        for (int i = 0; i < 5; i++) cache.getIfPresent("hot");
+
+        for (int i = 0; i < 50; i++) cache.put("scan" + i, "1234567890");
+
+        assertThat(cache.peek("hot")).isEqualTo("1234567890");
+    }
+
+    @Test
+    void put_valueLargerThanBudget_isRejected() {
+        cache.put("big", "x".repeat(101));
+
+        assertThat(cache.peek("big")).isNull();
+        assertThat(cache.stats().rejections()).isEqualTo(1);
+    }
+
+    @Test
+    void put_replacingValue_updatesWeight() {
+        cache.put("a", "1234567890");
+        cache.put("a", "12345");
+
+        assertThat(cache.stats().weightedSize()).isEqualTo(5);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shed_trimsToTargetRatioOfBudget() {
+        for (int i = 0; i < 9; i++) cache.put("k" + i, "1234567890");
+
+        int evicted = cache.shed(0.5);
+
+        assertThat(cache.stats().weightedSize()).isLessThanOrEqualTo(50);
+        assertThat(evicted).isEqualTo(9 - cache.stats().size());
+    }
+}
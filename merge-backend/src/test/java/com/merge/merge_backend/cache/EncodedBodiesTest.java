@@ -0,0 +1,52 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EncodedBodies and EncodedBody.
+ */
+class EncodedBodiesTest {
+
+    private final EncodedBodies<String> bodies = new EncodedBodies<>();
+
+    @Test
+    void encode_sameValueInstance_reusesBody() {
+        List<String> list = List.of("a", "b");
+
+        EncodedBody first = bodies.encode("week", list);
+
+        assertThat(new String(first.json(), StandardCharsets.UTF_8)).isEqualTo("[\"a\",\"b\"]");
+        assertThat(bodies.encode("week", list)).isSameAs(first);
+    }
+
+    @Test
+    void encode_newValueInstance_reencodesWithStrongEtagOfContent() {
+        EncodedBody first = bodies.encode("week", List.of("a", "b"));
+        EncodedBody sameContent = bodies.encode("week", new ArrayList<>(List.of("a", "b")));
+        EncodedBody changed = bodies.encode("week", List.of("a", "c"));
+
+        assertThat(sameContent).isNotSameAs(first);
+        assertThat(sameContent.etag()).isEqualTo(first.etag()).startsWith("\"").endsWith("\"");
+        assertThat(changed.etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void of_gzipVariant_decompressesToJson() throws IOException {
+        byte[] json = "[{\"title\":\"ホット記事\"}]".getBytes(StandardCharsets.UTF_8);
+
+        EncodedBody body = EncodedBody.of(json);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(json);
+        }
+    }
+}
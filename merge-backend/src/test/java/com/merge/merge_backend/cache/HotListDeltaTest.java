@@ -0,0 +1,49 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for HotListDelta.
+ * Items are "id:count" strings, ordered by count descending.
+ */
+class HotListDeltaTest {
+
+    private static final Comparator<String> BY_COUNT_DESC =
+            Comparator.comparingInt(HotListDeltaTest::count).reversed();
+
+    @Test
+    void merge_replacesAddsEvictsAndResorts() {
+        List<String> current = List.of("a:30", "b:20", "c:10");
+        List<String> updates = List.of("c:50", "d:15", "b:2");
+
+        HotListDelta.Result<String> result = HotListDelta.merge(current, updates, HotListDeltaTest::id,
+                item -> count(item) >= 5, BY_COUNT_DESC);
+
+        assertThat(result.items()).containsExactly("c:50", "a:30", "d:15");
+        assertThat(result.updated()).isEqualTo(2);
+        assertThat(result.added()).isEqualTo(1);
+        assertThat(result.evicted()).isEqualTo(1);
+    }
+
+    @Test
+    void merge_withoutUpdates_stillAppliesKeep() {
+        HotListDelta.Result<String> result = HotListDelta.merge(List.of("a:30", "b:1"), List.of(),
+                HotListDeltaTest::id, item -> count(item) >= 5, BY_COUNT_DESC);
+
+        assertThat(result.items()).containsExactly("a:30");
+        assertThat(result.evicted()).isEqualTo(1);
+    }
+
+    private static String id(String item) {
+        return item.substring(0, item.indexOf(':'));
+    }
+
+    private static int count(String item) {
+        return Integer.parseInt(item.substring(item.indexOf(':') + 1));
+    }
+}
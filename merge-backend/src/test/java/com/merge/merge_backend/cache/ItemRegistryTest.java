@@ -0,0 +1,105 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ItemRegistry.
+ * Items are plain strings or lists; new String(...) makes equal but distinct instances.
+ */
+class ItemRegistryTest {
+
+    private static final Instant T0 = Instant.parse("2026-03-02T00:00:00Z");
+
+    private final ItemRegistry registry = new ItemRegistry();
+
+    @Test
+    void intern_sameVersion_returnsRegisteredInstance() {
+        String first = new String("article");
+        String second = new String("article");
+
+        registry.intern("qiita", "1", "v1", first, T0);
+        String interned = registry.intern("qiita", "1", "v1", second, T0.plusSeconds(60));
+
+        assertThat(interned).isSameAs(first);
+        assertThat(registry.lookup("qiita", "1", String.class).fetchedAt()).isEqualTo(T0.plusSeconds(60));
+        assertThat(registry.stats().shared()).isEqualTo(1);
+    }
+
+    @Test
+    void intern_changedVersion_replacesRegisteredInstance() {
+        registry.intern("qiita", "1", "v1", "old", T0);
+        String interned = registry.intern("qiita", "1", "v2", "new", T0);
+
+        assertThat(interned).isEqualTo("new");
+        assertThat(registry.lookup("qiita", "1", String.class).item()).isEqualTo("new");
+        assertThat(registry.stats().replaced()).isEqualTo(1);
+    }
+
+    @Test
+    void intern_comparesVersionCapturedAtRegistration() {
+        List<String> registered = new ArrayList<>(List.of("a"));
+        registry.intern("qiita", "1", "v1", registered, T0);
+        // 登録後に書き換えられても、比べるのは登録時の版
+        registered.add("b");
+
+        List<String> same = registry.intern("qiita", "1", "v1", new ArrayList<>(List.of("a")), T0);
+        List<String> equalButNewer = registry.intern("qiita", "1", "v2", List.of("a", "b"), T0);
+
+        assertThat(same).isSameAs(registered);
+        assertThat(equalButNewer).isNotSameAs(registered);
+    }
+
+    @Test
+    void intern_withoutVersion_neverShares() {
+        String first = new String("article");
+        registry.intern("qiita", "1", null, first, T0);
+
+        assertThat(registry.intern("qiita", "1", null, new String("article"), T0)).isNotSameAs(first);
+    }
+
+    @Test
+    void intern_sameIdInDifferentSources_keepsBoth() {
+        registry.intern("qiita", "1", "v1", "q", T0);
+        registry.intern("dev", "1", "v1", "d", T0);
+
+        assertThat(registry.lookup("qiita", "1", String.class).item()).isEqualTo("q");
+        assertThat(registry.lookup("dev", "1", String.class).item()).isEqualTo("d");
+    }
+
+    @Test
+    void internAll_withNullId_passesItemThrough() {
+        List<String> result = registry.internAll("qiita", List.of("a", "b"), item -> item.equals("a") ? null : item,
+                item -> "v1", T0);
+
+        assertThat(result).containsExactly("a", "b");
+        assertThat(registry.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void intern_beyondMaxRecent_keepsOnlyWeakReferenceToOlderItems() {
+        ItemRegistry bounded = new ItemRegistry(1);
+        bounded.intern("qiita", "1", "v1", new String("old"), T0);
+        String kept = bounded.intern("qiita", "2", "v1", new String("kept"), T0);
+
+        assertThat(bounded.stats().recent()).isEqualTo(1);
+        // 最近の 1 件から外れ、どのキャッシュも参照していない item は GC で消える
+        for (int i = 0; i < 50 && bounded.lookup("qiita", "1", String.class) != null; i++) System.gc();
+        assertThat(bounded.lookup("qiita", "1", String.class)).isNull();
+        assertThat(bounded.lookup("qiita", "2", String.class).item()).isSameAs(kept);
+    }
+
+    @Test
+    void lookup_withOtherType_returnsNull() {
+        registry.intern("qiita", "1", "v1", "article", T0);
+
+        assertThat(registry.lookup("qiita", "1", Integer.class)).isNull();
+        assertThat(registry.lookup("qiita", "missing", String.class)).isNull();
+        assertThat(registry.stats().misses()).isEqualTo(2);
+    }
+}
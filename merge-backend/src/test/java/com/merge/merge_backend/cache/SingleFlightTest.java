@@ -0,0 +1,89 @@
+package com.merge.merge_backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SingleFlight.
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+
+    @Test
+    void execute_concurrentCallersForSameKey_runLoaderOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flights.execute("week", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                followers.add(executor.submit(() -> flights.execute("week", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (flights.getCoalescedCount() < 5) Thread.onSpinWait();
+            release.countDown();
+
+            assertThat(leader.get()).isEqualTo("result");
+            for (Future<String> f : followers) assertThat(f.get()).isEqualTo("result");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flights.isInFlight("week")).isFalse();
+    }
+
+    @Test
+    void execute_differentKeys_loadIndependently() {
+        assertThat(flights.execute("a", () -> "A")).isEqualTo("A");
+        assertThat(flights.execute("b", () -> "B")).isEqualTo("B");
+    }
+
+    @Test
+    void execute_afterCompletion_loadsAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        flights.execute("week", () -> "v" + loads.incrementAndGet());
+        String second = flights.execute("week", () -> "v" + loads.incrementAndGet());
+
+        assertThat(second).isEqualTo("v2");
+    }
+
+    @Test
+    void execute_whenLoaderThrows_propagatesAndClearsKey() {
+        assertThatThrownBy(() -> flights.execute("week", () -> {
+            throw new IllegalStateException("upstream down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(flights.isInFlight("week")).isFalse();
+        assertThat(flights.execute("week", () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
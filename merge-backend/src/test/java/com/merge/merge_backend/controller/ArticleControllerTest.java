@@ -3,6 +3,7 @@ package com.merge.merge_backend.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.merge.merge_backend.entity.Article;
 import com.merge.merge_backend.repository.ArticleRepository;
+import com.merge.merge_backend.repository.TableVersion;
 import com.merge.merge_backend.service.ArticleService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 
@@ -70,6 +73,59 @@ class ArticleControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void getAllArticles_withMatchingEtag_returns304WithoutLoadingArticles() throws Exception {
+        // モック化
+        List<TableVersion> versions = List.of(
+                new TableVersion(2, LocalDateTime.of(2026, 2, 1, 12, 0)),
+                new TableVersion(5, LocalDateTime.of(2026, 2, 3, 9, 30)));
+        when(articleService.getLibraryVersions("all")).thenReturn(versions);
+
+        // 実行
+        String etag = mockMvc.perform(get("/api/articles"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/articles")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // 呼び出し検証（304 のときは一覧を読まない）
+        verify(articleService, times(1)).getAllArticles();
+    }
+
+    @Test
+    void getAllArticles_withLimit_readsKeysetPages() throws Exception {
+        // データ作成
+        LocalDateTime created = LocalDateTime.of(2026, 2, 1, 12, 0);
+        Article a3 = article(3L, "C", "https://c.example");
+        a3.setCreatedAt(created);
+        Article a2 = article(2L, "B", "https://b.example");
+        a2.setCreatedAt(created);
+        Article a1 = article(1L, "A", "https://a.example");
+        a1.setCreatedAt(created.minusDays(1));
+        // モック化（1 件多く読んで次のページの有無を知る）
+        when(articleService.getArticlesBefore(null, null, 3)).thenReturn(List.of(a3, a2, a1));
+        when(articleService.getArticlesBefore(created, 2L, 3)).thenReturn(List.of(a1));
+
+        // 実行
+        String next = mockMvc.perform(get("/api/articles")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2L))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/api/articles")
+                        .param("limit", "2")
+                        .param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // 呼び出し検証（ページ指定のときは全件を読まない）
+        verify(articleService, never()).getAllArticles();
+    }
+
     // --- searchArticles ---
 
     @Test
@@ -102,6 +158,21 @@ class ArticleControllerTest {
         verify(articleService).searchArticles(null, "rel", "all");
     }
 
+    @Test
+    void searchArticles_withPeriod_usesPeriodVersions() throws Exception {
+        // モック化
+        when(articleService.getLibraryVersions("week"))
+                .thenReturn(List.of(new TableVersion(1, LocalDateTime.of(2026, 2, 1, 12, 0))));
+        when(articleService.searchArticles(null, "rel", "week")).thenReturn(Collections.emptyList());
+
+        // 実行
+        mockMvc.perform(get("/api/articles/search")
+                        .param("period", "week"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1-" + LocalDateTime.of(2026, 2, 1, 12, 0)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + "\""));
+    }
+
     @Test
     void searchArticles_withAllParams_passesToService() throws Exception {
         // モック化
@@ -0,0 +1,95 @@
+package com.merge.merge_backend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CursorPages.
+ */
+class CursorPagesTest {
+
+    private static final List<String> LIST = List.of("a", "b", "c", "d", "e");
+
+    @Test
+    void slice_followingCursors_walksWholeListWithoutCopying() {
+        CursorPages.Page<String> first = CursorPages.slice(LIST, Function.identity(), null, 2);
+        CursorPages.Page<String> second = CursorPages.slice(LIST, Function.identity(), first.next(), 2);
+        CursorPages.Page<String> last = CursorPages.slice(LIST, Function.identity(), second.next(), 2);
+
+        assertThat(first.items()).containsExactly("a", "b");
+        assertThat(second.items()).containsExactly("c", "d");
+        assertThat(last.items()).containsExactly("e");
+        assertThat(last.next()).isNull();
+        // ページはキャッシュのリストのビュー
+        assertThat(first.items().getClass().getName()).contains("SubList");
+    }
+
+    @Test
+    void slice_afterListReplaced_resumesAfterLastSeenId() {
+        CursorPages.Page<String> first = CursorPages.slice(LIST, Function.identity(), null, 2);
+
+        // 先頭に 2 件増え、b は 4 番目になった
+        List<String> refreshed = List.of("x", "y", "a", "b", "c", "d", "e");
+        CursorPages.Page<String> second = CursorPages.slice(refreshed, Function.identity(), first.next(), 2);
+
+        assertThat(second.items()).containsExactly("c", "d");
+    }
+
+    @Test
+    void slice_withoutLimit_usesDefaultAndCapsLargeLimits() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < 500; i++) many.add("id" + i);
+
+        assertThat(CursorPages.slice(many, Function.identity(), null, null).items()).hasSize(CursorPages.DEFAULT_LIMIT);
+        assertThat(CursorPages.slice(many, Function.identity(), null, 10_000).items()).hasSize(CursorPages.MAX_LIMIT);
+    }
+
+    @Test
+    void slice_withInvalidCursorOrLimit_isBadRequest() {
+        assertThatThrownBy(() -> CursorPages.slice(LIST, Function.identity(), "not a cursor!", 2))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> CursorPages.slice(LIST, Function.identity(), null, 0))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void keyset_readsOneExtraRowAndContinuesFromLastKey() {
+        record Row(long id, LocalDateTime createdAt) {}
+        LocalDateTime base = LocalDateTime.of(2026, 2, 1, 12, 0);
+        List<Row> rows = List.of(new Row(5, base), new Row(4, base), new Row(3, base.minusDays(1)));
+        List<Object[]> calls = new ArrayList<>();
+        CursorPages.KeysetQuery<Row> query = (createdAt, id, limit) -> {
+            calls.add(new Object[]{createdAt, id, limit});
+            return rows.stream()
+                    .filter(r -> createdAt == null || r.createdAt().isBefore(createdAt)
+                            || (r.createdAt().equals(createdAt) && r.id() < id))
+                    .limit(limit)
+                    .toList();
+        };
+
+        CursorPages.Page<Row> first = CursorPages.keyset(query, Row::createdAt, Row::id, null, 2);
+        CursorPages.Page<Row> second = CursorPages.keyset(query, Row::createdAt, Row::id, first.next(), 2);
+
+        assertThat(first.items()).extracting(Row::id).containsExactly(5L, 4L);
+        assertThat(second.items()).extracting(Row::id).containsExactly(3L);
+        assertThat(second.next()).isNull();
+        assertThat(calls.get(0)).containsExactly(null, null, 3);
+        assertThat(calls.get(1)).containsExactly(base, 4L, 3);
+    }
+
+    @Test
+    void keyset_withCursorOfOtherKind_isBadRequest() {
+        String sliceCursor = CursorPages.slice(LIST, Function.identity(), null, 2).next();
+
+        assertThatThrownBy(() -> CursorPages.keyset((c, id, l) -> List.of(), s -> null, s -> 0L, sliceCursor, 2))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
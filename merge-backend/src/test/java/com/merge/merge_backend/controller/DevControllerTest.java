@@ -1,5 +1,7 @@
 package com.merge.merge_backend.controller;
 
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.EncodedBody;
 import com.merge.merge_backend.dto.DevCommentItem;
 import com.merge.merge_backend.dto.DevItem;
 import com.merge.merge_backend.service.DevService;
@@ -8,23 +10,36 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class DevControllerTest {
 
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+
     @Mock
     private DevService devService;
 
+    @Spy
+    private Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
     @InjectMocks
     private DevController devController;
 
@@ -97,28 +112,47 @@ class DevControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void searchArticles_withLimit_returnsFirstPage() throws Exception {
+        // モック化
+        when(devService.searchArticles("java", "rel", "all"))
+                .thenReturn(List.of(devItem("1", "A"), devItem("2", "B"), devItem("3", "C")));
+
+        // 実行
+        mockMvc.perform(get("/api/dev/search")
+                        .param("keyword", "java")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("1"))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
     // ─── GET /api/dev/hot ─────────────────────────────────────────
 
     @Test
-    void getHotArticles_withDefaultPeriod_returnsItems() throws Exception {
-        // データ作成
-        DevItem item = devItem("2", "Hot Dev Article");
+    void getHotArticles_withDefaultPeriod_returnsEncodedBody() throws Exception {
         // モック化
-        when(devService.getHotArticles("all")).thenReturn(List.of(item));
+        when(devService.getHotArticleBody("all"))
+                .thenReturn(encoded(List.of(devItem("2", "Hot Dev Article")), NOW.minusSeconds(120), 60));
 
         // 実行
         mockMvc.perform(get("/api/dev/hot"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("Age", "120"))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", containsString("max-age=0")))
                 .andExpect(jsonPath("$[0].title").value("Hot Dev Article"));
 
         // 呼び出し検証
-        verify(devService).getHotArticles("all");
+        verify(devService).getHotArticleBody("all");
     }
 
     @Test
     void getHotArticles_withPeriodWeek_passesCorrectPeriod() throws Exception {
         // モック化
-        when(devService.getHotArticles("week")).thenReturn(Collections.emptyList());
+        when(devService.getHotArticleBody("week"))
+                .thenReturn(encoded(Collections.emptyList(), NOW, 60));
 
         // 実行
         mockMvc.perform(get("/api/dev/hot")
@@ -126,7 +160,52 @@ class DevControllerTest {
                 .andExpect(status().isOk());
 
         // 呼び出し検証
-        verify(devService).getHotArticles("week");
+        verify(devService).getHotArticleBody("week");
+    }
+
+    @Test
+    void getHotArticles_refusingGzip_returnsPlainJson() throws Exception {
+        // モック化
+        CacheEntry<EncodedBody> entry = encoded(List.of(devItem("2", "Hot Dev Article")), NOW, 60);
+        when(devService.getHotArticleBody("all")).thenReturn(entry);
+
+        // 実行
+        mockMvc.perform(get("/api/dev/hot")
+                        .header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes(entry.value().json()));
+    }
+
+    @Test
+    void getHotArticles_withStaleIfNoneMatch_returnsFullBody() throws Exception {
+        // モック化
+        when(devService.getHotArticleBody("all"))
+                .thenReturn(encoded(List.of(devItem("2", "Hot Dev Article")), NOW, 60));
+
+        // 実行
+        mockMvc.perform(get("/api/dev/hot")
+                        .header("If-None-Match", "\"previous\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("2"));
+    }
+
+    @Test
+    void getHotArticles_withLimit_slicesCachedList() throws Exception {
+        // モック化
+        when(devService.getHotArticleEntry("week"))
+                .thenReturn(CacheEntry.of(List.of(devItem("1", "A"), devItem("2", "B")), NOW, 60));
+
+        // 実行
+        mockMvc.perform(get("/api/dev/hot")
+                        .param("period", "week")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // 呼び出し検証
+        verify(devService, never()).getHotArticleBody(any());
     }
 
     // ─── GET /api/dev/timeline ────────────────────────────────────
@@ -252,8 +331,25 @@ class DevControllerTest {
                 .andExpect(jsonPath("$.id").doesNotExist());
     }
 
+    // ─── DELETE /api/dev/article/{id}/cache ─────────────────────────
+
+    @Test
+    void invalidateArticle_returnsNoContent() throws Exception {
+        // 実行
+        mockMvc.perform(delete("/api/dev/article/42/cache"))
+                .andExpect(status().isNoContent());
+
+        // 呼び出し検証
+        verify(devService).invalidateArticle("42");
+    }
+
     // ─── ヘルパー ─────────────────────────────────────────────────
 
+    /** サービスが更新時に作るのと同じ JSON / gzip のエントリ */
+    private static CacheEntry<EncodedBody> encoded(Object value, Instant fetchedAt, long ttlSeconds) {
+        return CacheEntry.of(EncodedBody.of(JSON.writeValueAsBytes(value)), fetchedAt, ttlSeconds);
+    }
+
     private DevItem devItem(String id, String title) {
         DevItem item = new DevItem();
         item.setId(id);
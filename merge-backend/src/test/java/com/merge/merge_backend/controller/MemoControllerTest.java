@@ -4,16 +4,19 @@ import com.merge.merge_backend.entity.Article;
 import com.merge.merge_backend.entity.Memo;
 import com.merge.merge_backend.repository.ArticleRepository;
 import com.merge.merge_backend.repository.MemoRepository;
+import com.merge.merge_backend.repository.TableVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -25,6 +28,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ExtendWith(MockitoExtension.class)
 class MemoControllerTest {
 
+    private static final TableVersion VERSION = new TableVersion(3, LocalDateTime.of(2026, 2, 1, 12, 0));
+    private static final String ETAG = ConditionalRequests.etag(List.of(VERSION));
+
     @Mock
     private MemoRepository memoRepository;
 
@@ -48,6 +54,7 @@ class MemoControllerTest {
         // データ作成
         Memo m = memo(1L, "Test memo");
         // モック化
+        when(memoRepository.version()).thenReturn(VERSION);
         when(memoRepository.findAll()).thenReturn(List.of(m));
 
         // 実行
@@ -60,6 +67,7 @@ class MemoControllerTest {
     @Test
     void getAllMemos_returnsEmptyListWhenNoMemos() throws Exception {
         // モック化
+        when(memoRepository.version()).thenReturn(new TableVersion(0, null));
         when(memoRepository.findAll()).thenReturn(Collections.emptyList());
 
         // 実行
@@ -69,6 +77,58 @@ class MemoControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void getAllMemos_returnsValidatorsAndNoCacheHeader() throws Exception {
+        // モック化
+        when(memoRepository.version()).thenReturn(VERSION);
+        when(memoRepository.findAll()).thenReturn(List.of(memo(1L, "Test memo")));
+
+        // 実行
+        mockMvc.perform(get("/api/memos"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void getAllMemos_notModifiedSince_returns304WithoutLoadingMemos() throws Exception {
+        // モック化
+        when(memoRepository.version()).thenReturn(VERSION);
+
+        // 実行
+        mockMvc.perform(get("/api/memos")
+                        .header("If-Modified-Since", "Sun, 01 Mar 2026 00:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        // 呼び出し検証
+        verify(memoRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllMemos_withLimit_readsLatestPage() throws Exception {
+        // データ作成
+        Memo newer = memo(2L, "newer");
+        newer.setCreatedAt(LocalDateTime.of(2026, 2, 2, 9, 0));
+        Memo older = memo(1L, "older");
+        older.setCreatedAt(LocalDateTime.of(2026, 2, 1, 9, 0));
+        // モック化
+        when(memoRepository.version()).thenReturn(VERSION);
+        when(memoRepository.findLatest(Limit.of(2))).thenReturn(List.of(newer, older));
+
+        // 実行
+        mockMvc.perform(get("/api/memos")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].content").value("newer"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(header().string("ETag", ETAG));
+
+        // 呼び出し検証
+        verify(memoRepository, never()).findAll();
+    }
+
     // --- getMemosByArticle ---
 
     @Test
@@ -76,6 +136,7 @@ class MemoControllerTest {
         // データ作成
         Memo m = memo(2L, "Article memo");
         // モック化
+        when(memoRepository.versionByArticleId(10L)).thenReturn(VERSION);
         when(memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(10L))
                 .thenReturn(List.of(m));
 
@@ -92,6 +153,7 @@ class MemoControllerTest {
     @Test
     void getMemosByArticle_returnsEmptyListWhenNoMemos() throws Exception {
         // モック化
+        when(memoRepository.versionByArticleId(99L)).thenReturn(new TableVersion(0, null));
         when(memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(99L))
                 .thenReturn(Collections.emptyList());
 
@@ -101,6 +163,34 @@ class MemoControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void getMemosByArticle_withMatchingEtag_returns304WithoutLoadingMemos() throws Exception {
+        // モック化
+        when(memoRepository.versionByArticleId(10L)).thenReturn(VERSION);
+
+        // 実行
+        mockMvc.perform(get("/api/article/10")
+                        .header("If-None-Match", ETAG))
+                .andExpect(status().isNotModified());
+
+        // 呼び出し検証
+        verify(memoRepository, never()).findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(10L);
+    }
+
+    @Test
+    void getMemosByArticle_afterMemoAdded_returnsFullBody() throws Exception {
+        // モック化
+        when(memoRepository.versionByArticleId(10L)).thenReturn(new TableVersion(4, VERSION.lastModified()));
+        when(memoRepository.findByArticleIdAndDeleteFlgFalseOrderByCreatedAtDesc(10L))
+                .thenReturn(List.of(memo(2L, "Article memo")));
+
+        // 実行
+        mockMvc.perform(get("/api/article/10")
+                        .header("If-None-Match", ETAG))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].content").value("Article memo"));
+    }
+
     // --- getMemosByUrl ---
 
     @Test
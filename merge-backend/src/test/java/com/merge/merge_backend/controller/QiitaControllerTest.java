@@ -1,30 +1,47 @@
 package com.merge.merge_backend.controller;
 
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.EncodedBody;
 import com.merge.merge_backend.dto.QiitaCommentItem;
 import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
 import com.merge.merge_backend.service.QiitaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class QiitaControllerTest {
 
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+
     @Mock
     private QiitaService qiitaService;
 
+    @Spy
+    private Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
     @InjectMocks
     private QiitaController qiitaController;
 
@@ -40,7 +57,7 @@ class QiitaControllerTest {
     @Test
     void searchArticles_withKeyword_delegatesToService() throws Exception {
         // データ作成
-        QiitaItem item = qiitaItem("abc", "Spring Boot入門");
+        QiitaItemSummary item = summary("abc", "Spring Boot入門");
         // モック化
         when(qiitaService.searchArticles("spring", "rel", "all")).thenReturn(List.of(item));
 
@@ -88,7 +105,7 @@ class QiitaControllerTest {
     @Test
     void searchArticles_returnsLikesCount() throws Exception {
         // データ作成
-        QiitaItem item = qiitaItem("x1", "人気記事");
+        QiitaItemSummary item = summary("x1", "人気記事");
         item.setLikesCount(500);
         // モック化
         when(qiitaService.searchArticles("java", "rel", "all")).thenReturn(List.of(item));
@@ -103,25 +120,31 @@ class QiitaControllerTest {
     // ─── GET /api/qiita/hot ───────────────────────────────────────
 
     @Test
-    void getHotArticles_withDefaultPeriod_returnsItems() throws Exception {
-        // データ作成
-        QiitaItem item = qiitaItem("hot1", "ホット記事");
+    void getHotArticles_withDefaultPeriod_returnsEncodedBody() throws Exception {
         // モック化
-        when(qiitaService.getHotArticles("all")).thenReturn(List.of(item));
+        when(qiitaService.getHotArticleBody("all"))
+                .thenReturn(encoded(List.of(summary("hot1", "ホット記事")), NOW.minusSeconds(120), 600));
 
         // 実行
         mockMvc.perform(get("/api/qiita/hot"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("ホット記事"));
+                .andExpect(header().string("Age", "120"))
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", containsString("max-age=4")))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$[0].title").value("ホット記事"))
+                .andExpect(jsonPath("$[0].rendered_body").doesNotExist());
 
         // 呼び出し検証
-        verify(qiitaService).getHotArticles("all");
+        verify(qiitaService).getHotArticleBody("all");
+        verify(qiitaService, never()).withBodies(any());
     }
 
     @Test
     void getHotArticles_withPeriodMonth_passesCorrectPeriod() throws Exception {
         // モック化
-        when(qiitaService.getHotArticles("month")).thenReturn(Collections.emptyList());
+        when(qiitaService.getHotArticleBody("month"))
+                .thenReturn(encoded(Collections.emptyList(), NOW, 60));
 
         // 実行
         mockMvc.perform(get("/api/qiita/hot")
@@ -129,7 +152,151 @@ class QiitaControllerTest {
                 .andExpect(status().isOk());
 
         // 呼び出し検証
-        verify(qiitaService).getHotArticles("month");
+        verify(qiitaService).getHotArticleBody("month");
+    }
+
+    @Test
+    void getHotArticles_acceptingGzip_returnsCompressedBytes() throws Exception {
+        // モック化
+        CacheEntry<EncodedBody> entry = encoded(List.of(summary("hot1", "ホット記事")), NOW, 60);
+        when(qiitaService.getHotArticleBody("week")).thenReturn(entry);
+
+        // 実行
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andExpect(content().bytes(entry.value().gzip()));
+    }
+
+    @Test
+    void getHotArticles_withMatchingIfNoneMatch_returnsNotModified() throws Exception {
+        // モック化
+        CacheEntry<EncodedBody> entry = encoded(List.of(summary("hot1", "ホット記事")), NOW, 60);
+        when(qiitaService.getHotArticleBody("week")).thenReturn(entry);
+
+        // 実行
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("If-None-Match", entry.value().etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", entry.value().etag()))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getHotArticles_gzipAndIdentity_haveDistinctETagsAndOnlyOwnVariantRevalidates() throws Exception {
+        // モック化
+        CacheEntry<EncodedBody> entry = encoded(List.of(summary("hot1", "ホット記事")), NOW, 60);
+        when(qiitaService.getHotArticleBody("week")).thenReturn(entry);
+
+        // 実行・検証（gzip の本文には別の強い ETag）
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", entry.value().gzipEtag()))
+                .andExpect(header().string("ETag", not(entry.value().etag())));
+
+        // gzip の本文は gzip を受け付ける要求だけが再検証できる（W/ 付きも弱い比較で一致）
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"other\", W/" + entry.value().gzipEtag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", entry.value().gzipEtag()))
+                .andExpect(content().bytes(new byte[0]));
+        // gzip を受け付けない要求に gzip の ETag だけが来ても、304 にせず非圧縮の本文を返す
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("If-None-Match", entry.value().gzipEtag()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", entry.value().etag()))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes(entry.value().json()));
+        // 両方の ETag を送るキャッシュにも、この要求の表現の ETag で答える
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .header("If-None-Match", entry.value().gzipEtag() + ", " + entry.value().etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", entry.value().etag()));
+    }
+
+    @Test
+    void getHotArticles_withFieldsBody_fillsBodiesFromService() throws Exception {
+        // データ作成
+        List<QiitaItemSummary> summaries = List.of(summary("hot1", "ホット記事"));
+        QiitaItemSummary withBody = summary("hot1", "ホット記事");
+        withBody.setRenderedBody("<p>本文</p>");
+        // モック化
+        when(qiitaService.getHotArticleEntry("week")).thenReturn(CacheEntry.of(summaries, NOW, 60));
+        when(qiitaService.withBodies(summaries)).thenReturn(List.of(withBody));
+
+        // 実行
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("period", "week")
+                        .param("fields", "title, body"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rendered_body").value("<p>本文</p>"));
+    }
+
+    @Test
+    void getHotArticles_withLimit_returnsPageAndNextCursor() throws Exception {
+        // モック化
+        List<QiitaItemSummary> hot = List.of(summary("h1", "1"), summary("h2", "2"), summary("h3", "3"));
+        when(qiitaService.getHotArticleEntry("all")).thenReturn(CacheEntry.of(hot, NOW, 60));
+
+        // 実行
+        String next = mockMvc.perform(get("/api/qiita/hot")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Age"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value("h2"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("limit", "2")
+                        .param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("h3"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // 呼び出し検証（ページ指定のときは作り置きのバイト列を使わない）
+        verify(qiitaService, never()).getHotArticleBody(any());
+    }
+
+    @Test
+    void getHotArticles_withLimitAndFieldsBody_fillsBodiesOfPageOnly() throws Exception {
+        // データ作成
+        QiitaItemSummary first = summary("h1", "1");
+        QiitaItemSummary withBody = summary("h1", "1");
+        withBody.setRenderedBody("<p>本文</p>");
+        // モック化
+        when(qiitaService.getHotArticleEntry("all"))
+                .thenReturn(CacheEntry.of(List.of(first, summary("h2", "2")), NOW, 60));
+        when(qiitaService.withBodies(List.of(first))).thenReturn(List.of(withBody));
+
+        // 実行
+        mockMvc.perform(get("/api/qiita/hot")
+                        .param("limit", "1")
+                        .param("fields", "body"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rendered_body").value("<p>本文</p>"))
+                .andExpect(header().exists("X-Next-Cursor"));
+    }
+
+    @Test
+    void getUserArticles_withInvalidCursor_returnsBadRequest() throws Exception {
+        // モック化
+        when(qiitaService.getUserArticles("alice")).thenReturn(List.of(summary("u1", "1")));
+
+        // 実行
+        mockMvc.perform(get("/api/qiita/user/alice/articles")
+                        .param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
     }
 
     // ─── GET /api/qiita/timeline ──────────────────────────────────
@@ -137,7 +304,7 @@ class QiitaControllerTest {
     @Test
     void getTimelineArticles_returnsLatestItems() throws Exception {
         // データ作成
-        QiitaItem item = qiitaItem("tl1", "タイムライン記事");
+        QiitaItemSummary item = summary("tl1", "タイムライン記事");
         // モック化
         when(qiitaService.getTimelineArticles()).thenReturn(List.of(item));
 
@@ -227,7 +394,7 @@ class QiitaControllerTest {
     @Test
     void getUserArticles_withUserId_returnsUserArticles() throws Exception {
         // データ作成
-        QiitaItem item = qiitaItem("user-article-1", "My Article");
+        QiitaItemSummary item = summary("user-article-1", "My Article");
         // モック化
         when(qiitaService.getUserArticles("john")).thenReturn(List.of(item));
 
@@ -252,8 +419,32 @@ class QiitaControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    // ─── DELETE /api/qiita/article/{id}/cache ─────────────────────────
+
+    @Test
+    void invalidateArticle_returnsNoContent() throws Exception {
+        // 実行
+        mockMvc.perform(delete("/api/qiita/article/42/cache"))
+                .andExpect(status().isNoContent());
+
+        // 呼び出し検証
+        verify(qiitaService).invalidateArticle("42");
+    }
+
     // ─── ヘルパー ─────────────────────────────────────────────────
 
+    private QiitaItemSummary summary(String id, String title) {
+        QiitaItemSummary summary = new QiitaItemSummary();
+        summary.setId(id);
+        summary.setTitle(title);
+        return summary;
+    }
+
+    /** サービスが更新時に作るのと同じ JSON / gzip のエントリ */
+    private static CacheEntry<EncodedBody> encoded(Object value, Instant fetchedAt, long ttlSeconds) {
+        return CacheEntry.of(EncodedBody.of(JSON.writeValueAsBytes(value)), fetchedAt, ttlSeconds);
+    }
+
     private QiitaItem qiitaItem(String id, String title) {
         QiitaItem item = new QiitaItem();
         item.setId(id);
@@ -0,0 +1,258 @@
+package com.merge.merge_backend.controller;
+
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.CircuitBreaker;
+import com.merge.merge_backend.upstream.ConditionalRequestInterceptor;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.UpstreamGuard;
+import com.merge.merge_backend.upstream.UpstreamMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsControllerTest {
+
+    @Mock
+    private CacheRegistry cacheRegistry;
+
+    @Mock
+    private ItemRegistry itemRegistry;
+
+    @Mock
+    private BodyStore bodyStore;
+
+    @Mock
+    private RateLimitBudget qiitaRateLimit;
+
+    @Mock
+    private RateLimitBudget devRateLimit;
+
+    @Mock
+    private ConditionalRequestInterceptor qiitaConditionalRequests;
+
+    @Mock
+    private ConditionalRequestInterceptor devConditionalRequests;
+
+    @Mock
+    private UpstreamMetrics qiitaHttpMetrics;
+
+    @Mock
+    private UpstreamMetrics devHttpMetrics;
+
+    @Mock
+    private UpstreamMetrics translateHttpMetrics;
+
+    @Mock
+    private UpstreamGuard qiitaUpstreamGuard;
+
+    @Mock
+    private UpstreamGuard devUpstreamGuard;
+
+    @Mock
+    private UpstreamGuard translateUpstreamGuard;
+
+    @Mock
+    private Hedger qiitaHedger;
+
+    @Mock
+    private Hedger devHedger;
+
+    @Mock
+    private AdaptivePaging qiitaPaging;
+
+    @Mock
+    private AdaptivePaging devPaging;
+
+    @InjectMocks
+    private StatsController statsController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(statsController).build();
+    }
+
+    // ─── GET /api/stats/caches ────────────────────────────────────
+
+    @Test
+    void getCacheStats_returnsCountersOfEveryCache() throws Exception {
+        // モック化
+        when(cacheRegistry.stats()).thenReturn(List.of(
+                new BoundedCache.Stats("qiita-hot", 3, 1, 2, 0, 4, 2048, 4096)));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/caches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("qiita-hot"))
+                .andExpect(jsonPath("$[0].hits").value(3))
+                .andExpect(jsonPath("$[0].evictions").value(2))
+                .andExpect(jsonPath("$[0].hitRate").value(0.75));
+
+        // 呼び出し検証
+        verify(cacheRegistry).stats();
+    }
+
+    // ─── GET /api/stats/items ─────────────────────────────────────
+
+    @Test
+    void getItemRegistryStats_returnsSharingCounters() throws Exception {
+        // モック化
+        when(itemRegistry.stats()).thenReturn(new ItemRegistry.Stats(120, 100, 45, 3, 10, 2));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/items"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(120))
+                .andExpect(jsonPath("$.recent").value(100))
+                .andExpect(jsonPath("$.shared").value(45));
+
+        // 呼び出し検証
+        verify(itemRegistry).stats();
+    }
+
+    // ─── GET /api/stats/bodies ────────────────────────────────────
+
+    @Test
+    void getBodyStoreStats_returnsOffHeapUsage() throws Exception {
+        // モック化
+        when(bodyStore.stats()).thenReturn(new BodyStore.Stats(10, 2500, 10000, 65536, 7, 3, 1, 0));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/bodies"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.storedBytes").value(2500))
+                .andExpect(jsonPath("$.compressionRatio").value(0.25));
+
+        // 呼び出し検証
+        verify(bodyStore).stats();
+    }
+
+    // ─── GET /api/stats/upstreams ─────────────────────────────────
+
+    @Test
+    void getUpstreamBudgets_returnsBothUpstreams() throws Exception {
+        // モック化
+        when(qiitaRateLimit.snapshot()).thenReturn(
+                new RateLimitBudget.Snapshot("qiita", 1000, 150, null, 200, true, 40, 12, 0, 3, 0));
+        when(devRateLimit.snapshot()).thenReturn(
+                new RateLimitBudget.Snapshot("dev", -1, -1, null, 0, false, 5, 2, 0, 0, 1));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/upstreams"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("qiita"))
+                .andExpect(jsonPath("$[0].remaining").value(150))
+                .andExpect(jsonPath("$[0].backgroundDenied").value(3))
+                .andExpect(jsonPath("$[1].throttled").value(1));
+    }
+
+    // ─── GET /api/stats/conditional ───────────────────────────────
+
+    @Test
+    void getConditionalRequestStats_returnsNotModifiedCounts() throws Exception {
+        // モック化
+        when(qiitaConditionalRequests.stats())
+                .thenReturn(new ConditionalRequestInterceptor.Stats("qiita-conditional", 20, 15, 4));
+        when(devConditionalRequests.stats())
+                .thenReturn(new ConditionalRequestInterceptor.Stats("dev-conditional", 8, 2, 0));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/conditional"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].notModified").value(15))
+                .andExpect(jsonPath("$[1].name").value("dev-conditional"));
+    }
+
+    // ─── GET /api/stats/http ──────────────────────────────────────
+
+    @Test
+    void getHttpClientStats_returnsOneSnapshotPerUpstream() throws Exception {
+        // モック化
+        when(qiitaHttpMetrics.snapshot()).thenReturn(
+                new UpstreamMetrics.Snapshot("qiita", 10, 1, 3, 8, 1, 0, 1, 1, 120.5, 100, 250, 500, 480));
+        when(devHttpMetrics.snapshot()).thenReturn(
+                new UpstreamMetrics.Snapshot("dev", 4, 0, 2, 4, 0, 0, 0, 0, 80.0, 100, 100, 100, 90));
+        when(translateHttpMetrics.snapshot()).thenReturn(
+                new UpstreamMetrics.Snapshot("translate", 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/http"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].timeouts").value(1))
+                .andExpect(jsonPath("$[0].p95Millis").value(250))
+                .andExpect(jsonPath("$[2].name").value("translate"));
+    }
+
+    // ─── GET /api/stats/resilience ────────────────────────────────
+
+    @Test
+    void getResilienceStats_showsOpenBreaker() throws Exception {
+        // モック化
+        CircuitBreaker.Snapshot closed = new CircuitBreaker.Snapshot(CircuitBreaker.State.CLOSED, 0.1, 20, null, 0, 0);
+        CircuitBreaker.Snapshot open = new CircuitBreaker.Snapshot(CircuitBreaker.State.OPEN, 0.6, 20,
+                Instant.parse("2026-03-02T00:00:30Z"), 1, 12);
+        when(qiitaUpstreamGuard.snapshot()).thenReturn(new UpstreamGuard.Snapshot("qiita", closed, 1, 4, 8, 0, 0, 2, 0));
+        when(devUpstreamGuard.snapshot()).thenReturn(new UpstreamGuard.Snapshot("dev", open, 0, 8, 8, 3, 12, 5, 2));
+        when(translateUpstreamGuard.snapshot()).thenReturn(new UpstreamGuard.Snapshot("translate", closed, 0, 1, 4, 0, 0, 0, 0));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/resilience"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].breaker.state").value("CLOSED"))
+                .andExpect(jsonPath("$[1].breaker.state").value("OPEN"))
+                .andExpect(jsonPath("$[1].shortCircuited").value(12));
+    }
+
+    // ─── GET /api/stats/hedging ───────────────────────────────────
+
+    @Test
+    void getHedgingStats_returnsBothUpstreams() throws Exception {
+        // モック化
+        when(qiitaHedger.snapshot()).thenReturn(new Hedger.Snapshot("qiita", true, 400, 12, 9, 3, 180, 200));
+        when(devHedger.snapshot()).thenReturn(new Hedger.Snapshot("dev", true, 10, 0, 0, 0, -1, 10));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/hedging"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hedgeWins").value(9))
+                .andExpect(jsonPath("$[1].delayMillis").value(-1));
+    }
+
+    // ─── GET /api/stats/paging ────────────────────────────────────
+
+    @Test
+    void getPagingStats_reportsDecisionsPerShape() throws Exception {
+        // モック化
+        AdaptivePaging.Decision decision = new AdaptivePaging.Decision("hot:week", 3, 1, 40.0,
+                "page 2 expected to yield 2.0 items");
+        when(qiitaPaging.snapshot()).thenReturn(new AdaptivePaging.Snapshot("qiita", true, List.of(
+                new AdaptivePaging.ShapeSnapshot("hot:week", 12, 10, 0, 1, new double[] { 40.0, 2.0 }, decision))));
+        when(devPaging.snapshot()).thenReturn(new AdaptivePaging.Snapshot("dev", true, List.of()));
+
+        // 実行
+        mockMvc.perform(get("/api/stats/paging"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].shapes[0].last.pages").value(1))
+                .andExpect(jsonPath("$[0].shapes[0].yieldPerPage[1]").value(2.0))
+                .andExpect(jsonPath("$[1].shapes").isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.merge.merge_backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ColumnQuery and ColumnarList.
+ * Rows are small records: (id, created, likes, stocks, tags).
+ */
+class ColumnQueryTest {
+
+    private record Row(String id, long created, int likes, int stocks, List<String> tags) {}
+
+    private static final ColumnarList.Schema<Row> SCHEMA = new ColumnarList.Schema<>(
+            Row::created, Row::likes, Row::stocks, row -> 0, Row::tags);
+
+    private static final ColumnarList<Row> ROWS = ColumnarList.of(List.of(
+            new Row("a", 100, 5, 1, List.of("java", "spring")),
+            new Row("b", 200, 9, 0, List.of("java")),
+            new Row("c", 300, 5, 3, List.of("go")),
+            new Row("d", ColumnarList.UNKNOWN_TIME, 7, 2, List.of("spring")),
+            new Row("e", 400, 1, 5, List.of())), SCHEMA);
+
+    @Test
+    void select_withAllTags_intersectsTagRows() {
+        assertThat(ids(new ColumnQuery().withAllTags(List.of("java", "spring")).select(ROWS))).containsExactly("a");
+        assertThat(ids(new ColumnQuery().withAllTags(List.of("kotlin")).select(ROWS))).isEmpty();
+    }
+
+    @Test
+    void select_withAnyTag_unitesTagRows() {
+        assertThat(ids(new ColumnQuery().withAnyTag(List.of("go", "spring")).select(ROWS))).containsExactly("a", "c", "d");
+    }
+
+    @Test
+    void select_withCreatedSinceAndThresholds_dropsRowsBelowAndUnknownTimes() {
+        assertThat(ids(new ColumnQuery().createdSince(200).select(ROWS))).containsExactly("b", "c", "e");
+        assertThat(ids(new ColumnQuery().minLikes(5).minStocks(1).select(ROWS))).containsExactly("a", "c", "d");
+    }
+
+    @Test
+    void select_orderedByLikes_isDescendingWithTiesInListOrder() {
+        assertThat(ids(new ColumnQuery().orderBy(ColumnQuery.Order.LIKES).select(ROWS)))
+                .containsExactly("b", "d", "a", "c", "e");
+        assertThat(ids(new ColumnQuery().orderBy(ColumnQuery.Order.CREATED).select(ROWS)))
+                .containsExactly("e", "c", "b", "a", "d");
+    }
+
+    @Test
+    void select_withLimit_keepsTopRows() {
+        assertThat(ids(new ColumnQuery().orderBy(ColumnQuery.Order.STOCKS).limit(2).select(ROWS))).containsExactly("e", "c");
+        assertThat(ids(new ColumnQuery().limit(2).select(ROWS))).containsExactly("a", "b");
+        assertThat(new ColumnQuery().orderBy(ColumnQuery.Order.LIKES).limit(0).select(ROWS)).isEmpty();
+    }
+
+    @Test
+    void select_onSelectedRows_keepsColumnsAndTags() {
+        ColumnarList<Row> java = new ColumnQuery().withAnyTag(List.of("java")).orderBy(ColumnQuery.Order.LIKES).select(ROWS);
+
+        assertThat(ids(java)).containsExactly("b", "a");
+        assertThat(ids(new ColumnQuery().withAllTags(List.of("spring")).select(java))).containsExactly("a");
+        assertThat(ids(new ColumnQuery().createdSince(150).select(java))).containsExactly("b");
+        assertThat(ColumnarList.of(java, SCHEMA)).isSameAs(java);
+    }
+
+    @Test
+    void epochSecond_readsOffsetDateTimes() {
+        assertThat(ColumnarList.epochSecond("1970-01-01T09:00:10+09:00")).isEqualTo(10);
+        assertThat(ColumnarList.epochSecond("not a date")).isEqualTo(ColumnarList.UNKNOWN_TIME);
+        assertThat(ColumnarList.epochSecond(null)).isEqualTo(ColumnarList.UNKNOWN_TIME);
+    }
+
+    private static List<String> ids(List<Row> rows) {
+        return rows.stream().map(Row::id).toList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.DevItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DevRefinement.
+ */
+class DevRefinementTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+
+    @Test
+    void narrowing_withAddedTagShorterTopAndCountSort_selectsAndOrders() {
+        ColumnQuery query = new ColumnQuery();
+        assertThat(DevRefinement.narrowing("java", "rel", 30, "java,spring", "count", 7, NOW, query)).isTrue();
+
+        DevItem few = item("2026-02-28T00:00:00Z", "java", "spring");
+        few.setLikesCount(2);
+        DevItem many = item("2026-03-01T00:00:00Z", "java", "spring");
+        many.setLikesCount(8);
+        assertThat(select(query,
+                few,
+                item("2026-02-20T00:00:00Z", "java", "spring"),
+                item("2026-02-28T00:00:00Z", "java"),
+                many))
+                .containsExactly(many, few);
+    }
+
+    @Test
+    void narrowing_fromAnyTag_toSubsetOfTags() {
+        ColumnQuery query = new ColumnQuery();
+        assertThat(DevRefinement.narrowing("go|rust|zig", "rel", 7, "go|zig", "rel", 7, NOW, query)).isTrue();
+
+        DevItem zig = item("2026-03-01T00:00:00Z", "zig");
+        DevItem go = item("2026-03-01T00:00:00Z", "go");
+        assertThat(select(query, zig, item("2026-03-01T00:00:00Z", "rust"), go)).containsExactly(zig, go);
+        assertThat(DevRefinement.narrowing("go|rust", "rel", 7, "go", "rel", 7, NOW, new ColumnQuery())).isTrue();
+    }
+
+    @Test
+    void narrowing_isFalseWhenNotARefinement() {
+        assertThat(DevRefinement.narrowing("java", "rel", 7, "java", "rel", 30, NOW, new ColumnQuery())).isFalse();
+        assertThat(DevRefinement.narrowing("java", "rel", null, "java,spring", "rel", 7, NOW, new ColumnQuery())).isFalse();
+        assertThat(DevRefinement.narrowing("java", "count", 7, "java,spring", "rel", 7, NOW, new ColumnQuery())).isFalse();
+        assertThat(DevRefinement.narrowing("java,spring", "rel", 7, "java|spring", "rel", 7, NOW, new ColumnQuery())).isFalse();
+        assertThat(DevRefinement.narrowing("go|rust", "rel", 7, "go,rust", "rel", 7, NOW, new ColumnQuery())).isFalse();
+    }
+
+    private static List<DevItem> select(ColumnQuery query, DevItem... items) {
+        return query.select(ColumnarList.of(List.of(items), DevRefinement.COLUMNS));
+    }
+
+    private static DevItem item(String publishedAt, String... tags) {
+        DevItem item = new DevItem();
+        item.setPublishedAt(publishedAt);
+        item.setTagList(List.of(tags));
+        return item;
+    }
+}
@@ -0,0 +1,63 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.DevItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DevSearchPlan and TagStats.
+ */
+class DevSearchPlanTest {
+
+    @Test
+    void of_withAllTags_queriesRarestTagsAndFiltersTheRest() {
+        TagStats stats = new TagStats(100);
+        stats.record(List.of("javascript", "webdev"));
+        stats.record(List.of("javascript", "svelte"));
+
+        DevSearchPlan plan = DevSearchPlan.of(List.of("javascript", "webdev", "svelte"), true, 7, stats, 2);
+
+        assertThat(plan.upstreamTags()).containsExactly("webdev", "svelte");
+        assertThat(plan.top()).isEqualTo(7);
+        assertThat(plan.residualTags()).containsExactly("javascript");
+        assertThat(plan.residual().test(item("svelte", "javascript"))).isTrue();
+        assertThat(plan.residual().test(item("svelte"))).isFalse();
+    }
+
+    @Test
+    void of_withoutStats_keepsWrittenOrder() {
+        DevSearchPlan plan = DevSearchPlan.of(List.of("java", "spring"), true, null, new TagStats(100), 4);
+
+        assertThat(plan.upstreamTags()).containsExactly("java", "spring");
+        assertThat(plan.residualTags()).isEmpty();
+    }
+
+    @Test
+    void of_withAnyTag_queriesEveryTagInWavesWithoutResidual() {
+        DevSearchPlan plan = DevSearchPlan.of(List.of("go", "rust", "zig"), false, null, new TagStats(100), 2);
+
+        assertThat(plan.upstreamTags()).containsExactly("go", "rust", "zig");
+        assertThat(plan.waves(2)).containsExactly(List.of("go", "rust"), List.of("zig"));
+        assertThat(plan.matchAll()).isFalse();
+        assertThat(plan.residual().test(item())).isTrue();
+    }
+
+    @Test
+    void tagStats_stopsTrackingNewTagsAtLimit() {
+        TagStats stats = new TagStats(1);
+        stats.record(List.of("java", "go"));
+        stats.record(List.of("java"));
+
+        assertThat(stats.count("java")).isEqualTo(2);
+        assertThat(stats.count("go")).isZero();
+    }
+
+    private static DevItem item(String... tags) {
+        DevItem item = new DevItem();
+        item.setTagList(List.of(tags));
+        return item;
+    }
+}
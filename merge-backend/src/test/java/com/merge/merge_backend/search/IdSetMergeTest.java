@@ -0,0 +1,44 @@
+package com.merge.merge_backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for IdSetMerge.
+ * Items are their own ids.
+ */
+class IdSetMergeTest {
+
+    @Test
+    void merge_withMatchAll_keepsCommonIdsByAveragePosition() {
+        List<String> result = IdSetMerge.merge(List.of(
+                List.of("a", "b", "c", "d"),
+                List.of("d", "c", "a"),
+                List.of("c", "a", "d", "e")), Function.identity(), true);
+
+        // a: (0+2+1)/3, c: (2+1+0)/3, d: (3+0+2)/3
+        assertThat(result).containsExactly("a", "c", "d");
+    }
+
+    @Test
+    void merge_withMatchAny_ranksIdsInMoreListsFirst() {
+        List<String> result = IdSetMerge.merge(List.of(
+                List.of("x", "y"),
+                List.of("y", "z")), Function.identity(), false);
+
+        assertThat(result).containsExactly("y", "x", "z");
+    }
+
+    @Test
+    void merge_countsDuplicateWithinOneListOnce() {
+        List<String> result = IdSetMerge.merge(List.of(
+                List.of("a", "a"),
+                List.of("b")), Function.identity(), false);
+
+        assertThat(result).containsExactly("a", "b");
+    }
+}
@@ -0,0 +1,88 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
+import com.merge.merge_backend.dto.QiitaUserItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for QiitaRefinement.
+ */
+class QiitaRefinementTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2026, 2, 23);
+    private static final LocalDate MONTH = LocalDate.of(2026, 2, 2);
+
+    @Test
+    void narrowing_withAddedTermsTagAndUser_filtersSummaries() {
+        ColumnQuery query = new ColumnQuery();
+        Predicate<QiitaItemSummary> residual = QiitaRefinement.narrowing("java", "rel", null,
+                "java #spring @alice -legacy", "rel", null, 5, query);
+
+        assertThat(residual).isNotNull();
+        assertThat(refine(query, residual,
+                summary("Boot入門", "2026-03-01", 0, "alice", "Spring"),
+                summary("Legacy Boot", "2026-03-01", 0, "alice", "Spring"),
+                summary("Boot入門", "2026-03-01", 0, "bob", "Spring"),
+                summary("Boot入門", "2026-03-01", 0, "alice", "Java")))
+                .containsExactly(0);
+    }
+
+    @Test
+    void narrowing_withShorterPeriodAndCountSort_appliesDateStocksFloorAndOrder() {
+        ColumnQuery query = new ColumnQuery();
+        Predicate<QiitaItemSummary> residual = QiitaRefinement.narrowing("java", "rel", MONTH,
+                "java", "count", WEEK, 5, query);
+
+        QiitaItemSummary weekFew = summary("a", "2026-02-23", 5, "u");
+        weekFew.setLikesCount(1);
+        QiitaItemSummary weekMany = summary("b", "2026-02-24", 6, "u");
+        weekMany.setLikesCount(9);
+        assertThat(refine(query, residual,
+                weekFew,
+                summary("c", "2026-02-22", 5, "u"),
+                summary("d", "2026-02-23", 4, "u"),
+                weekMany))
+                .containsExactly(3, 0);
+    }
+
+    @Test
+    void narrowing_isNullWhenNotARefinement() {
+        // 期間が広がる / 語が消える / OR / stocks: / count の結果から rel
+        assertThat(QiitaRefinement.narrowing("java", "rel", WEEK, "java", "rel", MONTH, 5, new ColumnQuery())).isNull();
+        assertThat(QiitaRefinement.narrowing("java spring", "rel", null, "java", "rel", null, 5, new ColumnQuery())).isNull();
+        assertThat(QiitaRefinement.narrowing("java", "rel", null, "java OR kotlin", "rel", null, 5, new ColumnQuery())).isNull();
+        assertThat(QiitaRefinement.narrowing("java", "rel", null, "java stocks:>10", "rel", null, 5, new ColumnQuery())).isNull();
+        assertThat(QiitaRefinement.narrowing("java", "count", null, "java spring", "rel", null, 5, new ColumnQuery())).isNull();
+    }
+
+    /** 列で絞ってから残りの条件にかけ、残った行番号を返す */
+    private static List<Integer> refine(ColumnQuery query, Predicate<QiitaItemSummary> residual,
+                                        QiitaItemSummary... summaries) {
+        ColumnarList<QiitaItemSummary> list = ColumnarList.of(List.of(summaries), QiitaRefinement.COLUMNS);
+        return Arrays.stream(query.rows(list)).filter(row -> residual.test(list.get(row))).boxed().toList();
+    }
+
+    private static QiitaItemSummary summary(String title, String date, int stocks, String user, String... tags) {
+        QiitaItemSummary summary = new QiitaItemSummary();
+        summary.setTitle(title);
+        summary.setCreatedAt(date + "T00:00:00+09:00");
+        summary.setStocksCount(stocks);
+        QiitaUserItem u = new QiitaUserItem();
+        u.setId(user);
+        summary.setUser(u);
+        summary.setTags(List.of(tags).stream().map(name -> {
+            QiitaItem.Tag tag = new QiitaItem.Tag();
+            tag.setName(name);
+            return tag;
+        }).toList());
+        return summary;
+    }
+}
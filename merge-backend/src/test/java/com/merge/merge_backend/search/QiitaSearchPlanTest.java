@@ -0,0 +1,71 @@
+package com.merge.merge_backend.search;
+
+import com.merge.merge_backend.config.QiitaProperties;
+import com.merge.merge_backend.dto.QiitaItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for QiitaSearchPlan.
+ */
+class QiitaSearchPlanTest {
+
+    private static final LocalDate SINCE = LocalDate.of(2026, 2, 23);
+    private final QiitaProperties.Search cfg = new QiitaProperties.Search();
+
+    @Test
+    void of_pushesTagUserAndPeriodIntoQuery() {
+        QiitaSearchPlan plan = QiitaSearchPlan.of("#java @alice \"spring boot\" OR kotlin", "rel", SINCE, cfg);
+
+        assertThat(plan.query()).isEqualTo("tag:java user:alice \"spring boot\" OR kotlin created:>=2026-02-23");
+        assertThat(plan.pages()).isEqualTo(1);
+        assertThat(plan.sortByLikes()).isFalse();
+    }
+
+    @Test
+    void of_withCountSort_addsStocksFloorAndFetchesFewerPages() {
+        QiitaSearchPlan plan = QiitaSearchPlan.of("java", "count", null, cfg);
+
+        assertThat(plan.query()).isEqualTo("java stocks:>=5");
+        assertThat(plan.pages()).isEqualTo(3);
+        assertThat(plan.sortByLikes()).isTrue();
+    }
+
+    @Test
+    void of_withUserStocksPredicate_keepsUsersFloor() {
+        QiitaSearchPlan plan = QiitaSearchPlan.of("java stocks:>100", "count", null, cfg);
+
+        assertThat(plan.query()).isEqualTo("java stocks:>100");
+    }
+
+    @Test
+    void withoutStocksFloor_dropsOnlyTheAddedFloor() {
+        QiitaSearchPlan plan = QiitaSearchPlan.of("java", "count", SINCE, cfg).withoutStocksFloor();
+        QiitaSearchPlan users = QiitaSearchPlan.of("java stocks:>100", "count", null, cfg);
+
+        assertThat(plan.query()).isEqualTo("java created:>=2026-02-23");
+        assertThat(plan.hasStocksFloor()).isFalse();
+        assertThat(users.hasStocksFloor()).isFalse();
+        assertThat(users.withoutStocksFloor()).isSameAs(users);
+    }
+
+    @Test
+    void residual_comparesDatePrefixWithoutParsing() {
+        QiitaSearchPlan plan = QiitaSearchPlan.of(null, "rel", SINCE, cfg);
+
+        assertThat(plan.residual().test(item("2026-02-23T00:00:00+09:00"))).isTrue();
+        assertThat(plan.residual().test(item("2026-02-22T23:59:59+09:00"))).isFalse();
+        assertThat(plan.residual().test(item("2026"))).isFalse();
+        assertThat(plan.residual().test(item(null))).isFalse();
+        assertThat(QiitaSearchPlan.of(null, "rel", null, cfg).residual().test(item(null))).isTrue();
+    }
+
+    private static QiitaItem item(String createdAt) {
+        QiitaItem item = new QiitaItem();
+        item.setCreatedAt(createdAt);
+        return item;
+    }
+}
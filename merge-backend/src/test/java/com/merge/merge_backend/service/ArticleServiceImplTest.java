@@ -4,6 +4,8 @@ import com.merge.merge_backend.entity.Article;
 import com.merge.merge_backend.entity.CommentDev;
 import com.merge.merge_backend.entity.CommentQiita;
 import com.merge.merge_backend.repository.ArticleRepository;
+import com.merge.merge_backend.repository.MemoRepository;
+import com.merge.merge_backend.repository.TableVersion;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -26,6 +28,9 @@ class ArticleServiceImplTest {
     @Mock
     private ArticleRepository articleRepository;
 
+    @Mock
+    private MemoRepository memoRepository;
+
     @InjectMocks
     private ArticleServiceImpl articleService;
 
@@ -188,6 +193,46 @@ class ArticleServiceImplTest {
         assertThat(result.get(result.size() - 1).getId()).isEqualTo(1L);
     }
 
+    // ─── getLibraryVersions ───────────────────────────────────────
+
+    @Test
+    void getLibraryVersions_withAllPeriod_usesArticleAndMemoAggregates() {
+        // データ作成
+        TableVersion articles = new TableVersion(2, LocalDateTime.of(2026, 2, 1, 12, 0));
+        TableVersion memos = new TableVersion(5, LocalDateTime.of(2026, 2, 3, 9, 30));
+        // モック化
+        when(articleRepository.version()).thenReturn(articles);
+        when(memoRepository.version()).thenReturn(memos);
+
+        // 実行
+        List<TableVersion> result = articleService.getLibraryVersions("all");
+
+        // 検証
+        assertThat(result).containsExactly(articles, memos);
+        // 呼び出し検証（一覧そのものは読まない）
+        verify(articleRepository, never()).findByDeleteFlgFalse();
+        verify(articleRepository, never()).versionCreatedAfter(any());
+    }
+
+    @Test
+    void getLibraryVersions_withWeekPeriod_addsArticlesInWindow() {
+        // データ作成
+        TableVersion inWindow = new TableVersion(1, LocalDateTime.of(2026, 2, 3, 9, 30));
+        // モック化
+        when(articleRepository.version()).thenReturn(new TableVersion(2, null));
+        when(memoRepository.version()).thenReturn(new TableVersion(0, null));
+        when(articleRepository.versionCreatedAfter(any())).thenReturn(inWindow);
+
+        // 実行
+        List<TableVersion> result = articleService.getLibraryVersions("week");
+
+        // 検証
+        assertThat(result).hasSize(3).last().isEqualTo(inWindow);
+        verify(articleRepository).versionCreatedAfter(argThat(since ->
+                since.isAfter(LocalDateTime.now().minusWeeks(1).minusMinutes(1))
+                        && since.isBefore(LocalDateTime.now().minusDays(6))));
+    }
+
     // ─── createArticle ────────────────────────────────────────────
 
     @Test
@@ -0,0 +1,119 @@
+package com.merge.merge_backend.service;
+
+import com.merge.merge_backend.config.CacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CacheRefreshScheduler.
+ * HotListSource is a hand-written fake; the pool has a single thread so execution order equals submit order.
+ */
+class CacheRefreshSchedulerTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+    private static final Clock FIXED_CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    private ThreadPoolTaskScheduler pool;
+    private FakeSource source;
+    private CacheRefreshScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ThreadPoolTaskScheduler();
+        pool.setPoolSize(1);
+        pool.initialize();
+        source = new FakeSource();
+        CacheProperties props = new CacheProperties();
+        props.getRefresh().setJitterRatio(0);
+        scheduler = new CacheRefreshScheduler(List.of(source), props, pool, FIXED_CLOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void tick_refreshesEntryInsideLeadWindow() throws Exception {
+        // ttl 1000s, lead 10% → 100s 前から更新対象
+        source.add("week", NOW.plusSeconds(50), 1000, 0);
+        source.add("month", NOW.plusSeconds(500), 1000, 0);
+        source.expectRefreshes(1);
+
+        scheduler.tick();
+
+        assertThat(source.await()).isTrue();
+        assertThat(source.refreshed).containsExactly("week");
+    }
+
+    @Test
+    void tick_ordersDueEntriesByRequestCount() throws Exception {
+        source.add("week", NOW.minusSeconds(1), 1000, 3);
+        source.add("month", NOW.minusSeconds(1), 1000, 40);
+        source.add("1day", NOW.minusSeconds(1), 1000, 10);
+        source.expectRefreshes(3);
+
+        scheduler.tick();
+
+        assertThat(source.await()).isTrue();
+        assertThat(source.refreshed).containsExactly("month", "1day", "week");
+    }
+
+    @Test
+    void tick_afterRefreshWithUnchangedExpiry_backsOffInsteadOfRetryingImmediately() throws Exception {
+        source.add("week", NOW.minusSeconds(1), 1000, 0);
+        source.expectRefreshes(1);
+        scheduler.tick();
+        assertThat(source.await()).isTrue();
+        Thread.sleep(50);
+
+        scheduler.tick();
+        pool.getScheduledThreadPoolExecutor().shutdown();
+        pool.getScheduledThreadPoolExecutor().awaitTermination(1, TimeUnit.SECONDS);
+
+        assertThat(source.refreshed).containsExactly("week");
+    }
+
+    private static class FakeSource implements HotListSource {
+        final Map<String, Instant> expiries = new HashMap<>();
+        final Map<String, Long> ttls = new HashMap<>();
+        final Map<String, Long> requests = new HashMap<>();
+        final List<String> refreshed = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(0);
+
+        void add(String period, Instant expiresAt, long ttl, long requestCount) {
+            expiries.put(period, expiresAt);
+            ttls.put(period, ttl);
+            requests.put(period, requestCount);
+        }
+
+        void expectRefreshes(int count) { latch = new CountDownLatch(count); }
+
+        boolean await() throws InterruptedException { return latch.await(2, TimeUnit.SECONDS); }
+
+        @Override public String sourceName() { return "fake"; }
+        @Override public Map<String, Instant> getHotCacheExpiries() { return new HashMap<>(expiries); }
+        @Override public long getHotTtlSeconds(String period) { return ttls.get(period); }
+        @Override public long getHotRequestCount(String period) { return requests.get(period); }
+
+        @Override
+        public void refreshHotArticles(String period) {
+            refreshed.add(period);
+            latch.countDown();
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.config.CacheProperties;
 import com.merge.merge_backend.config.DevProperties;
 import com.merge.merge_backend.dto.DevCommentItem;
 import com.merge.merge_backend.dto.DevItem;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.CircuitBreaker;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.PageFanOut;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.UpstreamGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
@@ -31,7 +49,21 @@ class DevServiceImplTest {
     void setUp() {
         RestClient.Builder builder = RestClient.builder();
         mockServer = MockRestServiceServer.bindTo(builder).build();
-        service = new DevServiceImpl(builder.build(), new DevProperties());
+        Clock clock = Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC);
+        service = newService(builder.build(), clock);
+    }
+
+    private static DevServiceImpl newService(RestClient restClient, Clock clock) {
+        return newService(restClient, clock, new CacheProperties());
+    }
+
+    private static DevServiceImpl newService(RestClient restClient, Clock clock, CacheProperties cacheProperties) {
+        return new DevServiceImpl(restClient, new DevProperties(), new PageFanOut("dev", 3), AdaptivePaging.disabled("dev"),
+                new RateLimitBudget("dev", clock, 0.2, 0.25),
+                new UpstreamGuard("dev", clock, new CircuitBreaker(clock, 20, 10, 0.5, Duration.ofSeconds(30), 3),
+                        8, Duration.ofMillis(250), UpstreamGuard.Retry.NONE), Hedger.disabled("dev"), clock,
+                cacheProperties, new CacheRegistry(cacheProperties), new ItemRegistry(),
+                new BodyStore(1 << 20, 6), Runnable::run);
     }
 
     @Test
@@ -65,13 +97,53 @@ class DevServiceImplTest {
     }
 
     @Test
-    void searchArticles_withCommaSeparatedTags_usesFirstTagForApi() {
-        mockServer.expect(requestTo(allOf(containsString("tag=javascript"), not(containsString("typescript")))))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+    void searchArticles_withCommaSeparatedTags_queriesEachTagAndKeepsArticlesWithAll() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        DevServiceImpl tagService = newService(builder.build(), Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC));
+        server.expect(requestTo(allOf(containsString("tag=javascript"), not(containsString("typescript")))))
+                .andRespond(withSuccess(devItemArray("a1", 1, "b1", 1, "c1", 1), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(allOf(containsString("tag=typescript"), not(containsString("javascript")))))
+                .andRespond(withSuccess(devItemArray("c1", 1, "a1", 1, "d1", 1), MediaType.APPLICATION_JSON));
+
+        List<DevItem> result = tagService.searchArticles("javascript,typescript", "rel", "all");
+
+        // a1 は平均 0.5 位、c1 は平均 1 位
+        assertThat(result).extracting(DevItem::getId).containsExactly("a1", "c1");
+        server.verify();
+    }
+
+    @Test
+    void searchArticles_withPipeSeparatedTags_returnsArticlesWithAnyTagRankedByMatches() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        DevServiceImpl tagService = newService(builder.build(), Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC));
+        server.expect(requestTo(containsString("tag=java&")))
+                .andRespond(withSuccess(devItemArray("x1", 1, "y1", 1), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(containsString("tag=kotlin&")))
+                .andRespond(withSuccess(devItemArray("y1", 1, "z1", 1), MediaType.APPLICATION_JSON));
 
-        service.searchArticles("javascript,typescript", "rel", "all");
+        List<DevItem> result = tagService.searchArticles("java | kotlin", "rel", "all");
 
-        mockServer.verify();
+        assertThat(result).extracting(DevItem::getId).containsExactly("y1", "x1", "z1");
+        server.verify();
+    }
+
+    @Test
+    void searchArticles_withMoreAnyTagsThanParallelLimit_queriesEveryTag() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        DevServiceImpl tagService = newService(builder.build(), Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC));
+        for (String tag : List.of("go", "rust", "zig", "nim", "odin")) {
+            server.expect(requestTo(containsString("tag=" + tag + "&")))
+                    .andRespond(withSuccess(devItemArray(tag + "1", 1), MediaType.APPLICATION_JSON));
+        }
+
+        List<DevItem> result = tagService.searchArticles("go|rust|zig|nim|odin", "rel", "all");
+
+        // 5 つめのタグ (odin) だけを持つ記事も落とさない
+        assertThat(result).extracting(DevItem::getId).containsExactlyInAnyOrder("go1", "rust1", "zig1", "nim1", "odin1");
+        server.verify();
     }
 
     @Test
@@ -138,8 +210,6 @@ class DevServiceImplTest {
     void searchArticles_withCountSort_returnsSortedByLikesDescending() {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withSuccess(devItemArray("h1", 500, "l1", 10), MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         List<DevItem> result = service.searchArticles("java", "count", "week");
 
@@ -154,8 +224,6 @@ class DevServiceImplTest {
                 .andRespond(withSuccess(
                         "[{\"id\":\"n1\"},{\"id\":\"w1\",\"positive_reactions_count\":100}]",
                         MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         List<DevItem> result = service.searchArticles("java", "count", "week");
 
@@ -167,8 +235,6 @@ class DevServiceImplTest {
     void searchArticles_withZeroLikesCount_treatedAsZero() {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withSuccess(devItemArray("z1", 0, "h1", 50), MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         List<DevItem> result = service.searchArticles("java", "count", "all");
 
@@ -181,8 +247,6 @@ class DevServiceImplTest {
     void searchArticles_withLargeLikesCount_sortedCorrectly() {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withSuccess(devItemArray("b1", 99999, "s1", 1), MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         List<DevItem> result = service.searchArticles("java", "count", "all");
 
@@ -212,6 +276,65 @@ class DevServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void searchArticles_withEquivalentKeyword_servesSecondCallFromCache() {
+        mockServer.expect(requestTo(containsString("tag=machine-learning")))
+                .andRespond(withSuccess("[{\"id\":\"m1\",\"positive_reactions_count\":3}]", MediaType.APPLICATION_JSON));
+
+        service.searchArticles("Machine Learning", "rel", "week");
+        List<DevItem> cached = service.searchArticles("  machine   learning ", "rel", "week");
+
+        assertThat(cached).extracting(DevItem::getId).containsExactly("m1");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_withAddedTagShorterPeriodAndCountSort_answersFromCachedSuperset() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getSearch().setRefineMinResults(1);
+        DevServiceImpl refining = newService(builder.build(),
+                Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC), cacheProperties);
+        server.expect(requestTo(allOf(containsString("tag=java"), containsString("top=30"))))
+                .andRespond(withSuccess("["
+                        + "{\"id\":\"a1\",\"positive_reactions_count\":3,\"tag_list\":[\"java\",\"spring\"],\"published_at\":\"2026-02-28T00:00:00Z\"},"
+                        + "{\"id\":\"a2\",\"positive_reactions_count\":9,\"tag_list\":[\"java\",\"spring\"],\"published_at\":\"2026-02-10T00:00:00Z\"},"
+                        + "{\"id\":\"a3\",\"positive_reactions_count\":7,\"tag_list\":[\"java\"],\"published_at\":\"2026-03-01T00:00:00Z\"},"
+                        + "{\"id\":\"a4\",\"positive_reactions_count\":5,\"tag_list\":[\"java\",\"spring\"],\"published_at\":\"2026-03-01T00:00:00Z\"}]",
+                        MediaType.APPLICATION_JSON));
+
+        refining.searchArticles("java", "rel", "month");
+        List<DevItem> refined = refining.searchArticles("java,spring", "count", "week");
+
+        assertThat(refined).extracting(DevItem::getId).containsExactly("a4", "a1");
+        server.verify();
+    }
+
+    @Test
+    void searchArticles_withTruncatedCachedTopWindow_fetchesFromUpstream() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getSearch().setRefineMinResults(1);
+        DevServiceImpl refining = newService(builder.build(),
+                Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC), cacheProperties);
+        String fullPage = IntStream.range(0, 1000)
+                .mapToObj(i -> "{\"id\":\"a" + i + "\",\"tag_list\":[\"java\"],\"published_at\":\"2026-03-01T00:00:00Z\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        server.expect(requestTo(allOf(containsString("tag=java"), containsString("top=30"))))
+                .andRespond(withSuccess(fullPage, MediaType.APPLICATION_JSON));
+        // 30 日の top を 1 ページで打ち切った結果は、7 日の top の全件ではない
+        server.expect(ExpectedCount.once(), requestTo(allOf(containsString("tag=java"), containsString("top=7"))))
+                .andRespond(withSuccess("[{\"id\":\"w1\",\"tag_list\":[\"java\"]}]", MediaType.APPLICATION_JSON));
+
+        refining.searchArticles("java", "rel", "month");
+        List<DevItem> result = refining.searchArticles("java", "rel", "week");
+
+        assertThat(result).extracting(DevItem::getId).containsExactly("w1");
+        server.verify();
+    }
+
     @Test
     void getArticleDetail_returnsItemFromApi() {
         mockServer.expect(requestTo(containsString("/articles/42")))
@@ -259,12 +382,22 @@ class DevServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void getArticleComments_calledTwice_fetchesOnce() {
+        mockServer.expect(requestTo(containsString("a_id=42")))
+                .andRespond(withSuccess("[{\"id\":\"c1\",\"body\":\"Great post!\"}]", MediaType.APPLICATION_JSON));
+
+        service.getArticleComments("42");
+        List<DevCommentItem> cached = service.getArticleComments("42");
+
+        assertThat(cached).hasSize(1);
+        mockServer.verify();
+    }
+
     @Test
     void getHotArticles_noArg_delegatesToWeekPeriodAndReturnsItems() {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withSuccess("[{\"id\":\"a1\",\"positive_reactions_count\":10}]", MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         List<DevItem> result = service.getHotArticles();
 
@@ -298,6 +431,67 @@ class DevServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void getHotArticles_withMostItemsBelowThreshold_keepsFetchingFullPagesAndDropsDuplicates() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        Clock clock = Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC);
+        DevServiceImpl pagedService = newService(builder.build(), clock);
+        // week: 3 ページ、minReactions=5。各ページ 500 件中ほとんどがしきい値未満
+        server.expect(requestTo(containsString("page=1&")))
+                .andRespond(withSuccess(fullPage("p1-", "keep", 40), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(containsString("page=2&")))
+                .andRespond(withSuccess(fullPage("p2-", "keep", 40), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(containsString("page=3&")))
+                .andRespond(withSuccess(devItemArray("late", 12, "noise", 1), MediaType.APPLICATION_JSON));
+
+        List<DevItem> result = pagedService.getHotArticles("week");
+
+        assertThat(result).extracting(DevItem::getId).containsExactly("keep", "late");
+        server.verify();
+    }
+
+    @Test
+    void refreshHotArticles_whenUpstreamFails_keepsPreviousList() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"a1\",\"positive_reactions_count\":10}]", MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything())).andRespond(withServerError());
+        mockServer.expect(requestTo(anything())).andRespond(withServerError());
+
+        service.getHotArticles("week");
+        service.refreshHotArticles("week");
+        List<DevItem> result = service.getHotArticles("week");
+
+        assertThat(result).extracting(DevItem::getId).containsExactly("a1");
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_withinRebuildInterval_fetchesLatestAndTopAndMerges() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"a1\",\"positive_reactions_count\":30,\"published_at\":\"2026-02-28T00:00:00Z\"},"
+                        + "{\"id\":\"a2\",\"positive_reactions_count\":20,\"published_at\":\"2026-02-27T00:00:00Z\"}]",
+                        MediaType.APPLICATION_JSON));
+        // 前回の取得以降に公開された記事。それより前のものは差分に入れない
+        mockServer.expect(requestTo(containsString("/articles/latest?per_page=500&page=1")))
+                .andRespond(withSuccess("[{\"id\":\"new\",\"positive_reactions_count\":25,\"published_at\":\"2026-03-02T00:00:00Z\"},"
+                        + "{\"id\":\"older\",\"positive_reactions_count\":99,\"published_at\":\"2026-03-01T00:00:00Z\"}]",
+                        MediaType.APPLICATION_JSON));
+        // 上位の記事の最新のリアクション数。しきい値を割った記事は落ちる
+        mockServer.expect(requestTo(containsString("per_page=100&page=1&top=7")))
+                .andRespond(withSuccess("[{\"id\":\"a2\",\"positive_reactions_count\":40,\"published_at\":\"2026-02-27T00:00:00Z\"},"
+                        + "{\"id\":\"a1\",\"positive_reactions_count\":1,\"published_at\":\"2026-02-28T00:00:00Z\"}]",
+                        MediaType.APPLICATION_JSON));
+
+        service.getHotArticles("week");
+        service.refreshHotArticles("week");
+
+        assertThat(service.getHotArticles("week"))
+                .extracting(DevItem::getId, DevItem::getLikesCount)
+                .containsExactly(tuple("a2", 40), tuple("new", 25));
+        mockServer.verify();
+    }
+
     @Test
     void getTimelineArticles_returnsItemsFromApi() {
         mockServer.expect(requestTo(anything()))
@@ -345,6 +539,33 @@ class DevServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void getArticleBySlug_afterDetailById_isServedFromCache() {
+        mockServer.expect(requestTo(containsString("/articles/99")))
+                .andRespond(withSuccess("{\"id\":\"99\",\"slug\":\"my-article\",\"user\":{\"username\":\"alice\"}}",
+                        MediaType.APPLICATION_JSON));
+
+        service.getArticleDetail("99");
+        DevItem result = service.getArticleBySlug("alice", "my-article");
+
+        assertThat(result.getId()).isEqualTo("99");
+        mockServer.verify();
+    }
+
+    @Test
+    void getArticleDetail_afterSlugLookup_isServedFromCache() {
+        mockServer.expect(requestTo(containsString("/articles/alice/my-article")))
+                .andRespond(withSuccess("{\"id\":\"99\",\"title\":\"Slug Article\"}", MediaType.APPLICATION_JSON));
+
+        service.getArticleBySlug("alice", "my-article");
+        DevItem byId = service.getArticleDetail("99");
+        DevItem bySlug = service.getArticleBySlug("alice", "my-article");
+
+        assertThat(byId.getTitle()).isEqualTo("Slug Article");
+        assertThat(bySlug.getId()).isEqualTo("99");
+        mockServer.verify();
+    }
+
     private static String devItemArray(Object... idAndLikes) {
         StringBuilder sb = new StringBuilder("[");
         for (int i = 0; i < idAndLikes.length; i += 2) {
@@ -357,4 +578,16 @@ class DevServiceImplTest {
         }
         return sb.append("]").toString();
     }
-}
\ No newline at end of file
+
+    /** 1 件だけしきい値以上で、残りはしきい値未満の 500 件のページ */
+    private static String fullPage(String prefix, String hotId, int hotLikes) {
+        Object[] idAndLikes = new Object[500 * 2];
+        idAndLikes[0] = hotId;
+        idAndLikes[1] = hotLikes;
+        for (int i = 1; i < 500; i++) {
+            idAndLikes[i * 2] = prefix + i;
+            idAndLikes[i * 2 + 1] = 1;
+        }
+        return devItemArray(idAndLikes);
+    }
+}
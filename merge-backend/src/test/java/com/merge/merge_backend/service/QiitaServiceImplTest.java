@@ -1,24 +1,54 @@
 package com.merge.merge_backend.service;
 
+import com.merge.merge_backend.cache.BodyStore;
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.cache.CacheEntry;
+import com.merge.merge_backend.cache.CacheRegistry;
+import com.merge.merge_backend.cache.ItemRegistry;
+import com.merge.merge_backend.config.CacheProperties;
 import com.merge.merge_backend.config.QiitaProperties;
 import com.merge.merge_backend.dto.QiitaCommentItem;
 import com.merge.merge_backend.dto.QiitaItem;
+import com.merge.merge_backend.dto.QiitaItemSummary;
+import com.merge.merge_backend.upstream.AdaptivePaging;
+import com.merge.merge_backend.upstream.CircuitBreaker;
+import com.merge.merge_backend.upstream.ConditionalRequestInterceptor;
+import com.merge.merge_backend.upstream.Hedger;
+import com.merge.merge_backend.upstream.PageFanOut;
+import com.merge.merge_backend.upstream.RateLimitBudget;
+import com.merge.merge_backend.upstream.RateLimitInterceptor;
+import com.merge.merge_backend.upstream.UpstreamGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.anything;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
@@ -32,13 +62,15 @@ class QiitaServiceImplTest {
             TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
 
     private MockRestServiceServer mockServer;
+    private RestClient restClient;
     private QiitaServiceImpl service;
 
     @BeforeEach
     void setUp() {
         RestClient.Builder builder = RestClient.builder();
         mockServer = MockRestServiceServer.bindTo(builder).build();
-        service = new QiitaServiceImpl(builder.build(), new QiitaProperties(), FIXED_CLOCK);
+        restClient = builder.build();
+        service = newService(restClient, FIXED_CLOCK);
     }
 
     @Test
@@ -49,7 +81,7 @@ class QiitaServiceImplTest {
                                        "recent", TODAY + "T00:00:00+09:00", 0),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles(null, "rel", "all");
+        List<QiitaItemSummary> result = service.searchArticles(null, "rel", "all");
 
         assertThat(result).hasSize(2);
         mockServer.verify();
@@ -63,7 +95,7 @@ class QiitaServiceImplTest {
                                        "o1", "2026-02-20T00:00:00+09:00", 0),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "week");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "week");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("r1");
@@ -78,7 +110,7 @@ class QiitaServiceImplTest {
                                        "o2", "2026-01-15T00:00:00+09:00", 0),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "month");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "month");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("r2");
@@ -93,7 +125,7 @@ class QiitaServiceImplTest {
                                        "o3", "2026-02-28T00:00:00+09:00", 0),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "1day");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "1day");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("t1");
@@ -107,7 +139,7 @@ class QiitaServiceImplTest {
                         "[{\"id\":\"nd\"},{\"id\":\"v1\",\"created_at\":\"" + TODAY + "T00:00:00+09:00\"}]",
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "week");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "week");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("v1");
@@ -121,7 +153,7 @@ class QiitaServiceImplTest {
                         "[{\"id\":\"bad\",\"created_at\":\"2026-99-99\"}]",
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "week");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "week");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("bad");
@@ -135,7 +167,7 @@ class QiitaServiceImplTest {
                         "[{\"id\":\"short\",\"created_at\":\"INVALID\"}]",
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "week");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "week");
 
         assertThat(result).isEmpty();
         mockServer.verify();
@@ -143,21 +175,38 @@ class QiitaServiceImplTest {
 
     @Test
     void searchArticles_withCountSort_returnsSortedByLikesDescending() {
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess(
-                        qiitaItemArray("l1", TODAY + "T00:00:00+09:00", 10,
-                                       "h1", TODAY + "T00:00:00+09:00", 500),
-                        MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        String items = qiitaItemArray("l1", TODAY + "T00:00:00+09:00", 10,
+                                      "h1", TODAY + "T00:00:00+09:00", 500);
+        mockServer.expect(requestTo(anything())).andRespond(withSuccess(items, MediaType.APPLICATION_JSON));
+        // 1 ページに満たないので下限なしでも取り直す
+        mockServer.expect(requestTo(anything())).andRespond(withSuccess(items, MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "count", "all");
+        List<QiitaItemSummary> result = service.searchArticles("java", "count", "all");
 
         assertThat(result.get(0).getLikesCount()).isEqualTo(500);
         assertThat(result.get(1).getLikesCount()).isEqualTo(10);
         mockServer.verify();
     }
 
+    @Test
+    void searchArticles_withCountSortAndSparseKeyword_retriesWithoutStocksFloor() {
+        // 下限付きでは 1 ページに満たない
+        mockServer.expect(requestTo(containsString("rarekeyword%20stocks:%3E=5")))
+                .andRespond(withSuccess(qiitaItemArray("s1", TODAY + "T00:00:00+09:00", 40),
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(not(containsString("stocks"))))
+                .andRespond(withSuccess(
+                        qiitaItemArray("f1", TODAY + "T00:00:00+09:00", 1,
+                                       "s1", TODAY + "T00:00:00+09:00", 40,
+                                       "f2", TODAY + "T00:00:00+09:00", 3),
+                        MediaType.APPLICATION_JSON));
+
+        List<QiitaItemSummary> result = service.searchArticles("rarekeyword", "count", "all");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("s1", "f2", "f1");
+        mockServer.verify();
+    }
+
     @Test
     void searchArticles_withRelSort_preservesOriginalOrder() {
         mockServer.expect(requestTo(anything()))
@@ -166,7 +215,7 @@ class QiitaServiceImplTest {
                                        "s1", TODAY + "T00:00:00+09:00", 500),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.searchArticles("java", "rel", "all");
+        List<QiitaItemSummary> result = service.searchArticles("java", "rel", "all");
 
         assertThat(result.get(0).getId()).isEqualTo("f1");
         mockServer.verify();
@@ -239,6 +288,149 @@ class QiitaServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void searchArticles_withEquivalentQuery_servesSecondCallFromCache() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("s1", TODAY + "T00:00:00+09:00", 10),
+                        MediaType.APPLICATION_JSON));
+
+        service.searchArticles("java  spring", "rel", "all");
+        List<QiitaItemSummary> cached = service.searchArticles(" java spring ", "unknown", "bogus");
+
+        assertThat(cached).extracting(QiitaItemSummary::getId).containsExactly("s1");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_withAddedTermAndShorterPeriod_answersFromCachedSuperset() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getSearch().setRefineMinResults(1);
+        QiitaServiceImpl refining = newService(restClient, FIXED_CLOCK, cacheProperties);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("["
+                        + "{\"id\":\"s1\",\"title\":\"Spring Boot入門\",\"created_at\":\"2026-02-27T00:00:00+09:00\"},"
+                        + "{\"id\":\"s2\",\"title\":\"Spring Security\",\"created_at\":\"2026-01-10T00:00:00+09:00\"},"
+                        + "{\"id\":\"k1\",\"title\":\"Kotlin\",\"created_at\":\"2026-03-01T00:00:00+09:00\"},"
+                        + "{\"id\":\"s3\",\"title\":\"spring の小ネタ\",\"created_at\":\"2026-03-01T00:00:00+09:00\"}]",
+                        MediaType.APPLICATION_JSON));
+
+        refining.searchArticles("java", "rel", "all");
+        // 上流への 2 回目のリクエストは期待していないので、来たら MockRestServiceServer が失敗する
+        List<QiitaItemSummary> refined = refining.searchArticles("java spring", "created", "week");
+
+        assertThat(refined).extracting(QiitaItemSummary::getId).containsExactly("s3", "s1");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_withTruncatedCachedSearch_fetchesFromUpstream() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getSearch().setRefineMinResults(1);
+        QiitaServiceImpl refining = newService(restClient, FIXED_CLOCK, cacheProperties);
+        StringBuilder fullPage = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) fullPage.append(",");
+            fullPage.append("{\"id\":\"s").append(i).append("\",\"title\":\"Spring ").append(i)
+                    .append("\",\"created_at\":\"").append(TODAY).append("T00:00:00+09:00\"}");
+        }
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(fullPage.append("]").toString(), MediaType.APPLICATION_JSON));
+        // 1 ページ目が埋まっていた検索は打ち切られているので、絞り込みの元にしない
+        mockServer.expect(requestTo(anything()))
+                .andExpect(r -> assertThat(r.getURI().getQuery()).contains("java spring"))
+                .andRespond(withSuccess(qiitaItemArray("u1", TODAY + "T00:00:00+09:00", 1), MediaType.APPLICATION_JSON));
+
+        refining.searchArticles("java", "rel", "all");
+        List<QiitaItemSummary> result = refining.searchArticles("java spring", "rel", "all");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("u1");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_whenRefinementLeavesTooFewResults_fetchesFromUpstream() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"s1\",\"title\":\"Spring\",\"created_at\":\"2026-03-01T00:00:00+09:00\"}]",
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything()))
+                .andExpect(r -> assertThat(r.getURI().getQuery()).contains("java spring"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        service.searchArticles("java", "rel", "all");
+        service.searchArticles("java spring", "rel", "all");
+
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_afterTtl_fetchesAgain() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl ttlService = newService(restClient, clock);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("old", TODAY + "T00:00:00+09:00", 1),
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("new", TODAY + "T00:00:00+09:00", 1),
+                        MediaType.APPLICATION_JSON));
+
+        ttlService.searchArticles("java", "rel", "all");
+        clock.advanceSeconds(301);
+        List<QiitaItemSummary> result = ttlService.searchArticles("java", "rel", "all");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("new");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_whenBudgetExhausted_servesExpiredResult() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl budgeted = newBudgetedService(clock, new RateLimitBudget("qiita", clock, 0.2, 0.25));
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("s1", TODAY + "T00:00:00+09:00", 1), MediaType.APPLICATION_JSON)
+                        .headers(rateHeaders(60, 0)));
+
+        budgeted.searchArticles("java", "rel", "all");
+        clock.advanceSeconds(301);
+        List<QiitaItemSummary> result = budgeted.searchArticles("java", "rel", "all");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("s1");
+        mockServer.verify();
+    }
+
+    @Test
+    void searchArticles_whenCircuitOpen_servesExpiredResultWithoutCallingUpstream() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        CircuitBreaker breaker = new CircuitBreaker(clock, 1, 1, 0.5, Duration.ofSeconds(30), 1);
+        QiitaServiceImpl guarded = newService(restClient, clock, new BodyStore(1 << 20, 6),
+                new RateLimitBudget("qiita", clock, 0.2, 0.25), newGuard(clock, breaker));
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("s1", TODAY + "T00:00:00+09:00", 1), MediaType.APPLICATION_JSON));
+
+        guarded.searchArticles("java", "rel", "all");
+        clock.advanceSeconds(301);
+        breaker.onFailure();
+        List<QiitaItemSummary> result = guarded.searchArticles("java", "rel", "all");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("s1");
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_withinInteractiveReserve_skipsUpstreamAndKeepsList() {
+        RateLimitBudget rateLimit = new RateLimitBudget("qiita", FIXED_CLOCK, 0.2, 0.25);
+        QiitaServiceImpl budgeted = newBudgetedService(FIXED_CLOCK, rateLimit);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("a1", TODAY + "T00:00:00+09:00", 10), MediaType.APPLICATION_JSON)
+                        .headers(rateHeaders(100, 10)));
+
+        budgeted.getHotArticles("week");
+        budgeted.refreshHotArticles("week");
+
+        assertThat(budgeted.getHotArticles("week")).extracting(QiitaItemSummary::getId).containsExactly("a1");
+        assertThat(rateLimit.snapshot().interactiveGranted()).isEqualTo(1);
+        mockServer.verify();
+    }
+
     @Test
     void getArticleDetail_returnsItemFromApi() {
         mockServer.expect(requestTo(containsString("/items/id123")))
@@ -285,6 +477,233 @@ class QiitaServiceImplTest {
         mockServer.verify();
     }
 
+    @Test
+    void getArticleDetail_calledTwice_fetchesOnce() {
+        mockServer.expect(requestTo(containsString("/items/id123")))
+                .andRespond(withSuccess("{\"id\":\"id123\"}", MediaType.APPLICATION_JSON));
+
+        service.getArticleDetail("id123");
+        QiitaItem cached = service.getArticleDetail("id123");
+
+        assertThat(cached.getId()).isEqualTo("id123");
+        mockServer.verify();
+    }
+
+    @Test
+    void getArticleDetail_afterError_fetchesAgain() {
+        mockServer.expect(requestTo(anything())).andRespond(withServerError());
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("{\"id\":\"id123\"}", MediaType.APPLICATION_JSON));
+
+        service.getArticleDetail("id123");
+        QiitaItem result = service.getArticleDetail("id123");
+
+        assertThat(result.getId()).isEqualTo("id123");
+        mockServer.verify();
+    }
+
+    @Test
+    void getArticleDetail_afterHotListFetch_isServedFromMemory() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"h1\",\"rendered_body\":\"<p>body</p>\",\"created_at\":\""
+                        + TODAY + "T00:00:00+09:00\",\"likes_count\":10}]", MediaType.APPLICATION_JSON));
+
+        QiitaItemSummary listed = service.getHotArticles("week").get(0);
+        QiitaItem detail = service.getArticleDetail("h1");
+
+        assertThat(listed.getRenderedBody()).isNull();
+        assertThat(listed.getExcerpt()).isEqualTo("body");
+        assertThat(detail.getRenderedBody()).isEqualTo("<p>body</p>");
+        mockServer.verify();
+    }
+
+    @Test
+    void getHotArticles_compressesListedBodiesOffTheRequestThread() {
+        BodyStore bodyStore = new BodyStore(1 << 20, 6);
+        List<Runnable> background = new ArrayList<>();
+        QiitaServiceImpl deferred = newService(restClient, FIXED_CLOCK, bodyStore,
+                new RateLimitBudget("qiita", FIXED_CLOCK, 0.2, 0.25), newGuard(FIXED_CLOCK, new CircuitBreaker(FIXED_CLOCK,
+                        20, 10, 0.5, Duration.ofSeconds(30), 3)), new CacheProperties(), background::add);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"h1\",\"rendered_body\":\"<p>body</p>\",\"created_at\":\""
+                        + TODAY + "T00:00:00+09:00\",\"likes_count\":10}]", MediaType.APPLICATION_JSON));
+
+        deferred.getHotArticles("week");
+
+        assertThat(bodyStore.contains("qiita/h1")).isFalse();
+        background.forEach(Runnable::run);
+        assertThat(bodyStore.contains("qiita/h1")).isTrue();
+        assertThat(deferred.getArticleDetail("h1").getRenderedBody()).isEqualTo("<p>body</p>");
+        mockServer.verify();
+    }
+
+    @Test
+    void getHotArticles_listedBodies_doNotEvictOpenedBodies() {
+        // 開いた本文 1 件でほぼ埋まる BodyStore
+        BodyStore bodyStore = new BodyStore(200, 6);
+        QiitaServiceImpl small = newService(restClient, FIXED_CLOCK, bodyStore);
+        mockServer.expect(requestTo(containsString("/items/opened")))
+                .andRespond(withSuccess("{\"id\":\"opened\",\"rendered_body\":\"<p>opened article</p>\"}",
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(containsString("/items?")))
+                .andRespond(withSuccess(listWithBodies(20), MediaType.APPLICATION_JSON));
+
+        small.getArticleDetail("opened");
+        small.getHotArticles("week");
+
+        assertThat(bodyStore.contains("qiita/opened")).isTrue();
+        assertThat(bodyStore.stats().evictions()).isZero();
+        assertThat(bodyStore.stats().storedBytes()).isLessThanOrEqualTo(200);
+        mockServer.verify();
+    }
+
+    private static String listWithBodies(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"l").append(i).append("\",\"rendered_body\":\"<p>listed body ").append(i)
+                    .append(" with some text</p>\",\"created_at\":\"").append(TODAY)
+                    .append("T00:00:00+09:00\",\"likes_count\":").append(i).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    void getArticleDetail_keepsBodyInBodyStoreAndRestoresIt() {
+        BodyStore bodyStore = new BodyStore(1 << 20, 6);
+        QiitaServiceImpl offHeapService = newService(restClient, FIXED_CLOCK, bodyStore);
+        mockServer.expect(requestTo(containsString("/items/id123")))
+                .andRespond(withSuccess("{\"id\":\"id123\",\"rendered_body\":\"<p>本文</p>\"}",
+                        MediaType.APPLICATION_JSON));
+
+        offHeapService.getArticleDetail("id123");
+        QiitaItem cached = offHeapService.getArticleDetail("id123");
+
+        assertThat(bodyStore.contains("qiita/id123")).isTrue();
+        assertThat(cached.getRenderedBody()).isEqualTo("<p>本文</p>");
+        mockServer.verify();
+    }
+
+    @Test
+    void getArticleDetail_whenBodyWasEvicted_fetchesAgain() {
+        BodyStore bodyStore = new BodyStore(1 << 20, 6);
+        QiitaServiceImpl offHeapService = newService(restClient, FIXED_CLOCK, bodyStore);
+        mockServer.expect(ExpectedCount.twice(), requestTo(containsString("/items/id123")))
+                .andRespond(withSuccess("{\"id\":\"id123\",\"rendered_body\":\"<p>本文</p>\"}",
+                        MediaType.APPLICATION_JSON));
+
+        offHeapService.getArticleDetail("id123");
+        bodyStore.invalidate("qiita/id123");
+        QiitaItem result = offHeapService.getArticleDetail("id123");
+
+        assertThat(result.getRenderedBody()).isEqualTo("<p>本文</p>");
+        mockServer.verify();
+    }
+
+    @Test
+    void withBodies_fillsOnlyBodiesHeldInMemory() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[{\"id\":\"h1\",\"rendered_body\":\"<p>body</p>\",\"created_at\":\""
+                        + TODAY + "T00:00:00+09:00\",\"likes_count\":10}]", MediaType.APPLICATION_JSON));
+        QiitaItemSummary unknown = new QiitaItemSummary();
+        unknown.setId("other");
+
+        List<QiitaItemSummary> hot = service.getHotArticles("week");
+        List<QiitaItemSummary> result = service.withBodies(List.of(hot.get(0), unknown));
+
+        assertThat(result).extracting(QiitaItemSummary::getRenderedBody).containsExactly("<p>body</p>", null);
+        // キャッシュ上のサマリは書き換えない
+        assertThat(hot.get(0).getRenderedBody()).isNull();
+        mockServer.verify();
+    }
+
+    @Test
+    void getHotArticles_fullAllPeriodList_fitsDefaultHotBudget() {
+        // period=all の最大 10 ページ x 100 件。本文・タグ・ユーザー付きの実際に近い記事
+        mockServer.expect(ExpectedCount.times(10), requestTo(anything()))
+                .andRespond(request -> {
+                    String page = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("page");
+                    return withSuccess(realisticPage(page), MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        assertThat(service.getHotArticles("all")).hasSize(1000);
+        // 予算に収まっていれば 2 回目はキャッシュから返る（上流には行かない）
+        assertThat(service.getHotArticles("all")).hasSize(1000);
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_fullPageThroughConditionalRequests_isRevalidatedWith304() {
+        ConditionalRequestInterceptor conditional = new ConditionalRequestInterceptor(
+                new BoundedCache<>("qiita-conditional", new CacheProperties().getStore("qiita-conditional")
+                        .getMaxWeight().toBytes(), ConditionalRequestInterceptor::weigh));
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(conditional);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl conditionalService = newService(builder.build(), clock);
+        HttpHeaders validators = new HttpHeaders();
+        validators.setETag("\"hot-1day\"");
+        // 本文付き 100 件の 1 ページ（1MB 超）
+        String page = realisticPage("1");
+        assertThat(page.getBytes(StandardCharsets.UTF_8).length).isGreaterThan(1 << 20);
+        server.expect(requestTo(anything()))
+                .andRespond(withSuccess(page, MediaType.APPLICATION_JSON).headers(validators));
+        server.expect(requestTo(anything()))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"hot-1day\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        conditionalService.getHotArticles("1day");
+        clock.advanceSeconds(new CacheProperties().getRefresh().getFullRebuildIntervalSeconds());
+        conditionalService.refreshHotArticles("1day");
+
+        assertThat(conditionalService.getHotArticles("1day")).hasSize(100);
+        assertThat(conditional.stats().notModified()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void getHotArticles_samePostInTwoPeriods_sharesOneInstance() {
+        String body = qiitaItemArray("p1", TODAY + "T00:00:00+09:00", 10);
+        mockServer.expect(ExpectedCount.twice(), requestTo(anything()))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+
+        QiitaItemSummary week = service.getHotArticles("week").get(0);
+        QiitaItemSummary month = service.getHotArticles("month").get(0);
+
+        assertThat(month).isSameAs(week);
+        mockServer.verify();
+    }
+
+    @Test
+    void getHotArticles_samePostWithNewLikes_doesNotShareOlderInstance() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("p1", TODAY + "T00:00:00+09:00", 10), MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("p1", TODAY + "T00:00:00+09:00", 11), MediaType.APPLICATION_JSON));
+
+        QiitaItemSummary week = service.getHotArticles("week").get(0);
+        QiitaItemSummary month = service.getHotArticles("month").get(0);
+
+        assertThat(month).isNotSameAs(week);
+        assertThat(month.getLikesCount()).isEqualTo(11);
+        assertThat(week.getLikesCount()).isEqualTo(10);
+        mockServer.verify();
+    }
+
+    @Test
+    void invalidateArticle_dropsCachedDetailAndComments() {
+        mockServer.expect(ExpectedCount.twice(), requestTo(containsString("/items/id123/comments")))
+                .andRespond(withSuccess("[{\"id\":\"c1\"}]", MediaType.APPLICATION_JSON));
+
+        service.getArticleComments("id123");
+        service.getArticleComments("id123");
+        service.invalidateArticle("id123");
+        List<QiitaCommentItem> result = service.getArticleComments("id123");
+
+        assertThat(result).hasSize(1);
+        mockServer.verify();
+    }
+
     @Test
     void getHotArticles_noArg_returnsSortedByLikesDescending() {
         mockServer.expect(requestTo(anything()))
@@ -292,10 +711,8 @@ class QiitaServiceImplTest {
                         qiitaItemArray("low",  TODAY + "T00:00:00+09:00", 5,
                                        "high", TODAY + "T00:00:00+09:00", 999),
                         MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.getHotArticles();
+        List<QiitaItemSummary> result = service.getHotArticles();
 
         assertThat(result.get(0).getLikesCount()).isEqualTo(999);
         assertThat(result.get(1).getLikesCount()).isEqualTo(5);
@@ -310,7 +727,7 @@ class QiitaServiceImplTest {
                                        "l1", TODAY + "T00:00:00+09:00", 50),
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.getHotArticles("1day");
+        List<QiitaItemSummary> result = service.getHotArticles("1day");
 
         assertThat(result).hasSize(2);
         assertThat(result.get(0).getLikesCount()).isEqualTo(200);
@@ -324,17 +741,148 @@ class QiitaServiceImplTest {
                 .andRespond(withSuccess(
                         "[{\"id\":\"a1\",\"created_at\":\"" + TODAY + "T00:00:00+09:00\",\"likes_count\":10}]",
                         MediaType.APPLICATION_JSON));
-        mockServer.expect(requestTo(anything()))
-                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
 
         service.getHotArticles("month");
-        List<QiitaItem> cached = service.getHotArticles("month");
+        List<QiitaItemSummary> cached = service.getHotArticles("month");
 
         assertThat(cached).hasSize(1);
         assertThat(cached.get(0).getId()).isEqualTo("a1");
         mockServer.verify();
     }
 
+    @Test
+    void getHotArticles_withUnknownPeriod_sharesWeekCacheEntry() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("w1", TODAY + "T00:00:00+09:00", 10),
+                        MediaType.APPLICATION_JSON));
+
+        service.getHotArticles("fortnight");
+        List<QiitaItemSummary> week = service.getHotArticles("week");
+
+        assertThat(week).extracting(QiitaItemSummary::getId).containsExactly("w1");
+        assertThat(service.getHotCacheExpiries()).containsOnlyKeys("week");
+        mockServer.verify();
+    }
+
+    @Test
+    void getHotArticles_withFullFirstPage_fetchesRemainingPagesAndRemovesDuplicates() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        QiitaServiceImpl fanOutService = newService(builder.build(), FIXED_CLOCK);
+        Object[] fullPage = new Object[300];
+        for (int i = 0; i < 100; i++) {
+            fullPage[i * 3] = "p" + i;
+            fullPage[i * 3 + 1] = TODAY + "T00:00:00+09:00";
+            fullPage[i * 3 + 2] = i;
+        }
+        server.expect(requestTo(containsString("page=1&")))
+                .andRespond(withSuccess(qiitaItemArray(fullPage), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(containsString("page=2&")))
+                .andRespond(withSuccess(
+                        qiitaItemArray("p99", TODAY + "T00:00:00+09:00", 99,
+                                       "top", TODAY + "T00:00:00+09:00", 1000),
+                        MediaType.APPLICATION_JSON));
+        // page 3 may already be in flight when the short page 2 arrives; its items are discarded
+        server.expect(ExpectedCount.between(0, 1), requestTo(containsString("page=3&")))
+                .andRespond(withSuccess(qiitaItemArray("late", TODAY + "T00:00:00+09:00", 5000),
+                        MediaType.APPLICATION_JSON));
+
+        List<QiitaItemSummary> result = fanOutService.getHotArticles("week");
+
+        assertThat(result).hasSize(101);
+        assertThat(result.get(0).getId()).isEqualTo("top");
+        server.verify();
+    }
+
+    @Test
+    void getHotArticleEntry_whenExpired_servesStaleListAndRevalidatesInBackground() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl swrService = newService(restClient, clock);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("old", TODAY + "T00:00:00+09:00", 1),
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("new", TODAY + "T00:00:00+09:00", 2),
+                        MediaType.APPLICATION_JSON));
+        // 差分更新の 2 本目（上位の記事の再確認）
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        swrService.getHotArticleEntry("week");
+        clock.advanceSeconds(2000);
+        CacheEntry<List<QiitaItemSummary>> stale = swrService.getHotArticleEntry("week");
+        CacheEntry<List<QiitaItemSummary>> revalidated = swrService.getHotArticleEntry("week");
+
+        assertThat(stale.value().get(0).getId()).isEqualTo("old");
+        assertThat(stale.getAgeSeconds(clock.instant())).isEqualTo(2000);
+        assertThat(revalidated.value().get(0).getId()).isEqualTo("new");
+        assertThat(revalidated.getAgeSeconds(clock.instant())).isZero();
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_whenUpstreamFails_keepsPreviousList() {
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("a1", TODAY + "T00:00:00+09:00", 10),
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(anything())).andRespond(withServerError());
+        mockServer.expect(requestTo(anything())).andRespond(withServerError());
+
+        service.getHotArticles("week");
+        service.refreshHotArticles("week");
+        List<QiitaItemSummary> result = service.getHotArticles("week");
+
+        assertThat(result).extracting(QiitaItemSummary::getId).containsExactly("a1");
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_withinRebuildInterval_mergesDeltaAndEvictsOutOfWindow() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl deltaService = newService(restClient, clock);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray(
+                        "old", TODAY.minusDays(8) + "T00:00:00+09:00", 10,
+                        "a2", TODAY + "T00:00:00+09:00", 5), MediaType.APPLICATION_JSON));
+        // 前回の取得日以降に作られた記事
+        mockServer.expect(requestTo(containsString("created:%3E=2026-03-02%20stocks:%3E=10")))
+                .andRespond(withSuccess(qiitaItemArray("new", TODAY + "T01:00:00+09:00", 7),
+                        MediaType.APPLICATION_JSON));
+        // 期間全体から、上位の記事のいいね数を取り直す
+        mockServer.expect(requestTo(containsString("created:%3E=2026-02-23")))
+                .andRespond(withSuccess(qiitaItemArray("a2", TODAY + "T00:00:00+09:00", 20),
+                        MediaType.APPLICATION_JSON));
+
+        deltaService.getHotArticles("week");
+        clock.advanceSeconds(3600);
+        deltaService.refreshHotArticles("week");
+
+        assertThat(deltaService.getHotArticles("week"))
+                .extracting(QiitaItemSummary::getId, QiitaItemSummary::getLikesCount)
+                .containsExactly(tuple("a2", 20), tuple("new", 7));
+        mockServer.verify();
+    }
+
+    @Test
+    void refreshHotArticles_afterRebuildInterval_fetchesAllPagesAgain() {
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        QiitaServiceImpl deltaService = newService(restClient, clock);
+        mockServer.expect(requestTo(anything()))
+                .andRespond(withSuccess(qiitaItemArray("a1", TODAY + "T00:00:00+09:00", 10),
+                        MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(containsString("created:%3E=2026-02-23%20stocks:%3E=10")))
+                .andRespond(withSuccess(qiitaItemArray("b1", TODAY + "T00:00:00+09:00", 3),
+                        MediaType.APPLICATION_JSON));
+
+        deltaService.getHotArticles("week");
+        clock.advanceSeconds(new CacheProperties().getRefresh().getFullRebuildIntervalSeconds());
+        deltaService.refreshHotArticles("week");
+
+        // 全件取得はリストを置き換える（a1 は残らない）
+        assertThat(deltaService.getHotArticles("week")).extracting(QiitaItemSummary::getId).containsExactly("b1");
+        mockServer.verify();
+    }
+
     @Test
     void getTimelineArticles_returnsItemsFromApi() {
         mockServer.expect(requestTo(anything()))
@@ -342,7 +890,7 @@ class QiitaServiceImplTest {
                         "[{\"id\":\"tl1\",\"created_at\":\"" + TODAY + "T00:00:00+09:00\"}]",
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.getTimelineArticles();
+        List<QiitaItemSummary> result = service.getTimelineArticles();
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("tl1");
@@ -354,7 +902,7 @@ class QiitaServiceImplTest {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withServerError());
 
-        List<QiitaItem> result = service.getTimelineArticles();
+        List<QiitaItemSummary> result = service.getTimelineArticles();
 
         assertThat(result).isEmpty();
         mockServer.verify();
@@ -367,7 +915,7 @@ class QiitaServiceImplTest {
                         "[{\"id\":\"u1\",\"created_at\":\"" + TODAY + "T00:00:00+09:00\"}]",
                         MediaType.APPLICATION_JSON));
 
-        List<QiitaItem> result = service.getUserArticles("someuser");
+        List<QiitaItemSummary> result = service.getUserArticles("someuser");
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo("u1");
@@ -379,7 +927,7 @@ class QiitaServiceImplTest {
         mockServer.expect(requestTo(anything()))
                 .andRespond(withServerError());
 
-        List<QiitaItem> result = service.getUserArticles("baduser");
+        List<QiitaItemSummary> result = service.getUserArticles("baduser");
 
         assertThat(result).isEmpty();
         mockServer.verify();
@@ -396,4 +944,92 @@ class QiitaServiceImplTest {
         }
         return sb.append("]").toString();
     }
-}
\ No newline at end of file
+
+    private static String realisticPage(String page) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) sb.append(",");
+            String id = "%016d%04d".formatted(Long.parseLong(page), i);
+            sb.append("{\"id\":\"").append(id).append("\"")
+              .append(",\"title\":\"").append("記事タイトル".repeat(8)).append("\"")
+              .append(",\"url\":\"https://qiita.com/someone/items/").append(id).append("\"")
+              .append(",\"rendered_body\":\"<p>").append("本文".repeat(2000)).append("</p>\"")
+              .append(",\"likes_count\":3000,\"stocks_count\":3000")
+              .append(",\"created_at\":\"2020-01-01T00:00:00+09:00\",\"updated_at\":\"2024-01-01T00:00:00+09:00\"")
+              .append(",\"user\":{\"id\":\"someone\",\"name\":\"Some One\",\"profile_image_url\":\"https://example.com/a.png\"}")
+              .append(",\"tags\":[{\"name\":\"Java\"},{\"name\":\"Spring\"},{\"name\":\"SpringBoot\"},{\"name\":\"JPA\"},{\"name\":\"Kotlin\"}]")
+              .append("}");
+        }
+        return sb.append("]").toString();
+    }
+
+    /** 再検証は同期実行 (Runnable::run) にして、テスト内で結果を確認できるようにする */
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock) {
+        return newService(restClient, clock, new BodyStore(1 << 20, 6));
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, BodyStore bodyStore) {
+        return newService(restClient, clock, bodyStore, new RateLimitBudget("qiita", clock, 0.2, 0.25));
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, BodyStore bodyStore,
+                                               RateLimitBudget rateLimit) {
+        return newService(restClient, clock, bodyStore, rateLimit, newGuard(clock, new CircuitBreaker(clock,
+                20, 10, 0.5, Duration.ofSeconds(30), 3)));
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, BodyStore bodyStore,
+                                               RateLimitBudget rateLimit, UpstreamGuard upstreamGuard) {
+        return newService(restClient, clock, bodyStore, rateLimit, upstreamGuard, new CacheProperties());
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, CacheProperties cacheProperties) {
+        return newService(restClient, clock, new BodyStore(1 << 20, 6), new RateLimitBudget("qiita", clock, 0.2, 0.25),
+                newGuard(clock, new CircuitBreaker(clock, 20, 10, 0.5, Duration.ofSeconds(30), 3)), cacheProperties);
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, BodyStore bodyStore,
+                                               RateLimitBudget rateLimit, UpstreamGuard upstreamGuard,
+                                               CacheProperties cacheProperties) {
+        return newService(restClient, clock, bodyStore, rateLimit, upstreamGuard, cacheProperties, Runnable::run);
+    }
+
+    private static QiitaServiceImpl newService(RestClient restClient, Clock clock, BodyStore bodyStore,
+                                               RateLimitBudget rateLimit, UpstreamGuard upstreamGuard,
+                                               CacheProperties cacheProperties, Executor executor) {
+        return new QiitaServiceImpl(restClient, new QiitaProperties(), clock, new PageFanOut("qiita", 4), AdaptivePaging.disabled("qiita"), rateLimit,
+                upstreamGuard, Hedger.disabled("qiita"), cacheProperties, new CacheRegistry(cacheProperties), new ItemRegistry(),
+                bodyStore, executor, executor);
+    }
+
+    private static UpstreamGuard newGuard(Clock clock, CircuitBreaker breaker) {
+        return new UpstreamGuard("qiita", clock, breaker, 8, Duration.ofMillis(250), UpstreamGuard.Retry.NONE);
+    }
+
+    /** RateLimitInterceptor 付きの RestClient で、レスポンスヘッダーから予算が更新されるようにする */
+    private QiitaServiceImpl newBudgetedService(Clock clock, RateLimitBudget rateLimit) {
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(new RateLimitInterceptor(rateLimit));
+        mockServer = MockRestServiceServer.bindTo(builder).build();
+        return newService(builder.build(), clock, new BodyStore(1 << 20, 6), rateLimit);
+    }
+
+    private static HttpHeaders rateHeaders(int limit, int remaining) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Rate-Limit", String.valueOf(limit));
+        headers.set("Rate-Remaining", String.valueOf(remaining));
+        headers.set("Rate-Reset", String.valueOf(FIXED_CLOCK.instant().plusSeconds(3600).getEpochSecond()));
+        return headers;
+    }
+
+    private static class MutableClock extends Clock {
+        private final AtomicReference<Instant> now;
+
+        MutableClock(Instant start) { this.now = new AtomicReference<>(start); }
+
+        void advanceSeconds(long seconds) { now.updateAndGet(i -> i.plusSeconds(seconds)); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now.get(); }
+    }
+}
@@ -0,0 +1,117 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AdaptivePaging.
+ * Pages hold 20 items; kept[p - 1] is how many of page p pass the caller's filters.
+ */
+class AdaptivePagingTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Test
+    void noHistory_usesConfiguredPages() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.05, 100, 2.0, 1.0, 0);
+
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(3);
+    }
+
+    @Test
+    void lowYieldOnLaterPage_plansShallower() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.1, 10, 2.0, 1.0, 0);
+        fetch(paging, "hot:week", 20, 1, 0);
+
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(1);
+        AdaptivePaging.Decision last = paging.snapshot().shapes().getFirst().last();
+        assertThat(last.reason()).contains("page 2");
+        assertThat(paging.snapshot().shapes().getFirst().shallower()).isEqualTo(1);
+    }
+
+    @Test
+    void thinButSteadyYield_plansDeeperUpToFactor() {
+        AdaptivePaging paging = new AdaptivePaging("dev", true, 0.05, 100, 2.0, 1.0, 0);
+        fetch(paging, "search:count:week", 5, 5, 5);
+
+        // 5 件/ページでは 6 ページ（設定の 2 倍）まで掘っても 100 件に届かない
+        assertThat(paging.pages("search:count:week", 3, PAGE_SIZE)).isEqualTo(6);
+    }
+
+    @Test
+    void deeperPlan_stopsOnceTargetIsExpected() {
+        AdaptivePaging paging = new AdaptivePaging("dev", true, 0.05, 50, 3.0, 1.0, 0);
+        fetch(paging, "hot:week", 15, 15, 15);
+
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(4);
+    }
+
+    @Test
+    void shortPage_recordsNothingLeftOnNextPage() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.05, 100, 2.0, 1.0, 0);
+        IntFunction<Page<String>> fetcher = paging.observe("hot:day", PAGE_SIZE,
+                page -> page == 1 ? new Page<>(items(8), 8) : Page.empty());
+        fetcher.apply(1);
+
+        assertThat(paging.pages("hot:day", 3, PAGE_SIZE)).isEqualTo(1);
+        assertThat(paging.snapshot().shapes().getFirst().yieldPerPage()).containsExactly(8.0, 0.0);
+    }
+
+    @Test
+    void failedFirstPage_isNotRecorded() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.05, 100, 2.0, 1.0, 0);
+        paging.observe("hot:day", PAGE_SIZE, page -> Page.<String>failure()).apply(1);
+
+        assertThat(paging.pages("hot:day", 3, PAGE_SIZE)).isEqualTo(3);
+        assertThat(paging.snapshot().shapes().getFirst().yieldPerPage()).isEmpty();
+    }
+
+    @Test
+    void failedLaterPage_keepsEarlierYieldAndRecordsNoEnd() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.1, 100, 1.0, 1.0, 0);
+        IntFunction<Page<String>> fetcher = paging.observe("hot:week", PAGE_SIZE,
+                page -> page == 1 ? new Page<>(items(20), PAGE_SIZE) : Page.failure());
+        fetcher.apply(1);
+        fetcher.apply(2);
+
+        // 2 ページ目の失敗は「2 ページ目は 0 件」ではない
+        assertThat(paging.snapshot().shapes().getFirst().yieldPerPage()).containsExactly(20.0);
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(3);
+    }
+
+    @Test
+    void everyNthPlan_reMeasuresConfiguredDepth() {
+        AdaptivePaging paging = new AdaptivePaging("qiita", true, 0.1, 10, 2.0, 1.0, 3);
+        fetch(paging, "hot:week", 20, 0, 0);
+
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(1);
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(1);
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(3);
+        assertThat(paging.snapshot().shapes().getFirst().explored()).isEqualTo(1);
+    }
+
+    @Test
+    void disabled_alwaysUsesConfiguredPages() {
+        AdaptivePaging paging = AdaptivePaging.disabled("dev");
+        fetch(paging, "hot:week", 20, 0, 0);
+
+        assertThat(paging.pages("hot:week", 3, PAGE_SIZE)).isEqualTo(3);
+        assertThat(paging.snapshot().shapes()).isEmpty();
+    }
+
+    private static void fetch(AdaptivePaging paging, String shape, int... kept) {
+        IntFunction<Page<String>> fetcher = paging.observe(shape, PAGE_SIZE,
+                page -> new Page<>(items(kept[page - 1]), PAGE_SIZE));
+        for (int page = 1; page <= kept.length; page++) fetcher.apply(page);
+    }
+
+    private static List<String> items(int n) {
+        return Collections.nCopies(n, "item");
+    }
+}
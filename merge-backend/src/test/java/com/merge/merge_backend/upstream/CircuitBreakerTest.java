@@ -0,0 +1,127 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.upstream.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CircuitBreaker.
+ * Window of 4 calls, at least 4 before judging, opens at 50% failures for 30 seconds, 2 trial calls.
+ */
+class CircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final CircuitBreaker breaker = new CircuitBreaker(clock, 4, 4, 0.5, Duration.ofSeconds(30), 2);
+
+    @Test
+    void belowMinimumCalls_staysClosedEvenIfAllFail() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void failureRateAtThreshold_opensAndRefusesCalls() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThat(breaker.snapshot().notPermitted()).isEqualTo(1);
+        assertThat(breaker.snapshot().openUntil()).isEqualTo(NOW.plusSeconds(30));
+    }
+
+    @Test
+    void window_forgetsOldestOutcome() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // 最初の失敗が押し出され、失敗は 1/4 のまま
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot().failureRate()).isEqualTo(0.25);
+    }
+
+    @Test
+    void afterOpenDuration_trialCallsCloseIt() {
+        openBreaker();
+        clock.advanceSeconds(30);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot().bufferedCalls()).isZero();
+    }
+
+    @Test
+    void failedTrialCall_opensAgain() {
+        openBreaker();
+        clock.advanceSeconds(30);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.snapshot().opened()).isEqualTo(2);
+    }
+
+    @Test
+    void releasedTrialPermission_canBeTakenAgain() {
+        openBreaker();
+        clock.advanceSeconds(30);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.releasePermission();
+        breaker.releasePermission();
+        breaker.releasePermission();
+
+        // 返せるのは取った枠の分だけ
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    private static class MutableClock extends Clock {
+        private final AtomicReference<Instant> now;
+
+        MutableClock(Instant start) { this.now = new AtomicReference<>(start); }
+
+        void advanceSeconds(long seconds) { now.updateAndGet(i -> i.plusSeconds(seconds)); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now.get(); }
+    }
+}
@@ -0,0 +1,161 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.cache.BoundedCache;
+import com.merge.merge_backend.dto.QiitaItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for ConditionalRequestInterceptor.
+ * The interceptor sits on a RestClient backed by MockRestServiceServer, as in the real client beans.
+ */
+class ConditionalRequestInterceptorTest {
+
+    private static final String URL = "https://qiita.com/api/v2/items?page=1";
+
+    private ConditionalRequestInterceptor interceptor;
+    private MockRestServiceServer mockServer;
+    private RestClient restClient;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ConditionalRequestInterceptor(
+                new BoundedCache<>("qiita-conditional", 1 << 20, ConditionalRequestInterceptor::weigh));
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(interceptor);
+        mockServer = MockRestServiceServer.bindTo(builder).build();
+        restClient = builder.build();
+    }
+
+    @Test
+    void get_afterResponseWithEtag_sendsIfNoneMatchAndReusesBodyOn304() {
+        HttpHeaders validators = new HttpHeaders();
+        validators.setETag("\"v1\"");
+        mockServer.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("[{\"id\":\"a1\"}]", MediaType.APPLICATION_JSON).headers(validators));
+        mockServer.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        String first = restClient.get().uri(URL).retrieve().body(String.class);
+        String second = restClient.get().uri(URL).retrieve().body(String.class);
+
+        assertThat(second).isEqualTo(first).isEqualTo("[{\"id\":\"a1\"}]");
+        assertThat(interceptor.stats().notModified()).isEqualTo(1);
+        mockServer.verify();
+    }
+
+    @Test
+    void get_afterResponseWithLastModified_sendsIfModifiedSince() {
+        HttpHeaders validators = new HttpHeaders();
+        validators.set(HttpHeaders.LAST_MODIFIED, "Mon, 02 Mar 2026 00:00:00 GMT");
+        mockServer.expect(requestTo(URL))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON).headers(validators));
+        mockServer.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 02 Mar 2026 00:00:00 GMT"))
+                .andRespond(withSuccess("[{\"id\":\"new\"}]", MediaType.APPLICATION_JSON));
+
+        restClient.get().uri(URL).retrieve().body(String.class);
+        String changed = restClient.get().uri(URL).retrieve().body(String.class);
+
+        assertThat(changed).isEqualTo("[{\"id\":\"new\"}]");
+        assertThat(interceptor.stats().conditional()).isEqualTo(1);
+        assertThat(interceptor.stats().notModified()).isZero();
+        mockServer.verify();
+    }
+
+    @Test
+    void streamedListPage_throughClientChain_isStoredAndRevalidated() {
+        RestClient client = chain(1024);
+        HttpHeaders validators = new HttpHeaders();
+        validators.setETag("\"p1\"");
+        // 配列の後ろの改行は StreamingArrayReader が読まない。close で読み切って保存する
+        mockServer.expect(requestTo(URL))
+                .andRespond(withSuccess("[{\"id\":\"a1\"},{\"id\":\"a2\"}]\n", MediaType.APPLICATION_JSON).headers(validators));
+        mockServer.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"p1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        StreamingArrayReader<QiitaItem> reader = new StreamingArrayReader<>(QiitaItem.class);
+
+        StreamingArrayReader.Page<QiitaItem> first = reader.exchange(client.get().uri(URL), item -> true);
+        StreamingArrayReader.Page<QiitaItem> second = reader.exchange(client.get().uri(URL), item -> true);
+
+        assertThat(first.items()).extracting(QiitaItem::getId).containsExactly("a1", "a2");
+        assertThat(second.items()).extracting(QiitaItem::getId).containsExactly("a1", "a2");
+        assertThat(interceptor.stats().notModified()).isEqualTo(1);
+        mockServer.verify();
+    }
+
+    @Test
+    void largeListPage_throughClientChain_isStreamedWithoutStoring() {
+        RestClient client = chain(1024);
+        HttpHeaders validators = new HttpHeaders();
+        validators.setETag("\"big\"");
+        String page = IntStream.range(0, 200).mapToObj(i -> "{\"id\":\"a" + i + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        mockServer.expect(requestTo(URL))
+                .andRespond(withSuccess(page, MediaType.APPLICATION_JSON).headers(validators));
+        mockServer.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess(page, MediaType.APPLICATION_JSON).headers(validators));
+        StreamingArrayReader<QiitaItem> reader = new StreamingArrayReader<>(QiitaItem.class);
+
+        StreamingArrayReader.Page<QiitaItem> first = reader.exchange(client.get().uri(URL), item -> item.getId().endsWith("7"));
+        reader.exchange(client.get().uri(URL), item -> true);
+
+        assertThat(first.scanned()).isEqualTo(200);
+        assertThat(first.items()).hasSize(20);
+        assertThat(interceptor.stats().conditional()).isZero();
+        assertThat(interceptor.stats().tooLarge()).isEqualTo(2);
+        mockServer.verify();
+    }
+
+    @Test
+    void get_withoutValidators_isNotRevalidated() {
+        mockServer.expect(requestTo(URL))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        mockServer.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_MODIFIED_SINCE))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        restClient.get().uri(URL).retrieve().body(String.class);
+        restClient.get().uri(URL).retrieve().body(String.class);
+
+        assertThat(interceptor.stats().conditional()).isZero();
+        mockServer.verify();
+    }
+
+    /** 本番の RestClient と同じ順に interceptor を並べる（本文の上限だけ小さくする） */
+    private RestClient chain(int maxBodyBytes) {
+        Clock clock = Clock.systemUTC();
+        interceptor = new ConditionalRequestInterceptor(
+                new BoundedCache<>("qiita-conditional", 1 << 20, ConditionalRequestInterceptor::weigh), maxBodyBytes);
+        RestClient.Builder builder = RestClient.builder()
+                .requestInterceptor(new UpstreamGuard("qiita", clock,
+                        new CircuitBreaker(clock, 20, 10, 0.5, Duration.ofSeconds(30), 3), 8, Duration.ofMillis(250),
+                        UpstreamGuard.Retry.NONE))
+                .requestInterceptor(interceptor)
+                .requestInterceptor(new RateLimitInterceptor(new RateLimitBudget("qiita", clock, 0.2, 0.25)))
+                .requestInterceptor(new UpstreamMetricsInterceptor(new UpstreamMetrics("qiita")));
+        mockServer = MockRestServiceServer.bindTo(builder).build();
+        return builder.build();
+    }
+}
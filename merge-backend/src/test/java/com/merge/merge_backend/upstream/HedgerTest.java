@@ -0,0 +1,152 @@
+package com.merge.merge_backend.upstream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for Hedger.
+ * Five fast calls warm up the latency window, so the hedge delay is the 20 ms floor.
+ */
+class HedgerTest {
+
+    private Hedger hedger;
+
+    @AfterEach
+    void tearDown() {
+        if (hedger != null) hedger.close();
+    }
+
+    @Test
+    void slowPrimary_isHedgedAndLoserIsCancelled() throws Exception {
+        hedger = new Hedger("qiita", 95, Duration.ofMillis(20), 1.0, 5, 50);
+        warmUp();
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    primaryInterrupted.countDown();
+                    throw e;
+                }
+                return "primary";
+            }
+            return "hedge";
+        }, () -> true);
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(primaryInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        Hedger.Snapshot snapshot = hedger.snapshot();
+        assertThat(snapshot.hedged()).isEqualTo(1);
+        assertThat(snapshot.hedgeWins()).isEqualTo(1);
+        // 止めた主の経過時間 (20ms 以上) が下限として記録される
+        assertThat(snapshot.delayMillis()).isGreaterThanOrEqualTo(20);
+        assertThat(snapshot.samples()).isEqualTo(6);
+    }
+
+    @Test
+    void hedgeWin_recordsPrimaryElapsedFromCallStart() throws Exception {
+        // percentile 100 なので、hedge の遅延は記録した中で最も遅い値そのもの
+        hedger = new Hedger("qiita", 100, Duration.ofMillis(20), 1.0, 5, 50);
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(10_000);
+                return "primary";
+            }
+            Thread.sleep(60);
+            return "hedge";
+        }, () -> true);
+
+        assertThat(result).isEqualTo("hedge");
+        // hedge 自身の 60ms ではなく、呼び出し開始から主を止めるまで (20ms 待ってから hedge の 60ms) が入る
+        assertThat(hedger.snapshot().delayMillis()).isGreaterThanOrEqualTo(80);
+        assertThat(hedger.snapshot().samples()).isEqualTo(6);
+    }
+
+    @Test
+    void fastPrimary_isNotHedged() throws Exception {
+        hedger = new Hedger("qiita", 95, Duration.ofMillis(20), 1.0, 5, 50);
+        warmUp();
+
+        assertThat(hedger.call(() -> "ok", () -> true)).isEqualTo("ok");
+
+        assertThat(hedger.snapshot().hedged()).isZero();
+        assertThat(hedger.snapshot().calls()).isEqualTo(6);
+    }
+
+    @Test
+    void beforeEnoughSamples_neverHedges() throws Exception {
+        hedger = new Hedger("qiita", 95, Duration.ofMillis(20), 1.0, 5, 50);
+
+        assertThat(hedger.call(slow("primary"), () -> true)).isEqualTo("primary");
+
+        assertThat(hedger.snapshot().hedged()).isZero();
+        assertThat(hedger.snapshot().delayMillis()).isEqualTo(-1);
+    }
+
+    @Test
+    void rateCap_limitsHedges() throws Exception {
+        // 1 回あたり 0.1 クレジット。ウォームアップの 5 回と合わせても 1 に届かない
+        hedger = new Hedger("dev", 95, Duration.ofMillis(20), 0.1, 5, 50);
+        warmUp();
+
+        assertThat(hedger.call(slow("primary"), () -> true)).isEqualTo("primary");
+
+        assertThat(hedger.snapshot().hedged()).isZero();
+        assertThat(hedger.snapshot().capped()).isEqualTo(1);
+    }
+
+    @Test
+    void permitDenied_waitsForPrimary() throws Exception {
+        hedger = new Hedger("dev", 95, Duration.ofMillis(20), 1.0, 5, 50);
+        warmUp();
+
+        assertThat(hedger.call(slow("primary"), () -> false)).isEqualTo("primary");
+
+        assertThat(hedger.snapshot().hedged()).isZero();
+    }
+
+    @Test
+    void failure_isRethrownUnwrapped() {
+        hedger = new Hedger("dev", 95, Duration.ofMillis(20), 1.0, 5, 50);
+
+        assertThatThrownBy(() -> hedger.call(() -> { throw new IOException("reset"); }, () -> true))
+                .isInstanceOf(IOException.class)
+                .hasMessage("reset");
+    }
+
+    @Test
+    void disabled_runsOnCallerThread() throws Exception {
+        hedger = Hedger.disabled("dev");
+        Thread caller = Thread.currentThread();
+
+        assertThat(hedger.call(() -> Thread.currentThread() == caller, () -> true)).isTrue();
+        assertThat(hedger.snapshot().enabled()).isFalse();
+    }
+
+    private void warmUp() throws Exception {
+        for (int i = 0; i < 5; i++) hedger.call(() -> "warm", () -> true);
+    }
+
+    private static Callable<String> slow(String value) {
+        return () -> {
+            Thread.sleep(100);
+            return value;
+        };
+    }
+}
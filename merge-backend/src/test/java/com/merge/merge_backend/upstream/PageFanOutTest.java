@@ -0,0 +1,144 @@
+package com.merge.merge_backend.upstream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PageFanOut.
+ * The page fetcher is a plain lambda so request order and concurrency can be observed directly.
+ */
+class PageFanOutTest {
+
+    private final PageFanOut fanOut = new PageFanOut("test", 3);
+
+    @AfterEach
+    void tearDown() {
+        fanOut.close();
+    }
+
+    @Test
+    void fetch_withShortFirstPage_doesNotIssueFurtherPages() {
+        ConcurrentLinkedQueue<Integer> requested = new ConcurrentLinkedQueue<>();
+
+        List<String> result = fanOut.fetch(5, 10, page -> {
+            requested.add(page);
+            return List.of("a", "b");
+        });
+
+        assertThat(result).containsExactly("a", "b");
+        assertThat(requested).containsExactly(1);
+    }
+
+    @Test
+    void fetch_withFullPages_mergesInPageOrder() {
+        List<String> result = fanOut.fetch(4, 2, page -> {
+            sleep((5 - page) * 20L);
+            return List.of(page + "a", page + "b");
+        });
+
+        assertThat(result).containsExactly("1a", "1b", "2a", "2b", "3a", "3b", "4a", "4b");
+    }
+
+    @Test
+    void fetchPages_judgesShortPagesByScannedCount() {
+        ConcurrentLinkedQueue<Integer> requested = new ConcurrentLinkedQueue<>();
+
+        // 各ページ 10 件読んで 1 件だけ残す。残った件数が少なくても次のページへ進む
+        List<Integer> result = fanOut.fetchPages(3, 10, page -> {
+            requested.add(page);
+            return new StreamingArrayReader.Page<>(List.of(page), 10);
+        });
+
+        assertThat(result).containsExactly(1, 2, 3);
+        assertThat(requested).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void fetch_withShortMiddlePage_discardsLaterPages() {
+        ConcurrentLinkedQueue<Integer> requested = new ConcurrentLinkedQueue<>();
+
+        List<Integer> result = fanOut.fetch(10, 2, page -> {
+            requested.add(page);
+            sleep(page == 3 ? 0 : 30);
+            return page == 3 ? List.of(page) : List.of(page, page);
+        });
+
+        assertThat(result).containsExactly(1, 1, 2, 2, 3);
+        assertThat(requested).doesNotContain(7, 8, 9, 10);
+    }
+
+    @Test
+    void fetch_neverExceedsMaxConcurrency() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+
+        List<Integer> result = fanOut.fetch(8, 1, page -> {
+            maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(20);
+            inFlight.decrementAndGet();
+            return List.of(page);
+        });
+
+        assertThat(result).containsExactlyElementsOf(IntStream.rangeClosed(1, 8).boxed().toList());
+        assertThat(maxSeen.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void fetchAll_tellsWhetherTheUpstreamListEnded() {
+        PageFanOut.Pages<Integer> ended = fanOut.fetchAll(5, 2, page ->
+                new StreamingArrayReader.Page<>(List.of(page), page == 2 ? 1 : 2));
+        PageFanOut.Pages<Integer> truncated = fanOut.fetchAll(2, 2, page ->
+                new StreamingArrayReader.Page<>(List.of(page), 2));
+        // 失敗したページは空でも上流の最後のページではない
+        PageFanOut.Pages<Integer> failed = fanOut.fetchAll(5, 2, page ->
+                page == 1 ? new StreamingArrayReader.Page<>(List.of(page), 2) : StreamingArrayReader.Page.failure());
+
+        assertThat(ended.items()).containsExactly(1, 2);
+        assertThat(ended.exhausted()).isTrue();
+        assertThat(truncated.exhausted()).isFalse();
+        assertThat(failed.items()).containsExactly(1);
+        assertThat(failed.exhausted()).isFalse();
+    }
+
+    @Test
+    void fetch_withFailingPage_keepsEarlierPages() {
+        List<Integer> result = fanOut.fetch(4, 1, page -> {
+            if (page == 3) throw new IllegalStateException("boom");
+            return List.of(page);
+        });
+
+        assertThat(result).containsExactly(1, 2);
+    }
+
+    @Test
+    void fetchEach_runsKeysConcurrentlyAndKeepsKeyOrder() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<List<String>> result = fanOut.fetchEach(List.of("java", "go", "rust"), tag -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(tag.length() * 30L);
+            inFlight.decrementAndGet();
+            if (tag.equals("go")) throw new IllegalStateException("boom");
+            return fanOut.fetch(1, 10, page -> List.of(tag + page));
+        });
+
+        assertThat(result).containsExactly(List.of("java1"), List.of(), List.of("rust1"));
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
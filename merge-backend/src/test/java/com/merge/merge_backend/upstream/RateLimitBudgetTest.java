@@ -0,0 +1,117 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.upstream.RateLimitBudget.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RateLimitBudget.
+ * Headers are fed in directly, as RateLimitInterceptor would after each upstream response.
+ */
+class RateLimitBudgetTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-02T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private final RateLimitBudget budget = new RateLimitBudget("qiita", clock, 0.2, 0.25);
+
+    @Test
+    void tryAcquire_beforeAnyHeaders_allowsEverything() {
+        assertThat(budget.tryAcquire(Priority.BACKGROUND)).isTrue();
+        assertThat(budget.allowedPages(Priority.BACKGROUND, 5)).isEqualTo(5);
+    }
+
+    @Test
+    void tryAcquire_withinInteractiveReserve_refusesOnlyBackground() {
+        budget.update(200, qiitaHeaders(100, 20, NOW.plusSeconds(3600)));
+
+        assertThat(budget.tryAcquire(Priority.BACKGROUND)).isFalse();
+        assertThat(budget.tryAcquire(Priority.INTERACTIVE)).isTrue();
+
+        RateLimitBudget.Snapshot snapshot = budget.snapshot();
+        assertThat(snapshot.remaining()).isEqualTo(19);
+        assertThat(snapshot.backgroundDenied()).isEqualTo(1);
+        assertThat(snapshot.interactiveGranted()).isEqualTo(1);
+    }
+
+    @Test
+    void allowedPages_whenBudgetIsLow_fetchesOnePage() {
+        budget.update(200, qiitaHeaders(100, 24, NOW.plusSeconds(3600)));
+
+        assertThat(budget.allowedPages(Priority.INTERACTIVE, 5)).isEqualTo(1);
+        assertThat(budget.allowedPages(Priority.BACKGROUND, 5)).isEqualTo(1);
+    }
+
+    @Test
+    void allowedPages_neverExceedsRemainingBudget() {
+        budget.update(200, qiitaHeaders(100, 3, NOW.plusSeconds(3600)));
+
+        assertThat(budget.allowedPages(Priority.BACKGROUND, 5)).isZero();
+        assertThat(budget.allowedPages(Priority.INTERACTIVE, 5)).isEqualTo(1);
+    }
+
+    @Test
+    void update_with429_blocksUntilRetryAfter() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        budget.update(429, headers);
+
+        assertThat(budget.tryAcquire(Priority.INTERACTIVE)).isFalse();
+        clock.advanceSeconds(30);
+        assertThat(budget.tryAcquire(Priority.INTERACTIVE)).isTrue();
+        assertThat(budget.snapshot().throttled()).isEqualTo(1);
+    }
+
+    @Test
+    void rollWindow_afterReset_restoresFullLimit() {
+        budget.update(200, qiitaHeaders(100, 0, NOW.plusSeconds(60)));
+        assertThat(budget.hasBudget(Priority.INTERACTIVE)).isFalse();
+
+        clock.advanceSeconds(60);
+
+        assertThat(budget.snapshot().remaining()).isEqualTo(100);
+        assertThat(budget.tryAcquire(Priority.BACKGROUND)).isTrue();
+    }
+
+    @Test
+    void update_readsXRateLimitHeadersWithRelativeReset() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Limit", "30");
+        headers.set("X-RateLimit-Remaining", "10");
+        headers.set("X-RateLimit-Reset", "120");
+        budget.update(200, headers);
+
+        RateLimitBudget.Snapshot snapshot = budget.snapshot();
+        assertThat(snapshot.limit()).isEqualTo(30);
+        assertThat(snapshot.remaining()).isEqualTo(10);
+        assertThat(snapshot.resetAt()).isEqualTo(NOW.plusSeconds(120));
+    }
+
+    private static HttpHeaders qiitaHeaders(int limit, int remaining, Instant reset) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Rate-Limit", String.valueOf(limit));
+        headers.set("Rate-Remaining", String.valueOf(remaining));
+        headers.set("Rate-Reset", String.valueOf(reset.getEpochSecond()));
+        return headers;
+    }
+
+    private static class MutableClock extends Clock {
+        private final AtomicReference<Instant> now;
+
+        MutableClock(Instant start) { this.now = new AtomicReference<>(start); }
+
+        void advanceSeconds(long seconds) { now.updateAndGet(i -> i.plusSeconds(seconds)); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now.get(); }
+    }
+}
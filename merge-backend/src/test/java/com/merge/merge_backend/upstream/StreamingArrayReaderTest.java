@@ -0,0 +1,88 @@
+package com.merge.merge_backend.upstream;
+
+import com.merge.merge_backend.dto.DevItem;
+import com.merge.merge_backend.upstream.StreamingArrayReader.Page;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for StreamingArrayReader.
+ * Uses DevItem so the custom tag_list deserializer is exercised on the streaming path too.
+ */
+class StreamingArrayReaderTest {
+
+    private final StreamingArrayReader<DevItem> reader = new StreamingArrayReader<>(DevItem.class);
+
+    @Test
+    void read_keepsOnlyMatchingItemsAndCountsAll() {
+        String json = """
+                [
+                  {"id": 1, "title": "low", "positive_reactions_count": 3, "tag_list": ["java"]},
+                  {"id": 2, "title": "high", "positive_reactions_count": 50, "tag_list": ["java", "spring"],
+                   "unused": {"nested": [1, 2, {"deep": "value"}]}},
+                  null,
+                  {"id": 3, "title": "also high", "positive_reactions_count": 20, "tag_list": "go, web"}
+                ]
+                """;
+
+        Page<DevItem> page = reader.read(stream(json), item -> item.getLikesCount() >= 10);
+
+        assertThat(page.scanned()).isEqualTo(4);
+        assertThat(page.items()).extracting(DevItem::getId).containsExactly("2", "3");
+        assertThat(page.items().get(1).getTagList()).containsExactly("go", "web");
+    }
+
+    @Test
+    void read_withEmptyArray_returnsEmptyPage() {
+        Page<DevItem> page = reader.read(stream("[]"), item -> true);
+
+        assertThat(page.items()).isEmpty();
+        assertThat(page.scanned()).isZero();
+    }
+
+    @Test
+    void exchange_decodesResponseStream() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo("https://dev.to/api/articles?page=1"))
+                .andRespond(withSuccess("[{\"id\": 7, \"title\": \"t\"}]", MediaType.APPLICATION_JSON));
+
+        Page<DevItem> page = reader.exchange(builder.build().get().uri("https://dev.to/api/articles?page=1"),
+                item -> true);
+
+        assertThat(page.items()).extracting(DevItem::getTitle).containsExactly("t");
+        server.verify();
+    }
+
+    @Test
+    void exchange_withErrorStatus_throwsResponseException() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo("https://dev.to/api/articles?page=1"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE).body("down"));
+
+        assertThatThrownBy(() -> reader.exchange(builder.build().get().uri("https://dev.to/api/articles?page=1"),
+                item -> true))
+                .isInstanceOfSatisfying(RestClientResponseException.class, e -> {
+                    assertThat(e.getStatusCode().value()).isEqualTo(503);
+                    assertThat(e.getResponseBodyAsString()).isEqualTo("down");
+                });
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
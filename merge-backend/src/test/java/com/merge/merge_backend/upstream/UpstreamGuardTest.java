@@ -0,0 +1,320 @@
+package com.merge.merge_backend.upstream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for UpstreamGuard.
+ * Sleeps between retries are recorded instead of performed.
+ */
+class UpstreamGuardTest {
+
+    private static final String URL = "https://dev.to/api/articles?page=1";
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-02T00:00:00Z"), ZoneOffset.UTC);
+    private static final UpstreamGuard.Retry RETRY = new UpstreamGuard.Retry(3, Duration.ofMillis(100),
+            Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30));
+
+    private final List<Long> sleeps = new CopyOnWriteArrayList<>();
+
+    @Test
+    void get_with503ThenSuccess_retriesWithBackoff() {
+        UpstreamGuard guard = guard(breaker(), RETRY);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(URL)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        String body = builder.build().get().uri(URL).retrieve().body(String.class);
+
+        assertThat(body).isEqualTo("[]");
+        assertThat(sleeps).hasSize(1);
+        assertThat(sleeps.get(0)).isBetween(0L, 100L);
+        assertThat(guard.snapshot().retries()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void get_with429AndShortRetryAfter_waitsRetryAfter() {
+        UpstreamGuard guard = guard(breaker(), RETRY);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        HttpHeaders retryAfter = new HttpHeaders();
+        retryAfter.set(HttpHeaders.RETRY_AFTER, "2");
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(retryAfter));
+        server.expect(requestTo(URL)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        builder.build().get().uri(URL).retrieve().body(String.class);
+
+        assertThat(sleeps).singleElement().satisfies(ms -> assertThat(ms).isBetween(2000L, 2100L));
+        // 429 はレート制限で、上流の障害としては数えない
+        assertThat(guard.snapshot().breaker().failureRate()).isZero();
+        server.verify();
+    }
+
+    @Test
+    void get_with429AndLongRetryAfter_givesUpImmediately() {
+        UpstreamGuard guard = guard(breaker(), RETRY);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        HttpHeaders retryAfter = new HttpHeaders();
+        retryAfter.set(HttpHeaders.RETRY_AFTER, "60");
+        server.expect(once(), requestTo(URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(retryAfter));
+
+        assertThatThrownBy(() -> builder.build().get().uri(URL).retrieve().body(String.class))
+                .hasMessageContaining("429");
+        assertThat(sleeps).isEmpty();
+        assertThat(guard.snapshot().gaveUp()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void get_withPersistentServerErrors_stopsAfterMaxAttempts() {
+        UpstreamGuard guard = guard(breaker(), RETRY);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        for (int i = 0; i < 3; i++) server.expect(requestTo(URL)).andRespond(withServerError());
+
+        assertThatThrownBy(() -> builder.build().get().uri(URL).retrieve().body(String.class))
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(sleeps).hasSize(2);
+        server.verify();
+    }
+
+    @Test
+    void get_retry_isChargedToRateLimitBudget() {
+        RateLimitBudget budget = budgetWithRemaining(1);
+        UpstreamGuard guard = new UpstreamGuard("dev", CLOCK, breaker(), 8, Duration.ofMillis(250), RETRY, budget, sleeps::add);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(URL)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        builder.build().get().uri(URL).retrieve().body(String.class);
+
+        assertThat(budget.snapshot().remaining()).isZero();
+        assertThat(budget.snapshot().backgroundGranted()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void get_retryWithoutBudget_givesUpInsteadOfRetrying() {
+        RateLimitBudget budget = budgetWithRemaining(0);
+        UpstreamGuard guard = new UpstreamGuard("dev", CLOCK, breaker(), 8, Duration.ofMillis(250), RETRY, budget, sleeps::add);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(once(), requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThatThrownBy(() -> builder.build().get().uri(URL).retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("budget");
+        assertThat(guard.snapshot().gaveUp()).isEqualTo(1);
+        assertThat(budget.snapshot().backgroundDenied()).isEqualTo(1);
+        assertThat(guard.snapshot().active()).isZero();
+        server.verify();
+    }
+
+    @Test
+    void post_isNotRetried() {
+        UpstreamGuard guard = guard(breaker(), RETRY);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(once(), requestTo(URL)).andExpect(method(HttpMethod.POST)).andRespond(withServerError());
+
+        assertThatThrownBy(() -> builder.build().post().uri(URL).retrieve().body(String.class))
+                .isInstanceOf(HttpServerErrorException.class);
+        assertThat(sleeps).isEmpty();
+        server.verify();
+    }
+
+    @Test
+    void openBreaker_shortCircuitsWithoutCallingUpstream() {
+        CircuitBreaker breaker = new CircuitBreaker(CLOCK, 2, 2, 0.5, Duration.ofSeconds(30), 1);
+        UpstreamGuard guard = guard(breaker, UpstreamGuard.Retry.NONE);
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(guard);
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(URL)).andRespond(withServerError());
+        server.expect(requestTo(URL)).andRespond(withServerError());
+        RestClient restClient = builder.build();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> restClient.get().uri(URL).retrieve().body(String.class))
+                    .isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThatThrownBy(() -> restClient.get().uri(URL).retrieve().body(String.class))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class);
+
+        assertThat(guard.isAvailable()).isFalse();
+        assertThat(guard.snapshot().shortCircuited()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void call_whenBulkheadFull_rejectsFast() throws Exception {
+        UpstreamGuard guard = new UpstreamGuard("dev", CLOCK, breaker(), 1, Duration.ofMillis(10),
+                UpstreamGuard.Retry.NONE);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                guard.call(() -> {
+                    entered.countDown();
+                    release.await();
+                    return 200;
+                }, status -> status);
+            } catch (Exception ignored) {
+                // テスト用のスレッド
+            }
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> guard.call(() -> 200, status -> status))
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("bulkhead");
+
+        release.countDown();
+        holder.join();
+        assertThat(guard.snapshot().rejected()).isEqualTo(1);
+        assertThat(guard.snapshot().peakActive()).isEqualTo(1);
+        assertThat(guard.snapshot().active()).isZero();
+    }
+
+    @Test
+    void call_interruptedHedgeLoserInHalfOpen_returnsTrialPermit() throws Exception {
+        // openDuration 0 なので、開いたらすぐ half-open（試行枠 2）になる
+        CircuitBreaker breaker = new CircuitBreaker(CLOCK, 2, 2, 0.5, Duration.ZERO, 2);
+        breaker.onFailure();
+        breaker.onFailure();
+        UpstreamGuard guard = guard(breaker, UpstreamGuard.Retry.NONE);
+        Hedger hedger = new Hedger("dev", 95, Duration.ofMillis(20), 1.0, 5, 50);
+        for (int i = 0; i < 5; i++) hedger.call(() -> "warm", () -> true);
+        CountDownLatch loserDone = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        int status = hedger.call(() -> {
+            if (attempts.incrementAndGet() > 1) return guard.call(() -> 200, s -> s);
+            try {
+                return guard.call(() -> {
+                    Thread.sleep(10_000);
+                    return 200;
+                }, s -> s);
+            } finally {
+                loserDone.countDown();
+            }
+        }, guard::isAvailable);
+
+        assertThat(status).isEqualTo(200);
+        assertThat(loserDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(guard.isAvailable()).isTrue();
+
+        guard.call(() -> 200, s -> s);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void intercept_holdsBulkheadSlotUntilBodyIsRead() throws Exception {
+        UpstreamGuard guard = new UpstreamGuard("dev", CLOCK, breaker(), 1, Duration.ofMillis(10),
+                UpstreamGuard.Retry.NONE);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create(URL));
+        ClientHttpResponse response = guard.intercept(request, new byte[0], (req, body) ->
+                new MockClientHttpResponse(new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)), HttpStatus.OK));
+
+        // ヘッダが返っただけでは枠は空かない
+        assertThat(guard.snapshot().active()).isEqualTo(1);
+        assertThatThrownBy(() -> guard.call(() -> 200, status -> status))
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("bulkhead");
+
+        assertThat(response.getBody().readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("[]");
+        assertThat(guard.snapshot().active()).isZero();
+        response.close();
+        assertThat(guard.snapshot().active()).isZero();
+        assertThat(guard.snapshot().breaker().failureRate()).isZero();
+    }
+
+    @Test
+    void intercept_bodyTimeout_countsAsBreakerFailure() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(CLOCK, 2, 2, 0.5, Duration.ofSeconds(30), 1);
+        UpstreamGuard guard = guard(breaker, UpstreamGuard.Retry.NONE);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create(URL));
+
+        for (int i = 0; i < 2; i++) {
+            ClientHttpResponse response = guard.intercept(request, new byte[0], (req, body) ->
+                    new MockClientHttpResponse(timingOutBody(), HttpStatus.OK));
+            assertThatThrownBy(() -> response.getBody().readAllBytes()).isInstanceOf(HttpTimeoutException.class);
+            response.close();
+        }
+
+        assertThat(guard.snapshot().active()).isZero();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    /** 数バイト返したあと、JDK クライアントの読み取りタイムアウトと同じ例外を投げる本文 */
+    static InputStream timingOutBody() {
+        return new InputStream() {
+            private int left = 4;
+
+            @Override
+            public int read() throws IOException {
+                if (left-- > 0) return '[';
+                throw new HttpTimeoutException("request timed out");
+            }
+        };
+    }
+
+    /** 上流が limit 10 / remaining n と知らせてきた後の予算。予備枠なしで、再試行 (background) も n 回まで */
+    private static RateLimitBudget budgetWithRemaining(int remaining) {
+        RateLimitBudget budget = new RateLimitBudget("dev", CLOCK, 0.0, 0.25);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Rate-Limit", "10");
+        headers.set("Rate-Remaining", String.valueOf(remaining));
+        budget.update(200, headers);
+        return budget;
+    }
+
+    private UpstreamGuard guard(CircuitBreaker breaker, UpstreamGuard.Retry retry) {
+        return new UpstreamGuard("dev", CLOCK, breaker, 8, Duration.ofMillis(250), retry, sleeps::add);
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker(CLOCK, 20, 10, 0.5, Duration.ofSeconds(30), 3);
+    }
+}
@@ -0,0 +1,113 @@
+package com.merge.merge_backend.upstream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for UpstreamMetrics and UpstreamMetricsInterceptor.
+ */
+class UpstreamMetricsTest {
+
+    private final UpstreamMetrics metrics = new UpstreamMetrics("qiita");
+
+    @Test
+    void completedAndFailed_countByOutcome() {
+        metrics.completed(metrics.started(), 200);
+        metrics.completed(metrics.started(), 404);
+        metrics.completed(metrics.started(), 503);
+        metrics.failed(metrics.started(), new RuntimeException(new HttpTimeoutException("request timed out")));
+
+        UpstreamMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.requests()).isEqualTo(4);
+        assertThat(snapshot.successes()).isEqualTo(1);
+        assertThat(snapshot.clientErrors()).isEqualTo(1);
+        assertThat(snapshot.serverErrors()).isEqualTo(1);
+        assertThat(snapshot.failures()).isEqualTo(1);
+        assertThat(snapshot.timeouts()).isEqualTo(1);
+        assertThat(snapshot.inFlight()).isZero();
+    }
+
+    @Test
+    void started_tracksPeakInFlight() {
+        long first = metrics.started();
+        long second = metrics.started();
+        metrics.completed(first, 200);
+        metrics.completed(second, 200);
+
+        assertThat(metrics.snapshot().peakInFlight()).isEqualTo(2);
+        assertThat(metrics.snapshot().inFlight()).isZero();
+    }
+
+    @Test
+    void percentileMillis_reportsBucketUpperBound() {
+        long now = System.nanoTime();
+        // 9 件は 5ms 以内、1 件は 300ms 前に開始
+        for (int i = 0; i < 9; i++) metrics.completed(metrics.started(), 200);
+        metrics.started();
+        metrics.completed(now - 300_000_000L, 200);
+
+        assertThat(metrics.percentileMillis(50)).isEqualTo(5);
+        assertThat(metrics.percentileMillis(99)).isEqualTo(500);
+    }
+
+    @Test
+    void percentileMillis_withoutSamples_isZero() {
+        assertThat(metrics.percentileMillis(95)).isZero();
+    }
+
+    @Test
+    void interceptor_recordsEveryExchange() {
+        RestClient.Builder builder = RestClient.builder().requestInterceptor(new UpstreamMetricsInterceptor(metrics));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo("https://qiita.com/api/v2/items"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("https://qiita.com/api/v2/items"))
+                .andRespond(withServerError());
+        RestClient restClient = builder.build();
+
+        restClient.get().uri("https://qiita.com/api/v2/items").retrieve().body(String.class);
+        assertThatThrownBy(() -> restClient.get().uri("https://qiita.com/api/v2/items").retrieve().body(String.class))
+                .isInstanceOf(HttpServerErrorException.class);
+
+        UpstreamMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.successes()).isEqualTo(1);
+        assertThat(snapshot.serverErrors()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void interceptor_bodyTimeout_countsAsTimeoutNotSuccess() throws Exception {
+        UpstreamMetricsInterceptor interceptor = new UpstreamMetricsInterceptor(metrics);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("https://qiita.com/api/v2/items"));
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, body) ->
+                new MockClientHttpResponse(UpstreamGuardTest.timingOutBody(), HttpStatus.OK));
+        // ヘッダの時点ではまだ進行中
+        assertThat(metrics.snapshot().inFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> response.getBody().readAllBytes()).isInstanceOf(HttpTimeoutException.class);
+        response.close();
+
+        UpstreamMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.successes()).isZero();
+        assertThat(snapshot.failures()).isEqualTo(1);
+        assertThat(snapshot.timeouts()).isEqualTo(1);
+        assertThat(snapshot.inFlight()).isZero();
+    }
+}
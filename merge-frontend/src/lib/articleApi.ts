@@ -8,8 +8,8 @@ import type { Article } from '../types/article';
 export async function fetchArticleDetail(article: Article): Promise<Article> {
   if (!article.id || article.rendered_body || article.body_html) return article;
 
-  // id が数値 → Qiita 記事として詳細取得
-  if (typeof article.id === 'number') {
+  // 一覧 API は本文を返さないので、URL でソースを判定して詳細を取りに行く
+  if (article.url?.includes('qiita.com')) {
     try {
       const res = await fetch(`${API_BASE}/qiita/article/${article.id}`);
       if (res.ok && res.headers.get('content-length') !== '0') {
@@ -22,7 +22,8 @@ export async function fetchArticleDetail(article: Article): Promise<Article> {
     return article;
   }
 
-  // id が文字列 → Dev.to 記事として詳細取得
+  if (!article.url?.includes('dev.to')) return article;
+
   try {
     const res = await fetch(`${API_BASE}/dev/article/${article.id}`);
     if (res.ok) {
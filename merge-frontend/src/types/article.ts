@@ -66,8 +66,9 @@ export interface Article {
   title: string;
 
   // 本文 HTML（ソースによってフィールド名が異なる）
-  rendered_body?: string;   // DB / Qiita
+  rendered_body?: string;   // DB / Qiita（Qiita の一覧では fields=body 指定時のみ）
   body_html?: string;       // Dev.to
+  excerpt?: string;         // Qiita 一覧の本文抜粋
 
   // カバー画像
   cover_image?: string;